@@ -220,7 +220,7 @@ android.view.View.OnClickListener {
 	 */
 	protected void onStart(){
 		super.onStart();
-
+		PersonalNetwork.getInstance(this).stopMaintenance();
 	}
 
 	@Override
@@ -230,6 +230,9 @@ android.view.View.OnClickListener {
 	 */
 	protected void onStop(){
 		super.onStop();
+		PersonalNetwork.getInstance(this).flushProperties();
+		//clean up the database while the user is not interacting with the app
+		PersonalNetwork.getInstance(this).startMaintenance();
 	}
 
 	/*
@@ -126,7 +126,6 @@ public class ImportContentProviderData {
 				importDataForAlterByName(activity, pair.first);
 				nameAttrPairs.remove(position);
 				adapter.notifyDataSetChanged();
-				activity.updatePersonalNetworkViews();
 			}
 		});
 
@@ -178,6 +177,9 @@ public class ImportContentProviderData {
 	 * Adds Android contact information to the given alter.
 	 * 
 	 * Adds the alter to the personal network if not already in.
+	 * 
+	 * All changes are made in one batch (see PersonalNetwork.batch()) so that the views are
+	 * updated once at the end.
 	 *  
 	 * @param activity
 	 * @param alterDisplayName must be identical to the contact display name in the Android system 
@@ -188,6 +190,17 @@ public class ImportContentProviderData {
 			return;
 		alterDisplayName = alterDisplayName.trim();
 		PersonalNetwork network = PersonalNetwork.getInstance(activity);
+		PersonalNetwork.Batch batch = network.batch();
+		try {
+			importDataForAlterByName(activity, network, alterDisplayName);
+			batch.commit();
+		} finally {
+			batch.end();
+		}
+	}
+
+	private static void importDataForAlterByName(SCCMainActivity activity, PersonalNetwork network, 
+			String alterDisplayName){
 		if(!network.hasAlterAt(TimeInterval.getCurrentTimePoint(), alterDisplayName))
 			network.addToLifetimeOfAlter(TimeInterval.getRightUnboundedFromNow(), alterDisplayName);
 		Uri contactUri = ContactsContract.Contacts.CONTENT_URI;
@@ -109,42 +109,42 @@ public class Alter extends Element {
 
 	@Override
 	protected String getElementSelectionString() {
-		return PersonalNetwork.ALTERS_COL_NAME + " = ? ";
+		return PersonalNetwork.ALTERS_COL_ID + " = ? ";
 	}
 
 	@Override
-	protected String[] getElementSelectionArgs() {
-		return new String[]{name};
+	protected String[] getElementSelectionArgs(AlterDictionary alters) {
+		return new String[]{Long.toString(alters.getID(name))};
 	}
 
 	@Override
 	protected String getAttributeElementSelectionString() {
 		return PersonalNetwork.ATTRIBUTES_COL_NAME + " = ? AND " + 
-				PersonalNetwork.ALTERS_COL_NAME + " = ? ";
+				PersonalNetwork.ALTERS_COL_ID + " = ? ";
 	}
 
 	@Override
-	protected String[] getAttributeElementSelectionArgs(String attributeName) {
-		return new String[]{attributeName, name};
+	protected String[] getAttributeElementSelectionArgs(String attributeName, AlterDictionary alters) {
+		return new String[]{attributeName, Long.toString(alters.getID(name))};
 	}
 
 	@Override
 	protected ContentValues getAttributeElementContentValues(
-			String attributeName) {
+			String attributeName, AlterDictionary alters) {
 		ContentValues contentValues = new ContentValues();
 		contentValues.put(PersonalNetwork.ATTRIBUTES_COL_NAME, attributeName);
-		contentValues.put(PersonalNetwork.ALTERS_COL_NAME, name);
+		contentValues.put(PersonalNetwork.ALTERS_COL_ID, alters.getID(name));
 		return contentValues;
 	}
 
 	@Override
-	protected Alter getInstanceFromCursor(Cursor c) {
-		return getInstance(c.getString(c.getColumnIndexOrThrow(PersonalNetwork.ALTERS_COL_NAME)));
+	protected Alter getInstanceFromCursor(Cursor c, AlterDictionary alters) {
+		return getInstance(alters.getName(c.getLong(c.getColumnIndexOrThrow(PersonalNetwork.ALTERS_COL_ID))));
 	}
 
 	@Override
 	protected String[] getElementColumnNames() {
-		return new String[]{PersonalNetwork.ALTERS_COL_NAME};
+		return new String[]{PersonalNetwork.ALTERS_COL_ID};
 	}
 
 }
@@ -132,8 +132,8 @@ public class AlterAlterDyad extends Element {
 	}
 
 	@Override
-	protected String[] getElementSelectionArgs() {
-		return new String[]{sourceName, targetName};
+	protected String[] getElementSelectionArgs(AlterDictionary alters) {
+		return new String[]{Long.toString(alters.getID(sourceName)), Long.toString(alters.getID(targetName))};
 	}
 
 	@Override
@@ -144,17 +144,18 @@ public class AlterAlterDyad extends Element {
 	}
 
 	@Override
-	protected String[] getAttributeElementSelectionArgs(String attributeName) {
-		return new String[]{attributeName, sourceName, targetName};
+	protected String[] getAttributeElementSelectionArgs(String attributeName, AlterDictionary alters) {
+		return new String[]{attributeName, Long.toString(alters.getID(sourceName)), 
+				Long.toString(alters.getID(targetName))};
 	}
 
 	@Override
 	protected ContentValues getAttributeElementContentValues(
-			String attributeName) {
+			String attributeName, AlterDictionary alters) {
 		ContentValues contentValues = new ContentValues();
 		contentValues.put(PersonalNetwork.ATTRIBUTES_COL_NAME, attributeName);
-		contentValues.put(PersonalNetwork.DYADS_COL_SOURCE, sourceName);
-		contentValues.put(PersonalNetwork.DYADS_COL_TARGET, targetName);
+		contentValues.put(PersonalNetwork.DYADS_COL_SOURCE, alters.getID(sourceName));
+		contentValues.put(PersonalNetwork.DYADS_COL_TARGET, alters.getID(targetName));
 		return contentValues;
 	}
 
@@ -164,9 +165,9 @@ public class AlterAlterDyad extends Element {
 	}
 
 	@Override
-	protected AlterAlterDyad getInstanceFromCursor(Cursor c) {
-		return getInstance(c.getString(c.getColumnIndexOrThrow(PersonalNetwork.DYADS_COL_SOURCE)), 
-				c.getString(c.getColumnIndexOrThrow(PersonalNetwork.DYADS_COL_SOURCE)));
+	protected AlterAlterDyad getInstanceFromCursor(Cursor c, AlterDictionary alters) {
+		return getInstance(alters.getName(c.getLong(c.getColumnIndexOrThrow(PersonalNetwork.DYADS_COL_SOURCE))), 
+				alters.getName(c.getLong(c.getColumnIndexOrThrow(PersonalNetwork.DYADS_COL_TARGET))));
 	}
 
 }
@@ -0,0 +1,76 @@
+/**
+ *
+ */
+package net.egosmart.scc.data;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+/**
+ * In-memory copy of the alters table of the PersonalNetwork mapping alter names to the
+ * integer ids that identify alters in all other tables and vice versa.
+ *
+ * PersonalNetwork fills the dictionary once from the database and keeps it up to date
+ * whenever alters are added or renamed.
+ *
+ * @author juergen
+ *
+ */
+class AlterDictionary {
+
+	/**
+	 * Id returned for unknown names; no alter has this id.
+	 */
+	static final long NO_ID = -1;
+
+	private LinkedHashMap<String, Long> idsByName;
+	private HashMap<Long, String> namesById;
+
+	AlterDictionary(){
+		idsByName = new LinkedHashMap<String, Long>();
+		namesById = new HashMap<Long, String>();
+	}
+
+	void put(long alterID, String alterName){
+		idsByName.put(alterName, alterID);
+		namesById.put(alterID, alterName);
+	}
+
+	void rename(String oldName, String newName){
+		Long alterID = idsByName.remove(oldName);
+		if(alterID == null)
+			return;
+		put(alterID, newName);
+	}
+
+	boolean contains(String alterName){
+		return alterName != null && idsByName.containsKey(alterName);
+	}
+
+	/**
+	 * Returns the id of the alter or NO_ID if the name is unknown.
+	 */
+	long getID(String alterName){
+		if(alterName == null)
+			return NO_ID;
+		Long alterID = idsByName.get(alterName);
+		if(alterID == null)
+			return NO_ID;
+		return alterID;
+	}
+
+	/**
+	 * Returns the name of the alter or null if the id is unknown.
+	 */
+	String getName(long alterID){
+		return namesById.get(alterID);
+	}
+
+	/**
+	 * Returns the names of all alters in the order in which they have been put.
+	 */
+	Set<String> getNames(){
+		return idsByName.keySet();
+	}
+}
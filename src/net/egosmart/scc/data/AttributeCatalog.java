@@ -0,0 +1,224 @@
+/**
+ *
+ */
+package net.egosmart.scc.data;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.TreeMap;
+
+/**
+ * In-memory copy of the attribute names and choices tables of the PersonalNetwork (for the
+ * domains ego, alter, ego-alter, and alter-alter) holding the description, value type,
+ * dynamic type, direction type, and allowed choices of every attribute.
+ *
+ * PersonalNetwork fills the catalog once from the database and keeps it up to date whenever
+ * attributes are added, changed, or erased, so that the properties of attributes are never
+ * read from the database when values are set or read.
+ *
+ * Names and choices are ordered alphabetically (as they were returned by the queries before).
+ *
+ * The catalog also maps the choices of attributes of type FINITE_CHOICE to the codes that are stored
+ * in the values tables instead of the choices (and back). Codes are unique within the choices table of
+ * a domain.
+ *
+ * @author juergen
+ *
+ */
+class AttributeCatalog {
+
+	/*
+	 * Properties of one attribute.
+	 */
+	private static class Attribute {
+
+		private String description;
+		private int valueType;
+		private String dynamicType;
+		private String directionType;
+		private TreeMap<String, Long> choices;
+
+		private Attribute(String description, int valueType, String dynamicType, String directionType){
+			this.description = description;
+			this.valueType = valueType;
+			this.dynamicType = dynamicType;
+			this.directionType = directionType;
+			choices = new TreeMap<String, Long>();
+		}
+	}
+
+	private HashMap<String, TreeMap<String, Attribute>> attributesByDomain;
+	private HashMap<String, HashMap<Long, String>> choicesByCode;
+	//largest code used per domain
+	private HashMap<String, Long> maxChoiceCodes;
+
+	AttributeCatalog(){
+		attributesByDomain = new HashMap<String, TreeMap<String, Attribute>>();
+		choicesByCode = new HashMap<String, HashMap<Long, String>>();
+		maxChoiceCodes = new HashMap<String, Long>();
+	}
+
+	/**
+	 * Adds the attribute (or replaces the properties of an attribute with the same name)
+	 * without choices. The value type is -1 if it is unknown.
+	 */
+	void putAttribute(String domain, String attributeName, String description, int valueType,
+			String dynamicType, String directionType){
+		TreeMap<String, Attribute> attributes = attributesByDomain.get(domain);
+		if(attributes == null){
+			attributes = new TreeMap<String, Attribute>();
+			attributesByDomain.put(domain, attributes);
+		}
+		attributes.put(attributeName, new Attribute(description, valueType, dynamicType, directionType));
+	}
+
+	void removeAttribute(String domain, String attributeName){
+		removeChoices(domain, attributeName);
+		TreeMap<String, Attribute> attributes = attributesByDomain.get(domain);
+		if(attributes != null)
+			attributes.remove(attributeName);
+	}
+
+	boolean hasAttribute(String domain, String attributeName){
+		return getAttribute(domain, attributeName) != null;
+	}
+
+	/**
+	 * Returns the names of all attributes of the domain (including system attributes).
+	 */
+	LinkedHashSet<String> getAttributeNames(String domain){
+		TreeMap<String, Attribute> attributes = attributesByDomain.get(domain);
+		if(attributes == null)
+			return new LinkedHashSet<String>();
+		return new LinkedHashSet<String>(attributes.keySet());
+	}
+
+	/**
+	 * Returns the description or null if there is no such attribute.
+	 */
+	String getDescription(String domain, String attributeName){
+		Attribute attribute = getAttribute(domain, attributeName);
+		return attribute == null ? null : attribute.description;
+	}
+
+	void setDescription(String domain, String attributeName, String description){
+		Attribute attribute = getAttribute(domain, attributeName);
+		if(attribute != null)
+			attribute.description = description;
+	}
+
+	/**
+	 * Returns the value type or -1 if there is no such attribute.
+	 */
+	int getValueType(String domain, String attributeName){
+		Attribute attribute = getAttribute(domain, attributeName);
+		return attribute == null ? -1 : attribute.valueType;
+	}
+
+	void setValueType(String domain, String attributeName, int valueType){
+		Attribute attribute = getAttribute(domain, attributeName);
+		if(attribute != null)
+			attribute.valueType = valueType;
+	}
+
+	/**
+	 * Returns the dynamic type or null if there is no such attribute.
+	 */
+	String getDynamicType(String domain, String attributeName){
+		Attribute attribute = getAttribute(domain, attributeName);
+		return attribute == null ? null : attribute.dynamicType;
+	}
+
+	/**
+	 * Returns the direction type or null if there is no such attribute or if it has no direction type.
+	 */
+	String getDirectionType(String domain, String attributeName){
+		Attribute attribute = getAttribute(domain, attributeName);
+		return attribute == null ? null : attribute.directionType;
+	}
+
+	boolean hasChoice(String domain, String attributeName, String choice){
+		Attribute attribute = getAttribute(domain, attributeName);
+		return attribute != null && choice != null && attribute.choices.containsKey(choice);
+	}
+
+	/**
+	 * Returns a copy of the choices of the attribute (empty if there is no such attribute).
+	 */
+	LinkedHashSet<String> getChoices(String domain, String attributeName){
+		Attribute attribute = getAttribute(domain, attributeName);
+		if(attribute == null)
+			return new LinkedHashSet<String>();
+		return new LinkedHashSet<String>(attribute.choices.keySet());
+	}
+
+	/**
+	 * Returns the code of the choice or -1 if it is not a choice of the attribute.
+	 */
+	long getChoiceCode(String domain, String attributeName, String choice){
+		Attribute attribute = getAttribute(domain, attributeName);
+		if(attribute == null || choice == null)
+			return -1;
+		Long code = attribute.choices.get(choice);
+		return code == null ? -1 : code.longValue();
+	}
+
+	/**
+	 * Returns the choice with the given code or null if there is no such choice in the domain.
+	 */
+	String getChoice(String domain, long code){
+		HashMap<Long, String> choices = choicesByCode.get(domain);
+		return choices == null ? null : choices.get(code);
+	}
+
+	/**
+	 * Returns a code that is not used by any choice of the domain.
+	 */
+	long getUnusedChoiceCode(String domain){
+		Long max = maxChoiceCodes.get(domain);
+		long code = max == null ? 1 : max.longValue() + 1;
+		maxChoiceCodes.put(domain, code);
+		return code;
+	}
+
+	/**
+	 * Adds the choice with the given code to the choices of the attribute.
+	 */
+	void putChoice(String domain, String attributeName, String choice, long code){
+		Attribute attribute = getAttribute(domain, attributeName);
+		if(attribute == null || choice == null)
+			return;
+		attribute.choices.put(choice, code);
+		HashMap<Long, String> choices = choicesByCode.get(domain);
+		if(choices == null){
+			choices = new HashMap<Long, String>();
+			choicesByCode.put(domain, choices);
+		}
+		choices.put(code, choice);
+		Long max = maxChoiceCodes.get(domain);
+		if(max == null || max.longValue() < code)
+			maxChoiceCodes.put(domain, code);
+	}
+
+	/**
+	 * Removes all choices of the attribute.
+	 */
+	void removeChoices(String domain, String attributeName){
+		Attribute attribute = getAttribute(domain, attributeName);
+		if(attribute == null)
+			return;
+		HashMap<Long, String> choices = choicesByCode.get(domain);
+		if(choices != null)
+			choices.keySet().removeAll(attribute.choices.values());
+		attribute.choices.clear();
+	}
+
+	private Attribute getAttribute(String domain, String attributeName){
+		if(attributeName == null)
+			return null;
+		TreeMap<String, Attribute> attributes = attributesByDomain.get(domain);
+		if(attributes == null)
+			return null;
+		return attributes.get(attributeName);
+	}
+}
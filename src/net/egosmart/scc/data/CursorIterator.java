@@ -0,0 +1,79 @@
+/**
+ *
+ */
+package net.egosmart.scc.data;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import android.database.Cursor;
+
+/**
+ * Iterator over the elements read from the rows of a database cursor.
+ *
+ * Unlike the methods of PersonalNetwork returning sets or maps, the iterator creates the elements
+ * one by one while the cursor is read, so that the memory needed does not grow with the number of
+ * elements. The cursor is closed when the last element has been returned; an iterator that is
+ * not iterated to the end must be closed explicitly:
+ *
+ * CursorIterator&lt;String&gt; it = network.iterateAltersAt(interval);
+ * try {
+ *   while(it.hasNext()){
+ *     ... (use it.next())
+ *   }
+ * } finally {
+ *   it.close();
+ * }
+ *
+ * The network must not be changed while the iterator is open.
+ *
+ * @author juergen
+ *
+ */
+public abstract class CursorIterator<E> implements Iterator<E>, Closeable {
+
+	private Cursor cursor;
+
+	CursorIterator(Cursor cursor){
+		this.cursor = cursor;
+		cursor.moveToFirst();
+	}
+
+	/**
+	 * Reads the element at the current position of the cursor and moves the cursor to the first
+	 * row of the next element.
+	 */
+	protected abstract E read(Cursor cursor);
+
+	@Override
+	public boolean hasNext() {
+		if(cursor.isClosed())
+			return false;
+		if(cursor.isAfterLast()){
+			cursor.close();
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public E next() {
+		if(!hasNext())
+			throw new NoSuchElementException();
+		return read(cursor);
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Closes the underlying cursor; afterwards the iterator has no further elements.
+	 */
+	@Override
+	public void close() {
+		cursor.close();
+	}
+}
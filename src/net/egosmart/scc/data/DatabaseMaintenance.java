@@ -0,0 +1,104 @@
+/**
+ *
+ */
+package net.egosmart.scc.data;
+
+import android.os.AsyncTask;
+
+/**
+ * Background task cleaning up the database of the PersonalNetwork. It runs three jobs one
+ * after the other:
+ *
+ * (1) deleting the values of secondary attributes whose datum id does not belong to any history
+ *     or value row,
+ * (2) merging contiguous intervals with equal values of the same attribute and element, and
+ * (3) returning free pages of the database file to the file system (incremental vacuum; small
+ *     files that do not use incremental auto-vacuum yet are switched to it, larger ones are skipped).
+ *
+ * Each job works in slices: every slice touches a bounded number of rows or pages in its own
+ * transaction, so that the database is never locked for long, and the task pauses between
+ * slices. The task stops after the current slice when it is cancelled.
+ *
+ * Is started and stopped by PersonalNetwork.startMaintenance and PersonalNetwork.stopMaintenance.
+ *
+ * @author juergen
+ *
+ */
+class DatabaseMaintenance extends AsyncTask<Void, Void, MaintenanceReport> {
+
+	//maximal number of rows checked in one slice
+	private static final int ROWS_PER_SLICE = 256;
+	//maximal number of pages freed in one slice
+	private static final int PAGES_PER_SLICE = 64;
+	//pause between two slices (in milliseconds) in which other threads can access the database
+	private static final long PAUSE_BETWEEN_SLICES = 50;
+
+	private static final String[] DOMAINS = {
+		PersonalNetwork.DOMAIN_EGO,
+		PersonalNetwork.DOMAIN_ALTER,
+		PersonalNetwork.DOMAIN_EGO_ALTER,
+		PersonalNetwork.DOMAIN_ALTER_ALTER
+	};
+
+	private PersonalNetwork network;
+	private MaintenanceReport report;
+
+	DatabaseMaintenance(PersonalNetwork network){
+		this.network = network;
+		report = new MaintenanceReport();
+	}
+
+	@Override
+	protected MaintenanceReport doInBackground(Void... params) {
+		//(1) unreachable secondary data
+		long position = 0;
+		while(position >= 0){
+			if(!pause())
+				return report;
+			position = network.deleteUnreachableSecondaryAttributeValues(position, ROWS_PER_SLICE, report);
+		}
+		//(2) fragmented attribute values
+		for(String domain : DOMAINS){
+			position = 0;
+			while(position >= 0){
+				if(!pause())
+					return report;
+				position = network.coalesceAttributeValues(domain, position, ROWS_PER_SLICE, report);
+			}
+		}
+		//(3) free pages
+		long reclaimedBytes = 1;
+		while(reclaimedBytes > 0){
+			if(!pause())
+				return report;
+			reclaimedBytes = network.vacuumIncrementally(PAGES_PER_SLICE, report);
+			report.addReclaimedBytes(reclaimedBytes);
+		}
+		report.setComplete();
+		return report;
+	}
+
+	@Override
+	protected void onPostExecute(MaintenanceReport report){
+		network.maintenanceFinished(this, report);
+	}
+
+	@Override
+	protected void onCancelled(MaintenanceReport report){
+		network.maintenanceFinished(this, this.report);
+	}
+
+	/*
+	 * Sleeps between two slices. Returns false if the task has been cancelled.
+	 */
+	private boolean pause(){
+		if(isCancelled())
+			return false;
+		try {
+			Thread.sleep(PAUSE_BETWEEN_SLICES);
+		} catch (InterruptedException e) {
+			return false;
+		}
+		return !isCancelled();
+	}
+}
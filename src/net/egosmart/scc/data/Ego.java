@@ -92,7 +92,7 @@ public class Ego extends Element {
 	}
 
 	@Override
-	protected String[] getElementSelectionArgs() {
+	protected String[] getElementSelectionArgs(AlterDictionary alters) {
 		return new String[0];
 	}
 
@@ -102,13 +102,13 @@ public class Ego extends Element {
 	}
 
 	@Override
-	protected String[] getAttributeElementSelectionArgs(String attributeName) {
+	protected String[] getAttributeElementSelectionArgs(String attributeName, AlterDictionary alters) {
 		return new String[]{attributeName};
 	}
 
 	@Override
 	protected ContentValues getAttributeElementContentValues(
-			String attributeName) {
+			String attributeName, AlterDictionary alters) {
 		ContentValues contentValues = new ContentValues();
 		contentValues.put(PersonalNetwork.ATTRIBUTES_COL_NAME, attributeName);
 		return contentValues;
@@ -120,7 +120,7 @@ public class Ego extends Element {
 	}
 
 	@Override
-	protected Ego getInstanceFromCursor(Cursor c) {
+	protected Ego getInstanceFromCursor(Cursor c, AlterDictionary alters) {
 		return getInstance();
 	}
 
@@ -164,46 +164,46 @@ public class EgoAlterDyad extends Element {
 
 	@Override
 	protected String getElementSelectionString() {
-		return PersonalNetwork.ALTERS_COL_NAME + " = ? AND " +
+		return PersonalNetwork.ALTERS_COL_ID + " = ? AND " +
 				PersonalNetwork.ATTRIBUTES_COL_DIRECTION_TYPE + " = ? ";
 	}
 
 	@Override
-	protected String[] getElementSelectionArgs() {
-		return new String[]{alterName, direction};
+	protected String[] getElementSelectionArgs(AlterDictionary alters) {
+		return new String[]{Long.toString(alters.getID(alterName)), direction};
 	}
 
 	@Override
 	protected String getAttributeElementSelectionString() {
 		return PersonalNetwork.ATTRIBUTES_COL_NAME + " = ? AND " + 
-				PersonalNetwork.ALTERS_COL_NAME + " = ? AND " +
+				PersonalNetwork.ALTERS_COL_ID + " = ? AND " +
 				PersonalNetwork.ATTRIBUTES_COL_DIRECTION_TYPE + " = ? ";
 	}
 
 	@Override
-	protected String[] getAttributeElementSelectionArgs(String attributeName) {
-		return new String[]{attributeName, alterName, direction};
+	protected String[] getAttributeElementSelectionArgs(String attributeName, AlterDictionary alters) {
+		return new String[]{attributeName, Long.toString(alters.getID(alterName)), direction};
 	}
 
 	@Override
 	protected ContentValues getAttributeElementContentValues(
-			String attributeName) {
+			String attributeName, AlterDictionary alters) {
 		ContentValues contentValues = new ContentValues();
 		contentValues.put(PersonalNetwork.ATTRIBUTES_COL_NAME, attributeName);
-		contentValues.put(PersonalNetwork.ALTERS_COL_NAME, alterName);
+		contentValues.put(PersonalNetwork.ALTERS_COL_ID, alters.getID(alterName));
 		contentValues.put(PersonalNetwork.ATTRIBUTES_COL_DIRECTION_TYPE, direction);
 		return contentValues;
 	}
 
 	@Override
 	protected String[] getElementColumnNames() {
-		return new String[]{PersonalNetwork.ALTERS_COL_NAME, 
+		return new String[]{PersonalNetwork.ALTERS_COL_ID, 
 				PersonalNetwork.ATTRIBUTES_COL_DIRECTION_TYPE};
 	}
 
 	@Override
-	protected EgoAlterDyad getInstanceFromCursor(Cursor c) {
-		return new EgoAlterDyad(c.getString(c.getColumnIndexOrThrow(PersonalNetwork.ALTERS_COL_NAME)), 
+	protected EgoAlterDyad getInstanceFromCursor(Cursor c, AlterDictionary alters) {
+		return new EgoAlterDyad(alters.getName(c.getLong(c.getColumnIndexOrThrow(PersonalNetwork.ALTERS_COL_ID))), 
 				c.getString(c.getColumnIndexOrThrow(PersonalNetwork.ATTRIBUTES_COL_DIRECTION_TYPE)));
 	}
 
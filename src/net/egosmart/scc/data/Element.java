@@ -91,9 +91,10 @@ public abstract class Element implements Comparable<Element> {
 	 * Returns a concrete subtype instantiated from the values of the cursor at its current position.
 	 * 
 	 * @param c
+	 * @param alters maps the alter ids in the cursor to alter names
 	 * @return
 	 */
-	protected abstract Element getInstanceFromCursor(Cursor c);
+	protected abstract Element getInstanceFromCursor(Cursor c, AlterDictionary alters);
 	
 	/**
 	 * Returns a String (to be supplemented by selection arguments) that can be used
@@ -107,9 +108,10 @@ public abstract class Element implements Comparable<Element> {
 	 * Returns a String array of arguments that can be used together with the selection string
 	 * in a database query to identify the rows in the attributes value table
 	 * where the values of this element are stored for any attribute. 
+	 * @param alters maps alter names to the alter ids stored in the table
 	 * @return
 	 */
-	protected abstract String[] getElementSelectionArgs();
+	protected abstract String[] getElementSelectionArgs(AlterDictionary alters);
 	
 	/**
 	 * Returns a String (to be supplemented by selection arguments) that can be used
@@ -123,15 +125,18 @@ public abstract class Element implements Comparable<Element> {
 	 * Returns a String array of arguments that can be used together with the selection string
 	 * in a database query to identify the rows in the attributes value table
 	 * where the values of this element are stored for a given attribute. 
+	 * @param alters maps alter names to the alter ids stored in the table
 	 * @return
 	 */
-	protected abstract String[] getAttributeElementSelectionArgs(String attributeName);
+	protected abstract String[] getAttributeElementSelectionArgs(String attributeName, AlterDictionary alters);
 	
 	/**
 	 * Returns content values that can be used database insert or update of the  table
 	 * where the values of this element are stored (after times have been set).
+	 * @param alters maps alter names to the alter ids stored in the table
 	 * @return
 	 */
-	protected abstract ContentValues getAttributeElementContentValues(String attributeName);
+	protected abstract ContentValues getAttributeElementContentValues(String attributeName, 
+			AlterDictionary alters);
 
 }
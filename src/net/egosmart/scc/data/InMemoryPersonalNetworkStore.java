@@ -0,0 +1,673 @@
+/**
+ *
+ */
+package net.egosmart.scc.data;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * PersonalNetworkStore holding the complete history of a personal network in memory.
+ *
+ * Lifetimes and attribute values are kept in the primitive interval arrays of Lifetime and
+ * TimeVaryingAttributeValues (sorted by start time), so that point-in-time queries for single
+ * elements run in O(log n) and queries over all elements of a domain need a single pass over the
+ * elements without any database access.
+ *
+ * Ties and alter-alter dyads are stored once per unordered pair. Values of attributes that have
+ * been declared symmetric (see setAttributeDirectionType) are stored once per pair as well (for
+ * the outward ego-alter dyad and for the alter-alter dyad whose source is the smaller name). Unlike 
+ * PersonalNetwork the store does not check attribute names, value types, or choices.
+ *
+ * The store can be written to a stream with writeTo and read back with readFrom. The store is not
+ * thread-safe.
+ *
+ * EXPERIMENTAL: the store is not used by the app and is not checked against PersonalNetwork.
+ * Known differences to PersonalNetwork for the same sequence of calls:
+ * - values of symmetric alter-alter attributes are kept for the dyad whose source is the smaller
+ *   alter name, PersonalNetwork keeps them for the dyad whose source has the smaller alter id; thus 
+ *   the two may return different dyads of a pair for the same values.
+ * - removeAlterAt sets the associated attribute values to VALUE_NOT_ASSIGNED in the interval, 
+ *   PersonalNetwork cuts the interval out of the value rows (as for the lifetimes); thus 
+ *   getAttributeValues returns an interval with VALUE_NOT_ASSIGNED instead of a gap.
+ *
+ * @author juergen
+ *
+ */
+public class InMemoryPersonalNetworkStore implements PersonalNetworkStore {
+
+	//written at the beginning of every snapshot; must be increased if the format changes
+	//(version 2 writes strings as length-prefixed UTF-8 instead of modified UTF-8, which is limited to 64KB)
+	private static final int SNAPSHOT_FORMAT_VERSION = 2;
+	private static final String STRING_ENCODING = "UTF-8";
+
+	//maps every alter name to its lifetime (which might be empty)
+	private LinkedHashMap<String, Lifetime> alterLifetimes;
+	//lifetimes of ties and alter-alter dyads per unordered pair
+	private LinkedHashMap<UnorderedDyad, Lifetime> tieLifetimes;
+	private LinkedHashMap<UnorderedDyad, Lifetime> dyadLifetimes;
+	//maps domains to attribute names to elements to their values
+	private HashMap<String, LinkedHashMap<String, LinkedHashMap<Element, TimeVaryingAttributeValues>>> attributeValues;
+	//domain + ":" + name of the attributes whose direction type is symmetric
+	private HashSet<String> symmetricAttributes;
+	//maps datum ids to secondary attribute names to values
+	private HashMap<String, TreeMap<String, String>> secondaryValues;
+	private TreeMap<String, String> properties;
+
+	public InMemoryPersonalNetworkStore(){
+		alterLifetimes = new LinkedHashMap<String, Lifetime>();
+		tieLifetimes = new LinkedHashMap<UnorderedDyad, Lifetime>();
+		dyadLifetimes = new LinkedHashMap<UnorderedDyad, Lifetime>();
+		attributeValues = new HashMap<String, LinkedHashMap<String, LinkedHashMap<Element, TimeVaryingAttributeValues>>>();
+		symmetricAttributes = new HashSet<String>();
+		secondaryValues = new HashMap<String, TreeMap<String, String>>();
+		properties = new TreeMap<String, String>();
+	}
+
+	/**
+	 * Sets the direction type of a dyadic attribute (in the domain ego-alter or alter-alter).
+	 * Values of attributes with direction type PersonalNetwork.DYAD_DIRECTION_SYMMETRIC are the same
+	 * for both directions of a dyad.
+	 *
+	 * Should be called before any value of the attribute is set; values that have been set before
+	 * for the other direction are not visible afterwards.
+	 *
+	 * @param domain
+	 * @param attributeName
+	 * @param directionType
+	 */
+	public void setAttributeDirectionType(String domain, String attributeName, String directionType){
+		if(PersonalNetwork.DYAD_DIRECTION_SYMMETRIC.equals(directionType))
+			symmetricAttributes.add(domain + ":" + attributeName);
+		else
+			symmetricAttributes.remove(domain + ":" + attributeName);
+	}
+
+	@Override
+	public void addToLifetimeOfAlter(TimeInterval interval, String alterName) {
+		Lifetime lifetime = alterLifetimes.get(alterName);
+		if(lifetime == null){
+			lifetime = new Lifetime();
+			alterLifetimes.put(alterName, lifetime);
+		}
+		lifetime.union(interval);
+	}
+
+	/**
+	 * Cuts the given interval from the lifetime of the specified alter.
+	 *
+	 * First removes interval from the lifetime of all incident ties and dyads as well as
+	 * all associated attribute values (of alter, ego-alter, and alter-alter attributes).
+	 *
+	 * Note the behavior of Lifetime.cutOut(interval) if interval is a time point.
+	 */
+	@Override
+	public void removeAlterAt(TimeInterval interval, String alterName) {
+		Lifetime lifetime = alterLifetimes.get(alterName);
+		if(lifetime == null)
+			return;
+		for(Map.Entry<UnorderedDyad, Lifetime> entry : tieLifetimes.entrySet()){
+			if(isIncident(entry.getKey(), alterName))
+				entry.getValue().cutOut(interval);
+		}
+		for(Map.Entry<UnorderedDyad, Lifetime> entry : dyadLifetimes.entrySet()){
+			if(isIncident(entry.getKey(), alterName))
+				entry.getValue().cutOut(interval);
+		}
+		for(LinkedHashMap<String, LinkedHashMap<Element, TimeVaryingAttributeValues>> attributes :
+			attributeValues.values()){
+			for(LinkedHashMap<Element, TimeVaryingAttributeValues> values : attributes.values()){
+				for(Map.Entry<Element, TimeVaryingAttributeValues> entry : values.entrySet()){
+					if(isAssociated(entry.getKey(), alterName))
+						entry.getValue().setValueAt(interval, PersonalNetwork.VALUE_NOT_ASSIGNED);
+				}
+			}
+		}
+		lifetime.cutOut(interval);
+	}
+
+	@Override
+	public Lifetime getLifetimeOfAlter(String alterName) {
+		Lifetime lifetime = alterLifetimes.get(alterName);
+		if(lifetime == null)
+			return null;
+		return copyOf(lifetime);
+	}
+
+	@Override
+	public boolean hasAlterAt(TimeInterval interval, String alterName) {
+		Lifetime lifetime = alterLifetimes.get(alterName);
+		return lifetime != null && lifetime.overlaps(interval);
+	}
+
+	@Override
+	public LinkedHashSet<String> getAltersAt(TimeInterval interval) {
+		LinkedHashSet<String> alters = new LinkedHashSet<String>();
+		for(Map.Entry<String, Lifetime> entry : alterLifetimes.entrySet()){
+			if(entry.getValue().overlaps(interval))
+				alters.add(entry.getKey());
+		}
+		return alters;
+	}
+
+	@Override
+	public void addToLifetimeOfTie(TimeInterval interval, String sourceName, String targetName) {
+		if(sourceName.equals(targetName))
+			return;
+		addToLifetimeOfAlter(interval, sourceName);
+		addToLifetimeOfAlter(interval, targetName);
+		addToLifetime(tieLifetimes, interval, sourceName, targetName);
+	}
+
+	@Override
+	public void removeTieAt(TimeInterval interval, String sourceName, String targetName) {
+		Lifetime lifetime = tieLifetimes.get(new UnorderedDyad(sourceName, targetName));
+		if(lifetime != null)
+			lifetime.cutOut(interval);
+	}
+
+	@Override
+	public Lifetime getLifetimeOfTie(String sourceName, String targetName) {
+		return copyOf(tieLifetimes.get(new UnorderedDyad(sourceName, targetName)));
+	}
+
+	@Override
+	public boolean areAdjacentAt(TimeInterval interval, String sourceName, String targetName) {
+		Lifetime lifetime = tieLifetimes.get(new UnorderedDyad(sourceName, targetName));
+		return lifetime != null && lifetime.overlaps(interval);
+	}
+
+	@Override
+	public LinkedHashSet<String> getNeighborsAt(TimeInterval interval, String alterName) {
+		LinkedHashSet<String> neighbors = new LinkedHashSet<String>();
+		for(Map.Entry<UnorderedDyad, Lifetime> entry : tieLifetimes.entrySet()){
+			UnorderedDyad tie = entry.getKey();
+			if(!isIncident(tie, alterName) || !entry.getValue().overlaps(interval))
+				continue;
+			neighbors.add(alterName.equals(tie.source()) ? tie.target() : tie.source());
+		}
+		return neighbors;
+	}
+
+	@Override
+	public LinkedHashSet<UnorderedDyad> getUndirectedTiesAt(TimeInterval interval) {
+		LinkedHashSet<UnorderedDyad> ties = new LinkedHashSet<UnorderedDyad>();
+		for(Map.Entry<UnorderedDyad, Lifetime> entry : tieLifetimes.entrySet()){
+			if(entry.getValue().overlaps(interval))
+				ties.add(entry.getKey());
+		}
+		return ties;
+	}
+
+	@Override
+	public void addToLifetimeOfAlterAlterDyad(TimeInterval interval, String sourceName, String targetName) {
+		addToLifetimeOfAlter(interval, sourceName);
+		addToLifetimeOfAlter(interval, targetName);
+		addToLifetime(dyadLifetimes, interval, sourceName, targetName);
+	}
+
+	@Override
+	public void removeAlterAlterDyadAt(TimeInterval interval, String sourceName, String targetName) {
+		//associated attributes
+		LinkedHashMap<String, LinkedHashMap<Element, TimeVaryingAttributeValues>> attributes =
+				attributeValues.get(PersonalNetwork.DOMAIN_ALTER_ALTER);
+		if(attributes != null){
+			for(String attributeName : attributes.keySet()){
+				TimeVaryingAttributeValues values = attributes.get(attributeName).get(
+						getStoredElement(AlterAlterDyad.getInstance(sourceName, targetName), attributeName));
+				if(values != null)
+					values.setValueAt(interval, PersonalNetwork.VALUE_NOT_ASSIGNED);
+			}
+		}
+		Lifetime lifetime = dyadLifetimes.get(new UnorderedDyad(sourceName, targetName));
+		if(lifetime != null)
+			lifetime.cutOut(interval);
+	}
+
+	@Override
+	public Lifetime getLifetimeOfAlterAlterDyad(String sourceName, String targetName) {
+		return copyOf(dyadLifetimes.get(new UnorderedDyad(sourceName, targetName)));
+	}
+
+	@Override
+	public boolean isAlterAlterDyadAt(TimeInterval interval, String sourceName, String targetName) {
+		Lifetime lifetime = dyadLifetimes.get(new UnorderedDyad(sourceName, targetName));
+		return lifetime != null && lifetime.overlaps(interval);
+	}
+
+	/**
+	 * Sets the value of the specified attribute for the specified element at the given interval.
+	 *
+	 * Adds the specified element (if necessary) and increases its lifetime (if necessary) as
+	 * PersonalNetwork.setAttributeValueAt does; attribute names and values are not checked.
+	 */
+	@Override
+	public void setAttributeValueAt(TimeInterval interval, String attributeName, Element element,
+			String textValue) {
+		if(element == null)
+			return;
+		String domain = element.getDomain();
+		//increase the lifetime of the element if necessary
+		if(PersonalNetwork.DOMAIN_ALTER.equals(domain))
+			addToLifetimeOfAlter(interval, ((Alter) element).getName());
+		if(PersonalNetwork.DOMAIN_EGO_ALTER.equals(domain))
+			addToLifetimeOfAlter(interval, ((EgoAlterDyad) element).getName());
+		if(PersonalNetwork.DOMAIN_ALTER_ALTER.equals(domain)){
+			AlterAlterDyad dyad = (AlterAlterDyad) element;
+			addToLifetimeOfAlterAlterDyad(interval, dyad.getSourceName(), dyad.getTargetName());
+		}
+		LinkedHashMap<Element, TimeVaryingAttributeValues> values = getValuesOfAttribute(domain, attributeName);
+		Element storedElement = getStoredElement(element, attributeName);
+		TimeVaryingAttributeValues elementValues = values.get(storedElement);
+		if(elementValues == null){
+			elementValues = new TimeVaryingAttributeValues();
+			values.put(storedElement, elementValues);
+		}
+		elementValues.setValueAt(interval, textValue);
+	}
+
+	@Override
+	public String getAttributeValueAt(long timePoint, String attributeName, Element element) {
+		TimeVaryingAttributeValues values = getStoredValues(attributeName, element);
+		if(values == null)
+			return PersonalNetwork.VALUE_NOT_ASSIGNED;
+		return values.getValueAt(timePoint);
+	}
+
+	@Override
+	public TimeVaryingAttributeValues getAttributeValues(String attributeName, Element element) {
+		TimeVaryingAttributeValues values = getStoredValues(attributeName, element);
+		TimeVaryingAttributeValues copy = new TimeVaryingAttributeValues();
+		if(values != null){
+			for(int i = 0; i < values.size(); ++i)
+				copy.setValueAtSorted(values.getStartTime(i), values.getEndTime(i), values.getValue(i));
+		}
+		return copy;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <E extends Element> LinkedHashMap<E, String> getValuesOfAttributeForAllElementsAt(
+			long timePoint, E element, String attributeName) {
+		String domain = element.getDomain();
+		LinkedHashMap<E, String> map = new LinkedHashMap<E, String>();
+		LinkedHashMap<String, LinkedHashMap<Element, TimeVaryingAttributeValues>> attributes =
+				attributeValues.get(domain);
+		if(attributes == null || !attributes.containsKey(attributeName))
+			return map;
+		//values of symmetric attributes are stored once for both dyads
+		boolean bothDirections = isSymmetric(domain, attributeName);
+		for(Map.Entry<Element, TimeVaryingAttributeValues> entry : attributes.get(attributeName).entrySet()){
+			if(!entry.getValue().hasValueSetAt(timePoint))
+				continue;
+			String value = entry.getValue().getValueAt(timePoint);
+			map.put((E) entry.getKey(), value);
+			if(bothDirections)
+				map.put((E) entry.getKey().getReverseElement(), value);
+		}
+		return map;
+	}
+
+	@Override
+	public void setSecondaryAttributeValue(String datumID, String secondaryAttributeName, String value) {
+		TreeMap<String, String> values = secondaryValues.get(datumID);
+		if(value == null || value.trim().length() == 0 ||
+				PersonalNetwork.VALUE_NOT_ASSIGNED.equals(value.trim())){
+			if(values != null){
+				values.remove(secondaryAttributeName);
+				if(values.isEmpty())
+					secondaryValues.remove(datumID);
+			}
+			return;
+		}
+		if(values == null){
+			values = new TreeMap<String, String>();
+			secondaryValues.put(datumID, values);
+		}
+		values.put(secondaryAttributeName, value.trim());
+	}
+
+	@Override
+	public String getSecondaryAttributeValue(String datumID, String secondaryAttributeName) {
+		TreeMap<String, String> values = secondaryValues.get(datumID);
+		if(values == null || !values.containsKey(secondaryAttributeName))
+			return PersonalNetwork.VALUE_NOT_ASSIGNED;
+		return values.get(secondaryAttributeName);
+	}
+
+	@Override
+	public LinkedHashMap<String, String> getSecondaryAttributeValues(String datumID) {
+		LinkedHashMap<String, String> values = new LinkedHashMap<String, String>();
+		if(secondaryValues.containsKey(datumID))
+			values.putAll(secondaryValues.get(datumID));
+		return values;
+	}
+
+	@Override
+	public String getProperty(String key) {
+		return properties.get(key);
+	}
+
+	@Override
+	public void setProperty(String key, String value) {
+		if(value == null)
+			properties.remove(key);
+		else
+			properties.put(key, value);
+	}
+
+	/**
+	 * Writes the complete content of the store to the given stream (which is not closed).
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(SNAPSHOT_FORMAT_VERSION);
+		data.writeInt(alterLifetimes.size());
+		for(Map.Entry<String, Lifetime> entry : alterLifetimes.entrySet()){
+			writeString(data, entry.getKey());
+			writeLifetime(data, entry.getValue());
+		}
+		writeDyadLifetimes(data, tieLifetimes);
+		writeDyadLifetimes(data, dyadLifetimes);
+		data.writeInt(symmetricAttributes.size());
+		for(String attribute : symmetricAttributes)
+			writeString(data, attribute);
+		int numberOfAttributes = 0;
+		for(LinkedHashMap<String, LinkedHashMap<Element, TimeVaryingAttributeValues>> attributes :
+			attributeValues.values())
+			numberOfAttributes += attributes.size();
+		data.writeInt(numberOfAttributes);
+		for(Map.Entry<String, LinkedHashMap<String, LinkedHashMap<Element, TimeVaryingAttributeValues>>> domainEntry :
+			attributeValues.entrySet()){
+			for(Map.Entry<String, LinkedHashMap<Element, TimeVaryingAttributeValues>> attributeEntry :
+				domainEntry.getValue().entrySet()){
+				writeString(data, domainEntry.getKey());
+				writeString(data, attributeEntry.getKey());
+				data.writeInt(attributeEntry.getValue().size());
+				for(Map.Entry<Element, TimeVaryingAttributeValues> entry : attributeEntry.getValue().entrySet()){
+					writeElement(data, entry.getKey());
+					writeValues(data, entry.getValue());
+				}
+			}
+		}
+		data.writeInt(secondaryValues.size());
+		for(Map.Entry<String, TreeMap<String, String>> entry : secondaryValues.entrySet()){
+			writeString(data, entry.getKey());
+			writeStrings(data, entry.getValue());
+		}
+		writeStrings(data, properties);
+		data.flush();
+	}
+
+	/**
+	 * Reads a store that has been written by writeTo from the given stream (which is not closed).
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException if the stream cannot be read or has not been written by writeTo
+	 */
+	public static InMemoryPersonalNetworkStore readFrom(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		int version = data.readInt();
+		if(version != SNAPSHOT_FORMAT_VERSION)
+			throw new IOException("unknown snapshot format version " + version);
+		InMemoryPersonalNetworkStore store = new InMemoryPersonalNetworkStore();
+		int numberOfAlters = data.readInt();
+		for(int i = 0; i < numberOfAlters; ++i){
+			String alterName = readString(data);
+			store.alterLifetimes.put(alterName, readLifetime(data));
+		}
+		readDyadLifetimes(data, store.tieLifetimes);
+		readDyadLifetimes(data, store.dyadLifetimes);
+		int numberOfSymmetricAttributes = data.readInt();
+		for(int i = 0; i < numberOfSymmetricAttributes; ++i)
+			store.symmetricAttributes.add(readString(data));
+		int numberOfAttributes = data.readInt();
+		for(int i = 0; i < numberOfAttributes; ++i){
+			String domain = readString(data);
+			String attributeName = readString(data);
+			LinkedHashMap<Element, TimeVaryingAttributeValues> values =
+					store.getValuesOfAttribute(domain, attributeName);
+			int numberOfElements = data.readInt();
+			for(int j = 0; j < numberOfElements; ++j){
+				Element element = readElement(data, domain);
+				values.put(element, readValues(data));
+			}
+		}
+		int numberOfDatums = data.readInt();
+		for(int i = 0; i < numberOfDatums; ++i){
+			String datumID = readString(data);
+			TreeMap<String, String> values = new TreeMap<String, String>();
+			readStrings(data, values);
+			store.secondaryValues.put(datumID, values);
+		}
+		readStrings(data, store.properties);
+		return store;
+	}
+
+	/*
+	 * Returns true if the alter is one of the two alters of the pair.
+	 */
+	private static boolean isIncident(UnorderedDyad pair, String alterName){
+		return alterName.equals(pair.source()) || alterName.equals(pair.target());
+	}
+
+	/*
+	 * Returns true if element is the alter, an ego-alter dyad, or an incident alter-alter dyad of the alter.
+	 */
+	private static boolean isAssociated(Element element, String alterName){
+		if(element instanceof Alter)
+			return alterName.equals(((Alter) element).getName());
+		if(element instanceof EgoAlterDyad)
+			return alterName.equals(((EgoAlterDyad) element).getName());
+		if(element instanceof AlterAlterDyad){
+			AlterAlterDyad dyad = (AlterAlterDyad) element;
+			return alterName.equals(dyad.getSourceName()) || alterName.equals(dyad.getTargetName());
+		}
+		return false;
+	}
+
+	private boolean isSymmetric(String domain, String attributeName){
+		return symmetricAttributes.contains(domain + ":" + attributeName);
+	}
+
+	/*
+	 * Returns the element for which the values of the attribute are stored: the outward ego-alter dyad
+	 * or the alter-alter dyad whose source is the smaller name if the attribute is symmetric,
+	 * the element itself otherwise.
+	 */
+	private Element getStoredElement(Element element, String attributeName){
+		if(!element.isDyadicElement() || !isSymmetric(element.getDomain(), attributeName))
+			return element;
+		if(element instanceof EgoAlterDyad)
+			return EgoAlterDyad.getOutwardInstance(((EgoAlterDyad) element).getName());
+		AlterAlterDyad dyad = (AlterAlterDyad) element;
+		if(dyad.getSourceName().compareTo(dyad.getTargetName()) <= 0)
+			return dyad;
+		return dyad.getReverseElement();
+	}
+
+	private TimeVaryingAttributeValues getStoredValues(String attributeName, Element element){
+		LinkedHashMap<String, LinkedHashMap<Element, TimeVaryingAttributeValues>> attributes =
+				attributeValues.get(element.getDomain());
+		if(attributes == null || !attributes.containsKey(attributeName))
+			return null;
+		return attributes.get(attributeName).get(getStoredElement(element, attributeName));
+	}
+
+	/*
+	 * Returns the values of the attribute for all elements; creates an empty map if there is none.
+	 */
+	private LinkedHashMap<Element, TimeVaryingAttributeValues> getValuesOfAttribute(String domain,
+			String attributeName){
+		LinkedHashMap<String, LinkedHashMap<Element, TimeVaryingAttributeValues>> attributes =
+				attributeValues.get(domain);
+		if(attributes == null){
+			attributes = new LinkedHashMap<String, LinkedHashMap<Element, TimeVaryingAttributeValues>>();
+			attributeValues.put(domain, attributes);
+		}
+		LinkedHashMap<Element, TimeVaryingAttributeValues> values = attributes.get(attributeName);
+		if(values == null){
+			values = new LinkedHashMap<Element, TimeVaryingAttributeValues>();
+			attributes.put(attributeName, values);
+		}
+		return values;
+	}
+
+	private static void addToLifetime(LinkedHashMap<UnorderedDyad, Lifetime> lifetimes, TimeInterval interval,
+			String sourceName, String targetName){
+		UnorderedDyad pair = new UnorderedDyad(sourceName, targetName);
+		Lifetime lifetime = lifetimes.get(pair);
+		if(lifetime == null){
+			lifetime = new Lifetime();
+			lifetimes.put(pair, lifetime);
+		}
+		lifetime.union(interval);
+	}
+
+	/*
+	 * Returns a copy of the lifetime or an empty lifetime if it is null.
+	 */
+	private static Lifetime copyOf(Lifetime lifetime){
+		Lifetime copy = new Lifetime();
+		if(lifetime != null)
+			copy.union(lifetime);
+		return copy;
+	}
+
+	private static void writeLifetime(DataOutputStream data, Lifetime lifetime) throws IOException {
+		data.writeInt(lifetime.size());
+		for(int i = 0; i < lifetime.size(); ++i){
+			data.writeLong(lifetime.getStartTime(i));
+			data.writeLong(lifetime.getEndTime(i));
+		}
+	}
+
+	private static Lifetime readLifetime(DataInputStream data) throws IOException {
+		Lifetime lifetime = new Lifetime();
+		int size = data.readInt();
+		for(int i = 0; i < size; ++i){
+			long startTime = data.readLong();
+			lifetime.unionSorted(startTime, data.readLong());
+		}
+		return lifetime;
+	}
+
+	private static void writeDyadLifetimes(DataOutputStream data,
+			LinkedHashMap<UnorderedDyad, Lifetime> lifetimes) throws IOException {
+		data.writeInt(lifetimes.size());
+		for(Map.Entry<UnorderedDyad, Lifetime> entry : lifetimes.entrySet()){
+			writeString(data, entry.getKey().source());
+			writeString(data, entry.getKey().target());
+			writeLifetime(data, entry.getValue());
+		}
+	}
+
+	private static void readDyadLifetimes(DataInputStream data,
+			LinkedHashMap<UnorderedDyad, Lifetime> lifetimes) throws IOException {
+		int size = data.readInt();
+		for(int i = 0; i < size; ++i){
+			String sourceName = readString(data);
+			String targetName = readString(data);
+			lifetimes.put(new UnorderedDyad(sourceName, targetName), readLifetime(data));
+		}
+	}
+
+	private static void writeValues(DataOutputStream data, TimeVaryingAttributeValues values) throws IOException {
+		data.writeInt(values.size());
+		for(int i = 0; i < values.size(); ++i){
+			data.writeLong(values.getStartTime(i));
+			data.writeLong(values.getEndTime(i));
+			writeString(data, values.getValue(i));
+		}
+	}
+
+	private static TimeVaryingAttributeValues readValues(DataInputStream data) throws IOException {
+		TimeVaryingAttributeValues values = new TimeVaryingAttributeValues();
+		int size = data.readInt();
+		for(int i = 0; i < size; ++i){
+			long startTime = data.readLong();
+			long endTime = data.readLong();
+			values.setValueAtSorted(startTime, endTime, readString(data));
+		}
+		return values;
+	}
+
+	/*
+	 * Writes the names identifying the element within its domain.
+	 */
+	private static void writeElement(DataOutputStream data, Element element) throws IOException {
+		if(element instanceof Alter){
+			writeString(data, ((Alter) element).getName());
+		} else if(element instanceof EgoAlterDyad){
+			writeString(data, ((EgoAlterDyad) element).getName());
+			writeString(data, ((EgoAlterDyad) element).getDirection());
+		} else if(element instanceof AlterAlterDyad){
+			writeString(data, ((AlterAlterDyad) element).getSourceName());
+			writeString(data, ((AlterAlterDyad) element).getTargetName());
+		}
+	}
+
+	private static Element readElement(DataInputStream data, String domain) throws IOException {
+		if(PersonalNetwork.DOMAIN_ALTER.equals(domain))
+			return Alter.getInstance(readString(data));
+		if(PersonalNetwork.DOMAIN_EGO_ALTER.equals(domain)){
+			String alterName = readString(data);
+			return EgoAlterDyad.getInstance(alterName, readString(data));
+		}
+		if(PersonalNetwork.DOMAIN_ALTER_ALTER.equals(domain)){
+			String sourceName = readString(data);
+			return AlterAlterDyad.getInstance(sourceName, readString(data));
+		}
+		if(PersonalNetwork.DOMAIN_EGO.equals(domain))
+			return Ego.getInstance();
+		throw new IOException("unknown domain " + domain);
+	}
+
+	/*
+	 * Writes the string as its length in bytes followed by its UTF-8 encoding (DataOutputStream.writeUTF
+	 * cannot write strings whose encoding is longer than 65535 bytes, e.g., long text attribute values).
+	 */
+	private static void writeString(DataOutputStream data, String string) throws IOException {
+		byte[] bytes = string.getBytes(STRING_ENCODING);
+		data.writeInt(bytes.length);
+		data.write(bytes);
+	}
+
+	private static String readString(DataInputStream data) throws IOException {
+		int length = data.readInt();
+		if(length < 0)
+			throw new IOException("invalid string length " + length);
+		byte[] bytes = new byte[length];
+		data.readFully(bytes);
+		return new String(bytes, STRING_ENCODING);
+	}
+
+	private static void writeStrings(DataOutputStream data, Map<String, String> strings) throws IOException {
+		data.writeInt(strings.size());
+		for(Map.Entry<String, String> entry : strings.entrySet()){
+			writeString(data, entry.getKey());
+			writeString(data, entry.getValue());
+		}
+	}
+
+	private static void readStrings(DataInputStream data, Map<String, String> strings) throws IOException {
+		int size = data.readInt();
+		for(int i = 0; i < size; ++i){
+			String key = readString(data);
+			strings.put(key, readString(data));
+		}
+	}
+}
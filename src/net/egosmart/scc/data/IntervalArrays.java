@@ -0,0 +1,135 @@
+/**
+ *
+ */
+package net.egosmart.scc.data;
+
+/**
+ * Static helpers for sets of time intervals that are stored in two parallel arrays of
+ * start and end times.
+ *
+ * The arrays must hold pairwise non-overlapping intervals (in the sense of
+ * TimeInterval.overlaps) sorted by their start times. Then the start times are strictly increasing
+ * and the end times are non-decreasing, which is what the binary searches below rely on.
+ *
+ * @author juergen
+ *
+ */
+final class IntervalArrays {
+
+	private IntervalArrays(){
+		//only static methods
+	}
+
+	/**
+	 * Returns the index of the interval containing the given time point or -1 if there is none.
+	 *
+	 * Same behavior as TimeInterval.contains(timePoint).
+	 */
+	static int indexOf(long[] starts, long[] ends, int size, long timePoint){
+		int i = lastStartAtOrBefore(starts, size, timePoint);
+		if(i >= 0 && contains(starts[i], ends[i], timePoint))
+			return i;
+		return -1;
+	}
+
+	/**
+	 * Returns the smallest index i such that the interval at i overlaps [startTime, endTime]
+	 * or size if there is no such interval. The overlapping intervals are exactly those
+	 * from this index up to (excluding) the index returned by endOfOverlapping.
+	 */
+	static int firstOverlapping(long[] starts, long[] ends, int size, long startTime, long endTime){
+		int i = firstEndAtOrAfter(ends, size, startTime);
+		while(i < size && starts[i] <= endTime && !overlap(starts[i], ends[i], startTime, endTime))
+			++i;
+		if(i < size && starts[i] > endTime)
+			return size;
+		return i;
+	}
+
+	/**
+	 * Returns the index after the last interval overlapping [startTime, endTime],
+	 * assuming that first is the result of firstOverlapping.
+	 */
+	static int endOfOverlapping(long[] starts, long[] ends, int size, int first, long startTime, long endTime){
+		int i = first;
+		while(i < size && overlap(starts[i], ends[i], startTime, endTime))
+			++i;
+		return i;
+	}
+
+	/**
+	 * Returns the largest index i with starts[i] <= time or -1 if there is none.
+	 */
+	static int lastStartAtOrBefore(long[] starts, int size, long time){
+		int low = 0;
+		int high = size - 1;
+		while(low <= high){
+			int mid = (low + high) >>> 1;
+			if(starts[mid] <= time)
+				low = mid + 1;
+			else
+				high = mid - 1;
+		}
+		return high;
+	}
+
+	/**
+	 * Returns the smallest index i with ends[i] >= time or size if there is none.
+	 */
+	static int firstEndAtOrAfter(long[] ends, int size, long time){
+		int low = 0;
+		int high = size - 1;
+		while(low <= high){
+			int mid = (low + high) >>> 1;
+			if(ends[mid] < time)
+				low = mid + 1;
+			else
+				high = mid - 1;
+		}
+		return low;
+	}
+
+	/**
+	 * Same behavior as TimeInterval.overlaps(anotherInterval).
+	 */
+	static boolean overlap(long start1, long end1, long start2, long end2){
+		if(start1 == end1 && start2 == end2)
+			return start1 == start2;
+		if(start1 == end1)
+			return start1 < end2 && start2 <= end1;
+		if(start2 == end2)
+			return start1 <= end2 && start2 < end1;
+		return start1 < end2 && start2 < end1;
+	}
+
+	/**
+	 * Same behavior as TimeInterval.contains(timePoint).
+	 */
+	static boolean contains(long start, long end, long timePoint){
+		if(start == end)
+			return start == timePoint;
+		return start <= timePoint && timePoint < end;
+	}
+
+	/**
+	 * Returns an array of at least the given capacity holding the first size entries of array.
+	 */
+	static long[] ensureCapacity(long[] array, int size, int capacity){
+		if(array.length >= capacity)
+			return array;
+		long[] newArray = new long[Math.max(capacity, 2*array.length)];
+		System.arraycopy(array, 0, newArray, 0, size);
+		return newArray;
+	}
+
+	/**
+	 * Returns an array of at least the given capacity holding the first size entries of array.
+	 */
+	static String[] ensureCapacity(String[] array, int size, int capacity){
+		if(array.length >= capacity)
+			return array;
+		String[] newArray = new String[Math.max(capacity, 2*array.length)];
+		System.arraycopy(array, 0, newArray, 0, size);
+		return newArray;
+	}
+}
@@ -0,0 +1,126 @@
+/**
+ *
+ */
+package net.egosmart.scc.data;
+
+/**
+ * One change of a personal network as recorded in its journal (see PersonalNetwork.addJournalListener
+ * and PersonalNetwork.getJournalSince).
+ *
+ * Entries are numbered by increasing sequence numbers in the order in which the changes have been made.
+ * An entry states what the caller has changed; the effects on other elements (e.g., the alters whose
+ * lifetimes are increased when a tie is added) are recorded as entries of their own.
+ *
+ * @author juergen
+ *
+ */
+public class JournalEntry {
+
+	/**
+	 * The interval has been added to the lifetime of the alter.
+	 */
+	public static final String TYPE_ALTER_ADDED = "ALTER_ADDED";
+	/**
+	 * The interval has been cut out of the lifetime of the alter (and of its ties, dyads, and values).
+	 */
+	public static final String TYPE_ALTER_REMOVED = "ALTER_REMOVED";
+	/**
+	 * The interval has been added to the lifetime of the tie; the element is an AlterAlterDyad.
+	 */
+	public static final String TYPE_TIE_ADDED = "TIE_ADDED";
+	/**
+	 * The interval has been cut out of the lifetime of the tie; the element is an AlterAlterDyad.
+	 */
+	public static final String TYPE_TIE_REMOVED = "TIE_REMOVED";
+	public static final String TYPE_ALTER_ALTER_DYAD_ADDED = "ALTER_ALTER_DYAD_ADDED";
+	public static final String TYPE_ALTER_ALTER_DYAD_REMOVED = "ALTER_ALTER_DYAD_REMOVED";
+	/**
+	 * The value of the attribute has been set in the interval; the value is
+	 * PersonalNetwork.VALUE_NOT_ASSIGNED if it has been removed.
+	 */
+	public static final String TYPE_ATTRIBUTE_VALUE_SET = "ATTRIBUTE_VALUE_SET";
+	/**
+	 * The alter has been renamed; the element is the alter with its new name and the interval is null.
+	 */
+	public static final String TYPE_ALTER_RENAMED = "ALTER_RENAMED";
+
+	private long sequenceNumber;
+	private String type;
+	private TimeInterval interval;
+	private Element element;
+	private String attributeName;
+	private String value;
+	private String oldAlterName;
+
+	JournalEntry(String type, TimeInterval interval, Element element, String attributeName, String value){
+		sequenceNumber = -1;
+		this.type = type;
+		this.interval = interval;
+		this.element = element;
+		this.attributeName = attributeName;
+		this.value = value;
+	}
+
+	/**
+	 * Returns the entry recording that the alter oldName has been renamed to newName.
+	 */
+	static JournalEntry getRenaming(String oldName, String newName){
+		JournalEntry entry = new JournalEntry(TYPE_ALTER_RENAMED, null, Alter.getInstance(newName), null, null);
+		entry.oldAlterName = oldName;
+		return entry;
+	}
+
+	void setSequenceNumber(long sequenceNumber){
+		this.sequenceNumber = sequenceNumber;
+	}
+
+	/**
+	 * Returns the sequence number of the entry; sequence numbers are increasing and never reused.
+	 */
+	public long getSequenceNumber(){
+		return sequenceNumber;
+	}
+
+	/**
+	 * Returns one of the TYPE_ constants of this class.
+	 */
+	public String getType(){
+		return type;
+	}
+
+	/**
+	 * Returns the interval in which the network has been changed or null if the entry has type TYPE_ALTER_RENAMED.
+	 */
+	public TimeInterval getInterval(){
+		return interval;
+	}
+
+	/**
+	 * Returns the changed element: an Alter, an AlterAlterDyad (for ties and alter-alter dyads, standing for
+	 * both directions), or the element whose attribute value has been set.
+	 */
+	public Element getElement(){
+		return element;
+	}
+
+	/**
+	 * Returns the name of the attribute or null if the entry does not have type TYPE_ATTRIBUTE_VALUE_SET.
+	 */
+	public String getAttributeName(){
+		return attributeName;
+	}
+
+	/**
+	 * Returns the new value or null if the entry does not have type TYPE_ATTRIBUTE_VALUE_SET.
+	 */
+	public String getValue(){
+		return value;
+	}
+
+	/**
+	 * Returns the previous name of the alter or null if the entry does not have type TYPE_ALTER_RENAMED.
+	 */
+	public String getOldAlterName(){
+		return oldAlterName;
+	}
+}
@@ -0,0 +1,22 @@
+/**
+ *
+ */
+package net.egosmart.scc.data;
+
+/**
+ * Receives the entries of the journal of a personal network (see PersonalNetwork.addJournalListener),
+ * so that the listener can apply the changes to its own state instead of recomputing it.
+ *
+ * @author juergen
+ *
+ */
+public interface JournalListener {
+
+	/**
+	 * Called (in the thread changing the network) for every change once the transaction in which it has been
+	 * made is committed, in the order of the sequence numbers. Changes that are rolled back are not delivered.
+	 *
+	 * @param entry
+	 */
+	public void onJournalEntry(JournalEntry entry);
+}
@@ -1,150 +1,325 @@
 /**
- * 
+ *
  */
 package net.egosmart.scc.data;
 
 import java.util.Iterator;
-import java.util.NavigableSet;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.NoSuchElementException;
+
+import android.database.Cursor;
 
 /**
  * A Lifetime maintains a union of non-overlapping TimeIntervals.
- * 
+ *
+ * The intervals are held in two arrays of start and end times sorted by start time,
+ * so that queries for time points and for overlapping intervals run in O(log n)
+ * (plus the number of reported intervals) and do not allocate objects.
+ *
  * @author juergen
  *
  */
 public class Lifetime {
 
-	private TreeSet<TimeInterval> intervals;
-	
+	private static final int INITIAL_CAPACITY = 4;
+
+	private long[] starts;
+	private long[] ends;
+	private int size;
+
 	/**
 	 * Creates an empty lifetime.
 	 */
 	public Lifetime(){
-		intervals = new TreeSet<TimeInterval>();
+		starts = new long[INITIAL_CAPACITY];
+		ends = new long[INITIAL_CAPACITY];
+		size = 0;
 	}
-	
-	protected Lifetime(SortedSet<TimeInterval> set){
-		intervals = new TreeSet<TimeInterval>(set);
+
+	/**
+	 * Creates a lifetime holding the first size intervals given by the two arrays, which must be
+	 * non-overlapping and sorted by start time. The arrays are copied.
+	 */
+	protected Lifetime(long[] startTimes, long[] endTimes, int size){
+		int capacity = Math.max(INITIAL_CAPACITY, size);
+		starts = new long[capacity];
+		ends = new long[capacity];
+		System.arraycopy(startTimes, 0, starts, 0, size);
+		System.arraycopy(endTimes, 0, ends, 0, size);
+		this.size = size;
+	}
+
+	/**
+	 * Creates the lifetime given by the intervals in the rows of the cursor. The cursor is read
+	 * from the first to the last row but not closed.
+	 *
+	 * If the rows are sorted by start time then the lifetime is built in linear time.
+	 *
+	 * @param cursor
+	 * @param startColumnIndex column holding the interval start times
+	 * @param endColumnIndex column holding the interval end times
+	 * @return
+	 */
+	protected static Lifetime fromSortedCursor(Cursor cursor, int startColumnIndex, int endColumnIndex){
+		Lifetime lifetime = new Lifetime();
+		if(cursor.moveToFirst()){
+			while(!cursor.isAfterLast()){
+				lifetime.unionSorted(cursor.getLong(startColumnIndex), cursor.getLong(endColumnIndex));
+				cursor.moveToNext();
+			}
+		}
+		return lifetime;
 	}
-	
+
 	/**
-	 * Adds the given interval to the lifetime, thereby maintaining the property 
-	 * that intervals are non-overlapping. 
-	 * 
+	 * Adds the given interval to the lifetime, thereby maintaining the property
+	 * that intervals are non-overlapping.
+	 *
+	 * Intervals that overlap or are contiguous with the given interval are merged with it.
+	 *
 	 * @param interval
 	 */
 	public void union(TimeInterval interval){
-		//check whether interval overlaps any existing interval
-		//which can either be the floor interval and/or all intervals between the start and end points
-		TimeInterval floor = intervals.floor(interval);
-		if(floor != null && floor.overlapsOrIsContiguousWith(interval)){
-			intervals.remove(floor);
-			interval = floor.getUnionWithContiguous(interval);
+		union(interval.getStartTime(), interval.getEndTime());
+	}
+
+	/**
+	 * Same as union(new TimeInterval(startTime, endTime)).
+	 */
+	public void union(long startTime, long endTime){
+		if(endTime < startTime)
+			throw new IllegalArgumentException("endTime must be greater than or equal to startTime");
+		//the intervals that overlap or are contiguous with [startTime, endTime] are those
+		//from first (inclusive) to last (exclusive)
+		int first = IntervalArrays.firstEndAtOrAfter(ends, size, startTime);
+		int last = IntervalArrays.lastStartAtOrBefore(starts, size, endTime) + 1;
+		if(first < last){
+			startTime = Math.min(startTime, starts[first]);
+			endTime = Math.max(endTime, ends[last - 1]);
 		}
-		NavigableSet<TimeInterval> overlaping = intervals.
-				subSet(TimeInterval.getTimePoint(interval.getStartTime()), true, 
-				TimeInterval.getTimePoint(interval.getEndTime()), true);
-		for(TimeInterval oldInterval : overlaping){
-			if(oldInterval.overlapsOrIsContiguousWith(interval)){
-				intervals.remove(oldInterval);
-				interval = oldInterval.getUnionWithContiguous(interval);
+		replace(first, last, startTime, endTime);
+	}
+
+	/**
+	 * Same as union(startTime, endTime) but runs in constant (amortized) time if no interval of 
+	 * this lifetime starts at or after startTime. 
+	 */
+	void unionSorted(long startTime, long endTime){
+		if(endTime < startTime)
+			throw new IllegalArgumentException("endTime must be greater than or equal to startTime");
+		if(size == 0 || starts[size - 1] < startTime){
+			if(size > 0 && startTime <= ends[size - 1]){
+				ends[size - 1] = Math.max(ends[size - 1], endTime);
+				return;
 			}
+			starts = IntervalArrays.ensureCapacity(starts, size, size + 1);
+			ends = IntervalArrays.ensureCapacity(ends, size, size + 1);
+			starts[size] = startTime;
+			ends[size] = endTime;
+			++size;
+			return;
 		}
-		intervals.add(interval);
+		union(startTime, endTime);
 	}
-	
+
 	public void union(Lifetime lifetime){
-		Iterator<TimeInterval> it = lifetime.getIterator();
-		while(it.hasNext()){
-			union(it.next());
+		for(int i = 0; i < lifetime.size; ++i){
+			union(lifetime.starts[i], lifetime.ends[i]);
 		}
 	}
-	
+
 	/**
 	 * Makes the lifetime to be equal to the old lifetime SETMINUS interval.
-	 * 
+	 *
 	 * If interval is a time point then either
 	 * (1) the lifetime contains a time-interval equal to this point which is then removed or
 	 * (2) nothing is done (even if the lifetime contains an interval that is not a time point and contains
-	 * the point to be removed). 
-	 * 
+	 * the point to be removed).
+	 *
 	 * @param interval to be cut out of the lifetime
 	 */
 	public void cutOut(TimeInterval interval){
+		long cutStart = interval.getStartTime();
+		long cutEnd = interval.getEndTime();
 		if(interval.isTimePoint()){
-			intervals.remove(interval);
+			int i = IntervalArrays.indexOf(starts, ends, size, cutStart);
+			if(i >= 0 && starts[i] == ends[i])
+				replace(i, i + 1);
 			return;
 		}
-		TimeInterval floor = intervals.floor(interval);
-		if(floor != null && floor.overlaps(interval)){
-			intervals.remove(floor);
-			if(floor.getStartTime() < interval.getStartTime()){
-				intervals.add(new TimeInterval(floor.getStartTime(), interval.getStartTime()));
-			}
-			if(interval.getEndTime() < floor.getEndTime()){
-				intervals.add(new TimeInterval(interval.getEndTime(), floor.getEndTime()));
-			}
-		}
-		NavigableSet<TimeInterval> overlaping = intervals.
-				subSet(TimeInterval.getTimePoint(interval.getStartTime()), true, 
-				TimeInterval.getTimePoint(interval.getEndTime()), true);
-		for(TimeInterval oldInterval : overlaping){
-			if(oldInterval.overlaps(interval)){
-				intervals.remove(oldInterval);
-				if(interval.getEndTime() < oldInterval.getEndTime()){//this might happen at most for the last one
-					intervals.add(new TimeInterval(interval.getEndTime(), oldInterval.getEndTime()));
-				}
-			}
+		int first = IntervalArrays.firstOverlapping(starts, ends, size, cutStart, cutEnd);
+		int last = IntervalArrays.endOfOverlapping(starts, ends, size, first, cutStart, cutEnd);
+		if(first == last)
+			return;
+		boolean keepLeft = starts[first] < cutStart;
+		boolean keepRight = cutEnd < ends[last - 1];
+		long leftStart = starts[first];
+		long rightEnd = ends[last - 1];
+		if(keepLeft && keepRight){
+			replace(first, last, leftStart, cutStart);
+			insert(first + 1, cutEnd, rightEnd);
+		} else if(keepLeft){
+			replace(first, last, leftStart, cutStart);
+		} else if(keepRight){
+			replace(first, last, cutEnd, rightEnd);
+		} else {
+			replace(first, last);
 		}
 	}
-	
+
 	public boolean overlaps(TimeInterval interval){
-		TimeInterval floor = intervals.floor(interval);
-		if(floor != null && floor.overlaps(interval))
-			return true;
-		TimeInterval ceil = intervals.ceiling(interval);
-		if(ceil != null && ceil.overlaps(interval))
-			return true;
-		return false;
-	}
-	
+		return overlaps(interval.getStartTime(), interval.getEndTime());
+	}
+
+	/**
+	 * Returns true if any interval of the lifetime overlaps [startTime, endTime]
+	 * (in the sense of TimeInterval.overlaps).
+	 */
+	public boolean overlaps(long startTime, long endTime){
+		return IntervalArrays.firstOverlapping(starts, ends, size, startTime, endTime) < size;
+	}
+
 	public boolean contains(TimeInterval interval){
-		TimeInterval floor = intervals.floor(interval);
-		if(floor != null && floor.contains(interval))
-			return true;
-		TimeInterval ceil = intervals.ceiling(interval);
-		if(ceil != null && ceil.contains(interval))
-			return true;
-		return false;
-	}
-	
+		if(interval.isTimePoint())
+			return contains(interval.getStartTime());
+		int i = IntervalArrays.lastStartAtOrBefore(starts, size, interval.getStartTime());
+		return i >= 0 && interval.getEndTime() <= ends[i];
+	}
+
 	public boolean contains(long time){
-		return contains(TimeInterval.getTimePoint(time));
+		return IntervalArrays.indexOf(starts, ends, size, time) >= 0;
 	}
-	
+
+	/**
+	 * Returns the index of the interval containing the given time point or -1 if there is none.
+	 */
+	public int indexOf(long time){
+		return IntervalArrays.indexOf(starts, ends, size, time);
+	}
+
+	/**
+	 * Returns the start time of the index'th interval (intervals are sorted by their start times).
+	 */
+	public long getStartTime(int index){
+		checkIndex(index);
+		return starts[index];
+	}
+
+	/**
+	 * Returns the end time of the index'th interval (intervals are sorted by their start times).
+	 */
+	public long getEndTime(int index){
+		checkIndex(index);
+		return ends[index];
+	}
+
 	public Iterator<TimeInterval> getIterator(){
-		return intervals.iterator();
+		return new IntervalIterator(0, size, false);
+	}
+
+	/**
+	 * Returns an iterator over the intervals of this lifetime that overlap the given interval.
+	 */
+	public Iterator<TimeInterval> getIterator(TimeInterval interval){
+		long startTime = interval.getStartTime();
+		long endTime = interval.getEndTime();
+		int first = IntervalArrays.firstOverlapping(starts, ends, size, startTime, endTime);
+		int last = IntervalArrays.endOfOverlapping(starts, ends, size, first, startTime, endTime);
+		return new IntervalIterator(first, last, false);
 	}
-	
+
 	public Iterator<TimeInterval> getDescendingIterator(){
-		return intervals.descendingIterator();
+		return new IntervalIterator(0, size, true);
 	}
-	
+
 	public TimeInterval getFirstTimeInterval(){
-		return intervals.first();
+		if(size == 0)
+			throw new NoSuchElementException();
+		return new TimeInterval(starts[0], ends[0]);
 	}
-	
+
 	public TimeInterval getLastTimeInterval(){
-		return intervals.last();
+		if(size == 0)
+			throw new NoSuchElementException();
+		return new TimeInterval(starts[size - 1], ends[size - 1]);
 	}
-	
+
 	public boolean isEmpty(){
-		return intervals.isEmpty();
+		return size == 0;
 	}
-	
+
 	public int size(){
-		return intervals.size();
+		return size;
+	}
+
+	/*
+	 * Removes the intervals with indexes from first (inclusive) to last (exclusive).
+	 */
+	private void replace(int first, int last){
+		System.arraycopy(starts, last, starts, first, size - last);
+		System.arraycopy(ends, last, ends, first, size - last);
+		size = size - (last - first);
+	}
+
+	/*
+	 * Replaces the intervals with indexes from first (inclusive) to last (exclusive) by
+	 * the given interval.
+	 */
+	private void replace(int first, int last, long startTime, long endTime){
+		if(first == last){
+			insert(first, startTime, endTime);
+			return;
+		}
+		replace(first + 1, last);
+		starts[first] = startTime;
+		ends[first] = endTime;
+	}
+
+	private void insert(int index, long startTime, long endTime){
+		starts = IntervalArrays.ensureCapacity(starts, size, size + 1);
+		ends = IntervalArrays.ensureCapacity(ends, size, size + 1);
+		System.arraycopy(starts, index, starts, index + 1, size - index);
+		System.arraycopy(ends, index, ends, index + 1, size - index);
+		starts[index] = startTime;
+		ends[index] = endTime;
+		++size;
+	}
+
+	private void checkIndex(int index){
+		if(index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("index " + index + " for lifetime of size " + size);
+	}
+
+	/*
+	 * Iterates over the intervals with indexes from first (inclusive) to last (exclusive).
+	 */
+	private class IntervalIterator implements Iterator<TimeInterval> {
+
+		private int first;
+		private int last;
+		private boolean descending;
+
+		private IntervalIterator(int first, int last, boolean descending){
+			this.first = first;
+			this.last = last;
+			this.descending = descending;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return first < last;
+		}
+
+		@Override
+		public TimeInterval next() {
+			if(first >= last)
+				throw new NoSuchElementException();
+			int index = descending ? --last : first++;
+			return new TimeInterval(starts[index], ends[index]);
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
 	}
 }
@@ -0,0 +1,103 @@
+/**
+ *
+ */
+package net.egosmart.scc.data;
+
+/**
+ * Counts what one run of the database maintenance (see PersonalNetwork.startMaintenance)
+ * has reclaimed.
+ *
+ * @author juergen
+ *
+ */
+public class MaintenanceReport {
+
+	private int deletedSecondaryAttributeValues;
+	private int coalescedAttributeValues;
+	private long reclaimedBytes;
+	private boolean notCompacted;
+	private boolean complete;
+
+	MaintenanceReport(){
+		deletedSecondaryAttributeValues = 0;
+		coalescedAttributeValues = 0;
+		reclaimedBytes = 0;
+		notCompacted = false;
+		complete = false;
+	}
+
+	/**
+	 * Returns the number of deleted values of secondary attributes whose datum id did not belong to
+	 * any history or value row.
+	 */
+	public int getDeletedSecondaryAttributeValues(){
+		return deletedSecondaryAttributeValues;
+	}
+
+	/**
+	 * Returns the number of attribute value rows that have been deleted since their interval
+	 * has been merged into the contiguous interval with the same value before it.
+	 */
+	public int getCoalescedAttributeValues(){
+		return coalescedAttributeValues;
+	}
+
+	/**
+	 * Returns the number of bytes by which the database file has shrunk.
+	 */
+	public long getReclaimedBytes(){
+		return reclaimedBytes;
+	}
+
+	/**
+	 * Returns true if no free pages have been returned to the file system since the database does not 
+	 * use incremental auto-vacuum and is too large to be switched to it in the background.
+	 */
+	public boolean isNotCompacted(){
+		return notCompacted;
+	}
+
+	/**
+	 * Returns the total number of deleted rows.
+	 */
+	public int getReclaimedRows(){
+		return deletedSecondaryAttributeValues + coalescedAttributeValues;
+	}
+
+	/**
+	 * Returns true if all maintenance jobs have been finished and false if the maintenance
+	 * has been stopped before.
+	 */
+	public boolean isComplete(){
+		return complete;
+	}
+
+	void addDeletedSecondaryAttributeValues(int rows){
+		deletedSecondaryAttributeValues += rows;
+	}
+
+	void addCoalescedAttributeValues(int rows){
+		coalescedAttributeValues += rows;
+	}
+
+	void addReclaimedBytes(long bytes){
+		reclaimedBytes += bytes;
+	}
+
+	void setNotCompacted(){
+		notCompacted = true;
+	}
+
+	void setComplete(){
+		complete = true;
+	}
+
+	@Override
+	public String toString(){
+		return "database maintenance " + (complete ? "finished" : "stopped") + ": " +
+				getReclaimedRows() + " rows deleted (" +
+				deletedSecondaryAttributeValues + " unreachable secondary attribute values, " +
+				coalescedAttributeValues + " coalesced attribute values), " +
+				reclaimedBytes + " bytes reclaimed" + (notCompacted ? " (file not compacted)" : "");
+	}
+}
@@ -0,0 +1,91 @@
+/**
+ *
+ */
+package net.egosmart.scc.data;
+
+/**
+ * One interval of a lifetime or of an attribute value that has been written to the history of a
+ * personal network (see PersonalNetwork.changesSince).
+ *
+ * Every row of the history and values tables gets a new datum id when it is written; rows are never
+ * updated in place. A change with a given datum id therefore states that the element is alive
+ * (respectively has the value) in the given interval since the change has been made.
+ *
+ * @author juergen
+ *
+ */
+public class NetworkChange {
+
+	/**
+	 * Kind of changes to the lifetime of an alter; the element is an Alter.
+	 */
+	public static final String KIND_ALTER_LIFETIME = "ALTER_LIFETIME";
+	/**
+	 * Kind of changes to the lifetime of a tie; the element is an AlterAlterDyad (standing for both directions).
+	 */
+	public static final String KIND_TIE_LIFETIME = "TIE_LIFETIME";
+	/**
+	 * Kind of changes to the lifetime of an alter-alter dyad; the element is an AlterAlterDyad
+	 * (standing for both directions).
+	 */
+	public static final String KIND_ALTER_ALTER_DYAD_LIFETIME = "ALTER_ALTER_DYAD_LIFETIME";
+	/**
+	 * Kind of changes to the value of an attribute; the element is in the domain of the attribute.
+	 */
+	public static final String KIND_ATTRIBUTE_VALUE = "ATTRIBUTE_VALUE";
+
+	private String kind;
+	private long datumID;
+	private Element element;
+	private TimeInterval interval;
+	private String attributeName;
+	private String value;
+
+	NetworkChange(String kind, long datumID, Element element, TimeInterval interval,
+			String attributeName, String value){
+		this.kind = kind;
+		this.datumID = datumID;
+		this.element = element;
+		this.interval = interval;
+		this.attributeName = attributeName;
+		this.value = value;
+	}
+
+	/**
+	 * Returns one of KIND_ALTER_LIFETIME, KIND_TIE_LIFETIME, KIND_ALTER_ALTER_DYAD_LIFETIME, or
+	 * KIND_ATTRIBUTE_VALUE.
+	 */
+	public String getKind(){
+		return kind;
+	}
+
+	/**
+	 * Returns the datum id of the written row; can be passed to PersonalNetwork.changesSince to
+	 * continue after this change.
+	 */
+	public long getDatumID(){
+		return datumID;
+	}
+
+	public Element getElement(){
+		return element;
+	}
+
+	public TimeInterval getInterval(){
+		return interval;
+	}
+
+	/**
+	 * Returns the name of the attribute or null if this is a change to a lifetime.
+	 */
+	public String getAttributeName(){
+		return attributeName;
+	}
+
+	/**
+	 * Returns the value of the attribute in the interval or null if this is a change to a lifetime.
+	 */
+	public String getValue(){
+		return value;
+	}
+}
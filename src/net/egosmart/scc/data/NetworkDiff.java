@@ -0,0 +1,161 @@
+/**
+ *
+ */
+package net.egosmart.scc.data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+
+/**
+ * Differences between the states of a personal network at two points in time (see PersonalNetwork.diff):
+ * the alters, ties, and alter-alter dyads that appeared or disappeared and the attribute values that
+ * appeared, disappeared, or changed.
+ *
+ * @author juergen
+ *
+ */
+public class NetworkDiff {
+
+	/**
+	 * Change of the value of one attribute for one element. The old or the new value is
+	 * PersonalNetwork.VALUE_NOT_ASSIGNED if the value appeared or disappeared.
+	 */
+	public static class ValueChange {
+
+		private Element element;
+		private String attributeName;
+		private String oldValue;
+		private String newValue;
+
+		private ValueChange(Element element, String attributeName){
+			this.element = element;
+			this.attributeName = attributeName;
+			oldValue = PersonalNetwork.VALUE_NOT_ASSIGNED;
+			newValue = PersonalNetwork.VALUE_NOT_ASSIGNED;
+		}
+
+		public Element getElement(){
+			return element;
+		}
+
+		public String getAttributeName(){
+			return attributeName;
+		}
+
+		/**
+		 * Returns the value at the first point in time.
+		 */
+		public String getOldValue(){
+			return oldValue;
+		}
+
+		/**
+		 * Returns the value at the second point in time.
+		 */
+		public String getNewValue(){
+			return newValue;
+		}
+	}
+
+	private long fromTime;
+	private long toTime;
+	private LinkedHashSet<String> addedAlters;
+	private LinkedHashSet<String> removedAlters;
+	private LinkedHashSet<UnorderedDyad> addedTies;
+	private LinkedHashSet<UnorderedDyad> removedTies;
+	private LinkedHashSet<UnorderedDyad> addedDyads;
+	private LinkedHashSet<UnorderedDyad> removedDyads;
+	//maps elements to attribute names to changes
+	private LinkedHashMap<Element, LinkedHashMap<String, ValueChange>> valueChanges;
+
+	NetworkDiff(long fromTime, long toTime){
+		this.fromTime = fromTime;
+		this.toTime = toTime;
+		addedAlters = new LinkedHashSet<String>();
+		removedAlters = new LinkedHashSet<String>();
+		addedTies = new LinkedHashSet<UnorderedDyad>();
+		removedTies = new LinkedHashSet<UnorderedDyad>();
+		addedDyads = new LinkedHashSet<UnorderedDyad>();
+		removedDyads = new LinkedHashSet<UnorderedDyad>();
+		valueChanges = new LinkedHashMap<Element, LinkedHashMap<String, ValueChange>>();
+	}
+
+	public long getFromTime(){
+		return fromTime;
+	}
+
+	public long getToTime(){
+		return toTime;
+	}
+
+	/**
+	 * Returns the alters that are in the network at the second but not at the first point in time.
+	 */
+	public LinkedHashSet<String> getAddedAlters(){
+		return addedAlters;
+	}
+
+	/**
+	 * Returns the alters that are in the network at the first but not at the second point in time.
+	 */
+	public LinkedHashSet<String> getRemovedAlters(){
+		return removedAlters;
+	}
+
+	public LinkedHashSet<UnorderedDyad> getAddedTies(){
+		return addedTies;
+	}
+
+	public LinkedHashSet<UnorderedDyad> getRemovedTies(){
+		return removedTies;
+	}
+
+	public LinkedHashSet<UnorderedDyad> getAddedAlterAlterDyads(){
+		return addedDyads;
+	}
+
+	public LinkedHashSet<UnorderedDyad> getRemovedAlterAlterDyads(){
+		return removedDyads;
+	}
+
+	/**
+	 * Returns the changes of attribute values of all domains (values of symmetric dyad attributes are
+	 * reported for both dyads).
+	 */
+	public ArrayList<ValueChange> getValueChanges(){
+		ArrayList<ValueChange> changes = new ArrayList<ValueChange>();
+		for(LinkedHashMap<String, ValueChange> elementChanges : valueChanges.values())
+			changes.addAll(elementChanges.values());
+		return changes;
+	}
+
+	/**
+	 * Returns true if the network is the same at both points in time.
+	 */
+	public boolean isEmpty(){
+		return addedAlters.isEmpty() && removedAlters.isEmpty() && addedTies.isEmpty() &&
+				removedTies.isEmpty() && addedDyads.isEmpty() && removedDyads.isEmpty() &&
+				valueChanges.isEmpty();
+	}
+
+	/*
+	 * Sets the old value (if atFromTime) or the new value of the attribute for the element.
+	 */
+	void putValue(Element element, String attributeName, String value, boolean atFromTime){
+		LinkedHashMap<String, ValueChange> elementChanges = valueChanges.get(element);
+		if(elementChanges == null){
+			elementChanges = new LinkedHashMap<String, ValueChange>();
+			valueChanges.put(element, elementChanges);
+		}
+		ValueChange change = elementChanges.get(attributeName);
+		if(change == null){
+			change = new ValueChange(element, attributeName);
+			elementChanges.put(attributeName, change);
+		}
+		if(atFromTime)
+			change.oldValue = value;
+		else
+			change.newValue = value;
+	}
+}
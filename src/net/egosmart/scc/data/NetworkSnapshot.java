@@ -0,0 +1,323 @@
+/**
+ *
+ */
+package net.egosmart.scc.data;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable state of a personal network at one point in time: the alters, the ties, the alter-alter
+ * dyads, and the values of all attributes at that time (see PersonalNetwork.snapshotAt).
+ *
+ * Alters are numbered from 0 to getNumberOfAlters() - 1. Neighbors are held in one array of alter
+ * indexes (the neighbors of alter i are neighbors[neighborStarts[i]] to neighbors[neighborStarts[i+1] - 1]),
+ * values of alter and ego-alter attributes in arrays indexed by the alter index, and ties, dyads, and values
+ * of alter-alter attributes under the key sourceIndex * n + targetIndex; so all lookups take constant time
+ * and never access the database.
+ *
+ * The snapshot does not change after it has been built and does not reflect later changes of the
+ * network. It can be shared between threads; methods returning collections return new copies.
+ *
+ * @author juergen
+ *
+ */
+public final class NetworkSnapshot {
+
+	private final long timePoint;
+
+	private final String[] alterNames;
+	private final HashMap<String, Integer> alterIndexes;
+	private final int[] neighborStarts;
+	private final int[] neighbors;
+	//keys of (both directions of) ties and alter-alter dyads
+	private final HashSet<Long> ties;
+	private final HashSet<Long> dyads;
+	private final int numberOfTies;
+	private final int numberOfDyads;
+
+	//maps attribute names to values
+	private final TreeMap<String, String> egoValues;
+	//maps attribute names to values indexed by alter index (null if not set)
+	private final TreeMap<String, String[]> alterValues;
+	private final TreeMap<String, String[]> egoAlterOutValues;
+	private final TreeMap<String, String[]> egoAlterInValues;
+	//maps attribute names to dyad keys to values
+	private final TreeMap<String, HashMap<Long, String>> alterAlterValues;
+
+	/**
+	 * Creates the snapshot from the given alters, ties, dyads and the values of all attributes at the given
+	 * time point for the ego, the alters, their ego-alter dyads (in both directions), and the alter-alter dyads
+	 * (in both directions). Ties and dyads whose alters are not among alterNames are ignored.
+	 */
+	NetworkSnapshot(long timePoint, String[] alterNames, Collection<UnorderedDyad> undirectedTies,
+			Collection<UnorderedDyad> undirectedDyads, Map<Element, LinkedHashMap<String, String>> values){
+		this.timePoint = timePoint;
+		this.alterNames = alterNames.clone();
+		int n = alterNames.length;
+		alterIndexes = new HashMap<String, Integer>();
+		for(int i = 0; i < n; ++i)
+			alterIndexes.put(alterNames[i], i);
+		//count the degrees first, then fill the neighbor array
+		int[] degrees = new int[n];
+		int count = 0;
+		for(UnorderedDyad tie : undirectedTies){
+			int source = getAlterIndex(tie.source());
+			int target = getAlterIndex(tie.target());
+			if(source < 0 || target < 0)
+				continue;
+			++degrees[source];
+			++degrees[target];
+			++count;
+		}
+		numberOfTies = count;
+		neighborStarts = new int[n + 1];
+		for(int i = 0; i < n; ++i)
+			neighborStarts[i + 1] = neighborStarts[i] + degrees[i];
+		neighbors = new int[neighborStarts[n]];
+		ties = new HashSet<Long>();
+		int[] next = new int[n];
+		System.arraycopy(neighborStarts, 0, next, 0, n);
+		for(UnorderedDyad tie : undirectedTies){
+			int source = getAlterIndex(tie.source());
+			int target = getAlterIndex(tie.target());
+			if(source < 0 || target < 0)
+				continue;
+			neighbors[next[source]++] = target;
+			neighbors[next[target]++] = source;
+			ties.add(getKey(source, target));
+			ties.add(getKey(target, source));
+		}
+		dyads = new HashSet<Long>();
+		count = 0;
+		for(UnorderedDyad dyad : undirectedDyads){
+			int source = getAlterIndex(dyad.source());
+			int target = getAlterIndex(dyad.target());
+			if(source < 0 || target < 0)
+				continue;
+			dyads.add(getKey(source, target));
+			dyads.add(getKey(target, source));
+			++count;
+		}
+		numberOfDyads = count;
+		egoValues = new TreeMap<String, String>();
+		alterValues = new TreeMap<String, String[]>();
+		egoAlterOutValues = new TreeMap<String, String[]>();
+		egoAlterInValues = new TreeMap<String, String[]>();
+		alterAlterValues = new TreeMap<String, HashMap<Long, String>>();
+		for(Map.Entry<Element, LinkedHashMap<String, String>> entry : values.entrySet()){
+			Element element = entry.getKey();
+			for(Map.Entry<String, String> value : entry.getValue().entrySet())
+				putValue(element, value.getKey(), value.getValue());
+		}
+	}
+
+	/**
+	 * Returns the point in time of this snapshot.
+	 */
+	public long getTimePoint(){
+		return timePoint;
+	}
+
+	public int getNumberOfAlters(){
+		return alterNames.length;
+	}
+
+	/**
+	 * Returns the name of the alter with the given index (between 0 and getNumberOfAlters() - 1).
+	 */
+	public String getAlterName(int alterIndex){
+		return alterNames[alterIndex];
+	}
+
+	/**
+	 * Returns the index of the alter or -1 if the alter is not in the network at the time point.
+	 */
+	public int getAlterIndex(String alterName){
+		Integer index = alterIndexes.get(alterName);
+		return index == null ? -1 : index.intValue();
+	}
+
+	public boolean hasAlter(String alterName){
+		return alterIndexes.containsKey(alterName);
+	}
+
+	/**
+	 * Returns the names of all alters ordered by their indexes.
+	 */
+	public LinkedHashSet<String> getAlters(){
+		LinkedHashSet<String> alters = new LinkedHashSet<String>();
+		for(String alterName : alterNames)
+			alters.add(alterName);
+		return alters;
+	}
+
+	/**
+	 * Returns the number of undirected ties.
+	 */
+	public int getNumberOfTies(){
+		return numberOfTies;
+	}
+
+	public boolean areAdjacent(String sourceName, String targetName){
+		return contains(ties, sourceName, targetName);
+	}
+
+	/**
+	 * Returns the number of neighbors of the alter with the given index.
+	 */
+	public int getDegree(int alterIndex){
+		return neighborStarts[alterIndex + 1] - neighborStarts[alterIndex];
+	}
+
+	/**
+	 * Returns the index of the k'th neighbor (0 <= k < getDegree(alterIndex)) of the alter with the given index.
+	 */
+	public int getNeighborIndex(int alterIndex, int k){
+		return neighbors[neighborStarts[alterIndex] + k];
+	}
+
+	/**
+	 * Returns the names of the neighbors of the alter (empty if the alter is not in the network).
+	 */
+	public LinkedHashSet<String> getNeighbors(String alterName){
+		LinkedHashSet<String> names = new LinkedHashSet<String>();
+		int alterIndex = getAlterIndex(alterName);
+		if(alterIndex < 0)
+			return names;
+		for(int i = neighborStarts[alterIndex]; i < neighborStarts[alterIndex + 1]; ++i)
+			names.add(alterNames[neighbors[i]]);
+		return names;
+	}
+
+	/**
+	 * Returns the number of undirected alter-alter dyads.
+	 */
+	public int getNumberOfAlterAlterDyads(){
+		return numberOfDyads;
+	}
+
+	public boolean isAlterAlterDyad(String sourceName, String targetName){
+		return contains(dyads, sourceName, targetName);
+	}
+
+	/**
+	 * Returns the value of the attribute for the element or PersonalNetwork.VALUE_NOT_ASSIGNED if it has
+	 * no value at the time point (as PersonalNetwork.getAttributeValueAt).
+	 */
+	public String getAttributeValue(String attributeName, Element element){
+		String value = null;
+		if(element instanceof Ego){
+			value = egoValues.get(attributeName);
+		} else if(element instanceof Alter){
+			value = getValue(alterValues, attributeName, ((Alter) element).getName());
+		} else if(element instanceof EgoAlterDyad){
+			EgoAlterDyad dyad = (EgoAlterDyad) element;
+			if(PersonalNetwork.DYAD_DIRECTION_IN.equals(dyad.getDirection()))
+				value = getValue(egoAlterInValues, attributeName, dyad.getName());
+			else
+				value = getValue(egoAlterOutValues, attributeName, dyad.getName());
+		} else if(element instanceof AlterAlterDyad){
+			AlterAlterDyad dyad = (AlterAlterDyad) element;
+			HashMap<Long, String> values = alterAlterValues.get(attributeName);
+			int source = getAlterIndex(dyad.getSourceName());
+			int target = getAlterIndex(dyad.getTargetName());
+			if(values != null && source >= 0 && target >= 0)
+				value = values.get(getKey(source, target));
+		}
+		return value == null ? PersonalNetwork.VALUE_NOT_ASSIGNED : value;
+	}
+
+	/**
+	 * Returns a map from the names of the attributes of the element's domain (in alphabetical order) to their
+	 * values for the element. Includes only attributes having a value at the time point
+	 * (as PersonalNetwork.getValuesOfAllAttributesForElementAt).
+	 */
+	public LinkedHashMap<String, String> getValuesOfAllAttributes(Element element){
+		LinkedHashMap<String, String> values = new LinkedHashMap<String, String>();
+		Collection<String> attributeNames;
+		if(element instanceof Ego)
+			attributeNames = egoValues.keySet();
+		else if(element instanceof Alter)
+			attributeNames = alterValues.keySet();
+		else if(element instanceof EgoAlterDyad)
+			attributeNames = PersonalNetwork.DYAD_DIRECTION_IN.equals(((EgoAlterDyad) element).getDirection()) ?
+					egoAlterInValues.keySet() : egoAlterOutValues.keySet();
+		else
+			attributeNames = alterAlterValues.keySet();
+		for(String attributeName : attributeNames){
+			String value = getAttributeValue(attributeName, element);
+			if(!PersonalNetwork.VALUE_NOT_ASSIGNED.equals(value))
+				values.put(attributeName, value);
+		}
+		return values;
+	}
+
+	/*
+	 * Stores the value; called only while the snapshot is built.
+	 */
+	private void putValue(Element element, String attributeName, String value){
+		if(element instanceof Ego){
+			egoValues.put(attributeName, value);
+		} else if(element instanceof Alter){
+			putValue(alterValues, attributeName, ((Alter) element).getName(), value);
+		} else if(element instanceof EgoAlterDyad){
+			EgoAlterDyad dyad = (EgoAlterDyad) element;
+			if(PersonalNetwork.DYAD_DIRECTION_IN.equals(dyad.getDirection()))
+				putValue(egoAlterInValues, attributeName, dyad.getName(), value);
+			else
+				putValue(egoAlterOutValues, attributeName, dyad.getName(), value);
+		} else if(element instanceof AlterAlterDyad){
+			AlterAlterDyad dyad = (AlterAlterDyad) element;
+			int source = getAlterIndex(dyad.getSourceName());
+			int target = getAlterIndex(dyad.getTargetName());
+			if(source < 0 || target < 0)
+				return;
+			HashMap<Long, String> values = alterAlterValues.get(attributeName);
+			if(values == null){
+				values = new HashMap<Long, String>();
+				alterAlterValues.put(attributeName, values);
+			}
+			values.put(getKey(source, target), value);
+		}
+	}
+
+	private void putValue(TreeMap<String, String[]> valuesByAttribute, String attributeName,
+			String alterName, String value){
+		int alterIndex = getAlterIndex(alterName);
+		if(alterIndex < 0)
+			return;
+		String[] values = valuesByAttribute.get(attributeName);
+		if(values == null){
+			values = new String[alterNames.length];
+			valuesByAttribute.put(attributeName, values);
+		}
+		values[alterIndex] = value;
+	}
+
+	private String getValue(TreeMap<String, String[]> valuesByAttribute, String attributeName, String alterName){
+		String[] values = valuesByAttribute.get(attributeName);
+		int alterIndex = getAlterIndex(alterName);
+		if(values == null || alterIndex < 0)
+			return null;
+		return values[alterIndex];
+	}
+
+	private boolean contains(HashSet<Long> pairs, String sourceName, String targetName){
+		int source = getAlterIndex(sourceName);
+		int target = getAlterIndex(targetName);
+		return source >= 0 && target >= 0 && pairs.contains(getKey(source, target));
+	}
+
+	/*
+	 * Key of the ordered pair of alter indexes.
+	 */
+	private long getKey(int sourceIndex, int targetIndex){
+		return (long) sourceIndex * alterNames.length + targetIndex;
+	}
+}
@@ -0,0 +1,61 @@
+/**
+ *
+ */
+package net.egosmart.scc.data;
+
+/**
+ * Number, minimum, maximum, sum, and mean of the values of a number attribute as aggregated by
+ * the database (see PersonalNetwork.getNumericAttributeSummaryAt).
+ *
+ * @author juergen
+ *
+ */
+public class NumericAttributeSummary {
+
+	private int count;
+	private double min;
+	private double max;
+	private double sum;
+
+	NumericAttributeSummary(int count, double min, double max, double sum){
+		this.count = count;
+		this.min = min;
+		this.max = max;
+		this.sum = sum;
+	}
+
+	/**
+	 * Returns the number of aggregated values.
+	 */
+	public int getCount(){
+		return count;
+	}
+
+	/**
+	 * Returns the smallest value or Double.NaN if there is no value.
+	 */
+	public double getMin(){
+		return count == 0 ? Double.NaN : min;
+	}
+
+	/**
+	 * Returns the largest value or Double.NaN if there is no value.
+	 */
+	public double getMax(){
+		return count == 0 ? Double.NaN : max;
+	}
+
+	/**
+	 * Returns the sum of the values (zero if there is no value).
+	 */
+	public double getSum(){
+		return sum;
+	}
+
+	/**
+	 * Returns the mean of the values or Double.NaN if there is no value.
+	 */
+	public double getMean(){
+		return count == 0 ? Double.NaN : sum / count;
+	}
+}
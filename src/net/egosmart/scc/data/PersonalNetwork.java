@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.io.Writer;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -17,6 +18,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
@@ -34,9 +36,13 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.content.res.Resources;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteException;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.database.sqlite.SQLiteQueryBuilder;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 import android.util.Xml;
 
@@ -72,7 +78,7 @@ import android.util.Xml;
  * 
  * Alter-alter dyad attributes have a direction type which is SYMMETRIC or ASYMMETRIC. 
  * For SYMMETRIC attributes if holds that if (a,b) has an associated value, 
- * then (b,a) has the same associated value.
+ * then (b,a) has the same associated value (the value is stored only once for both dyads).
  * 
  * Ego-alter dyad attributes can also be SYMMETRIC or ASYMMETRIC with the same meaning as for alter-alter
  * dyads; in addition, they can have the direction type OUT (meaning values can only be attached to the 
@@ -89,13 +95,31 @@ import android.util.Xml;
  * @author juergen
  *
  */
-public class PersonalNetwork{
+public class PersonalNetwork implements PersonalNetworkStore {
 
-	private static final int DATABASE_VERSION = 1;
+	/*
+	 * Version history of the database schema (see PersonalNetworkHistoryDBOpenHelper.onUpgrade):
+	 * 1 - initial schema
+	 * 2 - indexes on history and value tables
+	 * 3 - full-text search index
+	 * 4 - integer ids referencing alters
+	 * 5 - time stamps stored in the history and value tables
+	 * 6 - INTEGER affinity of the time columns
+	 * 7 - optional temporal (R*Tree) index
+	 * 8 - values of number attributes stored as REAL
+	 * 9 - values of choice attributes stored as codes of the choices
+	 * 10 - ties, alter-alter dyads, and values of symmetric dyad attributes stored once per pair
+	 * 11 - journal of changes
+	 */
+	private static final int DATABASE_VERSION = 11;
 	private static final String DATABASE_NAME_PREFIX = "egosmart_history_db.";
 
 	/*
 	 * String constants for column names used in history tables.
+	 * 
+	 * The times are declared INTEGER so that they are compared as integers (also with selection 
+	 * arguments, which are given as strings) and the indexes on them can be used. Selections of
+	 * the rows overlapping an interval are done in SQL (see getOverlapSelection).
 	 */
 	//interval start time
 	private static final String COL_TIME_START = "time_start";
@@ -105,6 +129,11 @@ public class PersonalNetwork{
 	//column name holding a unique id for the row in history or in value files
 	private static final String COL_DATUM_ID = "datum_id";
 
+	//time (in milliseconds) when the start time of the row has been set
+	private static final String COL_TIMESTAMP_START = "timestamp_start";
+	//time (in milliseconds) when the end time of the row has been set
+	private static final String COL_TIMESTAMP_END = "timestamp_end";
+
 	/*
 	 * Table holding changeable properties of the network
 	 */
@@ -121,16 +150,18 @@ public class PersonalNetwork{
 	//ALTERS
 	//////////////////////////////////////////////////////////////////////////
 	/*
-	 * Table holding the unique names of alters. 
-	 * Maps alter names to system ids if available, if not maps to NOID.
+	 * Table holding the unique names of alters together with their integer ids. 
+	 * All other tables refer to alters by their ids, so that the name of an alter is stored only here
+	 * (see AlterDictionary for the copy of this table held in memory). 
 	 * An alter in this table might have an empty lifetime.
 	 */
 	private static final String ALTERS_TABLE_NAME = "alters";
+	protected static final String ALTERS_COL_ID = "alter_id";
 	protected static final String ALTERS_COL_NAME = "alter_name";
 	private static final String ALTERS_TABLE_CREATE_CMD =
 			"CREATE TABLE " + ALTERS_TABLE_NAME + " (" +
-					ALTERS_COL_NAME + " TEXT, " +
-					"PRIMARY KEY (" + ALTERS_COL_NAME + ") " +
+					ALTERS_COL_ID + " INTEGER PRIMARY KEY, " +
+					ALTERS_COL_NAME + " TEXT NOT NULL UNIQUE " +
 					" );";
 
 	/*
@@ -140,28 +171,31 @@ public class PersonalNetwork{
 	private static final String ALTERS_HISTORY_TABLE_NAME = "alters_history";
 	private static final String ALTERS_HISTORY_TABLE_CREATE_CMD =
 			"CREATE TABLE " + ALTERS_HISTORY_TABLE_NAME + " (" +
-					ALTERS_COL_NAME + " TEXT, " +
-					COL_TIME_START + " NUMERIC, " +
-					COL_TIME_END + " NUMERIC, " +
+					ALTERS_COL_ID + " INTEGER, " +
+					COL_TIME_START + " INTEGER, " +
+					COL_TIME_END + " INTEGER, " +
 					COL_DATUM_ID + " NUMERIC, " +
-					"FOREIGN KEY (" + ALTERS_COL_NAME + ") " +
-					"REFERENCES " + ALTERS_TABLE_NAME + " (" + ALTERS_COL_NAME + ")"+
+					COL_TIMESTAMP_START + " INTEGER, " +
+					COL_TIMESTAMP_END + " INTEGER, " +
+					"FOREIGN KEY (" + ALTERS_COL_ID + ") " +
+					"REFERENCES " + ALTERS_TABLE_NAME + " (" + ALTERS_COL_ID + ")"+
 					" );";
 
 	//////////////////////////////////////////////////////////////////////////
 	//TIES
 	//////////////////////////////////////////////////////////////////////////
 	/*
-	 * Table holding the directed ties which are pairs of different alters (source, target);
-	 * both referencing alter names. The ordered pairs (source, target) are unique.
+	 * Table holding the ties which are pairs of different alters (source, target);
+	 * both referencing alter ids. Ties are symmetric: every tie is stored once with the smaller 
+	 * alter id as source and stands for the two directed ties (source, target) and (target, source).
 	 */
 	private static final String TIES_TABLE_NAME = "ties";
 	protected static final String DYADS_COL_SOURCE = "source";
 	protected static final String DYADS_COL_TARGET = "target";
 	private static final String TIES_TABLE_CREATE_CMD =
 			"CREATE TABLE " + TIES_TABLE_NAME + " (" +
-					DYADS_COL_SOURCE + " TEXT REFERENCES " + ALTERS_TABLE_NAME + " (" + ALTERS_COL_NAME + "), " +
-					DYADS_COL_TARGET + " TEXT REFERENCES " + ALTERS_TABLE_NAME + " (" + ALTERS_COL_NAME + "), " +
+					DYADS_COL_SOURCE + " INTEGER REFERENCES " + ALTERS_TABLE_NAME + " (" + ALTERS_COL_ID + "), " +
+					DYADS_COL_TARGET + " INTEGER REFERENCES " + ALTERS_TABLE_NAME + " (" + ALTERS_COL_ID + "), " +
 					"PRIMARY KEY (" + DYADS_COL_SOURCE + ", " + DYADS_COL_TARGET + ")  );";
 
 	/*
@@ -171,11 +205,13 @@ public class PersonalNetwork{
 	private static final String TIES_HISTORY_TABLE_NAME = "ties_history";
 	private static final String TIES_HISTORY_TABLE_CREATE_CMD =
 			"CREATE TABLE " + TIES_HISTORY_TABLE_NAME + " (" +
-					DYADS_COL_SOURCE + " TEXT, " +
-					DYADS_COL_TARGET + " TEXT, " +
-					COL_TIME_START + " NUMERIC, " +
-					COL_TIME_END + " NUMERIC, " +
+					DYADS_COL_SOURCE + " INTEGER, " +
+					DYADS_COL_TARGET + " INTEGER, " +
+					COL_TIME_START + " INTEGER, " +
+					COL_TIME_END + " INTEGER, " +
 					COL_DATUM_ID + " NUMERIC, " +
+					COL_TIMESTAMP_START + " INTEGER, " +
+					COL_TIMESTAMP_END + " INTEGER, " +
 					"FOREIGN KEY (" + DYADS_COL_SOURCE + "," + DYADS_COL_TARGET + ") " +
 					"REFERENCES " + TIES_TABLE_NAME + " (" + DYADS_COL_SOURCE + "," + DYADS_COL_TARGET + ") " +
 					" );";
@@ -184,14 +220,15 @@ public class PersonalNetwork{
 	//ALTER-ALTER DYADS
 	//////////////////////////////////////////////////////////////////////////
 	/*
-	 * Table holding the directed alter-alter dyads which are pairs of different alters (source, target);
-	 * both referencing alter names. The ordered pairs (source, target) are unique.
+	 * Table holding the alter-alter dyads which are pairs of different alters (source, target);
+	 * both referencing alter ids. Like ties, every dyad is stored once with the smaller alter id 
+	 * as source and stands for both directed dyads.
 	 */
 	private static final String ALTER_ALTER_DYADS_TABLE_NAME = "alter_alter_dyads";
 	private static final String ALTER_ALTER_DYADS_TABLE_CREATE_CMD =
 			"CREATE TABLE " + ALTER_ALTER_DYADS_TABLE_NAME + " (" +
-					DYADS_COL_SOURCE + " TEXT REFERENCES " + ALTERS_TABLE_NAME + " (" + ALTERS_COL_NAME + "), " +
-					DYADS_COL_TARGET + " TEXT REFERENCES " + ALTERS_TABLE_NAME + " (" + ALTERS_COL_NAME + "), " +
+					DYADS_COL_SOURCE + " INTEGER REFERENCES " + ALTERS_TABLE_NAME + " (" + ALTERS_COL_ID + "), " +
+					DYADS_COL_TARGET + " INTEGER REFERENCES " + ALTERS_TABLE_NAME + " (" + ALTERS_COL_ID + "), " +
 					"PRIMARY KEY (" + DYADS_COL_SOURCE + ", " + DYADS_COL_TARGET + ")  );";
 
 	/*
@@ -201,11 +238,13 @@ public class PersonalNetwork{
 	private static final String ALTER_ALTER_DYADS_HISTORY_TABLE_NAME = "alter_alter_dyads_history";
 	private static final String ALTER_ALTER_DYADS_HISTORY_TABLE_CREATE_CMD =
 			"CREATE TABLE " + ALTER_ALTER_DYADS_HISTORY_TABLE_NAME + " (" +
-					DYADS_COL_SOURCE + " TEXT, " +
-					DYADS_COL_TARGET + " TEXT, " +
-					COL_TIME_START + " NUMERIC, " +
-					COL_TIME_END + " NUMERIC, " +
+					DYADS_COL_SOURCE + " INTEGER, " +
+					DYADS_COL_TARGET + " INTEGER, " +
+					COL_TIME_START + " INTEGER, " +
+					COL_TIME_END + " INTEGER, " +
 					COL_DATUM_ID + " NUMERIC, " +
+					COL_TIMESTAMP_START + " INTEGER, " +
+					COL_TIMESTAMP_END + " INTEGER, " +
 					"FOREIGN KEY (" + DYADS_COL_SOURCE + "," + DYADS_COL_TARGET + ") " +
 					"REFERENCES " + ALTER_ALTER_DYADS_TABLE_NAME + " (" + DYADS_COL_SOURCE + "," + DYADS_COL_TARGET + ") " +
 					" );";
@@ -221,7 +260,11 @@ public class PersonalNetwork{
 	protected static final String ATTRIBUTES_COL_DIRECTION_TYPE = "attribute_direction_type";
 	private static final String ATTRIBUTES_COL_DYNAMIC_TYPE = "attribute_dynamic_type";
 	private static final String ATTRIBUTES_COL_VALUE = "attribute_value";
+	//the value converted to REAL for attributes of type number (null otherwise)
+	private static final String ATTRIBUTES_COL_NUMBER = "attribute_number";
 	private static final String ATTRIBUTES_COL_CHOICE = "attribute_choice";
+	//code of a choice (unique in its choices table); values of choice attributes are stored as codes
+	private static final String ATTRIBUTES_COL_CHOICE_CODE = "attribute_choice_code";
 
 	//column name holding the domain of a secondary attribute (which are all in one table)
 	private static final String ATTRIBUTES_COL_DOMAIN = "attribute_domain";
@@ -295,9 +338,13 @@ public class PersonalNetwork{
 			"CREATE TABLE " + EGO_ATTRIBS_VALUES_TABLE_NAME + " (" +
 					ATTRIBUTES_COL_NAME + " TEXT, " +
 					ATTRIBUTES_COL_VALUE + " TEXT, "  +
-					COL_TIME_START + " NUMERIC, " +
-					COL_TIME_END + " NUMERIC, " +
+					ATTRIBUTES_COL_NUMBER + " REAL, "  +
+					ATTRIBUTES_COL_CHOICE_CODE + " INTEGER, "  +
+					COL_TIME_START + " INTEGER, " +
+					COL_TIME_END + " INTEGER, " +
 					COL_DATUM_ID + " NUMERIC, " +
+					COL_TIMESTAMP_START + " INTEGER, " +
+					COL_TIMESTAMP_END + " INTEGER, " +
 					"FOREIGN KEY (" + ATTRIBUTES_COL_NAME + ") " +
 					"REFERENCES " + EGO_ATTRIBS_NAMES_TABLE_NAME + " (" + ATTRIBUTES_COL_NAME + ")"+
 					" );";
@@ -311,7 +358,8 @@ public class PersonalNetwork{
 			"CREATE TABLE " + EGO_ATTRIBS_CHOICES_TABLE_NAME + " (" +
 					ATTRIBUTES_COL_NAME + " TEXT REFERENCES " 
 					+ EGO_ATTRIBS_NAMES_TABLE_NAME + " (" + ATTRIBUTES_COL_NAME + "), " +
-					ATTRIBUTES_COL_CHOICE + " TEXT   );";
+					ATTRIBUTES_COL_CHOICE + " TEXT, " +
+					ATTRIBUTES_COL_CHOICE_CODE + " INTEGER   );";
 
 	
 	//////////////////////////////////////////////////////////////////////////
@@ -337,12 +385,16 @@ public class PersonalNetwork{
 			"CREATE TABLE " + ALTER_ATTRIBS_VALUES_TABLE_NAME + " (" +
 					ATTRIBUTES_COL_NAME + " TEXT REFERENCES " 
 					+ ALTER_ATTRIBS_NAMES_TABLE_NAME + " (" + ATTRIBUTES_COL_NAME + "), " +
-					ALTERS_COL_NAME + " TEXT REFERENCES " 
-					+ ALTERS_TABLE_NAME + " (" + ALTERS_COL_NAME + "), " +		
+					ALTERS_COL_ID + " INTEGER REFERENCES " 
+					+ ALTERS_TABLE_NAME + " (" + ALTERS_COL_ID + "), " +		
 					ATTRIBUTES_COL_VALUE + " TEXT, "  +
-					COL_TIME_START + " NUMERIC, " +
-					COL_TIME_END + " NUMERIC, " +
-					COL_DATUM_ID + " NUMERIC " +
+					ATTRIBUTES_COL_NUMBER + " REAL, "  +
+					ATTRIBUTES_COL_CHOICE_CODE + " INTEGER, "  +
+					COL_TIME_START + " INTEGER, " +
+					COL_TIME_END + " INTEGER, " +
+					COL_DATUM_ID + " NUMERIC, " +
+					COL_TIMESTAMP_START + " INTEGER, " +
+					COL_TIMESTAMP_END + " INTEGER " +
 					" );";
 
 	/*
@@ -354,7 +406,8 @@ public class PersonalNetwork{
 			"CREATE TABLE " + ALTER_ATTRIBS_CHOICES_TABLE_NAME + " (" +
 					ATTRIBUTES_COL_NAME + " TEXT REFERENCES " 
 					+ ALTER_ATTRIBS_NAMES_TABLE_NAME + " (" + ATTRIBUTES_COL_NAME + "), " +
-					ATTRIBUTES_COL_CHOICE + " TEXT   );";
+					ATTRIBUTES_COL_CHOICE + " TEXT, " +
+					ATTRIBUTES_COL_CHOICE_CODE + " INTEGER   );";
 
 	//////////////////////////////////////////////////////////////////////////
 	//EGO-ALTER ATTRIBUTES
@@ -379,21 +432,25 @@ public class PersonalNetwork{
 	 * has at most one value associated with it for any point in time; 
 	 * the special value "N/A" is not explicitly stored.
 	 * Direction can be IN or OUT.
-	 * Symmetric attributes are always stored in the direction OUT and IN (similar behavior to symmetric
-	 * alter-alter dyad attributes.
+	 * Symmetric attributes are stored only in the direction OUT and apply to both directions (similar 
+	 * behavior to symmetric alter-alter dyad attributes).
 	 */
 	private static final String EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME = "ego_alter_attributes_values";
 	private static final String EGO_ALTER_ATTRIBS_VALUES_TABLE_CREATE_CMD = 
 			"CREATE TABLE " + EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME + " (" +
 					ATTRIBUTES_COL_NAME + " TEXT REFERENCES " 
 					+ ALTER_ATTRIBS_NAMES_TABLE_NAME + " (" + ATTRIBUTES_COL_NAME + "), " +
-					ALTERS_COL_NAME + " TEXT REFERENCES " 
-					+ ALTERS_TABLE_NAME + " (" + ALTERS_COL_NAME + "), " +		
+					ALTERS_COL_ID + " INTEGER REFERENCES " 
+					+ ALTERS_TABLE_NAME + " (" + ALTERS_COL_ID + "), " +		
 					ATTRIBUTES_COL_DIRECTION_TYPE + " TEXT, "  +
 					ATTRIBUTES_COL_VALUE + " TEXT, "  +
-					COL_TIME_START + " NUMERIC, " +
-					COL_TIME_END + " NUMERIC, " +
-					COL_DATUM_ID + " NUMERIC " +
+					ATTRIBUTES_COL_NUMBER + " REAL, "  +
+					ATTRIBUTES_COL_CHOICE_CODE + " INTEGER, "  +
+					COL_TIME_START + " INTEGER, " +
+					COL_TIME_END + " INTEGER, " +
+					COL_DATUM_ID + " NUMERIC, " +
+					COL_TIMESTAMP_START + " INTEGER, " +
+					COL_TIMESTAMP_END + " INTEGER " +
 					" );";
 
 	/*
@@ -405,7 +462,8 @@ public class PersonalNetwork{
 			"CREATE TABLE " + EGO_ALTER_ATTRIBS_CHOICES_TABLE_NAME + " (" +
 					ATTRIBUTES_COL_NAME + " TEXT REFERENCES " 
 					+ EGO_ALTER_ATTRIBS_NAMES_TABLE_NAME + " (" + ATTRIBUTES_COL_NAME + "), " +
-					ATTRIBUTES_COL_CHOICE + " TEXT   " +
+					ATTRIBUTES_COL_CHOICE + " TEXT, " +
+					ATTRIBUTES_COL_CHOICE_CODE + " INTEGER   " +
 							");";
 
 	//////////////////////////////////////////////////////////////////////////
@@ -429,7 +487,8 @@ public class PersonalNetwork{
 	 * Table holding the values of alter-alter dyad attributes. Each 
 	 * triplet (attribute name, source name, target name) has at most one value associated with it.
 	 * For undirected attributes: the triplet (attribute name, source name, target name) has the same
-	 * associated value as (attribute name, target name, source name), if any. 
+	 * associated value as (attribute name, target name, source name), if any; the value is stored 
+	 * only for the dyad whose source has the smaller alter id. 
 	 * The special value "N/A" is not explicitly stored.
 	 */
 	private static final String ALTER_ALTER_ATTRIBS_VALUES_TABLE_NAME = "alter_alter_attribs_values";
@@ -437,12 +496,16 @@ public class PersonalNetwork{
 			"CREATE TABLE " + ALTER_ALTER_ATTRIBS_VALUES_TABLE_NAME + " (" +
 					ATTRIBUTES_COL_NAME + " TEXT REFERENCES " 
 					+ ALTER_ALTER_ATTRIBS_NAMES_TABLE_NAME + " (" + ATTRIBUTES_COL_NAME + "), " +		
-					DYADS_COL_SOURCE + " TEXT, " + 
-					DYADS_COL_TARGET + " TEXT," +		
+					DYADS_COL_SOURCE + " INTEGER, " + 
+					DYADS_COL_TARGET + " INTEGER," +		
 					ATTRIBUTES_COL_VALUE + " TEXT, "  +
-					COL_TIME_START + " NUMERIC, " +
-					COL_TIME_END + " NUMERIC, " +
+					ATTRIBUTES_COL_NUMBER + " REAL, "  +
+					ATTRIBUTES_COL_CHOICE_CODE + " INTEGER, "  +
+					COL_TIME_START + " INTEGER, " +
+					COL_TIME_END + " INTEGER, " +
 					COL_DATUM_ID + " NUMERIC, " +
+					COL_TIMESTAMP_START + " INTEGER, " +
+					COL_TIMESTAMP_END + " INTEGER, " +
 					"FOREIGN KEY (" + DYADS_COL_SOURCE + ", " + DYADS_COL_TARGET + ") " + 
 					"REFERENCES " + ALTER_ALTER_DYADS_TABLE_NAME + 
 					" (" + DYADS_COL_SOURCE + "," + DYADS_COL_TARGET + ") " +		
@@ -457,7 +520,187 @@ public class PersonalNetwork{
 			"CREATE TABLE " + ALTER_ALTER_ATTRIBS_CHOICES_TABLE_NAME + " (" +
 					ATTRIBUTES_COL_NAME + " TEXT REFERENCES " 
 					+ ALTER_ALTER_ATTRIBS_NAMES_TABLE_NAME + " (" + ATTRIBUTES_COL_NAME + "), " +
-					ATTRIBUTES_COL_CHOICE + " TEXT   );";
+					ATTRIBUTES_COL_CHOICE + " TEXT, " +
+					ATTRIBUTES_COL_CHOICE_CODE + " INTEGER   );";
+
+	//////////////////////////////////////////////////////////////////////////
+	//JOURNAL
+	//////////////////////////////////////////////////////////////////////////
+	/*
+	 * Append-only journal of the changes of the network (see the section JOURNAL of the methods). 
+	 * Entries are numbered by the AUTOINCREMENT key, so that sequence numbers are never reused, 
+	 * also not after the journal has been truncated. Elements are identified by the names of their 
+	 * alters at the time of the change; renamings are recorded as entries of their own.
+	 */
+	private static final String JOURNAL_TABLE_NAME = "journal";
+	private static final String JOURNAL_COL_SEQUENCE_NUMBER = "sequence_number";
+	private static final String JOURNAL_COL_TYPE = "type";
+	private static final String JOURNAL_COL_DOMAIN = "domain";
+	private static final String JOURNAL_COL_FIRST_NAME = "first_name";
+	private static final String JOURNAL_COL_SECOND_NAME = "second_name";
+	private static final String JOURNAL_TABLE_CREATE_CMD =
+			"CREATE TABLE IF NOT EXISTS " + JOURNAL_TABLE_NAME + " (" +
+					JOURNAL_COL_SEQUENCE_NUMBER + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+					JOURNAL_COL_TYPE + " TEXT, " +
+					COL_TIME_START + " INTEGER, " +
+					COL_TIME_END + " INTEGER, " +
+					JOURNAL_COL_DOMAIN + " TEXT, " +
+					JOURNAL_COL_FIRST_NAME + " TEXT, " +
+					JOURNAL_COL_SECOND_NAME + " TEXT, " +
+					ATTRIBUTES_COL_DIRECTION_TYPE + " TEXT, " +
+					ATTRIBUTES_COL_NAME + " TEXT, " +
+					ATTRIBUTES_COL_VALUE + " TEXT  );";
+
+	/*
+	 * Positions of the consumers reading the journal with getJournalSince (the sequence number of 
+	 * the last entry read by each consumer).
+	 */
+	private static final String JOURNAL_CONSUMERS_TABLE_NAME = "journal_consumers";
+	private static final String JOURNAL_CONSUMERS_COL_NAME = "consumer_name";
+	private static final String JOURNAL_CONSUMERS_TABLE_CREATE_CMD =
+			"CREATE TABLE IF NOT EXISTS " + JOURNAL_CONSUMERS_TABLE_NAME + " (" +
+					JOURNAL_CONSUMERS_COL_NAME + " TEXT PRIMARY KEY, " +
+					JOURNAL_COL_SEQUENCE_NUMBER + " INTEGER  );";
+
+	//////////////////////////////////////////////////////////////////////////
+	//INDEXES
+	//////////////////////////////////////////////////////////////////////////
+	/*
+	 * Indexes on the history and value tables. The element indexes cover the lookups
+	 * by element (and attribute) restricted to a time interval; the datum id indexes cover
+	 * the lookups of single rows by their datum id. 
+	 */
+	private static final String ALTERS_HISTORY_ELEMENT_INDEX_CREATE_CMD =
+			"CREATE INDEX IF NOT EXISTS alters_history_element_idx ON " + ALTERS_HISTORY_TABLE_NAME + " (" +
+					ALTERS_COL_ID + ", " +
+					COL_TIME_START + ", " + COL_TIME_END + ");";
+	private static final String ALTERS_HISTORY_DATUM_ID_INDEX_CREATE_CMD =
+			"CREATE INDEX IF NOT EXISTS alters_history_datum_id_idx ON " + ALTERS_HISTORY_TABLE_NAME + " (" +
+					COL_DATUM_ID + ");";
+	private static final String TIES_HISTORY_ELEMENT_INDEX_CREATE_CMD =
+			"CREATE INDEX IF NOT EXISTS ties_history_element_idx ON " + TIES_HISTORY_TABLE_NAME + " (" +
+					DYADS_COL_SOURCE + ", " + DYADS_COL_TARGET + ", " +
+					COL_TIME_START + ", " + COL_TIME_END + ");";
+	private static final String TIES_HISTORY_TARGET_INDEX_CREATE_CMD =
+			"CREATE INDEX IF NOT EXISTS ties_history_target_idx ON " + TIES_HISTORY_TABLE_NAME + " (" +
+					DYADS_COL_TARGET + ", " +
+					COL_TIME_START + ", " + COL_TIME_END + ");";
+	private static final String TIES_HISTORY_DATUM_ID_INDEX_CREATE_CMD =
+			"CREATE INDEX IF NOT EXISTS ties_history_datum_id_idx ON " + TIES_HISTORY_TABLE_NAME + " (" +
+					COL_DATUM_ID + ");";
+	private static final String ALTER_ALTER_DYADS_HISTORY_ELEMENT_INDEX_CREATE_CMD =
+			"CREATE INDEX IF NOT EXISTS alter_alter_dyads_history_element_idx ON " + ALTER_ALTER_DYADS_HISTORY_TABLE_NAME + " (" +
+					DYADS_COL_SOURCE + ", " + DYADS_COL_TARGET + ", " +
+					COL_TIME_START + ", " + COL_TIME_END + ");";
+	private static final String ALTER_ALTER_DYADS_HISTORY_TARGET_INDEX_CREATE_CMD =
+			"CREATE INDEX IF NOT EXISTS alter_alter_dyads_history_target_idx ON " + ALTER_ALTER_DYADS_HISTORY_TABLE_NAME + " (" +
+					DYADS_COL_TARGET + ", " +
+					COL_TIME_START + ", " + COL_TIME_END + ");";
+	private static final String ALTER_ALTER_DYADS_HISTORY_DATUM_ID_INDEX_CREATE_CMD =
+			"CREATE INDEX IF NOT EXISTS alter_alter_dyads_history_datum_id_idx ON " + ALTER_ALTER_DYADS_HISTORY_TABLE_NAME + " (" +
+					COL_DATUM_ID + ");";
+	private static final String EGO_ATTRIBS_VALUES_ELEMENT_INDEX_CREATE_CMD =
+			"CREATE INDEX IF NOT EXISTS ego_attributes_values_element_idx ON " + EGO_ATTRIBS_VALUES_TABLE_NAME + " (" +
+					ATTRIBUTES_COL_NAME + ", " +
+					COL_TIME_START + ", " + COL_TIME_END + ");";
+	private static final String EGO_ATTRIBS_VALUES_DATUM_ID_INDEX_CREATE_CMD =
+			"CREATE INDEX IF NOT EXISTS ego_attributes_values_datum_id_idx ON " + EGO_ATTRIBS_VALUES_TABLE_NAME + " (" +
+					COL_DATUM_ID + ");";
+	private static final String ALTER_ATTRIBS_VALUES_ELEMENT_INDEX_CREATE_CMD =
+			"CREATE INDEX IF NOT EXISTS alter_attributes_values_element_idx ON " + ALTER_ATTRIBS_VALUES_TABLE_NAME + " (" +
+					ATTRIBUTES_COL_NAME + ", " + ALTERS_COL_ID + ", " +
+					COL_TIME_START + ", " + COL_TIME_END + ");";
+	private static final String ALTER_ATTRIBS_VALUES_DATUM_ID_INDEX_CREATE_CMD =
+			"CREATE INDEX IF NOT EXISTS alter_attributes_values_datum_id_idx ON " + ALTER_ATTRIBS_VALUES_TABLE_NAME + " (" +
+					COL_DATUM_ID + ");";
+	private static final String EGO_ALTER_ATTRIBS_VALUES_ELEMENT_INDEX_CREATE_CMD =
+			"CREATE INDEX IF NOT EXISTS ego_alter_attributes_values_element_idx ON " + EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME + " (" +
+					ATTRIBUTES_COL_NAME + ", " + ALTERS_COL_ID + ", " + ATTRIBUTES_COL_DIRECTION_TYPE + ", " +
+					COL_TIME_START + ", " + COL_TIME_END + ");";
+	private static final String EGO_ALTER_ATTRIBS_VALUES_DATUM_ID_INDEX_CREATE_CMD =
+			"CREATE INDEX IF NOT EXISTS ego_alter_attributes_values_datum_id_idx ON " + EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME + " (" +
+					COL_DATUM_ID + ");";
+	private static final String ALTER_ALTER_ATTRIBS_VALUES_ELEMENT_INDEX_CREATE_CMD =
+			"CREATE INDEX IF NOT EXISTS alter_alter_attribs_values_element_idx ON " + ALTER_ALTER_ATTRIBS_VALUES_TABLE_NAME + " (" +
+					ATTRIBUTES_COL_NAME + ", " + DYADS_COL_SOURCE + ", " + DYADS_COL_TARGET + ", " +
+					COL_TIME_START + ", " + COL_TIME_END + ");";
+	private static final String ALTER_ALTER_ATTRIBS_VALUES_DATUM_ID_INDEX_CREATE_CMD =
+			"CREATE INDEX IF NOT EXISTS alter_alter_attribs_values_datum_id_idx ON " + ALTER_ALTER_ATTRIBS_VALUES_TABLE_NAME + " (" +
+					COL_DATUM_ID + ");";
+	/*
+	 * Secondary attribute values are always looked up by the datum id of the primary datum.
+	 */
+	private static final String SECONDARY_ATTRIBS_VALUES_DATUM_ID_INDEX_CREATE_CMD =
+			"CREATE INDEX IF NOT EXISTS secondary_attributes_values_datum_id_idx ON " + 
+					SECONDARY_ATTRIBS_VALUES_TABLE_NAME + " (" +
+					COL_DATUM_ID + ", " + SECONDARY_ATTRIBUTES_COL_NAME + ");";
+
+	//////////////////////////////////////////////////////////////////////////
+	//SEARCH INDEX
+	//////////////////////////////////////////////////////////////////////////
+	/*
+	 * Full-text index used by search. Each document holds a text that is associated with an alter
+	 * (given by its id): 
+	 * the name of the alter, a value of an alter or ego-alter attribute of the alter, or a 
+	 * secondary text attribute (memos, contact events) attached to such a value. 
+	 * 
+	 * The index is kept up to date by triggers on the source tables. The docid of a document is 
+	 * SEARCH_INDEX_KINDS*rowid + kind where rowid is the rowid of the source row and kind identifies the 
+	 * source table; this allows the triggers to find the documents of a row and search to rank
+	 * matches by their kind. Since VACUUM may change the rowids of the values tables (which have no 
+	 * INTEGER PRIMARY KEY), the index is rebuilt after each VACUUM (see vacuumIncrementally).
+	 */
+	private static final String SEARCH_INDEX_TABLE_NAME = "search_index";
+	private static final String SEARCH_INDEX_COL_TEXT = "search_text";
+	private static final String SEARCH_INDEX_TABLE_CREATE_CMD = 
+			"CREATE VIRTUAL TABLE IF NOT EXISTS " + SEARCH_INDEX_TABLE_NAME + " USING fts4 (" +
+					ALTERS_COL_ID + ", " + SEARCH_INDEX_COL_TEXT + ");";
+	//kinds of documents (ordered by decreasing relevance of matches)
+	private static final int SEARCH_INDEX_KIND_ALTER_NAME = 0;
+	private static final int SEARCH_INDEX_KIND_ALTER_VALUE = 1;
+	private static final int SEARCH_INDEX_KIND_EGO_ALTER_VALUE = 2;
+	private static final int SEARCH_INDEX_KIND_SECONDARY_TEXT = 3;
+	private static final int SEARCH_INDEX_KINDS = 4;
+	//maximal number of alters returned by search
+	private static final int SEARCH_MAX_RESULTS = 10;
+
+	//////////////////////////////////////////////////////////////////////////
+	//TEMPORAL INDEX
+	//////////////////////////////////////////////////////////////////////////
+	/*
+	 * Optional R*Tree indexes on the intervals of the rows of the history and value tables; they are
+	 * created only if SQLite has been built with the R*Tree module. The index of table t is the
+	 * R*Tree t + TEMPORAL_INDEX_SUFFIX whose id is the datum id of the row (which, unlike the rowid, 
+	 * is not changed by VACUUM) and whose single dimension is [time_start, time_end]. 
+	 * 
+	 * An R*Tree stores 32-bit floating point coordinates (rounded outwards) and therefore selects a 
+	 * superset of the rows overlapping a window, which are then checked exactly (see 
+	 * getOverlapSelection). The indexes are kept up to date by triggers on the tables.
+	 */
+	private static final String TEMPORAL_INDEX_SUFFIX = "_rtree";
+	private static final String TEMPORAL_INDEX_COL_ID = "id";
+	private static final String[] TEMPORAL_INDEX_TABLE_NAMES = {
+		ALTERS_HISTORY_TABLE_NAME, TIES_HISTORY_TABLE_NAME, 
+		EGO_ATTRIBS_VALUES_TABLE_NAME, ALTER_ATTRIBS_VALUES_TABLE_NAME, 
+		EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME, ALTER_ALTER_ATTRIBS_VALUES_TABLE_NAME
+	};
+
+	//////////////////////////////////////////////////////////////////////////
+	//CLIPPED ROWS
+	//////////////////////////////////////////////////////////////////////////
+	/*
+	 * Temporary table (not stored in the database file) holding the rowids of the rows of one 
+	 * history or value table that are clipped by cutOutOfRows. The rows are numbered 1, 2, ... 
+	 * in the column pos, which is used to give the remaining parts of the rows distinct datum ids.
+	 */
+	private static final String CLIPPED_ROWS_TABLE_NAME = "clipped_rows";
+	private static final String CLIPPED_ROWS_COL_POS = "pos";
+	private static final String CLIPPED_ROWS_COL_ROW_ID = "row_id";
+	private static final String CLIPPED_ROWS_TABLE_CREATE_CMD =
+			"CREATE TEMP TABLE IF NOT EXISTS " + CLIPPED_ROWS_TABLE_NAME + " (" +
+					CLIPPED_ROWS_COL_POS + " INTEGER PRIMARY KEY, " +
+					CLIPPED_ROWS_COL_ROW_ID + " INTEGER " +
+					" );";
 
 	////////////////////////////////////////////////////////////////////////////////////////
 	
@@ -469,6 +712,46 @@ public class PersonalNetwork{
 
 	//Reference to the database.
 	private SQLiteDatabase db;
+
+	//Helper that has opened the database; also creates and rebuilds the search index.
+	private PersonalNetworkHistoryDBOpenHelper helper;
+
+	//True if the database has the temporal indexes (see TEMPORAL_INDEX_SUFFIX).
+	private boolean hasTemporalIndex;
+
+	//In-memory copy of alters, ties, and their lifetimes; null if it has to be rebuilt.
+	private TemporalGraphCache graphCache;
+
+	//In-memory copy of the alters table mapping names to ids; null if it has to be read again.
+	private AlterDictionary alterDictionary;
+
+	//In-memory copy of the properties table; changed properties are written by flushProperties.
+	//(The reserved datum ids are not kept in this copy but read and written directly.)
+	private PropertiesCache properties;
+
+	//In-memory copy of the attribute names and choices tables (see loadAttributeCatalog).
+	private AttributeCatalog attributeCatalog;
+
+	//Compiled statements of the frequently executed queries (see the section COMPILED STATEMENTS).
+	private StatementRegistry statements;
+
+	//The currently open batch of changes; null if no batch is open.
+	private Batch activeBatch;
+
+	//The running maintenance of the database; null if no maintenance is running.
+	private DatabaseMaintenance maintenance;
+
+	//Report of the last finished or stopped maintenance; null if there has been none.
+	private MaintenanceReport lastMaintenanceReport;
+
+	//Listeners receiving the entries of the journal (see addJournalListener).
+	private ArrayList<JournalListener> journalListeners = new ArrayList<JournalListener>();
+	//Journal entries written in the open transaction; delivered when the outermost transaction ends.
+	private ArrayList<JournalEntry> pendingJournalEntries = new ArrayList<JournalEntry>();
+	//True if a journaled change has failed in the open transaction (which is then rolled back).
+	private boolean journaledChangeFailed;
+	//Number of entries delivered since the journal has been truncated the last time.
+	private int journalEntriesSinceTruncation;
 	
 	/*
 	 * Gets a reference to the database (if necessary creates it). This may trigger a call
@@ -476,30 +759,85 @@ public class PersonalNetwork{
 	 */
 	private PersonalNetwork(SCCMainActivity activity){
 		this.activity = activity;
-		PersonalNetworkHistoryDBOpenHelper helper = new PersonalNetworkHistoryDBOpenHelper(activity);
+		helper = new PersonalNetworkHistoryDBOpenHelper(activity);
 		db = helper.getWritableDatabase();
-		boolean initialized = false;
-		String selection = PROPERTIES_COL_KEY + " = ?";
-		String[] selectionArgs = {PROPERTIES_KEY_DB_INITIALIZED};
-		Cursor c = db.query(PROPERTIES_TABLE_NAME, new String[]{PROPERTIES_COL_VALUE}, 
-				selection, selectionArgs, 
-				null, null, null);
-		if(c.moveToFirst()){
-			String initstr = c.getString(c.getColumnIndex(PROPERTIES_COL_VALUE));
-			if(initstr.equals("true"))
-				initialized = true;
-		}
-		if(!initialized){
+		statements = new StatementRegistry(db);
+		hasTemporalIndex = DatabaseUtils.queryNumEntries(db, "sqlite_master", "name = ?", 
+				new String[]{ALTERS_HISTORY_TABLE_NAME + TEMPORAL_INDEX_SUFFIX}) > 0;
+		properties = loadProperties();
+		attributeCatalog = loadAttributeCatalog();
+		if(!"true".equals(properties.get(PROPERTIES_KEY_DB_INITIALIZED))){
 			initSystemAttributes();
 			initBasicAttributes();
-			ContentValues values = new ContentValues();
-			values.put(PROPERTIES_COL_KEY, PROPERTIES_KEY_DB_INITIALIZED);
-			values.put(PROPERTIES_COL_VALUE, "true");
-			if(c.moveToFirst())
-				db.update(PROPERTIES_TABLE_NAME, values, selection, selectionArgs);
-			else 
-				db.insert(PROPERTIES_TABLE_NAME, null, values);
+			properties.put(PROPERTIES_KEY_DB_INITIALIZED, "true");
+			flushProperties();
+		}
+	}
+
+	/*
+	 * Reads the properties table (except for the reserved datum ids) into memory.
+	 */
+	private PropertiesCache loadProperties(){
+		PropertiesCache cache = new PropertiesCache();
+		Cursor c = db.query(PROPERTIES_TABLE_NAME, new String[]{PROPERTIES_COL_KEY, PROPERTIES_COL_VALUE}, 
+				PROPERTIES_COL_KEY + " != ?", new String[]{PROPERTIES_KEY_NEXT_DATUM_ID}, null, null, null);
+		if(c.moveToFirst()){
+			while(!c.isAfterLast()){
+				cache.load(c.getString(0), c.getString(1));
+				c.moveToNext();
+			}
 		}
+		c.close();
+		return cache;
+	}
+
+	/**
+	 * Returns the value of the given property or null if it is not set.
+	 */
+	public String getProperty(String key){
+		return properties.get(key);
+	}
+
+	/**
+	 * Sets the value of the given property; removes the property if value is null.
+	 * 
+	 * The property is written to the database by flushProperties.
+	 */
+	public void setProperty(String key, String value){
+		properties.put(key, value);
+	}
+
+	/**
+	 * Writes the properties (selected alters and attributes, time of the last change, ...) that have been 
+	 * changed since the last call to the database.
+	 * 
+	 * Properties are read from and written to memory; they are written to the database when a batch is 
+	 * opened or committed and when this method is called. It should be called before the app is stopped.
+	 */
+	public void flushProperties(){
+		if(!properties.hasChanges())
+			return;
+		String selection = PROPERTIES_COL_KEY + " = ?";
+		db.beginTransaction();
+		try{
+			for(String key : properties.getChangedKeys()){
+				String[] selectionArgs = {key};
+				String value = properties.get(key);
+				if(value == null){
+					db.delete(PROPERTIES_TABLE_NAME, selection, selectionArgs);
+				} else {
+					ContentValues values = new ContentValues();
+					values.put(PROPERTIES_COL_KEY, key);
+					values.put(PROPERTIES_COL_VALUE, value);
+					if(db.update(PROPERTIES_TABLE_NAME, values, selection, selectionArgs) == 0)
+						db.insert(PROPERTIES_TABLE_NAME, null, values);
+				}
+			}
+			db.setTransactionSuccessful();
+		} finally {
+			db.endTransaction();
+		}
+		properties.clearChanges();
 	}
 
 	/**
@@ -670,6 +1008,8 @@ public class PersonalNetwork{
 
 	/**
 	 * Properties key identifying the event counter (serving as id).
+	 * 
+	 * Its value is the first datum id that has not yet been reserved (see getNextDatumIDAndIncrement).
 	 */
 	private static final String PROPERTIES_KEY_NEXT_DATUM_ID = "next_event_id";
 
@@ -684,25 +1024,12 @@ public class PersonalNetwork{
 	public static final String ATTRIBUTE_DYNAMIC_TYPE_EVENT = "EVENT";
 
 	
-	//marks the time when the start time has been set
-	private static final String SECONDARY_ATTRIBUTE_NAME_SUFFIX_TIMESTAMP_START = "timestamp_start";
-	/**
-	 * Name for secondary attributes containing unconstrained text (notes, memos).
+	/*
+	 * Names of the secondary attributes that held the time stamps of history and value rows 
+	 * up to database version 4 (now in the columns COL_TIMESTAMP_START and COL_TIMESTAMP_END).
 	 */
-	public static String getSecondaryAttributeNameTimestampStart(){
-		return ATTRIBUTE_PREFIX_EGOSMART + 
-				SECONDARY_ATTRIBUTE_NAME_SUFFIX_TIMESTAMP_START;
-	}
-	
-	//marks the time when the end time has been set
+	private static final String SECONDARY_ATTRIBUTE_NAME_SUFFIX_TIMESTAMP_START = "timestamp_start";
 	private static final String SECONDARY_ATTRIBUTE_NAME_SUFFIX_TIMESTAMP_END = "timestamp_end";
-	/**
-	 * Name for secondary attributes containing unconstrained text (notes, memos).
-	 */
-	public static String getSecondaryAttributeNameTimestampEnd(){
-		return PersonalNetwork.ATTRIBUTE_PREFIX_EGOSMART + 
-				SECONDARY_ATTRIBUTE_NAME_SUFFIX_TIMESTAMP_END;
-	}
 	
 	/*
 	 * Name for secondary attributes containing unconstrained text (notes, memos).
@@ -860,254 +1187,662 @@ public class PersonalNetwork{
 		return PersonalNetwork.ATTRIBUTE_PREFIX_EGOSMART + ALTER_ALTER_DYAD_LIFETIME_ATTRIBUTE_NAME_SUFFIX;
 	}
 	
+	/**
+	 * Sets the time of the last change to the network.
+	 * 
+	 * All methods changing the network call this method; it also drops the 
+	 * in-memory cache of alters and ties.
+	 * 
+	 * If a batch is open, the time is set only once when the batch is committed. Like all properties, 
+	 * the time is written to the database only when the properties are flushed (see flushProperties).
+	 * 
+	 * @param time
+	 */
 	public void setLastChange(long time){
-		ContentValues values = new ContentValues();
-		values.put(PROPERTIES_COL_KEY, PROPERTIES_KEY_LAST_CHANGE);
-		String s = String.valueOf(time);
-		values.put(PROPERTIES_COL_VALUE, s);
-		String selection = PROPERTIES_COL_KEY + " = ?";
-		String[] selectionArgs = {PROPERTIES_KEY_LAST_CHANGE};
-		Cursor c = db.query(PROPERTIES_TABLE_NAME, new String[]{PROPERTIES_COL_VALUE}, 
-				selection, selectionArgs, null, null, null);
-		if(!c.moveToFirst()){ 
-			db.insert(PROPERTIES_TABLE_NAME, null, values);
-		} else { 
-			db.update(PROPERTIES_TABLE_NAME, values, selection, selectionArgs);
+		graphCache = null;
+		if(activeBatch != null){
+			activeBatch.changed = true;
+			return;
 		}
-		c.close();
+		properties.put(PROPERTIES_KEY_LAST_CHANGE, String.valueOf(time));
 	}
 	
 	public long getLastChange(){
-		String selection = PROPERTIES_COL_KEY + " = ?";
-		String[] selectionArgs = {PROPERTIES_KEY_LAST_CHANGE};
-		Cursor result = db.query(PROPERTIES_TABLE_NAME, new String[] {PROPERTIES_COL_KEY, PROPERTIES_COL_VALUE}, selection, selectionArgs,
-				null, null, null);
-		//int col_of_key = result.getColumnIndex(PROPERTIES_COL_KEY);
-		int col_of_value = result.getColumnIndex(PROPERTIES_COL_VALUE);
-		long time = Long.MIN_VALUE;
-		if(result.moveToFirst() && col_of_value >=0 ){
-			String t = result.getString(col_of_value);
-			time = Long.valueOf(t).longValue();
-		}		
-		result.close();
-		return time;
+		String t = properties.get(PROPERTIES_KEY_LAST_CHANGE);
+		if(t == null)
+			return Long.MIN_VALUE;
+		return Long.valueOf(t).longValue();
 	}
 
 	/**
-	 * Searches for the given query. 
+	 * Starts the maintenance of the database in a background thread unless it is already running.
 	 * 
-	 * In this implementation is searches only for alter names that are currently
-	 * in the network and returns the list of those that
-	 * match the query. 
+	 * The maintenance deletes values of secondary attributes that are no longer reachable, merges 
+	 * contiguous intervals with equal attribute values, and shrinks the database file 
+	 * (see DatabaseMaintenance). It does not change the network as seen through the methods of this class.
+	 * When it is finished or stopped, its report is available through getLastMaintenanceReport.
 	 * 
-	 * This will be changed in the future to also search for attributes, values, 
-	 * alters having attribute values, etc; and also for historic values.
-	 * 
-	 * @param query
-	 * @return
+	 * Must be called from the UI thread.
 	 */
-	public LinkedHashSet<String> search(String query) {
-		//TODO: change this!!! (but works for a demo)
-		LinkedHashSet<String> result = new LinkedHashSet<String>();
-		db.beginTransaction();
-		try{
-			db.execSQL("CREATE VIRTUAL TABLE ALTERS_FTS_VIRTUAL_TABLE"  +
-					" USING fts3 (" +
-					ALTERS_COL_NAME + ")");
-			for(String alter: getAltersAt(TimeInterval.getCurrentTimePoint())){
-				ContentValues values = new ContentValues();
-				values.put(ALTERS_COL_NAME, alter);
-				db.insert("ALTERS_FTS_VIRTUAL_TABLE", null, values);
-			}
-			String selection = ALTERS_COL_NAME + " MATCH ?";
-			String[] selectionArgs = new String[] {query+"*"};
-			//String selection = ALTERS_COL_NAME + " = ?";
-			//String[] selectionArgs = new String[] {query};
-			SQLiteQueryBuilder builder = new SQLiteQueryBuilder();
-			//builder.setTables(ALTERS_TABLE_NAME);
-			builder.setTables("ALTERS_FTS_VIRTUAL_TABLE");
-			Cursor c = builder.query(db, new String[]{ALTERS_COL_NAME}, 
-					selection, selectionArgs, null, null, 
-					ALTERS_COL_NAME + " ASC", Integer.toString(10));
-			//Cursor c = db.query(ALTERS_TABLE_NAME, new String[]{ALTERS_COL_NAME}, 
-			//	selection, selectionArgs, null, null, ALTERS_COL_NAME + " ASC", Integer.toString(10));
-			int index = c.getColumnIndexOrThrow(ALTERS_COL_NAME);
-			if(c.moveToFirst()){
-				while(!c.isAfterLast()){
-					result.add(c.getString(index));
-					c.moveToNext();
-				}
-			}
-			c.close();
-			db.execSQL("DROP TABLE IF EXISTS ALTERS_FTS_VIRTUAL_TABLE");
-			db.setTransactionSuccessful();
-		} finally {
-			db.endTransaction();
-		}
-		return result;
+	public void startMaintenance(){
+		if(maintenance != null)
+			return;
+		maintenance = new DatabaseMaintenance(this);
+		maintenance.execute();
 	}
 
 	/**
-	 * Returns the name of the currently selected alter; an arbitrary alter if none is selected
-	 * but if there is an alter in the network and null if there is no alter in the network.
+	 * Stops the running maintenance (if any) after its current slice of work.
 	 * 
-	 * @return
+	 * Must be called from the UI thread.
 	 */
-	public String getSelectedAlter() {
-		String selection = PROPERTIES_COL_KEY + " = ?";
-		String[] selectionArgs = {PROPERTIES_KEY_SELECTED_ALTER};
-		Cursor c = db.query(PROPERTIES_TABLE_NAME, new String[]{PROPERTIES_COL_VALUE}, 
-				selection, selectionArgs, null, null, null);
-		int col = c.getColumnIndexOrThrow(PROPERTIES_COL_VALUE);
-		if(!c.moveToFirst()){
-			String alter = getAnyCurrentAlter();
-			if(alter != null)
-				setSelectedAlter(alter);
-			c.close();
-			return alter;
-		}
-		String ret = c.getString(col);
-		c.close();
-		return ret;
+	public void stopMaintenance(){
+		if(maintenance == null)
+			return;
+		maintenance.cancel(true);
+		maintenance = null;
 	}
 
 	/**
-	 * Sets the alter selection to the given alter. 
-	 * 
-	 * Does not change the current selection if alterName is currently not an alter in the network.
-	 * 
-	 * @param alterName
+	 * Returns the report of the last finished or stopped maintenance or null if no maintenance 
+	 * has been finished or stopped yet.
 	 */
-	public void setSelectedAlter(String alterName) {
-		if(!hasAlterAt(TimeInterval.getCurrentTimePoint(), alterName))
-			return;
-		ContentValues values = new ContentValues();
-		values.put(PROPERTIES_COL_KEY, PROPERTIES_KEY_SELECTED_ALTER);
-		values.put(PROPERTIES_COL_VALUE, alterName);
-		String selection = PROPERTIES_COL_KEY + " = ?";
-		String[] selectionArgs = {PROPERTIES_KEY_SELECTED_ALTER};
-		Cursor c = db.query(PROPERTIES_TABLE_NAME, new String[]{PROPERTIES_COL_VALUE}, 
-				selection, selectionArgs, null, null, null);
-		if(!c.moveToFirst()){ // no alter is currently selected
-			db.insert(PROPERTIES_TABLE_NAME, null, values);
-		} else { 
-			db.update(PROPERTIES_TABLE_NAME, values, selection, selectionArgs);
-		}
-		c.close();
+	public MaintenanceReport getLastMaintenanceReport(){
+		return lastMaintenanceReport;
+	}
+
+	/*
+	 * Called (in the UI thread) by the given maintenance task when it is finished or has been stopped.
+	 */
+	void maintenanceFinished(DatabaseMaintenance task, MaintenanceReport report){
+		if(maintenance == task)
+			maintenance = null;
+		lastMaintenanceReport = report;
+		activity.reportDebugMessage(report.toString());
 	}
 
 	/**
-	 * Sets the alter selection to the given alter.
+	 * Opens a batch of changes to the network, e.g., for importing data in bulk.
 	 * 
-	 * If alterName is not among the current alters (or if alterName is null) then the selected alter is 
-	 * removed.
+	 * All changes made until the batch is ended are written in a single database transaction. While the
+	 * batch is open, intervals added to the lifetimes of alters, ties, and alter-alter dyads are collected in memory
+	 * (and merged per element) and written when the batch is committed, and the time of 
+	 * the last change is set and the views are updated only once when the batch is committed.
+	 * Properties changed before the batch are written when it is opened; those changed while it is open 
+	 * are written in its transaction when it is committed.
 	 * 
-	 * @param alterName
+	 * A batch is used like a database transaction:
+	 * 
+	 * PersonalNetwork.Batch batch = network.batch();
+	 * try {
+	 *   ... (change the network)
+	 *   batch.commit();
+	 * } finally {
+	 *   batch.end();
+	 * }
+	 * 
+	 * Batches can be nested; then only the outermost batch writes the changes and all 
+	 * changes are rolled back if any of the nested batches is ended without being committed.
+	 * 
+	 * @return the open batch
 	 */
-	private void setSelectedAlterForced(String alterName) {
-		String selection = PROPERTIES_COL_KEY + " = ?";
-		String[] selectionArgs = {PROPERTIES_KEY_SELECTED_ALTER};
-		if(!hasAlterAt(TimeInterval.getCurrentTimePoint(), alterName)){
-			db.delete(PROPERTIES_TABLE_NAME, selection, selectionArgs);
-			return;
-		}
-		ContentValues values = new ContentValues();
-		values.put(PROPERTIES_COL_KEY, PROPERTIES_KEY_SELECTED_ALTER);
-		values.put(PROPERTIES_COL_VALUE, alterName);
-		Cursor c = db.query(PROPERTIES_TABLE_NAME, new String[]{PROPERTIES_COL_VALUE}, 
-				selection, selectionArgs, null, null, null);
-		if(!c.moveToFirst()){ // no alter is currently selected
-			db.insert(PROPERTIES_TABLE_NAME, null, values);
-		} else { 
-			db.update(PROPERTIES_TABLE_NAME, values, selection, selectionArgs);
+	public Batch batch(){
+		if(activeBatch != null){
+			++activeBatch.depth;
+			return activeBatch;
 		}
-		c.close();
+		flushProperties();
+		db.beginTransaction();
+		activeBatch = new Batch();
+		return activeBatch;
 	}
 
 	/**
-	 * Reads the content of the int file and load its data into application.
+	 * A batch of changes to the network (see PersonalNetwork.batch()).
 	 * 
-	 * @param file Int file with the Egonet interview.
-	 * @param study Ego file with the definition of the egonet study.
+	 * @author juergen
+	 *
 	 */
-	public void importEgonetInterview(File file){
-		SAXParserFactory saxfactory = SAXParserFactory.newInstance();
-		SAXParser saxparser;
-		try {
-			//interviewLoaded = false;
-			saxparser = saxfactory.newSAXParser();
-			DefaultHandler handler = new EgonetInterviewFile(activity);
-			db.beginTransaction();
-			saxparser.parse(file, handler);
-			db.setTransactionSuccessful();
-			//interviewLoaded= true;
-		} catch (ParserConfigurationException e) {
-			Log.e("Import int", e.getMessage());
-			e.printStackTrace();
-		} catch (SAXException e) {
-			Log.e("Import int", e.getMessage());
-			e.printStackTrace();
-		} catch (IOException e) {
-			Log.e("Import int", e.getMessage());
-			e.printStackTrace();
-		} finally {
-			db.endTransaction();
+	public class Batch {
+
+		//number of open batches nested in the outermost one
+		private int depth;
+		//true if the innermost open batch has been committed
+		private boolean committed;
+		//true if a nested batch has been ended without being committed
+		private boolean failed;
+		//true if setLastChange has been called while the batch was open
+		private boolean changed;
+		//intervals to be added to lifetimes; keys are built by getPendingLifetimeKey
+		private LinkedHashMap<String, PendingLifetime> pendingLifetimes;
+
+		private Batch(){
+			pendingLifetimes = new LinkedHashMap<String, PendingLifetime>();
+		}
+
+		/**
+		 * Marks the changes of this batch as successful. If this is the outermost batch, the 
+		 * collected lifetimes and the time of the last change are written to the database.
+		 * 
+		 * No further changes should be made before end() is called.
+		 */
+		public void commit(){
+			if(depth == 0 && !failed){
+				activeBatch = null;
+				writePendingLifetimes(this);
+				if(changed)
+					setLastChange(System.currentTimeMillis());
+				flushProperties();
+			}
+			committed = true;
+		}
+
+		/**
+		 * Ends this batch. If this is the outermost batch, the database transaction is
+		 * committed if this batch and all nested batches have been committed (and no journaled change 
+		 * has failed in the batch) and is rolled back otherwise. 
+		 * The views are updated if the network has been changed.
+		 */
+		public void end(){
+			if(!committed)
+				failed = true;
+			committed = false;
+			if(depth > 0){
+				--depth;
+				return;
+			}
+			activeBatch = null;
+			graphCache = null;
+			//a journaled change that has failed in the batch makes SQLite roll back the whole transaction,
+			//even if the batch has been committed
+			if(journaledChangeFailed)
+				failed = true;
+			if(failed)
+				alterDictionary = null;
+			try{
+				if(!failed)
+					db.setTransactionSuccessful();
+			} finally {
+				db.endTransaction();
+			}
+			//read the properties and the attributes only after the rollback (they may have been 
+			//written in the batch)
+			if(failed){
+				properties = loadProperties();
+				attributeCatalog = loadAttributeCatalog();
+			}
+			if(failed)
+				journaledChangeFailed = true;
+			deliverJournalEntries();
+			if(!failed && changed)
+				activity.updatePersonalNetworkViews();
 		}
 	}
 
-	/**
-	 * Returns the name of the currently selected second alter; an arbitrary current alter if none is selected
-	 * but if currently there is an alter in the network and null if currently
-	 * there is no alter in the network.
-	 * 
-	 * It is not guaranteed that the selected second alter is different from the selected alter.
-	 * 
-	 * @return
+	/*
+	 * Intervals to be added to the lifetime of one element that are collected while a batch is open.
 	 */
-	public String getSelectedSecondAlter() {
-		String selection = PROPERTIES_COL_KEY + " = ?";
-		String[] selectionArgs = {PROPERTIES_KEY_SELECTED_SECOND_ALTER};
-		Cursor c = db.query(PROPERTIES_TABLE_NAME, new String[]{PROPERTIES_COL_VALUE}, 
-				selection, selectionArgs, null, null, null);
-		int col = c.getColumnIndexOrThrow(PROPERTIES_COL_VALUE);
-		if(!c.moveToFirst()){
-			String alter = getAnyCurrentAlter();
-			if(alter != null)
-				setSelectedSecondAlter(alter);
-			c.close();
-			return alter;
+	private static class PendingLifetime {
+
+		private String historyTableName;
+		private String elementSelection;
+		private String[] elementSelectionArgs;
+		private ContentValues values;
+		private Lifetime lifetime;
+
+		private PendingLifetime(String historyTableName, String elementSelection,
+				String[] elementSelectionArgs, ContentValues values){
+			this.historyTableName = historyTableName;
+			this.elementSelection = elementSelection;
+			this.elementSelectionArgs = elementSelectionArgs;
+			this.values = values;
+			lifetime = new Lifetime();
 		}
-		String ret = c.getString(col);
-		c.close();
-		return ret;
 	}
 
-	/**
-	 * Sets the selected second alter. 
-	 * 
-	 * Does not change the current selection if alterName is currently not an alter in the network.
-	 * 
-	 * @param alterName
-	 */
-	public void setSelectedSecondAlter(String alterName) {
-		if(!hasAlterAt(TimeInterval.getCurrentTimePoint(), alterName))
-			return;
-		ContentValues values = new ContentValues();
-		values.put(PROPERTIES_COL_KEY, PROPERTIES_KEY_SELECTED_SECOND_ALTER);
-		values.put(PROPERTIES_COL_VALUE, alterName);
-		String selection = PROPERTIES_COL_KEY + " = ?";
-		String[] selectionArgs = {PROPERTIES_KEY_SELECTED_SECOND_ALTER};
-		Cursor c = db.query(PROPERTIES_TABLE_NAME, new String[]{PROPERTIES_COL_VALUE}, 
-				selection, selectionArgs, null, null, null);
-		if(!c.moveToFirst()){ // no alter is currently selected
-			db.insert(PROPERTIES_TABLE_NAME, null, values);
-		} else { 
-			db.update(PROPERTIES_TABLE_NAME, values, selection, selectionArgs);
+	/*
+	 * Writes the lifetimes collected in the given batch to the database.
+	 */
+	private void writePendingLifetimes(Batch batch){
+		for(PendingLifetime pending : batch.pendingLifetimes.values()){
+			for(int i = 0; i < pending.lifetime.size(); ++i){
+				writeUnionWithLifetime(pending.lifetime.getStartTime(i), pending.lifetime.getEndTime(i),
+						pending.historyTableName, pending.elementSelection, 
+						pending.elementSelectionArgs, new ContentValues(pending.values));
+			}
 		}
-		c.close();
+		batch.pendingLifetimes.clear();
 	}
 
-	/**
+	/*
+	 * Writes the lifetimes collected in the open batch (if any) to the database. Must be called before 
+	 * reading or changing history tables in ways that are not aware of these lifetimes.
+	 */
+	private void flushPendingLifetimes(){
+		if(activeBatch != null && !activeBatch.pendingLifetimes.isEmpty())
+			writePendingLifetimes(activeBatch);
+	}
+
+	private static String getPendingLifetimeKey(String historyTableName, String[] elementSelectionArgs){
+		StringBuffer key = new StringBuffer(historyTableName);
+		for(int i = 0; i < elementSelectionArgs.length; ++i){
+			key.append('\u0000').append(elementSelectionArgs[i]);
+		}
+		return key.toString();
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	//JOURNAL
+	//////////////////////////////////////////////////////////////////////////
+	/*
+	 * Every public method changing lifetimes or attribute values or renaming alters appends an entry 
+	 * to the journal table in the same transaction as the change (see beginJournaledChange). When the 
+	 * outermost transaction (or batch) is committed, the entries are delivered to the listeners; entries 
+	 * of changes that are rolled back are never delivered.
+	 */
+	private static final int JOURNAL_TRUNCATION_INTERVAL = 256;
+
+	/**
+	 * Adds a listener that receives all changes made from now on (see JournalListener).
+	 * 
+	 * @param listener
+	 */
+	public void addJournalListener(JournalListener listener){
+		if(!journalListeners.contains(listener))
+			journalListeners.add(listener);
+	}
+
+	public void removeJournalListener(JournalListener listener){
+		journalListeners.remove(listener);
+	}
+
+	/**
+	 * Iterates over the journal entries with sequence numbers larger than the given one, ordered by their 
+	 * sequence numbers. Consumers that are not listening all the time (e.g., because they are persisted) 
+	 * use this method to catch up and record their position with setJournalPosition, so that the entries 
+	 * they have not read yet are not truncated.
+	 * 
+	 * The returned iterator must be closed if it is not iterated to the end (see CursorIterator).
+	 * 
+	 * @param sequenceNumber
+	 * @return
+	 */
+	public CursorIterator<JournalEntry> getJournalSince(long sequenceNumber){
+		Cursor c = db.query(JOURNAL_TABLE_NAME, 
+				new String[]{JOURNAL_COL_SEQUENCE_NUMBER, JOURNAL_COL_TYPE, COL_TIME_START, COL_TIME_END, 
+				JOURNAL_COL_DOMAIN, JOURNAL_COL_FIRST_NAME, JOURNAL_COL_SECOND_NAME, 
+				ATTRIBUTES_COL_DIRECTION_TYPE, ATTRIBUTES_COL_NAME, ATTRIBUTES_COL_VALUE}, 
+				JOURNAL_COL_SEQUENCE_NUMBER + " > ?", new String[]{Long.toString(sequenceNumber)}, 
+				null, null, JOURNAL_COL_SEQUENCE_NUMBER + " ASC");
+		return new CursorIterator<JournalEntry>(c){
+			@Override
+			protected JournalEntry read(Cursor cursor) {
+				JournalEntry entry = readJournalEntry(cursor);
+				cursor.moveToNext();
+				return entry;
+			}
+		};
+	}
+
+	/**
+	 * Records that the consumer with the given name has read the journal up to (including) the entry 
+	 * with the given sequence number. Entries are not truncated before all consumers have read them.
+	 * 
+	 * @param consumerName
+	 * @param sequenceNumber
+	 */
+	public void setJournalPosition(String consumerName, long sequenceNumber){
+		ContentValues values = new ContentValues();
+		values.put(JOURNAL_CONSUMERS_COL_NAME, consumerName);
+		values.put(JOURNAL_COL_SEQUENCE_NUMBER, sequenceNumber);
+		String selection = JOURNAL_CONSUMERS_COL_NAME + " = ?";
+		String[] selectionArgs = {consumerName};
+		if(db.update(JOURNAL_CONSUMERS_TABLE_NAME, values, selection, selectionArgs) == 0)
+			db.insert(JOURNAL_CONSUMERS_TABLE_NAME, null, values);
+	}
+
+	/**
+	 * Returns the position recorded for the consumer or -1 if the consumer is unknown.
+	 * 
+	 * @param consumerName
+	 * @return
+	 */
+	public long getJournalPosition(String consumerName){
+		Cursor c = db.query(JOURNAL_CONSUMERS_TABLE_NAME, new String[]{JOURNAL_COL_SEQUENCE_NUMBER}, 
+				JOURNAL_CONSUMERS_COL_NAME + " = ?", new String[]{consumerName}, null, null, null);
+		long position = -1;
+		if(c.moveToFirst())
+			position = c.getLong(0);
+		c.close();
+		return position;
+	}
+
+	/**
+	 * Removes the consumer, so that the journal can be truncated independent of its position.
+	 * 
+	 * @param consumerName
+	 */
+	public void removeJournalConsumer(String consumerName){
+		db.delete(JOURNAL_CONSUMERS_TABLE_NAME, JOURNAL_CONSUMERS_COL_NAME + " = ?", new String[]{consumerName});
+	}
+
+	/**
+	 * Deletes the journal entries that have been read by all consumers (see setJournalPosition); 
+	 * without consumers, all entries are deleted (listeners have received them when they were committed). 
+	 * Sequence numbers of deleted entries are not reused.
+	 * 
+	 * Is called automatically after every JOURNAL_TRUNCATION_INTERVAL delivered entries. Does nothing 
+	 * within a transaction (e.g., while a batch is open).
+	 */
+	public void truncateJournal(){
+		if(db.inTransaction())
+			return;
+		statements.get("DELETE FROM " + JOURNAL_TABLE_NAME + " WHERE " + JOURNAL_COL_SEQUENCE_NUMBER + 
+				" <= COALESCE((SELECT MIN(" + JOURNAL_COL_SEQUENCE_NUMBER + ") FROM " + 
+				JOURNAL_CONSUMERS_TABLE_NAME + "), (SELECT MAX(" + JOURNAL_COL_SEQUENCE_NUMBER + ") FROM " + 
+				JOURNAL_TABLE_NAME + "))").executeUpdateDelete();
+		journalEntriesSinceTruncation = 0;
+	}
+
+	/*
+	 * Appends the entry to the journal table, sets its sequence number, and keeps it for delivery 
+	 * when the transaction ends. Must be called between beginJournaledChange and endJournaledChange.
+	 */
+	private void journal(JournalEntry entry){
+		SQLiteStatement statement = statements.get("INSERT INTO " + JOURNAL_TABLE_NAME + " (" + 
+				JOURNAL_COL_TYPE + ", " + COL_TIME_START + ", " + COL_TIME_END + ", " + JOURNAL_COL_DOMAIN + ", " + 
+				JOURNAL_COL_FIRST_NAME + ", " + JOURNAL_COL_SECOND_NAME + ", " + ATTRIBUTES_COL_DIRECTION_TYPE + ", " + 
+				ATTRIBUTES_COL_NAME + ", " + ATTRIBUTES_COL_VALUE + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+		//unbound parameters are NULL
+		statement.bindString(1, entry.getType());
+		if(entry.getInterval() != null){
+			statement.bindLong(2, entry.getInterval().getStartTime());
+			statement.bindLong(3, entry.getInterval().getEndTime());
+		}
+		Element element = entry.getElement();
+		statement.bindString(4, element.getDomain());
+		if(entry.getOldAlterName() != null){
+			statement.bindString(5, entry.getOldAlterName());
+			statement.bindString(6, ((Alter) element).getName());
+		} else if(element instanceof Alter){
+			statement.bindString(5, ((Alter) element).getName());
+		} else if(element instanceof EgoAlterDyad){
+			statement.bindString(5, ((EgoAlterDyad) element).getName());
+			statement.bindString(7, ((EgoAlterDyad) element).getDirection());
+		} else if(element instanceof AlterAlterDyad){
+			statement.bindString(5, ((AlterAlterDyad) element).getSourceName());
+			statement.bindString(6, ((AlterAlterDyad) element).getTargetName());
+		}
+		if(entry.getAttributeName() != null)
+			statement.bindString(8, entry.getAttributeName());
+		if(entry.getValue() != null)
+			statement.bindString(9, entry.getValue());
+		entry.setSequenceNumber(statement.executeInsert());
+		pendingJournalEntries.add(entry);
+	}
+
+	/*
+	 * Reads the journal entry at the current position of the cursor (with the columns selected in getJournalSince).
+	 */
+	private JournalEntry readJournalEntry(Cursor c){
+		String type = c.getString(1);
+		String domain = c.getString(4);
+		String firstName = c.getString(5);
+		String secondName = c.getString(6);
+		JournalEntry entry;
+		if(JournalEntry.TYPE_ALTER_RENAMED.equals(type)){
+			entry = JournalEntry.getRenaming(firstName, secondName);
+		} else {
+			Element element;
+			if(DOMAIN_ALTER.equals(domain))
+				element = Alter.getInstance(firstName);
+			else if(DOMAIN_EGO_ALTER.equals(domain))
+				element = EgoAlterDyad.getInstance(firstName, c.getString(7));
+			else if(DOMAIN_ALTER_ALTER.equals(domain))
+				element = AlterAlterDyad.getInstance(firstName, secondName);
+			else
+				element = Ego.getInstance();
+			entry = new JournalEntry(type, new TimeInterval(c.getLong(2), c.getLong(3)), element, 
+					c.getString(8), c.getString(9));
+		}
+		entry.setSequenceNumber(c.getLong(0));
+		return entry;
+	}
+
+	/*
+	 * Begins the transaction of a journaled change. Must be followed by endJournaledChange (in a finally 
+	 * block); abortJournaledChange must be called if the change fails with an exception:
+	 * 
+	 * beginJournaledChange();
+	 * try {
+	 *   ... (change the network and call journal)
+	 * } catch(RuntimeException e) {
+	 *   abortJournaledChange();
+	 *   throw e;
+	 * } finally {
+	 *   endJournaledChange();
+	 * }
+	 * 
+	 * Unlike with setTransactionSuccessful, the change may return early without failing.
+	 */
+	private void beginJournaledChange(){
+		db.beginTransaction();
+	}
+
+	private void abortJournaledChange(){
+		journaledChangeFailed = true;
+	}
+
+	private void endJournaledChange(){
+		try {
+			if(!journaledChangeFailed)
+				db.setTransactionSuccessful();
+		} finally {
+			db.endTransaction();
+		}
+		if(!db.inTransaction())
+			deliverJournalEntries();
+	}
+
+	/*
+	 * Delivers the journal entries written in the outermost transaction, which has just ended, to the 
+	 * listeners or drops them if the transaction has been rolled back. Truncates the journal from time to time.
+	 */
+	private void deliverJournalEntries(){
+		ArrayList<JournalEntry> entries = pendingJournalEntries;
+		boolean rolledBack = journaledChangeFailed;
+		pendingJournalEntries = new ArrayList<JournalEntry>();
+		journaledChangeFailed = false;
+		if(rolledBack || entries.isEmpty())
+			return;
+		//listeners may add or remove listeners or change the network
+		ArrayList<JournalListener> listeners = new ArrayList<JournalListener>(journalListeners);
+		for(JournalEntry entry : entries){
+			for(JournalListener listener : listeners)
+				listener.onJournalEntry(entry);
+		}
+		journalEntriesSinceTruncation += entries.size();
+		if(journalEntriesSinceTruncation >= JOURNAL_TRUNCATION_INTERVAL)
+			truncateJournal();
+	}
+
+	/**
+	 * Searches for the given query. 
+	 * 
+	 * Returns (at most ten) alters that are currently in the network and whose name, 
+	 * alter or ego-alter attribute values, or attached texts (e.g., memos or contact events) 
+	 * contain words starting with every word of the query. Alters whose name matches come first, 
+	 * then those with more matching texts. 
+	 * 
+	 * Uses the full-text index that is kept up to date by the database and does not write to the database.
+	 * 
+	 * @param query
+	 * @return
+	 */
+	public LinkedHashSet<String> search(String query) {
+		LinkedHashSet<String> result = new LinkedHashSet<String>();
+		String matchQuery = getSearchIndexMatchQuery(query);
+		if(matchQuery == null)
+			return result;
+		TimeInterval currentTime = TimeInterval.getTimePoint(System.currentTimeMillis());
+		String sql = "SELECT a." + ALTERS_COL_NAME + ", " +
+				"MIN(docid % " + SEARCH_INDEX_KINDS + ") AS kind, COUNT(*) AS hits " +
+				"FROM " + SEARCH_INDEX_TABLE_NAME + " JOIN " + ALTERS_TABLE_NAME + " a " +
+				"ON a." + ALTERS_COL_ID + " = " + SEARCH_INDEX_TABLE_NAME + "." + ALTERS_COL_ID + " " +
+				"WHERE " + SEARCH_INDEX_COL_TEXT + " MATCH ? " +
+				"AND EXISTS (SELECT 1 FROM " + ALTERS_HISTORY_TABLE_NAME + " h " +
+				"WHERE h." + ALTERS_COL_ID + " = a." + ALTERS_COL_ID + 
+				" AND " + getOverlapSelection(2) + ") " +
+				"GROUP BY a." + ALTERS_COL_ID + " " +
+				"ORDER BY kind ASC, hits DESC, a." + ALTERS_COL_NAME + " ASC " +
+				"LIMIT " + SEARCH_MAX_RESULTS;
+		Cursor c = db.rawQuery(sql, getSelectionArgsWithInterval(new String[]{matchQuery}, currentTime));
+		int index = c.getColumnIndexOrThrow(ALTERS_COL_NAME);
+		if(c.moveToFirst()){
+			while(!c.isAfterLast()){
+				result.add(c.getString(index));
+				c.moveToNext();
+			}
+		}
+		c.close();
+		return result;
+	}
+
+	/*
+	 * Turns the text typed by the user into a full-text query matching documents that contain
+	 * all words of the text as prefixes of their words. Returns null if the text has no words.
+	 */
+	private static String getSearchIndexMatchQuery(String query){
+		if(query == null)
+			return null;
+		StringBuffer matchQuery = new StringBuffer();
+		StringBuffer word = new StringBuffer();
+		for(int i = 0; i <= query.length(); ++i){
+			if(i < query.length() && Character.isLetterOrDigit(query.charAt(i))){
+				word.append(query.charAt(i));
+			} else if(word.length() > 0){
+				if(matchQuery.length() > 0)
+					matchQuery.append(' ');
+				matchQuery.append(word).append('*');
+				word = new StringBuffer();
+			}
+		}
+		if(matchQuery.length() == 0)
+			return null;
+		return matchQuery.toString();
+	}
+
+	/**
+	 * Returns the name of the currently selected alter; an arbitrary alter if none is selected
+	 * but if there is an alter in the network and null if there is no alter in the network.
+	 * 
+	 * @return
+	 */
+	public String getSelectedAlter() {
+		String alter = properties.get(PROPERTIES_KEY_SELECTED_ALTER);
+		if(alter == null){
+			alter = getAnyCurrentAlter();
+			if(alter != null)
+				setSelectedAlter(alter);
+		}
+		return alter;
+	}
+
+	/**
+	 * Sets the alter selection to the given alter. 
+	 * 
+	 * Does not change the current selection if alterName is currently not an alter in the network.
+	 * 
+	 * @param alterName
+	 */
+	public void setSelectedAlter(String alterName) {
+		if(!hasAlterAt(TimeInterval.getCurrentTimePoint(), alterName))
+			return;
+		properties.put(PROPERTIES_KEY_SELECTED_ALTER, alterName);
+	}
+
+	/**
+	 * Sets the alter selection to the given alter.
+	 * 
+	 * If alterName is not among the current alters (or if alterName is null) then the selected alter is 
+	 * removed.
+	 * 
+	 * @param alterName
+	 */
+	private void setSelectedAlterForced(String alterName) {
+		if(!hasAlterAt(TimeInterval.getCurrentTimePoint(), alterName)){
+			properties.remove(PROPERTIES_KEY_SELECTED_ALTER);
+			return;
+		}
+		properties.put(PROPERTIES_KEY_SELECTED_ALTER, alterName);
+	}
+
+	/**
+	 * Reads the content of the int file and load its data into application.
+	 * 
+	 * @param file Int file with the Egonet interview.
+	 * @param study Ego file with the definition of the egonet study.
+	 */
+	public void importEgonetInterview(File file){
+		SAXParserFactory saxfactory = SAXParserFactory.newInstance();
+		SAXParser saxparser;
+		Batch batch = null;
+		try {
+			//interviewLoaded = false;
+			saxparser = saxfactory.newSAXParser();
+			DefaultHandler handler = new EgonetInterviewFile(activity);
+			batch = batch();
+			saxparser.parse(file, handler);
+			batch.commit();
+			//interviewLoaded= true;
+		} catch (ParserConfigurationException e) {
+			Log.e("Import int", e.getMessage());
+			e.printStackTrace();
+		} catch (SAXException e) {
+			Log.e("Import int", e.getMessage());
+			e.printStackTrace();
+		} catch (IOException e) {
+			Log.e("Import int", e.getMessage());
+			e.printStackTrace();
+		} finally {
+			if(batch != null)
+				batch.end();
+		}
+	}
+
+	/**
+	 * Returns the name of the currently selected second alter; an arbitrary current alter if none is selected
+	 * but if currently there is an alter in the network and null if currently
+	 * there is no alter in the network.
+	 * 
+	 * It is not guaranteed that the selected second alter is different from the selected alter.
+	 * 
+	 * @return
+	 */
+	public String getSelectedSecondAlter() {
+		String alter = properties.get(PROPERTIES_KEY_SELECTED_SECOND_ALTER);
+		if(alter == null){
+			alter = getAnyCurrentAlter();
+			if(alter != null)
+				setSelectedSecondAlter(alter);
+		}
+		return alter;
+	}
+
+	/**
+	 * Sets the selected second alter. 
+	 * 
+	 * Does not change the current selection if alterName is currently not an alter in the network.
+	 * 
+	 * @param alterName
+	 */
+	public void setSelectedSecondAlter(String alterName) {
+		if(!hasAlterAt(TimeInterval.getCurrentTimePoint(), alterName))
+			return;
+		properties.put(PROPERTIES_KEY_SELECTED_SECOND_ALTER, alterName);
+	}
+
+	/**
 	 * Sets the selected second alter.
 	 * 
 	 * If alterName is not among the current alters (or if alterName is null) then the selected second 
@@ -1116,23 +1851,11 @@ public class PersonalNetwork{
 	 * @param alterName
 	 */
 	private void setSelectedSecondAlterForced(String alterName) {
-		String selection = PROPERTIES_COL_KEY + " = ?";
-		String[] selectionArgs = {PROPERTIES_KEY_SELECTED_SECOND_ALTER};
 		if(!hasAlterAt(TimeInterval.getCurrentTimePoint(), alterName)){
-			db.delete(PROPERTIES_TABLE_NAME, selection, selectionArgs);
+			properties.remove(PROPERTIES_KEY_SELECTED_SECOND_ALTER);
 			return;
 		}
-		ContentValues values = new ContentValues();
-		values.put(PROPERTIES_COL_KEY, PROPERTIES_KEY_SELECTED_SECOND_ALTER);
-		values.put(PROPERTIES_COL_VALUE, alterName);
-		Cursor c = db.query(PROPERTIES_TABLE_NAME, new String[]{PROPERTIES_COL_VALUE}, 
-				selection, selectionArgs, null, null, null);
-		if(!c.moveToFirst()){ // no alter is currently selected
-			db.insert(PROPERTIES_TABLE_NAME, null, values);
-		} else { 
-			db.update(PROPERTIES_TABLE_NAME, values, selection, selectionArgs);
-		}
-		c.close();
+		properties.put(PROPERTIES_KEY_SELECTED_SECOND_ALTER, alterName);
 	}
 
 	/**
@@ -1141,18 +1864,10 @@ public class PersonalNetwork{
 	 * @return EGO, ALTER, EGO_ALTER, or ALTER_ALTER
 	 */
 	public String getSelectedAttributeDomain() {
-		String selection = PROPERTIES_COL_KEY + " = ?";
-		String[] selectionArgs = {PROPERTIES_KEY_SELECTED_ATTRIBUTE_DOMAIN};
-		Cursor c = db.query(PROPERTIES_TABLE_NAME, new String[]{PROPERTIES_COL_VALUE}, 
-				selection, selectionArgs, null, null, null);
-		int col_of_value = c.getColumnIndexOrThrow(PROPERTIES_COL_VALUE);
-		if(!c.moveToFirst()){
-			c.close();
+		String domain = properties.get(PROPERTIES_KEY_SELECTED_ATTRIBUTE_DOMAIN);
+		if(domain == null)
 			return DOMAIN_ALTER;
-		}
-		String ret = c.getString(col_of_value);
-		c.close();
-		return ret;
+		return domain;
 	}
 	
 	/**
@@ -1165,19 +1880,7 @@ public class PersonalNetwork{
 			activity.reportInfo("domain: " + domain + " is not among the allowed values");
 			return;
 		}
-		ContentValues values = new ContentValues();
-		values.put(PROPERTIES_COL_KEY, PROPERTIES_KEY_SELECTED_ATTRIBUTE_DOMAIN);
-		values.put(PROPERTIES_COL_VALUE, domain);
-		String selection = PROPERTIES_COL_KEY + " = ?";
-		String[] selectionArgs = {PROPERTIES_KEY_SELECTED_ATTRIBUTE_DOMAIN};
-		Cursor c = db.query(PROPERTIES_TABLE_NAME, new String[]{PROPERTIES_COL_KEY}, 
-				selection, selectionArgs, null, null, null);
-		if(c.getCount() == 0){ // no attribute domain is currently selected
-			db.insert(PROPERTIES_TABLE_NAME, null, values);
-		} else { 
-			db.update(PROPERTIES_TABLE_NAME, values, selection, selectionArgs);
-		}
-		c.close();
+		properties.put(PROPERTIES_KEY_SELECTED_ATTRIBUTE_DOMAIN, domain);
 	}
 	
 	/**
@@ -1189,7 +1892,6 @@ public class PersonalNetwork{
 	public String getSelectedAttribute(String domain) {
 		if(!attributeDomainExists(domain))
 			return null;
-		String selection = PROPERTIES_COL_KEY + " = ?";
 		String propertyKey = null;
 		if(DOMAIN_EGO.equals(domain))
 			propertyKey = PROPERTIES_KEY_SELECTED_EGO_ATTRIBUTE;
@@ -1199,15 +1901,7 @@ public class PersonalNetwork{
 			propertyKey = PROPERTIES_KEY_SELECTED_EGO_ALTER_ATTRIBUTE;
 		if(DOMAIN_ALTER_ALTER.equals(domain))
 			propertyKey = PROPERTIES_KEY_SELECTED_ALTER_ALTER_ATTRIBUTE;
-		String[] selectionArgs = {propertyKey};
-		Cursor c = db.query(PROPERTIES_TABLE_NAME, new String[]{PROPERTIES_COL_VALUE}, 
-				selection, selectionArgs, null, null, null);
-		int col_of_value = c.getColumnIndexOrThrow(PROPERTIES_COL_VALUE);
-		String ret = null;
-		if(c.moveToFirst())
-			ret = c.getString(col_of_value);
-		c.close();
-		return ret;
+		return properties.get(propertyKey);
 	}
 
 	/**
@@ -1221,7 +1915,6 @@ public class PersonalNetwork{
 	public void setSelectedAttribute(String domain, String attributeName) {
 		if(!hasAttribute(domain, attributeName))
 			return;
-		String selection = PROPERTIES_COL_KEY + " = ?";
 		String propertyKey = null;
 		if(DOMAIN_EGO.equals(domain))
 			propertyKey = PROPERTIES_KEY_SELECTED_EGO_ATTRIBUTE;
@@ -1231,22 +1924,12 @@ public class PersonalNetwork{
 			propertyKey = PROPERTIES_KEY_SELECTED_EGO_ALTER_ATTRIBUTE;
 		if(DOMAIN_ALTER_ALTER.equals(domain))
 			propertyKey = PROPERTIES_KEY_SELECTED_ALTER_ALTER_ATTRIBUTE;
-		String[] selectionArgs = {propertyKey};
-		ContentValues values = new ContentValues();
-		values.put(PROPERTIES_COL_KEY, propertyKey);
-		values.put(PROPERTIES_COL_VALUE, attributeName);
-		Cursor c = db.query(PROPERTIES_TABLE_NAME, new String[]{PROPERTIES_COL_VALUE}, 
-				selection, selectionArgs, null, null, null);
-		if(c.moveToFirst()){
-			db.update(PROPERTIES_TABLE_NAME, values, selection, selectionArgs);			
-		} else {
-			db.insert(PROPERTIES_TABLE_NAME, null, values);			
-		}
-		c.close();
+		properties.put(propertyKey, attributeName);
 	}
 
 	/**
-	 * Adds the two anti-parallel ties (source, target) and (target, source) to the network history.
+	 * Adds the two anti-parallel ties (source, target) and (target, source) to the network history
+	 * (stored as one row).
 	 * 
 	 * Does nothing if source and target are equal or if the tie is already in the network history.
 	 * 
@@ -1268,14 +1951,7 @@ public class PersonalNetwork{
 		if(!hasAlter(targetName)){
 			addAlter(targetName);
 		}
-		ContentValues values = new ContentValues();
-		values.put(DYADS_COL_SOURCE, sourceName);
-		values.put(DYADS_COL_TARGET, targetName);
-		db.insert(TIES_TABLE_NAME, null, values);
-		//add the reverse tie
-		values.put(DYADS_COL_SOURCE, targetName);
-		values.put(DYADS_COL_TARGET, sourceName);
-		db.insert(TIES_TABLE_NAME, null, values);
+		db.insert(TIES_TABLE_NAME, null, getDyadContentValues(sourceName, targetName));
 	}
 
 	/**
@@ -1289,13 +1965,9 @@ public class PersonalNetwork{
 	private boolean hasTie(String sourceName, String targetName) {
 		if(sourceName == null || targetName == null)
 			return false;
-		String selection = DYADS_COL_SOURCE + " = ? AND " + DYADS_COL_TARGET + " = ?";
-		String[] selectionArgs = {sourceName, targetName};
-		Cursor c = db.query(TIES_TABLE_NAME, new String[]{DYADS_COL_SOURCE, DYADS_COL_TARGET}, 
-				selection, selectionArgs, null, null, null, "1");
-		boolean ret = c.getCount() > 0;
-		c.close();
-		return ret;
+		SQLiteStatement statement = statements.get(getHasTieSQL());
+		bindElementSelectionArgs(statement, getDyadSelectionArgs(sourceName, targetName));
+		return statement.simpleQueryForLong() > 0;
 	}
 
 	/**
@@ -1311,15 +1983,14 @@ public class PersonalNetwork{
 	private LinkedHashSet<String> getNeighbors(String alterName){
 		if(!hasAlter(alterName))
 			return null;
-		String selection = DYADS_COL_SOURCE + " = ?";
-		String[] selectionArgs = {alterName};
-		Cursor c = db.query(TIES_TABLE_NAME, new String[]{DYADS_COL_TARGET}, 
-				selection, selectionArgs, null, null, DYADS_COL_TARGET + " ASC");
+		String[] selectionArgs = {getAlterIDArg(alterName)};
+		Cursor c = db.rawQuery(getNeighborsSQL(TIES_TABLE_NAME, null) + 
+				" ORDER BY " + DYADS_COL_TARGET + " ASC", selectionArgs);
 		int col_of_target = c.getColumnIndex(DYADS_COL_TARGET);
 		LinkedHashSet<String> neighbors = new LinkedHashSet<String>();
 		if(c.moveToFirst() && col_of_target >= 0){
 			while(!c.isAfterLast()){
-				String neighbor = c.getString(col_of_target);
+				String neighbor = getAlterName(c, col_of_target);
 				neighbors.add(neighbor);
 				c.moveToNext();
 			}
@@ -1334,15 +2005,14 @@ public class PersonalNetwork{
 	 * @return
 	 */
 	private LinkedHashSet<OrderedDyad> getDirectedTies(){
-		Cursor c = db.query(TIES_TABLE_NAME, new String[]{DYADS_COL_SOURCE, DYADS_COL_TARGET}, 
-				null, null, null, null, null);
+		Cursor c = db.rawQuery(getDirectedPairsSQL(TIES_TABLE_NAME, null), null);
 		LinkedHashSet<OrderedDyad> ties = new LinkedHashSet<OrderedDyad>();
 		int col_of_source = c.getColumnIndex(DYADS_COL_SOURCE);
 		int col_of_target = c.getColumnIndex(DYADS_COL_TARGET);
 		if(c.moveToFirst() && col_of_source >= 0 && col_of_target >= 0){
 			while(!c.isAfterLast()){
-				ties.add(new OrderedDyad(c.getString(col_of_source), 
-						c.getString(col_of_target)));
+				ties.add(new OrderedDyad(getAlterName(c, col_of_source), 
+						getAlterName(c, col_of_target)));
 				c.moveToNext();
 			}
 		}
@@ -1363,8 +2033,8 @@ public class PersonalNetwork{
 		int col_of_target = c.getColumnIndex(DYADS_COL_TARGET);
 		if(c.moveToFirst() && col_of_source >= 0 && col_of_target >= 0){
 			while(!c.isAfterLast()){
-				ties.add(new UnorderedDyad(c.getString(col_of_source), 
-						c.getString(col_of_target)));
+				ties.add(new UnorderedDyad(getAlterName(c, col_of_source), 
+						getAlterName(c, col_of_target)));
 				c.moveToNext();
 			}
 		}
@@ -1374,7 +2044,8 @@ public class PersonalNetwork{
 
 	/**
 	 * Sets the lifetime of the two anti-parallel ties (source, target) and (target, source) 
-	 * equal to the union of their current lifetime with the specified interval.
+	 * equal to the union of their current lifetime with the specified interval (both ties share
+	 * their lifetime which is stored once).
 	 * 
 	 * If (source,target) is not yet in the set of ties then addTie(source, target) is called.
 	 * 
@@ -1388,28 +2059,31 @@ public class PersonalNetwork{
 	 * @param interval
 	 */
 	public void addToLifetimeOfTie(TimeInterval interval, String sourceName, String targetName) {
-		if(sourceName.equals(targetName))
-			return;
-		if(!hasTie(sourceName, targetName))
-			addTie(sourceName, targetName);
-		addToLifetimeOfAlter(interval, sourceName);
-		addToLifetimeOfAlter(interval, targetName);
-		String historyTableName = TIES_HISTORY_TABLE_NAME;
-		String elementSelection =  DYADS_COL_SOURCE + " = ? AND " + DYADS_COL_TARGET + " = ? ";
-		String[] elementSelectionArgs = {sourceName, targetName};
-		ContentValues values = new ContentValues();
-		values.put(DYADS_COL_SOURCE, sourceName);
-		values.put(DYADS_COL_TARGET, targetName);
-		unionWithLifetime(interval, historyTableName, elementSelection,
-				elementSelectionArgs, values);
-		//do the same for the reverse tie
-		elementSelectionArgs = new String[]{targetName, sourceName};
-		values = new ContentValues();
-		values.put(DYADS_COL_SOURCE, targetName);
-		values.put(DYADS_COL_TARGET, sourceName);
-		unionWithLifetime(interval, historyTableName, elementSelection,
-				elementSelectionArgs, values);
-		setLastChange(System.currentTimeMillis());
+		beginJournaledChange();
+		try {
+			if(sourceName.equals(targetName))
+				return;
+			if(!hasTie(sourceName, targetName))
+				addTie(sourceName, targetName);
+			addToLifetimeOfAlter(interval, sourceName);
+			addToLifetimeOfAlter(interval, targetName);
+			String historyTableName = TIES_HISTORY_TABLE_NAME;
+			String elementSelection =  DYADS_COL_SOURCE + " = ? AND " + DYADS_COL_TARGET + " = ? ";
+			//one row for both directions
+			String[] elementSelectionArgs = getDyadSelectionArgs(sourceName, targetName);
+			ContentValues values = getDyadContentValues(sourceName, targetName);
+			unionWithLifetime(interval, historyTableName, elementSelection,
+					elementSelectionArgs, values);
+			setLastChange(System.currentTimeMillis());
+			if(hasAlter(sourceName) && hasAlter(targetName))
+				journal(new JournalEntry(JournalEntry.TYPE_TIE_ADDED, interval, 
+						AlterAlterDyad.getInstance(sourceName, targetName), null, null));
+		} catch(RuntimeException e) {
+			abortJournaledChange();
+			throw e;
+		} finally {
+			endJournaledChange();
+		}
 	}
 
 	/**
@@ -1426,7 +2100,7 @@ public class PersonalNetwork{
 			return false;
 		String historyTableName = TIES_HISTORY_TABLE_NAME;
 		String elementSelection =  DYADS_COL_SOURCE + " = ? AND " + DYADS_COL_TARGET + " = ? ";
-		String[] elementSelectionArgs = {sourceName, targetName};
+		String[] elementSelectionArgs = getDyadSelectionArgs(sourceName, targetName);
 		return overlapsLifetime(interval, historyTableName, elementSelection, elementSelectionArgs);
 	}
 
@@ -1446,7 +2120,7 @@ public class PersonalNetwork{
 			return null;
 		String historyTableName = TIES_HISTORY_TABLE_NAME;
 		String elementSelection =  DYADS_COL_SOURCE + " = ? AND " + DYADS_COL_TARGET + " = ? ";
-		String[] elementSelectionArgs = {sourceName, targetName};
+		String[] elementSelectionArgs = getDyadSelectionArgs(sourceName, targetName);
 		return getLifetimeDatumIDAt(timePoint, historyTableName, elementSelection, elementSelectionArgs);
 	}
 
@@ -1459,7 +2133,7 @@ public class PersonalNetwork{
 	public Lifetime getLifetimeOfTie(String sourceName, String targetName) {
 		String historyTableName = TIES_HISTORY_TABLE_NAME;
 		String elementSelection =  DYADS_COL_SOURCE + " = ? AND " + DYADS_COL_TARGET + " = ? ";
-		String[] elementSelectionArgs = {sourceName, targetName};
+		String[] elementSelectionArgs = getDyadSelectionArgs(sourceName, targetName);
 		return getLifetime(historyTableName, elementSelection, elementSelectionArgs);
 	}
 
@@ -1475,22 +2149,16 @@ public class PersonalNetwork{
 	 * @return
 	 */
 	public LinkedHashSet<String> getNeighborsAt(TimeInterval interval, String alterName) {
+		TemporalGraphCache cache = getGraphCache();
+		if(cache != null)
+			return cache.getNeighborsAt(interval, alterName);
+		flushPendingLifetimes();
 		LinkedHashSet<String> neighbors = new LinkedHashSet<String>();
-		String selection = DYADS_COL_SOURCE + " = ? AND " +
-				COL_TIME_START + " <= ? AND " +
-				COL_TIME_END + " >= ?";
-		String[] selectionArgs = {alterName, 
-				Long.toString(interval.getEndTime()), 
-				Long.toString(interval.getStartTime())};
-		Cursor c = db.query(TIES_HISTORY_TABLE_NAME, 
-				new String[]{DYADS_COL_TARGET, COL_TIME_START, COL_TIME_END}, 
-				selection, selectionArgs, null, null, null);
+		String[] selectionArgs = getSelectionArgsWithInterval(new String[]{getAlterIDArg(alterName)}, interval);
+		Cursor c = db.rawQuery(getNeighborsSQL(TIES_HISTORY_TABLE_NAME, getOverlapSelection(2)), selectionArgs);
 		if(c.moveToFirst()){
 			while(!c.isAfterLast()){
-				long start = c.getLong(c.getColumnIndex(COL_TIME_START));
-				long end = c.getLong(c.getColumnIndex(COL_TIME_END));
-				if(overlap(start, end, interval.getStartTime(), interval.getEndTime()))
-					neighbors.add(c.getString(c.getColumnIndex(DYADS_COL_TARGET)));
+				neighbors.add(getAlterName(c, c.getColumnIndex(DYADS_COL_TARGET)));
 				c.moveToNext();
 			}
 		}
@@ -1499,7 +2167,8 @@ public class PersonalNetwork{
 	}
 
 	/**
-	 * Cuts the given interval from the lifetime of the ties (source, target) and (target, source).
+	 * Cuts the given interval from the lifetime of the ties (source, target) and (target, source)
+	 * (which is stored once).
 	 * 
 	 * Note the behavior of Lifetime.cutOut(interval) if interval is a time point.
 	 * 
@@ -1508,20 +2177,23 @@ public class PersonalNetwork{
 	 * @param targetName
 	 */
 	public void removeTieAt(TimeInterval interval, String sourceName, String targetName) {
-		String historyTableName = TIES_HISTORY_TABLE_NAME;
-		String elementSelection =  DYADS_COL_SOURCE + " = ? AND " + DYADS_COL_TARGET + " = ? ";
-		String[] elementSelectionArgs = {sourceName, targetName};
-		ContentValues values = new ContentValues();
-		values.put(DYADS_COL_SOURCE, sourceName);
-		values.put(DYADS_COL_TARGET, targetName);
-		cutOutOfLifetime(interval, historyTableName, elementSelection, elementSelectionArgs, values);
-		//do the same for the reverse tie
-		elementSelectionArgs = new String[]{targetName, sourceName};
-		values = new ContentValues();
-		values.put(DYADS_COL_SOURCE, targetName);
-		values.put(DYADS_COL_TARGET, sourceName);
-		cutOutOfLifetime(interval, historyTableName, elementSelection, elementSelectionArgs, values);
-		setLastChange(System.currentTimeMillis());
+		beginJournaledChange();
+		try {
+			String historyTableName = TIES_HISTORY_TABLE_NAME;
+			String elementSelection =  DYADS_COL_SOURCE + " = ? AND " + DYADS_COL_TARGET + " = ? ";
+			String[] elementSelectionArgs = getDyadSelectionArgs(sourceName, targetName);
+			ContentValues values = getDyadContentValues(sourceName, targetName);
+			cutOutOfLifetime(interval, historyTableName, elementSelection, elementSelectionArgs, values);
+			setLastChange(System.currentTimeMillis());
+			if(hasAlter(sourceName) && hasAlter(targetName))
+				journal(new JournalEntry(JournalEntry.TYPE_TIE_REMOVED, interval, 
+						AlterAlterDyad.getInstance(sourceName, targetName), null, null));
+		} catch(RuntimeException e) {
+			abortJournaledChange();
+			throw e;
+		} finally {
+			endJournaledChange();
+		}
 	}
 
 	/**
@@ -1529,7 +2201,11 @@ public class PersonalNetwork{
 	 * @return
 	 */
 	public int getNumberOfUndirectedTiesAt(TimeInterval interval) {
-		return getUndirectedTiesAt(interval).size();//TODO: this should be possible in a more efficient way
+		TemporalGraphCache cache = getGraphCache();
+		if(cache != null)
+			return cache.getNumberOfUndirectedTiesAt(interval);
+		flushPendingLifetimes();
+		return countDistinctElementsAt(TIES_HISTORY_TABLE_NAME, getUndirectedPairColumns(), interval);
 	}
 
 	/**
@@ -1538,22 +2214,15 @@ public class PersonalNetwork{
 	 * @return
 	 */
 	public LinkedHashSet<OrderedDyad> getDirectedTiesAt(TimeInterval interval) {
+		flushPendingLifetimes();
 		LinkedHashSet<OrderedDyad> dyads = new LinkedHashSet<OrderedDyad>();
-		String selection = COL_TIME_START + " <= ? AND " +
-				COL_TIME_END + " >= ?";
-		String[] selectionArgs = {Long.toString(interval.getEndTime()), 
-				Long.toString(interval.getStartTime())};
-		Cursor c = db.query(TIES_HISTORY_TABLE_NAME, 
-				new String[]{DYADS_COL_SOURCE, DYADS_COL_TARGET, COL_TIME_START, COL_TIME_END}, 
-				selection, selectionArgs, null, null, null);
+		String selection = getOverlapSelection(1);
+		String[] selectionArgs = getSelectionArgsWithInterval(new String[0], interval);
+		Cursor c = db.rawQuery(getDirectedPairsSQL(TIES_HISTORY_TABLE_NAME, selection), selectionArgs);
 		if(c.moveToFirst()){
 			while(!c.isAfterLast()){
-				long start = c.getLong(c.getColumnIndex(COL_TIME_START));
-				long end = c.getLong(c.getColumnIndex(COL_TIME_END));
-				if(overlap(start, end, interval.getStartTime(), interval.getEndTime())){
-					dyads.add(new OrderedDyad(c.getString(c.getColumnIndex(DYADS_COL_SOURCE)), 
-							c.getString(c.getColumnIndex(DYADS_COL_TARGET))));
-				}
+				dyads.add(new OrderedDyad(getAlterName(c, c.getColumnIndex(DYADS_COL_SOURCE)), 
+						getAlterName(c, c.getColumnIndex(DYADS_COL_TARGET))));
 				c.moveToNext();
 			}
 		}
@@ -1561,28 +2230,39 @@ public class PersonalNetwork{
 		return dyads;
 	}
 
+	/**
+	 * Streaming variant of getDirectedTiesAt(interval): iterates over the OrderedDyads that are ties 
+	 * at some point in the given interval (each dyad once) without collecting them in a set.
+	 * 
+	 * The returned iterator must be closed if it is not iterated to the end (see CursorIterator).
+	 * 
+	 * @return
+	 */
+	public CursorIterator<OrderedDyad> iterateDirectedTiesAt(TimeInterval interval) {
+		return iterateOrderedDyadsAt(interval, TIES_HISTORY_TABLE_NAME, 
+				getOverlapSelection(TIES_HISTORY_TABLE_NAME, 1));
+	}
+
 	/**
 	 * Returns the set of UnorderedDyads that are ties are some point in the given interval.
 	 * 
 	 * @return
 	 */
 	public LinkedHashSet<UnorderedDyad> getUndirectedTiesAt(TimeInterval interval) {
+		TemporalGraphCache cache = getGraphCache();
+		if(cache != null)
+			return cache.getUndirectedTiesAt(interval);
+		flushPendingLifetimes();
 		LinkedHashSet<UnorderedDyad> dyads = new LinkedHashSet<UnorderedDyad>();
-		String selection = COL_TIME_START + " <= ? AND " +
-				COL_TIME_END + " >= ?";
-		String[] selectionArgs = {Long.toString(interval.getEndTime()), 
-				Long.toString(interval.getStartTime())};
+		String selection = getOverlapSelection(TIES_HISTORY_TABLE_NAME, 1);
+		String[] selectionArgs = getSelectionArgsWithInterval(new String[0], interval);
 		Cursor c = db.query(TIES_HISTORY_TABLE_NAME, 
-				new String[]{DYADS_COL_SOURCE, DYADS_COL_TARGET, COL_TIME_START, COL_TIME_END}, 
+				new String[]{DYADS_COL_SOURCE, DYADS_COL_TARGET}, 
 				selection, selectionArgs, null, null, null);
 		if(c.moveToFirst()){
 			while(!c.isAfterLast()){
-				long start = c.getLong(c.getColumnIndex(COL_TIME_START));
-				long end = c.getLong(c.getColumnIndex(COL_TIME_END));
-				if(overlap(start, end, interval.getStartTime(), interval.getEndTime())){
-					dyads.add(new UnorderedDyad(c.getString(c.getColumnIndex(DYADS_COL_SOURCE)), 
-							c.getString(c.getColumnIndex(DYADS_COL_TARGET))));
-				}
+				dyads.add(new UnorderedDyad(getAlterName(c, c.getColumnIndex(DYADS_COL_SOURCE)), 
+						getAlterName(c, c.getColumnIndex(DYADS_COL_TARGET))));
 				c.moveToNext();
 			}
 		}
@@ -1591,7 +2271,62 @@ public class PersonalNetwork{
 	}
 
 	/**
-	 * Adds the two anti-parallel dyads (source, target) and (target, source) to the network.
+	 * Streaming variant of getUndirectedTiesAt(interval): iterates over the UnorderedDyads that are 
+	 * ties at some point in the given interval (each pair of alters once) without collecting them in a set.
+	 * 
+	 * Always reads the ties from the database (not from the in-memory cache of alters and ties).
+	 * The returned iterator must be closed if it is not iterated to the end (see CursorIterator).
+	 * 
+	 * @return
+	 */
+	public CursorIterator<UnorderedDyad> iterateUndirectedTiesAt(TimeInterval interval) {
+		return iterateUnorderedDyadsAt(interval, TIES_HISTORY_TABLE_NAME, 
+				getOverlapSelection(TIES_HISTORY_TABLE_NAME, 1));
+	}
+
+	/*
+	 * Iterates over the distinct ordered pairs (source, target) and (target, source) of the rows of 
+	 * the given dyads history table whose interval overlaps the given interval. The selection must select these rows with the 
+	 * start and the end of the interval as parameters ?1 and ?2 (see getOverlapSelection).
+	 */
+	private CursorIterator<OrderedDyad> iterateOrderedDyadsAt(TimeInterval interval, 
+			String historyTableName, String selection) {
+		flushPendingLifetimes();
+		String[] selectionArgs = getSelectionArgsWithInterval(new String[0], interval);
+		Cursor c = db.rawQuery(getDirectedPairsSQL(historyTableName, selection), selectionArgs);
+		return new CursorIterator<OrderedDyad>(c){
+			@Override
+			protected OrderedDyad read(Cursor cursor) {
+				OrderedDyad dyad = new OrderedDyad(getAlterName(cursor, 0), getAlterName(cursor, 1));
+				cursor.moveToNext();
+				return dyad;
+			}
+		};
+	}
+
+	/*
+	 * Like iterateOrderedDyadsAt but returns every pair of alters only once (in the direction in which 
+	 * it is stored).
+	 */
+	private CursorIterator<UnorderedDyad> iterateUnorderedDyadsAt(TimeInterval interval, 
+			String historyTableName, String selection) {
+		flushPendingLifetimes();
+		String[] selectionArgs = getSelectionArgsWithInterval(new String[0], interval);
+		Cursor c = db.rawQuery("SELECT DISTINCT " + getUndirectedPairColumns() + 
+				" FROM " + historyTableName + " WHERE " + selection, selectionArgs);
+		return new CursorIterator<UnorderedDyad>(c){
+			@Override
+			protected UnorderedDyad read(Cursor cursor) {
+				UnorderedDyad dyad = new UnorderedDyad(getAlterName(cursor, 0), getAlterName(cursor, 1));
+				cursor.moveToNext();
+				return dyad;
+			}
+		};
+	}
+
+	/**
+	 * Adds the two anti-parallel dyads (source, target) and (target, source) to the network
+	 * (stored as one row).
 	 * 
 	 * If necessary adds sourceName and targetName to the set of alters.
 	 * 
@@ -1609,14 +2344,7 @@ public class PersonalNetwork{
 		if(!hasAlter(targetName)){
 			addAlter(targetName);
 		}
-		ContentValues values = new ContentValues();
-		values.put(DYADS_COL_SOURCE, sourceName);
-		values.put(DYADS_COL_TARGET, targetName);
-		db.insert(ALTER_ALTER_DYADS_TABLE_NAME, null, values);
-		//add the reverse dyad
-		values.put(DYADS_COL_SOURCE, targetName);
-		values.put(DYADS_COL_TARGET, sourceName);
-		db.insert(ALTER_ALTER_DYADS_TABLE_NAME, null, values);
+		db.insert(ALTER_ALTER_DYADS_TABLE_NAME, null, getDyadContentValues(sourceName, targetName));
 	}
 
 	/**
@@ -1631,7 +2359,7 @@ public class PersonalNetwork{
 		if(sourceName == null || targetName == null)
 			return false;
 		String selection = DYADS_COL_SOURCE + " = ? AND " + DYADS_COL_TARGET + " = ?";
-		String[] selectionArgs = {sourceName, targetName};
+		String[] selectionArgs = getDyadSelectionArgs(sourceName, targetName);
 		Cursor c = db.query(ALTER_ALTER_DYADS_TABLE_NAME, new String[]{DYADS_COL_SOURCE, DYADS_COL_TARGET}, 
 				selection, selectionArgs, null, null, null);
 		boolean ret = c.getCount() > 0;
@@ -1651,15 +2379,14 @@ public class PersonalNetwork{
 	protected LinkedHashSet<UnorderedDyad> getIncidentDyads(String alterName) {
 		if(!hasAlter(alterName))
 			return null;
-		String selection = DYADS_COL_SOURCE + " = ?";
-		String[] selectionArgs = {alterName};
-		Cursor c = db.query(ALTER_ALTER_DYADS_TABLE_NAME, new String[]{DYADS_COL_TARGET}, 
-				selection, selectionArgs, null, null, DYADS_COL_TARGET + " ASC");
+		String[] selectionArgs = {getAlterIDArg(alterName)};
+		Cursor c = db.rawQuery(getNeighborsSQL(ALTER_ALTER_DYADS_TABLE_NAME, null) + 
+				" ORDER BY " + DYADS_COL_TARGET + " ASC", selectionArgs);
 		int col_of_target = c.getColumnIndex(DYADS_COL_TARGET);
 		LinkedHashSet<UnorderedDyad> dyads = new LinkedHashSet<UnorderedDyad>();
 		if(c.moveToFirst() && col_of_target >= 0){
 			while(!c.isAfterLast()){
-				String neighbor = c.getString(col_of_target);
+				String neighbor = getAlterName(c, col_of_target);
 				dyads.add(new UnorderedDyad(alterName, neighbor));
 				c.moveToNext();
 			}
@@ -1674,15 +2401,14 @@ public class PersonalNetwork{
 	 * @return
 	 */
 	protected LinkedHashSet<OrderedDyad> getDirectedAlterAlterDyads() {
-		Cursor c = db.query(ALTER_ALTER_DYADS_TABLE_NAME, new String[]{DYADS_COL_SOURCE, DYADS_COL_TARGET}, 
-				null, null, null, null, null);
+		Cursor c = db.rawQuery(getDirectedPairsSQL(ALTER_ALTER_DYADS_TABLE_NAME, null), null);
 		LinkedHashSet<OrderedDyad> dyads = new LinkedHashSet<OrderedDyad>();
 		int col_of_source = c.getColumnIndex(DYADS_COL_SOURCE);
 		int col_of_target = c.getColumnIndex(DYADS_COL_TARGET);
 		if(c.moveToFirst() && col_of_source >= 0 && col_of_target >= 0){
 			while(!c.isAfterLast()){
-				dyads.add(new OrderedDyad(c.getString(col_of_source), 
-						c.getString(col_of_target)));
+				dyads.add(new OrderedDyad(getAlterName(c, col_of_source), 
+						getAlterName(c, col_of_target)));
 				c.moveToNext();
 			}
 		}
@@ -1703,8 +2429,8 @@ public class PersonalNetwork{
 		int col_of_target = c.getColumnIndex(DYADS_COL_TARGET);
 		if(c.moveToFirst() && col_of_source >= 0 && col_of_target >= 0){
 			while(!c.isAfterLast()){
-				dyads.add(new UnorderedDyad(c.getString(col_of_source), 
-						c.getString(col_of_target)));
+				dyads.add(new UnorderedDyad(getAlterName(c, col_of_source), 
+						getAlterName(c, col_of_target)));
 				c.moveToNext();
 			}
 		}
@@ -1714,7 +2440,8 @@ public class PersonalNetwork{
 
 	/**
 	 * Sets the lifetime of the two anti-parallel dyads (source, target) and (target, source) 
-	 * equal to the union of its current lifetime with the specified interval.
+	 * equal to the union of its current lifetime with the specified interval (both dyads share
+	 * their lifetime which is stored once).
 	 * 
 	 * If source and target are not yet in the set of dyads then addAlterAlterDyad(source, target) is called.
 	 * 
@@ -1726,25 +2453,28 @@ public class PersonalNetwork{
 	 * @param targetName
 	 */
 	public void addToLifetimeOfAlterAlterDyad(TimeInterval interval, String sourceName, String targetName) {
-		if(!hasAlterAlterDyad(sourceName, targetName))
-			addAlterAlterDyad(sourceName, targetName);
-		addToLifetimeOfAlter(interval, sourceName);
-		addToLifetimeOfAlter(interval, targetName);
-		String historyTableName = ALTER_ALTER_DYADS_HISTORY_TABLE_NAME;
-		String elementSelection =  DYADS_COL_SOURCE + " = ? AND " + DYADS_COL_TARGET + " = ? ";
-		String[] elementSelectionArgs = {sourceName, targetName};
-		ContentValues values = new ContentValues();
-		values.put(DYADS_COL_SOURCE, sourceName);
-		values.put(DYADS_COL_TARGET, targetName);
-		unionWithLifetime(interval, historyTableName, elementSelection,
-				elementSelectionArgs, values);
-		//do the same for the reverse dyad
-		elementSelectionArgs = new String[]{targetName, sourceName};
-		values = new ContentValues();
-		values.put(DYADS_COL_SOURCE, targetName);
-		values.put(DYADS_COL_TARGET, sourceName);
-		unionWithLifetime(interval, historyTableName, elementSelection,
-				elementSelectionArgs, values);
+		beginJournaledChange();
+		try {
+			if(!hasAlterAlterDyad(sourceName, targetName))
+				addAlterAlterDyad(sourceName, targetName);
+			addToLifetimeOfAlter(interval, sourceName);
+			addToLifetimeOfAlter(interval, targetName);
+			String historyTableName = ALTER_ALTER_DYADS_HISTORY_TABLE_NAME;
+			String elementSelection =  DYADS_COL_SOURCE + " = ? AND " + DYADS_COL_TARGET + " = ? ";
+			//one row for both directions
+			String[] elementSelectionArgs = getDyadSelectionArgs(sourceName, targetName);
+			ContentValues values = getDyadContentValues(sourceName, targetName);
+			unionWithLifetime(interval, historyTableName, elementSelection,
+					elementSelectionArgs, values);
+			if(hasAlter(sourceName) && hasAlter(targetName))
+				journal(new JournalEntry(JournalEntry.TYPE_ALTER_ALTER_DYAD_ADDED, interval, 
+						AlterAlterDyad.getInstance(sourceName, targetName), null, null));
+		} catch(RuntimeException e) {
+			abortJournaledChange();
+			throw e;
+		} finally {
+			endJournaledChange();
+		}
 	}
 
 	/**
@@ -1760,10 +2490,7 @@ public class PersonalNetwork{
 			return false;
 		String historyTableName = ALTER_ALTER_DYADS_HISTORY_TABLE_NAME;
 		String elementSelection =  DYADS_COL_SOURCE + " = ? AND " + DYADS_COL_TARGET + " = ? ";
-		String[] elementSelectionArgs = {sourceName, targetName};
-		ContentValues values = new ContentValues();
-		values.put(DYADS_COL_SOURCE, sourceName);
-		values.put(DYADS_COL_TARGET, targetName);
+		String[] elementSelectionArgs = getDyadSelectionArgs(sourceName, targetName);
 		return overlapsLifetime(interval, historyTableName, elementSelection, elementSelectionArgs);
 	}
 
@@ -1781,10 +2508,7 @@ public class PersonalNetwork{
 			return null;
 		String historyTableName = ALTER_ALTER_DYADS_HISTORY_TABLE_NAME;
 		String elementSelection =  DYADS_COL_SOURCE + " = ? AND " + DYADS_COL_TARGET + " = ? ";
-		String[] elementSelectionArgs = {sourceName, targetName};
-		ContentValues values = new ContentValues();
-		values.put(DYADS_COL_SOURCE, sourceName);
-		values.put(DYADS_COL_TARGET, targetName);
+		String[] elementSelectionArgs = getDyadSelectionArgs(sourceName, targetName);
 		return getLifetimeDatumIDAt(timePoint, historyTableName, elementSelection, elementSelectionArgs);
 	}
 
@@ -1798,7 +2522,7 @@ public class PersonalNetwork{
 	public Lifetime getLifetimeOfAlterAlterDyad(String sourceName, String targetName) {
 		String historyTableName = ALTER_ALTER_DYADS_HISTORY_TABLE_NAME;
 		String elementSelection =  DYADS_COL_SOURCE + " = ? AND " + DYADS_COL_TARGET + " = ? ";
-		String[] elementSelectionArgs = {sourceName, targetName};
+		String[] elementSelectionArgs = getDyadSelectionArgs(sourceName, targetName);
 		return getLifetime(historyTableName, elementSelection, elementSelectionArgs);
 	}
 
@@ -1813,22 +2537,14 @@ public class PersonalNetwork{
 	 * @return
 	 */
 	public LinkedHashSet<UnorderedDyad> getIncidentDyadsAt(TimeInterval interval, String alterName) {
+		flushPendingLifetimes();
 		LinkedHashSet<UnorderedDyad> dyads = new LinkedHashSet<UnorderedDyad>();
-		String selection = DYADS_COL_SOURCE + " = ? AND " +
-				COL_TIME_START + " <= ? AND " +
-				COL_TIME_END + " >= ?";
-		String[] selectionArgs = {alterName, 
-				Long.toString(interval.getEndTime()), 
-				Long.toString(interval.getStartTime())};
-		Cursor c = db.query(ALTER_ALTER_DYADS_HISTORY_TABLE_NAME, 
-				new String[]{DYADS_COL_TARGET, COL_TIME_START, COL_TIME_END}, 
-				selection, selectionArgs, null, null, null);
+		String[] selectionArgs = getSelectionArgsWithInterval(new String[]{getAlterIDArg(alterName)}, interval);
+		Cursor c = db.rawQuery(getNeighborsSQL(ALTER_ALTER_DYADS_HISTORY_TABLE_NAME, getOverlapSelection(2)), 
+				selectionArgs);
 		if(c.moveToFirst()){
 			while(!c.isAfterLast()){
-				long start = c.getLong(c.getColumnIndex(COL_TIME_START));
-				long end = c.getLong(c.getColumnIndex(COL_TIME_END));
-				if(overlap(start, end, interval.getStartTime(), interval.getEndTime()))
-					dyads.add(new UnorderedDyad(c.getString(c.getColumnIndex(DYADS_COL_TARGET)),alterName));
+				dyads.add(new UnorderedDyad(getAlterName(c, c.getColumnIndex(DYADS_COL_TARGET)),alterName));
 				c.moveToNext();
 			}
 		}
@@ -1837,7 +2553,8 @@ public class PersonalNetwork{
 	}
 
 	/**
-	 * Cuts the given interval from the lifetime of the dyads (source, target) and (target, source).
+	 * Cuts the given interval from the lifetime of the dyads (source, target) and (target, source)
+	 * (which is stored once).
 	 * 
 	 * First removes all associated dyad attribute values at the given interval.
 	 * 
@@ -1848,28 +2565,31 @@ public class PersonalNetwork{
 	 * @param targetName
 	 */
 	public void removeAlterAlterDyadAt(TimeInterval interval, String sourceName, String targetName) {
-		//associated attributes
-		LinkedHashSet<String> attrNames = getAttributeNames(PersonalNetwork.DOMAIN_ALTER_ALTER);
-		if(attrNames != null){
-			for(String attrName : attrNames){
-				setAttributeValueAt(interval, attrName, 
-						AlterAlterDyad.getInstance(sourceName, targetName), 
-						PersonalNetwork.VALUE_NOT_ASSIGNED);
+		beginJournaledChange();
+		try {
+			//associated attributes
+			LinkedHashSet<String> attrNames = getAttributeNames(PersonalNetwork.DOMAIN_ALTER_ALTER);
+			if(attrNames != null){
+				for(String attrName : attrNames){
+					setAttributeValueAt(interval, attrName, 
+							AlterAlterDyad.getInstance(sourceName, targetName), 
+							PersonalNetwork.VALUE_NOT_ASSIGNED);
+				}
 			}
+			String historyTableName = ALTER_ALTER_DYADS_HISTORY_TABLE_NAME;
+			String elementSelection =  DYADS_COL_SOURCE + " = ? AND " + DYADS_COL_TARGET + " = ? ";
+			String[] elementSelectionArgs = getDyadSelectionArgs(sourceName, targetName);
+			ContentValues values = getDyadContentValues(sourceName, targetName);
+			cutOutOfLifetime(interval, historyTableName, elementSelection, elementSelectionArgs, values);
+			if(hasAlter(sourceName) && hasAlter(targetName))
+				journal(new JournalEntry(JournalEntry.TYPE_ALTER_ALTER_DYAD_REMOVED, interval, 
+						AlterAlterDyad.getInstance(sourceName, targetName), null, null));
+		} catch(RuntimeException e) {
+			abortJournaledChange();
+			throw e;
+		} finally {
+			endJournaledChange();
 		}
-		String historyTableName = ALTER_ALTER_DYADS_HISTORY_TABLE_NAME;
-		String elementSelection =  DYADS_COL_SOURCE + " = ? AND " + DYADS_COL_TARGET + " = ? ";
-		String[] elementSelectionArgs = {sourceName, targetName};
-		ContentValues values = new ContentValues();
-		values.put(DYADS_COL_SOURCE, sourceName);
-		values.put(DYADS_COL_TARGET, targetName);
-		cutOutOfLifetime(interval, historyTableName, elementSelection, elementSelectionArgs, values);
-		//do the same for the reverse dyad
-		elementSelectionArgs = new String[]{targetName, sourceName};
-		values = new ContentValues();
-		values.put(DYADS_COL_SOURCE, targetName);
-		values.put(DYADS_COL_TARGET, sourceName);
-		cutOutOfLifetime(interval, historyTableName, elementSelection, elementSelectionArgs, values);
 	}
 
 	/**
@@ -1877,7 +2597,8 @@ public class PersonalNetwork{
 	 * @return
 	 */
 	public int getNumberOfUndirectedDyadsAt(TimeInterval interval) {
-		return getUndirectedAlterAlterDyadsAt(interval).size();//TODO: this should be possible in a more efficient way
+		flushPendingLifetimes();
+		return countDistinctElementsAt(ALTER_ALTER_DYADS_HISTORY_TABLE_NAME, getUndirectedPairColumns(), interval);
 	}
 
 	/**
@@ -1886,22 +2607,15 @@ public class PersonalNetwork{
 	 * @return
 	 */
 	public LinkedHashSet<OrderedDyad> getDirectedAlterAlterDyadsAt(TimeInterval interval) {
+		flushPendingLifetimes();
 		LinkedHashSet<OrderedDyad> dyads = new LinkedHashSet<OrderedDyad>();
-		String selection = COL_TIME_START + " <= ? AND " +
-				COL_TIME_END + " >= ?";
-		String[] selectionArgs = {Long.toString(interval.getEndTime()), 
-				Long.toString(interval.getStartTime())};
-		Cursor c = db.query(ALTER_ALTER_DYADS_HISTORY_TABLE_NAME, 
-				new String[]{DYADS_COL_SOURCE, DYADS_COL_TARGET, COL_TIME_START, COL_TIME_END}, 
-				selection, selectionArgs, null, null, null);
+		String selection = getOverlapSelection(1);
+		String[] selectionArgs = getSelectionArgsWithInterval(new String[0], interval);
+		Cursor c = db.rawQuery(getDirectedPairsSQL(ALTER_ALTER_DYADS_HISTORY_TABLE_NAME, selection), selectionArgs);
 		if(c.moveToFirst()){
 			while(!c.isAfterLast()){
-				long start = c.getLong(c.getColumnIndex(COL_TIME_START));
-				long end = c.getLong(c.getColumnIndex(COL_TIME_END));
-				if(overlap(start, end, interval.getStartTime(), interval.getEndTime())){
-					dyads.add(new OrderedDyad(c.getString(c.getColumnIndex(DYADS_COL_SOURCE)), 
-							c.getString(c.getColumnIndex(DYADS_COL_TARGET))));
-				}
+				dyads.add(new OrderedDyad(getAlterName(c, c.getColumnIndex(DYADS_COL_SOURCE)), 
+						getAlterName(c, c.getColumnIndex(DYADS_COL_TARGET))));
 				c.moveToNext();
 			}
 		}
@@ -1909,28 +2623,36 @@ public class PersonalNetwork{
 		return dyads;
 	}
 
+	/**
+	 * Streaming variant of getDirectedAlterAlterDyadsAt(interval): iterates over the directed dyads
+	 * that are in the network at some point in the given interval (each dyad once) without collecting 
+	 * them in a set.
+	 * 
+	 * The returned iterator must be closed if it is not iterated to the end (see CursorIterator).
+	 * 
+	 * @return
+	 */
+	public CursorIterator<OrderedDyad> iterateDirectedAlterAlterDyadsAt(TimeInterval interval) {
+		return iterateOrderedDyadsAt(interval, ALTER_ALTER_DYADS_HISTORY_TABLE_NAME, getOverlapSelection(1));
+	}
+
 	/**
 	 * Returns the set of undirected dyads that are in the network at some point in the given interval.
 	 * 
 	 * @return
 	 */
 	public LinkedHashSet<UnorderedDyad> getUndirectedAlterAlterDyadsAt(TimeInterval interval) {
+		flushPendingLifetimes();
 		LinkedHashSet<UnorderedDyad> dyads = new LinkedHashSet<UnorderedDyad>();
-		String selection = COL_TIME_START + " <= ? AND " +
-				COL_TIME_END + " >= ?";
-		String[] selectionArgs = {Long.toString(interval.getEndTime()), 
-				Long.toString(interval.getStartTime())};
+		String selection = getOverlapSelection(1);
+		String[] selectionArgs = getSelectionArgsWithInterval(new String[0], interval);
 		Cursor c = db.query(ALTER_ALTER_DYADS_HISTORY_TABLE_NAME, 
-				new String[]{DYADS_COL_SOURCE, DYADS_COL_TARGET, COL_TIME_START, COL_TIME_END}, 
+				new String[]{DYADS_COL_SOURCE, DYADS_COL_TARGET}, 
 				selection, selectionArgs, null, null, null);
 		if(c.moveToFirst()){
 			while(!c.isAfterLast()){
-				long start = c.getLong(c.getColumnIndex(COL_TIME_START));
-				long end = c.getLong(c.getColumnIndex(COL_TIME_END));
-				if(overlap(start, end, interval.getStartTime(), interval.getEndTime())){
-					dyads.add(new UnorderedDyad(c.getString(c.getColumnIndex(DYADS_COL_SOURCE)), 
-							c.getString(c.getColumnIndex(DYADS_COL_TARGET))));
-				}
+				dyads.add(new UnorderedDyad(getAlterName(c, c.getColumnIndex(DYADS_COL_SOURCE)), 
+						getAlterName(c, c.getColumnIndex(DYADS_COL_TARGET))));
 				c.moveToNext();
 			}
 		}
@@ -1938,6 +2660,19 @@ public class PersonalNetwork{
 		return dyads;
 	}
 
+	/**
+	 * Streaming variant of getUndirectedAlterAlterDyadsAt(interval): iterates over the undirected dyads
+	 * that are in the network at some point in the given interval (each pair of alters once) without 
+	 * collecting them in a set.
+	 * 
+	 * The returned iterator must be closed if it is not iterated to the end (see CursorIterator).
+	 * 
+	 * @return
+	 */
+	public CursorIterator<UnorderedDyad> iterateUndirectedAlterAlterDyadsAt(TimeInterval interval) {
+		return iterateUnorderedDyadsAt(interval, ALTER_ALTER_DYADS_HISTORY_TABLE_NAME, getOverlapSelection(1));
+	}
+
 	/**
 	 * Adds a new alter with an empty lifetime to the network.
 	 * 
@@ -1956,7 +2691,10 @@ public class PersonalNetwork{
 		}
 		ContentValues values = new ContentValues();
 		values.put(ALTERS_COL_NAME, alterName);
-		db.insert(ALTERS_TABLE_NAME, null, values);
+		long alterID = db.insert(ALTERS_TABLE_NAME, null, values);
+		if(alterID != -1)
+			getAlterDictionary().put(alterID, alterName);
+		graphCache = null;
 	}
 
 	/**
@@ -1965,15 +2703,7 @@ public class PersonalNetwork{
 	 * @param alterName
 	 */
 	protected boolean hasAlter(String alterName) {
-		if(alterName == null)
-			return false;
-		String selection = ALTERS_COL_NAME + " = ?";
-		String[] selectionArgs = {alterName};
-		Cursor c = db.query(ALTERS_TABLE_NAME, new String[]{ALTERS_COL_NAME}, 
-				selection, selectionArgs, null, null, null);
-		boolean ret = c.getCount() > 0;
-		c.close();
-		return ret;
+		return getAlterDictionary().contains(alterName);
 	}
 
 	/**
@@ -2008,54 +2738,41 @@ public class PersonalNetwork{
 	 * @param newName
 	 */
 	public void renameAlter(String oldName, String newName) {
-		if(newName == null)
-			return;
-		if(!hasAlter(oldName))
-			return;
-		newName = newName.trim();
-		if(newName.length() == 0)
-			return;
-		if(hasAlter(newName))
-			return;
-		db.beginTransaction();
-		int editRowCount = 0;
+		beginJournaledChange();
 		try {
-			//rename alter in all tables in which it might be in the column ALTERS_COL_NAME
-			ContentValues values = new ContentValues();
-			values.put(ALTERS_COL_NAME, newName);
-			String selection = ALTERS_COL_NAME + " = ?";
-			String[] selectionArgs = {oldName};
-			editRowCount = editRowCount + db.update(ALTERS_TABLE_NAME, values, selection, selectionArgs);
-			editRowCount = editRowCount + db.update(ALTERS_HISTORY_TABLE_NAME, values, selection, selectionArgs);
-			editRowCount = editRowCount + db.update(ALTER_ATTRIBS_VALUES_TABLE_NAME, values, selection, selectionArgs);
-			editRowCount = editRowCount + db.update(EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME, values, selection, selectionArgs);
-			//rename alter in all tables in which it might be in the column DYADS_COL_SOURCE
-			values = new ContentValues();
-			values.put(DYADS_COL_SOURCE, newName);
-			selection = DYADS_COL_SOURCE + " = ?";
-			editRowCount = editRowCount + db.update(TIES_TABLE_NAME, values, selection, selectionArgs);
-			editRowCount = editRowCount + db.update(TIES_HISTORY_TABLE_NAME, values, selection, selectionArgs);
-			editRowCount = editRowCount + db.update(ALTER_ALTER_DYADS_TABLE_NAME, values, selection, selectionArgs);
-			editRowCount = editRowCount + db.update(ALTER_ALTER_DYADS_HISTORY_TABLE_NAME, values, selection, selectionArgs);
-			editRowCount = editRowCount + db.update(ALTER_ALTER_ATTRIBS_VALUES_TABLE_NAME, values, selection, selectionArgs);
-			//rename alter in all tables in which it might be in the column DYADS_COL_TARGET
-			values = new ContentValues();
-			values.put(DYADS_COL_TARGET, newName);
-			selection = DYADS_COL_TARGET + " = ?";
-			editRowCount = editRowCount + db.update(TIES_TABLE_NAME, values, selection, selectionArgs);
-			editRowCount = editRowCount + db.update(TIES_HISTORY_TABLE_NAME, values, selection, selectionArgs);
-			editRowCount = editRowCount + db.update(ALTER_ALTER_DYADS_TABLE_NAME, values, selection, selectionArgs);
-			editRowCount = editRowCount + db.update(ALTER_ALTER_DYADS_HISTORY_TABLE_NAME, values, selection, selectionArgs);
-			editRowCount = editRowCount + db.update(ALTER_ALTER_ATTRIBS_VALUES_TABLE_NAME, values, selection, selectionArgs);
-			if(oldName.equals(getSelectedAlterInHistory())){
-				setSelectedAlterInHistory(newName);
+			if(newName == null)
+				return;
+			if(!hasAlter(oldName))
+				return;
+			newName = newName.trim();
+			if(newName.length() == 0)
+				return;
+			if(hasAlter(newName))
+				return;
+			db.beginTransaction();
+			try {
+				//all other tables refer to the alter by its id
+				ContentValues values = new ContentValues();
+				values.put(ALTERS_COL_NAME, newName);
+				String selection = ALTERS_COL_ID + " = ?";
+				String[] selectionArgs = {getAlterIDArg(oldName)};
+				db.update(ALTERS_TABLE_NAME, values, selection, selectionArgs);
+				if(oldName.equals(getSelectedAlterInHistory())){
+					setSelectedAlterInHistory(newName);
+				}
+				journal(JournalEntry.getRenaming(oldName, newName));
+				db.setTransactionSuccessful();
+				setLastChange(System.currentTimeMillis());
+			} finally {
+				db.endTransaction();
 			}
-			db.setTransactionSuccessful();
-			setLastChange(System.currentTimeMillis());
+			getAlterDictionary().rename(oldName, newName);
+		} catch(RuntimeException e) {
+			abortJournaledChange();
+			throw e;
 		} finally {
-			db.endTransaction();
+			endJournaledChange();
 		}
-		//Toast.makeText(activity, "updated " + editRowCount + " rows in your network history", Toast.LENGTH_LONG).show();
 	}
 
 	/**
@@ -2065,15 +2782,16 @@ public class PersonalNetwork{
 	 * @return
 	 */
 	public String getAnyCurrentAlter(){
-		String currentTime = Long.toString(System.currentTimeMillis());
-		String selection = COL_TIME_START + " <= ? AND " + COL_TIME_END + " >= ?";
-		String[] selectionArgs = {currentTime, currentTime};
+		flushPendingLifetimes();
+		TimeInterval currentTime = TimeInterval.getTimePoint(System.currentTimeMillis());
+		String selection = getOverlapSelection(1);
+		String[] selectionArgs = getSelectionArgsWithInterval(new String[0], currentTime);
 		Cursor c = db.query(ALTERS_HISTORY_TABLE_NAME, 
-				new String[]{ALTERS_COL_NAME}, 
+				new String[]{ALTERS_COL_ID}, 
 				selection, selectionArgs, null, null, null, "1");
-		int col_of_name = c.getColumnIndex(ALTERS_COL_NAME);
-		if(c.moveToFirst() && col_of_name >= 0){
-			String ret = c.getString(col_of_name);
+		int col_of_id = c.getColumnIndex(ALTERS_COL_ID);
+		if(c.moveToFirst() && col_of_id >= 0){
+			String ret = getAlterName(c, col_of_id);
 			c.close();
 			return ret;
 		}
@@ -2086,18 +2804,10 @@ public class PersonalNetwork{
 	 * @return
 	 */
 	public String getSelectedAlterInHistory() {
-		String selection = PROPERTIES_COL_KEY + " = ?";
-		String[] selectionArgs = {PROPERTIES_KEY_SELECTED_ALTER_IN_HISTORY};
-		Cursor c = db.query(PROPERTIES_TABLE_NAME, new String[]{PROPERTIES_COL_VALUE}, 
-				selection, selectionArgs, null, null, null);
-		int col_of_value = c.getColumnIndexOrThrow(PROPERTIES_COL_VALUE);
-		if(!c.moveToFirst()){
-			c.close();
+		String alter = properties.get(PROPERTIES_KEY_SELECTED_ALTER_IN_HISTORY);
+		if(alter == null)
 			return getAnyCurrentAlter();
-		}
-		String ret = c.getString(col_of_value);
-		c.close();
-		return ret;
+		return alter;
 	}
 
 	/**
@@ -2110,19 +2820,7 @@ public class PersonalNetwork{
 	public void setSelectedAlterInHistory(String alterName) {
 		if(!hasAlter(alterName))
 			return;
-		ContentValues values = new ContentValues();
-		values.put(PROPERTIES_COL_KEY, PROPERTIES_KEY_SELECTED_ALTER_IN_HISTORY);
-		values.put(PROPERTIES_COL_VALUE, alterName);
-		String selection = PROPERTIES_COL_KEY + " = ?";
-		String[] selectionArgs = {PROPERTIES_KEY_SELECTED_ALTER_IN_HISTORY};
-		Cursor c = db.query(PROPERTIES_TABLE_NAME, new String[]{PROPERTIES_COL_VALUE}, 
-				selection, selectionArgs, null, null, null);
-		if(!c.moveToFirst()){
-			db.insert(PROPERTIES_TABLE_NAME, null, values);
-		} else { 
-			db.update(PROPERTIES_TABLE_NAME, values, selection, selectionArgs);
-		}
-		c.close();
+		properties.put(PROPERTIES_KEY_SELECTED_ALTER_IN_HISTORY, alterName);
 	}
 
 	/**
@@ -2135,16 +2833,27 @@ public class PersonalNetwork{
 	 * @param alterName
 	 */
 	public void addToLifetimeOfAlter(TimeInterval interval, String alterName) {
-		if(!hasAlter(alterName))
-			addAlter(alterName);
-		String historyTableName = ALTERS_HISTORY_TABLE_NAME;
-		String elementSelection =  ALTERS_COL_NAME + " = ?";
-		String[] elementSelectionArgs = {alterName};
-		ContentValues values = new ContentValues();
-		values.put(ALTERS_COL_NAME, alterName);
-		unionWithLifetime(interval, historyTableName, elementSelection,
-				elementSelectionArgs, values);
-		setLastChange(System.currentTimeMillis());
+		beginJournaledChange();
+		try {
+			if(!hasAlter(alterName))
+				addAlter(alterName);
+			String historyTableName = ALTERS_HISTORY_TABLE_NAME;
+			String elementSelection =  ALTERS_COL_ID + " = ?";
+			String[] elementSelectionArgs = {getAlterIDArg(alterName)};
+			ContentValues values = new ContentValues();
+			values.put(ALTERS_COL_ID, getAlterID(alterName));
+			unionWithLifetime(interval, historyTableName, elementSelection,
+					elementSelectionArgs, values);
+			setLastChange(System.currentTimeMillis());
+			if(hasAlter(alterName))
+				journal(new JournalEntry(JournalEntry.TYPE_ALTER_ADDED, interval, Alter.getInstance(alterName), 
+						null, null));
+		} catch(RuntimeException e) {
+			abortJournaledChange();
+			throw e;
+		} finally {
+			endJournaledChange();
+		}
 	}
 
 	/**
@@ -2157,8 +2866,8 @@ public class PersonalNetwork{
 		if(!hasAlter(alterName))
 			return false;
 		String historyTableName = ALTERS_HISTORY_TABLE_NAME;
-		String elementSelection =  ALTERS_COL_NAME + " = ?";
-		String[] elementSelectionArgs = {alterName};
+		String elementSelection =  ALTERS_COL_ID + " = ?";
+		String[] elementSelectionArgs = {getAlterIDArg(alterName)};
 		return overlapsLifetime(interval, historyTableName, elementSelection, elementSelectionArgs);
 	}
 
@@ -2173,8 +2882,8 @@ public class PersonalNetwork{
 		if(!hasAlter(alterName))
 			return null;
 		String historyTableName = ALTERS_HISTORY_TABLE_NAME;
-		String elementSelection =  ALTERS_COL_NAME + " = ?";
-		String[] elementSelectionArgs = {alterName};
+		String elementSelection =  ALTERS_COL_ID + " = ?";
+		String[] elementSelectionArgs = {getAlterIDArg(alterName)};
 		return getLifetimeDatumIDAt(timePoint, historyTableName, elementSelection, elementSelectionArgs);
 	}
 
@@ -2184,11 +2893,14 @@ public class PersonalNetwork{
 	 * @return null if alterName is unknown, his/her lifetime otherwise
 	 */
 	public Lifetime getLifetimeOfAlter(String alterName) {
+		TemporalGraphCache cache = getGraphCache();
+		if(cache != null)
+			return cache.getLifetimeOfAlter(alterName);
 		if(!hasAlter(alterName))
 			return null;
 		String historyTableName = ALTERS_HISTORY_TABLE_NAME;
-		String elementSelection =  ALTERS_COL_NAME + " = ?";
-		String[] elementSelectionArgs = {alterName};
+		String elementSelection =  ALTERS_COL_ID + " = ?";
+		String[] elementSelectionArgs = {getAlterIDArg(alterName)};
 		return getLifetime(historyTableName, elementSelection, elementSelectionArgs);
 	}
 
@@ -2196,7 +2908,12 @@ public class PersonalNetwork{
 	 * Cuts the given interval from the lifetime of the specified alter.
 	 * 
 	 * First removes interval from the lifetime of all incident ties and dyads as well as
-	 * all associated attribute values.
+	 * all associated attribute values (of alter, ego-alter, and alter-alter attributes).
+	 * 
+	 * All affected rows are clipped with a few statements per table in a single transaction 
+	 * (see cutOutOfRows); the resulting intervals and time stamps are the same as if the interval 
+	 * was cut out of the lifetime of every incident tie and dyad and the value of every 
+	 * associated attribute was set to VALUE_NOT_ASSIGNED in the interval.
 	 * 
 	 * Note the behavior of Lifetime.cutOut(interval) if interval is a time point.
 	 * 
@@ -2204,65 +2921,61 @@ public class PersonalNetwork{
 	 * @param alterName
 	 */
 	public void removeAlterAt(TimeInterval interval, String alterName) {
-		if(!hasAlter(alterName))
-			return;
-		//incident ties
-		LinkedHashSet<String> neighbors = getNeighborsAt(interval, alterName);
-		if(neighbors != null){
-			for(String neighbor : neighbors){
-				removeTieAt(interval, alterName, neighbor);
-			}
-		}
-		//incident dyads
-		LinkedHashSet<UnorderedDyad> dyads = getIncidentDyadsAt(interval, alterName);
-		if(dyads != null){
-			for(UnorderedDyad dyad : dyads){
-				removeAlterAlterDyadAt(interval, dyad.source(), dyad.target());
-			}
-		}
-		//associated alter attributes
-		LinkedHashSet<String> attrNames = getAttributeNames(PersonalNetwork.DOMAIN_ALTER);
-		if(attrNames != null){
-			for(String attrName : attrNames){
-				setAttributeValueAt(interval, attrName, 
-						Alter.getInstance(alterName), 
-						PersonalNetwork.VALUE_NOT_ASSIGNED);
+		beginJournaledChange();
+		try {
+			if(!hasAlter(alterName))
+				return;
+			flushPendingLifetimes();
+			long currentTimeStamp = System.currentTimeMillis(); //used as time stamps for newly created intervals
+			String[] elementSelectionArgs = {getAlterIDArg(alterName)};
+			String alterSelection = ALTERS_COL_ID + " = ?1";
+			//ties and dyads are stored once with the smaller alter id as source
+			String dyadSelection = "(" + DYADS_COL_SOURCE + " = ?1 OR " + DYADS_COL_TARGET + " = ?1)";
+			db.beginTransaction();
+			try {
+				db.execSQL(CLIPPED_ROWS_TABLE_CREATE_CMD);
+				//incident ties
+				cutOutOfRows(interval, TIES_HISTORY_TABLE_NAME, dyadSelection, elementSelectionArgs,
+						DYADS_COL_SOURCE + ", " + DYADS_COL_TARGET, currentTimeStamp);
+				//incident dyads and their associated attributes
+				cutOutOfRows(interval, ALTER_ALTER_ATTRIBS_VALUES_TABLE_NAME, dyadSelection, elementSelectionArgs,
+						ATTRIBUTES_COL_NAME + ", " + DYADS_COL_SOURCE + ", " + DYADS_COL_TARGET + ", " + 
+						ATTRIBUTES_COL_VALUE + ", " + ATTRIBUTES_COL_NUMBER + ", " + ATTRIBUTES_COL_CHOICE_CODE, 
+						currentTimeStamp);
+				cutOutOfRows(interval, ALTER_ALTER_DYADS_HISTORY_TABLE_NAME, dyadSelection, elementSelectionArgs,
+						DYADS_COL_SOURCE + ", " + DYADS_COL_TARGET, currentTimeStamp);
+				//associated alter attributes
+				cutOutOfRows(interval, ALTER_ATTRIBS_VALUES_TABLE_NAME, alterSelection, elementSelectionArgs,
+						ATTRIBUTES_COL_NAME + ", " + ALTERS_COL_ID + ", " + ATTRIBUTES_COL_VALUE + ", " + 
+						ATTRIBUTES_COL_NUMBER + ", " + ATTRIBUTES_COL_CHOICE_CODE, currentTimeStamp);
+				//associated ego alter attributes (in both directions)
+				cutOutOfRows(interval, EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME, alterSelection, elementSelectionArgs,
+						ATTRIBUTES_COL_NAME + ", " + ALTERS_COL_ID + ", " + ATTRIBUTES_COL_DIRECTION_TYPE + ", " + 
+						ATTRIBUTES_COL_VALUE + ", " + ATTRIBUTES_COL_NUMBER + ", " + ATTRIBUTES_COL_CHOICE_CODE, 
+						currentTimeStamp);
+				//the lifetime of the alter
+				cutOutOfRows(interval, ALTERS_HISTORY_TABLE_NAME, alterSelection, elementSelectionArgs,
+						ALTERS_COL_ID, currentTimeStamp);
+				db.setTransactionSuccessful();
+			} finally {
+				db.endTransaction();
 			}
-		}
-		//associated ego alter attributes
-		attrNames = getAttributeNames(PersonalNetwork.DOMAIN_EGO_ALTER);
-		if(attrNames != null){
-			for(String attrName : attrNames){
-				String dir = getAttributeDirectionType(PersonalNetwork.DOMAIN_EGO_ALTER, attrName);
-				if(dir.equals(PersonalNetwork.DYAD_DIRECTION_OUT) 
-						|| dir.equals(PersonalNetwork.DYAD_DIRECTION_SYMMETRIC) 
-						|| dir.equals(PersonalNetwork.DYAD_DIRECTION_ASYMMETRIC))
-					setAttributeValueAt(
-							interval, attrName, 
-							EgoAlterDyad.getOutwardInstance(alterName),
-							PersonalNetwork.VALUE_NOT_ASSIGNED);
-				if(dir.equals(PersonalNetwork.DYAD_DIRECTION_IN) 
-						|| dir.equals(PersonalNetwork.DYAD_DIRECTION_ASYMMETRIC))
-					setAttributeValueAt(
-							interval, attrName, 
-							EgoAlterDyad.getInwardInstance(alterName), 
-							PersonalNetwork.VALUE_NOT_ASSIGNED);
+			//if the cut interval includes the current time and alter name is the currently selected alter remove it
+			if(interval.contains(System.currentTimeMillis())){
+				if(alterName.equals(getSelectedAlter()))
+					setSelectedAlterForced(null);
+				if(alterName.equals(getSelectedSecondAlter()))
+					setSelectedSecondAlterForced(null);
 			}
+			setLastChange(System.currentTimeMillis());
+			journal(new JournalEntry(JournalEntry.TYPE_ALTER_REMOVED, interval, Alter.getInstance(alterName), 
+					null, null));
+		} catch(RuntimeException e) {
+			abortJournaledChange();
+			throw e;
+		} finally {
+			endJournaledChange();
 		}
-		String historyTableName = ALTERS_HISTORY_TABLE_NAME;
-		String elementSelection =  ALTERS_COL_NAME + " = ?";
-		String[] elementSelectionArgs = {alterName};
-		ContentValues values = new ContentValues();
-		values.put(ALTERS_COL_NAME, alterName);
-		cutOutOfLifetime(interval, historyTableName, elementSelection, elementSelectionArgs, values);
-		//if the cut interval includes the current time and alter name is the currently selected alter remove it
-		if(interval.contains(System.currentTimeMillis())){
-			if(alterName.equals(getSelectedAlter()))
-				setSelectedAlterForced(null);
-			if(alterName.equals(getSelectedSecondAlter()))
-				setSelectedSecondAlterForced(null);
-		}
-		setLastChange(System.currentTimeMillis());
 	}
 
 	/**
@@ -2271,7 +2984,11 @@ public class PersonalNetwork{
 	 * @return
 	 */
 	public int getNumberOfAltersAt(TimeInterval interval) {
-		return getAltersAt(interval).size();//TODO: do this in a more efficient way
+		TemporalGraphCache cache = getGraphCache();
+		if(cache != null)
+			return cache.getNumberOfAltersAt(interval);
+		flushPendingLifetimes();
+		return countDistinctElementsAt(ALTERS_HISTORY_TABLE_NAME, ALTERS_COL_ID, interval);
 	}
 
 	/**
@@ -2280,21 +2997,19 @@ public class PersonalNetwork{
 	 * @return
 	 */
 	public LinkedHashSet<String> getAltersAt(TimeInterval interval) {
+		TemporalGraphCache cache = getGraphCache();
+		if(cache != null)
+			return cache.getAltersAt(interval);
+		flushPendingLifetimes();
 		LinkedHashSet<String> alters = new LinkedHashSet<String>();
-		String selection = COL_TIME_START + " <= ? AND " +
-				COL_TIME_END + " >= ?";
-		String[] selectionArgs = {Long.toString(interval.getEndTime()), 
-				Long.toString(interval.getStartTime())};
+		String selection = getOverlapSelection(ALTERS_HISTORY_TABLE_NAME, 1);
+		String[] selectionArgs = getSelectionArgsWithInterval(new String[0], interval);
 		Cursor c = db.query(ALTERS_HISTORY_TABLE_NAME, 
-				new String[]{ALTERS_COL_NAME, COL_TIME_START, COL_TIME_END}, 
+				new String[]{ALTERS_COL_ID}, 
 				selection, selectionArgs, null, null, null);
 		if(c.moveToFirst()){
 			while(!c.isAfterLast()){
-				long start = c.getLong(c.getColumnIndex(COL_TIME_START));
-				long end = c.getLong(c.getColumnIndex(COL_TIME_END));
-				if(overlap(start, end, interval.getStartTime(), interval.getEndTime())){
-					alters.add(c.getString(c.getColumnIndex(ALTERS_COL_NAME)));
-				}
+				alters.add(getAlterName(c, c.getColumnIndex(ALTERS_COL_ID)));
 				c.moveToNext();
 			}
 		}
@@ -2302,6 +3017,169 @@ public class PersonalNetwork{
 		return alters;
 	}
 
+	/**
+	 * Streaming variant of getAltersAt(interval): iterates over the alters that are in the network 
+	 * at some point in time in the given interval (each alter once) without collecting them in a set.
+	 * 
+	 * Always reads the alters from the database (not from the in-memory cache of alters and ties).
+	 * The returned iterator must be closed if it is not iterated to the end (see CursorIterator).
+	 * 
+	 * @return
+	 */
+	public CursorIterator<String> iterateAltersAt(TimeInterval interval) {
+		flushPendingLifetimes();
+		String selection = getOverlapSelection(ALTERS_HISTORY_TABLE_NAME, 1);
+		String[] selectionArgs = getSelectionArgsWithInterval(new String[0], interval);
+		Cursor c = db.query(true, ALTERS_HISTORY_TABLE_NAME, 
+				new String[]{ALTERS_COL_ID}, 
+				selection, selectionArgs, null, null, null, null);
+		return new CursorIterator<String>(c){
+			@Override
+			protected String read(Cursor cursor) {
+				String alterName = getAlterName(cursor, 0);
+				cursor.moveToNext();
+				return alterName;
+			}
+		};
+	}
+
+	/*
+	 * Returns the in-memory cache of alters and ties; builds it from the history tables if necessary.
+	 * 
+	 * Returns null (and does not build the cache) inside a transaction once the network has been changed, 
+	 * since the cache must not hold changes that might be rolled back.
+	 */
+	private TemporalGraphCache getGraphCache(){
+		if(graphCache != null)
+			return graphCache;
+		if(db.inTransaction())
+			return null;
+		TemporalGraphCache cache = new TemporalGraphCache();
+		for(String alterName : getAlterDictionary().getNames()){
+			cache.addAlter(alterName);
+		}
+		Cursor c = db.query(ALTERS_HISTORY_TABLE_NAME, 
+				new String[]{ALTERS_COL_ID, COL_TIME_START, COL_TIME_END}, 
+				null, null, null, null, COL_TIME_START + " ASC");
+		if(c.moveToFirst()){
+			int col_of_id = c.getColumnIndexOrThrow(ALTERS_COL_ID);
+			int col_of_start = c.getColumnIndexOrThrow(COL_TIME_START);
+			int col_of_end = c.getColumnIndexOrThrow(COL_TIME_END);
+			while(!c.isAfterLast()){
+				cache.addAlterInterval(getAlterName(c, col_of_id), c.getLong(col_of_start), c.getLong(col_of_end));
+				c.moveToNext();
+			}
+		}
+		c.close();
+		c = db.query(TIES_HISTORY_TABLE_NAME, 
+				new String[]{DYADS_COL_SOURCE, DYADS_COL_TARGET, COL_TIME_START, COL_TIME_END}, 
+				null, null, null, null, COL_TIME_START + " ASC");
+		if(c.moveToFirst()){
+			int col_of_source = c.getColumnIndexOrThrow(DYADS_COL_SOURCE);
+			int col_of_target = c.getColumnIndexOrThrow(DYADS_COL_TARGET);
+			int col_of_start = c.getColumnIndexOrThrow(COL_TIME_START);
+			int col_of_end = c.getColumnIndexOrThrow(COL_TIME_END);
+			while(!c.isAfterLast()){
+				//every row stands for the ties in both directions
+				cache.addTieInterval(getAlterName(c, col_of_source), getAlterName(c, col_of_target), 
+						c.getLong(col_of_start), c.getLong(col_of_end));
+				cache.addTieInterval(getAlterName(c, col_of_target), getAlterName(c, col_of_source), 
+						c.getLong(col_of_start), c.getLong(col_of_end));
+				c.moveToNext();
+			}
+		}
+		c.close();
+		graphCache = cache;
+		return cache;
+	}
+
+	/*
+	 * Returns the dictionary of alter names and ids; reads it from the alters table if necessary.
+	 */
+	private AlterDictionary getAlterDictionary(){
+		if(alterDictionary != null)
+			return alterDictionary;
+		AlterDictionary dictionary = new AlterDictionary();
+		Cursor c = db.query(ALTERS_TABLE_NAME, new String[]{ALTERS_COL_ID, ALTERS_COL_NAME}, 
+				null, null, null, null, ALTERS_COL_ID + " ASC");
+		if(c.moveToFirst()){
+			int col_of_id = c.getColumnIndexOrThrow(ALTERS_COL_ID);
+			int col_of_name = c.getColumnIndexOrThrow(ALTERS_COL_NAME);
+			while(!c.isAfterLast()){
+				dictionary.put(c.getLong(col_of_id), c.getString(col_of_name));
+				c.moveToNext();
+			}
+		}
+		c.close();
+		alterDictionary = dictionary;
+		return dictionary;
+	}
+
+	/*
+	 * Reads the names and choices tables of the ego, alter, ego-alter, and alter-alter attributes 
+	 * into memory. All methods changing these tables must update the returned catalog accordingly.
+	 */
+	private AttributeCatalog loadAttributeCatalog(){
+		AttributeCatalog catalog = new AttributeCatalog();
+		String[] domains = {PersonalNetwork.DOMAIN_EGO, PersonalNetwork.DOMAIN_ALTER, 
+				PersonalNetwork.DOMAIN_EGO_ALTER, PersonalNetwork.DOMAIN_ALTER_ALTER};
+		for(String domain : domains){
+			boolean hasDirectionType = domainHasAttributeDirectionType(domain);
+			String[] columns;
+			if(hasDirectionType)
+				columns = new String[]{ATTRIBUTES_COL_NAME, ATTRIBUTES_COL_DESCRIPTION, 
+						ATTRIBUTES_COL_VALUE_TYPE, ATTRIBUTES_COL_DYNAMIC_TYPE, ATTRIBUTES_COL_DIRECTION_TYPE};
+			else
+				columns = new String[]{ATTRIBUTES_COL_NAME, ATTRIBUTES_COL_DESCRIPTION, 
+						ATTRIBUTES_COL_VALUE_TYPE, ATTRIBUTES_COL_DYNAMIC_TYPE};
+			Cursor c = db.query(getAttributeNamesTableNameForDomain(domain), columns, 
+					null, null, null, null, null);
+			if(c.moveToFirst()){
+				while(!c.isAfterLast()){
+					int valueType = c.isNull(2) ? -1 : c.getInt(2);
+					String directionType = hasDirectionType ? c.getString(4) : null;
+					catalog.putAttribute(domain, c.getString(0), c.getString(1), valueType, 
+							c.getString(3), directionType);
+					c.moveToNext();
+				}
+			}
+			c.close();
+			c = db.query(getAttributeChoicesTableNameForDomain(domain), 
+					new String[]{ATTRIBUTES_COL_NAME, ATTRIBUTES_COL_CHOICE, ATTRIBUTES_COL_CHOICE_CODE}, 
+					null, null, null, null, null);
+			if(c.moveToFirst()){
+				while(!c.isAfterLast()){
+					catalog.putChoice(domain, c.getString(0), c.getString(1), c.getLong(2));
+					c.moveToNext();
+				}
+			}
+			c.close();
+		}
+		return catalog;
+	}
+
+	/*
+	 * Returns the id of the given alter or AlterDictionary.NO_ID if the name is unknown.
+	 */
+	private long getAlterID(String alterName){
+		return getAlterDictionary().getID(alterName);
+	}
+
+	/*
+	 * Returns the id of the given alter as a selection argument (which does not match any row 
+	 * if the name is unknown).
+	 */
+	private String getAlterIDArg(String alterName){
+		return Long.toString(getAlterID(alterName));
+	}
+
+	/*
+	 * Returns the name of the alter whose id is in the given column of the cursor.
+	 */
+	private String getAlterName(Cursor c, int columnIndex){
+		return getAlterDictionary().getName(c.getLong(columnIndex));
+	}
+
 	/**
 	 * Creates a new attribute for the given domain. 
 	 * 
@@ -2348,13 +3226,12 @@ public class PersonalNetwork{
 			values.put(ATTRIBUTES_COL_DIRECTION_TYPE, directionType);
 		values.put(ATTRIBUTES_COL_DESCRIPTION, attributeDescription);
 		String tableName = getAttributeNamesTableNameForDomain(domain);
-		db.insert(tableName, null, values);
-		addSecondaryAttribute(domain, attributeName, 
-				getSecondaryAttributeNameTimestampStart(), 
-				"time stamp when start time has been set", PersonalNetwork.ATTRIB_TYPE_TEXT);
-		addSecondaryAttribute(domain, attributeName, 
-				getSecondaryAttributeNameTimestampEnd(), 
-				"time stamp when end time has been set", PersonalNetwork.ATTRIB_TYPE_TEXT);
+		if(db.insert(tableName, null, values) == -1)
+			return;
+		if(!domainHasAttributeDirectionType(domain))
+			directionType = null;
+		attributeCatalog.putAttribute(domain, attributeName, attributeDescription, valueType, 
+				dynamicType, directionType);
 	}
 
 	/**
@@ -2383,8 +3260,7 @@ public class PersonalNetwork{
 		}
 		LinkedHashSet<String> currentValues = getUniqueValuesForAttributeAt(
 				TimeInterval.getMaxInterval(), domain, attributeName);
-		String tableName = getAttributeChoicesTableNameForDomain(domain);
-		setAttributeChoices(attributeName, tableName, choices, currentValues);
+		setAttributeChoices(domain, attributeName, choices, currentValues);
 	}
 
 	/**
@@ -2417,7 +3293,10 @@ public class PersonalNetwork{
 		ContentValues values = new ContentValues();
 		values.put(ATTRIBUTES_COL_NAME, attributeName);
 		values.put(ATTRIBUTES_COL_CHOICE, choice);
-		db.insert(tableName, null, values);
+		long code = attributeCatalog.getUnusedChoiceCode(domain);
+		values.put(ATTRIBUTES_COL_CHOICE_CODE, code);
+		if(db.insert(tableName, null, values) != -1)
+			attributeCatalog.putChoice(domain, attributeName, choice, code);
 	}
 
 	/**
@@ -2477,12 +3356,20 @@ public class PersonalNetwork{
 				return;
 			}
 		}
-		if(getAttributeValueType(domain, attributeName) == PersonalNetwork.ATTRIB_TYPE_FINITE_CHOICE){
-			//the current type is finite choice; this will be changed: remove the choices
+		int oldValueType = getAttributeValueType(domain, attributeName);
+		if(oldValueType == PersonalNetwork.ATTRIB_TYPE_FINITE_CHOICE){
+			//the current type is finite choice; this will be changed: store the values as text 
+			//and remove the choices
+			String valuesTableName = getAttributeValuesTableNameForDomain(domain);
 			String selection = ATTRIBUTES_COL_NAME + " = ?";
 			String[] selectionArgs = {attributeName};
+			db.execSQL("UPDATE " + valuesTableName + 
+					" SET " + ATTRIBUTES_COL_VALUE + " = " + getDecodedValueSQL(valuesTableName, valuesTableName) + 
+					", " + ATTRIBUTES_COL_CHOICE_CODE + " = NULL" + 
+					" WHERE " + ATTRIBUTES_COL_CHOICE_CODE + " IS NOT NULL AND " + selection, selectionArgs);
 			// remove all choices set for this attribute
-			db.delete(ALTER_ALTER_ATTRIBS_CHOICES_TABLE_NAME, selection, selectionArgs);
+			db.delete(getAttributeChoicesTableNameForDomain(domain), selection, selectionArgs);
+			attributeCatalog.removeChoices(domain, attributeName);
 		}
 		//change the type
 		ContentValues values = new ContentValues();
@@ -2490,12 +3377,24 @@ public class PersonalNetwork{
 		values.put(ATTRIBUTES_COL_VALUE_TYPE, attributeValueType);
 		String selection = ATTRIBUTES_COL_NAME + " = ?";
 		String[] selectionArgs = {attributeName};
-		db.update(ALTER_ALTER_ATTRIBS_NAMES_TABLE_NAME, values, selection, selectionArgs);
+		db.update(getAttributeNamesTableNameForDomain(domain), values, selection, selectionArgs);
+		attributeCatalog.setValueType(domain, attributeName, attributeValueType);
+		if(attributeValueType == PersonalNetwork.ATTRIB_TYPE_NUMBER || 
+				oldValueType == PersonalNetwork.ATTRIB_TYPE_NUMBER){
+			//fill or clear the REAL copies of the values
+			String valuesTableName = getAttributeValuesTableNameForDomain(domain);
+			if(attributeValueType == PersonalNetwork.ATTRIB_TYPE_NUMBER)
+				fillNumberColumn(db, valuesTableName, selection, selectionArgs);
+			else
+				db.execSQL("UPDATE " + valuesTableName + " SET " + ATTRIBUTES_COL_NUMBER + " = NULL" + 
+						" WHERE " + selection, selectionArgs);
+		}
 		if(attributeValueType == PersonalNetwork.ATTRIB_TYPE_FINITE_CHOICE){
-			// make current values the allowed choices
+			// make current values the allowed choices and store the values as their codes
 			setAttributeChoices(domain, attributeName, 
 					getUniqueValuesForAttributeAt(TimeInterval.getMaxInterval(), 
 							domain, attributeName));
+			db.execSQL(getEncodeChoicesSQL(domain, ATTRIBUTES_COL_NAME + " = ?"), selectionArgs);
 		}
 	}
 
@@ -2517,7 +3416,8 @@ public class PersonalNetwork{
 		String[] selectArgs = {attributeName};
 		ContentValues values = new ContentValues();
 		values.put(ATTRIBUTES_COL_DESCRIPTION, description);
-		db.update(ALTER_ALTER_ATTRIBS_NAMES_TABLE_NAME, values, selection, selectArgs);
+		db.update(getAttributeNamesTableNameForDomain(domain), values, selection, selectArgs);
+		attributeCatalog.setDescription(domain, attributeName, description);
 	}
 
 	/**
@@ -2536,59 +3436,68 @@ public class PersonalNetwork{
 	 * Does nothing if interval is a time point that is included in a previously set interval 
 	 * which is not a point. Also see the behavior of Lifetime.cutOut for this case.
 	 *    
-	 *  If the direction type is SYMMETRIC, then the same value will be set for the reverse dyad.
+	 *  If the direction type is SYMMETRIC, then the same value will be set for the reverse dyad
+	 *  (the value is stored once for both dyads, see getStoredElement).
 	 *  
 	 * @param interval   
 	 * @param attributeName
 	 * @param sourceAlterName
 	 * @param targetAlterName
 	 * @param textValue
-	 */
-	public void setAttributeValueAt(TimeInterval interval, String attributeName, 
-			Element element, String textValue) {
-		if(element == null)
-			return;
-		String domain = element.getDomain();
-		if(!hasAttribute(domain, attributeName))
-			return;
-		int valueType = getAttributeValueType(domain, attributeName);
-		if(PersonalNetwork.ATTRIB_TYPE_NUMBER == valueType){
-			try{
-				Double.parseDouble(textValue);
-			} catch(Exception e){
+	 */
+	public void setAttributeValueAt(TimeInterval interval, String attributeName, 
+			Element element, String textValue) {
+		beginJournaledChange();
+		try {
+			if(element == null)
 				return;
+			String domain = element.getDomain();
+			if(!hasAttribute(domain, attributeName))
+				return;
+			int valueType = getAttributeValueType(domain, attributeName);
+			if(PersonalNetwork.ATTRIB_TYPE_NUMBER == valueType){
+				try{
+					Double.parseDouble(textValue);
+				} catch(Exception e){
+					return;
+				}
 			}
-		}
-		if(PersonalNetwork.ATTRIB_TYPE_FINITE_CHOICE == valueType){
-			if(!hasAttributeChoice(domain, attributeName, textValue))
-				addAttributeChoice(domain, attributeName, textValue);
-		}
-		//increase the lifetime of the element if necessary
-		if(PersonalNetwork.DOMAIN_ALTER.equals(domain) || 
-				PersonalNetwork.DOMAIN_EGO_ALTER.equals(domain)){
-			String alterName;
-			if(PersonalNetwork.DOMAIN_ALTER.equals(domain))
-				alterName = ((Alter) element).getName();
-			else
-				alterName = ((EgoAlterDyad) element).getName();
-			addToLifetimeOfAlter(interval, alterName);
-		}
-		if(PersonalNetwork.DOMAIN_ALTER_ALTER.equals(domain)){
-			AlterAlterDyad dyad = (AlterAlterDyad) element;
-			addToLifetimeOfAlterAlterDyad(interval, dyad.getSourceName(), dyad.getTargetName());
-		}
-		setAttributeValueAtAlreadyChecked(interval, attributeName, element, textValue);
-		if(element.isDyadicElement() && PersonalNetwork.DYAD_DIRECTION_SYMMETRIC.
-				equals(getAttributeDirectionType(domain, attributeName))){
-			setAttributeValueAtAlreadyChecked(interval, attributeName, element.getReverseElement(), textValue);
+			if(PersonalNetwork.ATTRIB_TYPE_FINITE_CHOICE == valueType){
+				if(!hasAttributeChoice(domain, attributeName, textValue))
+					addAttributeChoice(domain, attributeName, textValue);
+			}
+			//increase the lifetime of the element if necessary
+			if(PersonalNetwork.DOMAIN_ALTER.equals(domain) || 
+					PersonalNetwork.DOMAIN_EGO_ALTER.equals(domain)){
+				String alterName;
+				if(PersonalNetwork.DOMAIN_ALTER.equals(domain))
+					alterName = ((Alter) element).getName();
+				else
+					alterName = ((EgoAlterDyad) element).getName();
+				addToLifetimeOfAlter(interval, alterName);
+			}
+			if(PersonalNetwork.DOMAIN_ALTER_ALTER.equals(domain)){
+				AlterAlterDyad dyad = (AlterAlterDyad) element;
+				addToLifetimeOfAlterAlterDyad(interval, dyad.getSourceName(), dyad.getTargetName());
+			}
+			setAttributeValueAtAlreadyChecked(interval, attributeName, 
+					getStoredElement(element, attributeName), textValue);
+			boolean noValue = textValue == null || textValue.trim().length() == 0;
+			journal(new JournalEntry(JournalEntry.TYPE_ATTRIBUTE_VALUE_SET, interval, element, attributeName, 
+					noValue ? PersonalNetwork.VALUE_NOT_ASSIGNED : textValue.trim()));
+		} catch(RuntimeException e) {
+			abortJournaledChange();
+			throw e;
+		} finally {
+			endJournaledChange();
 		}
 	}
 
 	/**
 	 * Sets the value of the given attribute for the given element in the given interval.
 	 * 
-	 * The feasibility is not checked and this method does not set the 
-	 * value for the reverse dyad for symmetric dyadic attributes. 
+	 * The feasibility is not checked; for symmetric dyadic attributes the element must be the 
+	 * one for which the values are stored (see getStoredElement). 
 	 * 
 	 * @param interval
 	 * @param attributeName
@@ -2599,9 +3508,9 @@ public class PersonalNetwork{
 			String attributeName, Element element, String textValue) {
 		String valueHistoryTableName = getAttributeValuesTableNameForDomain(element.getDomain());
 		String elementSelection =  element.getAttributeElementSelectionString();
-		String[] elementSelectionArgs = element.getAttributeElementSelectionArgs(attributeName);
-		ContentValues dbContentValues = element.getAttributeElementContentValues(attributeName);
-		setAttributeValueAt(interval, textValue, 
+		String[] elementSelectionArgs = element.getAttributeElementSelectionArgs(attributeName, getAlterDictionary());
+		ContentValues dbContentValues = element.getAttributeElementContentValues(attributeName, getAlterDictionary());
+		setAttributeValueAt(interval, textValue, element.getDomain(), attributeName, 
 				valueHistoryTableName, elementSelection, elementSelectionArgs, 
 				dbContentValues);
 	}
@@ -2618,15 +3527,7 @@ public class PersonalNetwork{
 			return false;
 		if(!attributeDomainExists(domain))
 			return false;
-		String selection = ATTRIBUTES_COL_NAME + " = ?";
-		String[] selectionArgs = {attributeName};
-		String tableName = getAttributeNamesTableNameForDomain(domain);
-		Cursor c = db.query(tableName, 
-				new String[]{ATTRIBUTES_COL_NAME}, 
-				selection, selectionArgs, null, null, null);
-		boolean ret = c.getCount() > 0;
-		c.close();
-		return ret;
+		return attributeCatalog.hasAttribute(domain, attributeName);
 	}
 
 	/**
@@ -2648,15 +3549,7 @@ public class PersonalNetwork{
 			activity.reportInfo("attribute " + attributeName + " is not of finite choice type");
 			return false;						
 		}
-		String tableName = getAttributeChoicesTableNameForDomain(domain);
-		String selection = ATTRIBUTES_COL_NAME + " = ? AND " + ATTRIBUTES_COL_CHOICE + " = ? ";
-		String[] selectionArgs = {attributeName, choice};
-		Cursor c = db.query(tableName, 
-				new String[]{ATTRIBUTES_COL_CHOICE}, selection, 
-				selectionArgs, null, null, null);
-		boolean ret = c.getCount() > 0;
-		c.close();
-		return ret;
+		return attributeCatalog.hasChoice(domain, attributeName, choice);
 	}
 
 	/**
@@ -2678,22 +3571,7 @@ public class PersonalNetwork{
 			activity.reportInfo("attribute " + attributeName + " is not of finite choice type");
 			return null;						
 		}
-		String tableName = getAttributeChoicesTableNameForDomain(domain);
-		LinkedHashSet<String> choices = new LinkedHashSet<String>();
-		String selection = ATTRIBUTES_COL_NAME + " = ?";
-		String[] selectionArgs = {attributeName};
-		Cursor c = db.query(tableName, 
-				new String[]{ATTRIBUTES_COL_CHOICE}, selection, 
-				selectionArgs, null, null, ATTRIBUTES_COL_CHOICE + " ASC");
-		int col = c.getColumnIndex(ATTRIBUTES_COL_CHOICE);
-		if(c.moveToFirst() && col >= 0){
-			while(!c.isAfterLast()){
-				choices.add(c.getString(col));
-				c.moveToNext();
-			}
-		}
-		c.close();
-		return choices;
+		return attributeCatalog.getChoices(domain, attributeName);
 	}
 
 	/**
@@ -2712,10 +3590,7 @@ public class PersonalNetwork{
 					"the domain " + domain);
 			return -1;			
 		}
-		String type = getAttributeProperty(domain, attributeName, ATTRIBUTES_COL_VALUE_TYPE);
-		if(type == null)
-			return -1;
-		return Integer.parseInt(type);
+		return attributeCatalog.getValueType(domain, attributeName);
 	}
 
 	/**
@@ -2734,10 +3609,10 @@ public class PersonalNetwork{
 					"the domain " + domain);
 			return null;			
 		}
-		String type = getAttributeProperty(domain, attributeName, ATTRIBUTES_COL_VALUE_TYPE);
-		if(type == null)
+		int type = attributeCatalog.getValueType(domain, attributeName);
+		if(!attributeValueTypeExists(type))
 			return null;
-		return PersonalNetwork.ATTRIB_TYPE_NAMES[Integer.parseInt(type)];
+		return PersonalNetwork.ATTRIB_TYPE_NAMES[type];
 	}
 
 	/**
@@ -2754,7 +3629,7 @@ public class PersonalNetwork{
 					"the domain " + domain);
 			return null;
 		}
-		return getAttributeProperty(domain, attributeName, ATTRIBUTES_COL_DESCRIPTION);
+		return attributeCatalog.getDescription(domain, attributeName);
 	}
 
 	/**
@@ -2771,7 +3646,7 @@ public class PersonalNetwork{
 					"the domain " + domain);
 			return null;
 		}
-		return getAttributeProperty(domain, attributeName, ATTRIBUTES_COL_DYNAMIC_TYPE);
+		return attributeCatalog.getDynamicType(domain, attributeName);
 	}
 
 	/**
@@ -2792,7 +3667,7 @@ public class PersonalNetwork{
 		}
 		if(!domainHasAttributeDirectionType(domain))
 			return null;
-		return getAttributeProperty(domain, attributeName, ATTRIBUTES_COL_DIRECTION_TYPE);
+		return attributeCatalog.getDirectionType(domain, attributeName);
 	}
 
 	/**
@@ -2804,21 +3679,11 @@ public class PersonalNetwork{
 	 * @return
 	 */
 	public LinkedHashSet<String> getAttributeNames(String domain) {
-		String tableName = getAttributeNamesTableNameForDomain(domain);
-		Cursor c = db.query(tableName, 
-				new String[]{ATTRIBUTES_COL_NAME}, 
-				null, null, null, null, ATTRIBUTES_COL_NAME + " ASC");
 		LinkedHashSet<String> names = new LinkedHashSet<String>();
-		int col = c.getColumnIndex(ATTRIBUTES_COL_NAME);
-		if(c.moveToFirst() && col >= 0){
-			while(!c.isAfterLast()){
-				String name = c.getString(col);
-				if(!name.startsWith(PersonalNetwork.ATTRIBUTE_PREFIX_EGOSMART))
-					names.add(name);
-				c.moveToNext();
-			}
+		for(String name : attributeCatalog.getAttributeNames(domain)){
+			if(!name.startsWith(PersonalNetwork.ATTRIBUTE_PREFIX_EGOSMART))
+				names.add(name);
 		}
-		c.close();
 		return names;
 	}
 
@@ -2831,21 +3696,7 @@ public class PersonalNetwork{
 	 * @return
 	 */
 	private LinkedHashSet<String> getAllAttributeNames(String domain) {
-		String tableName = getAttributeNamesTableNameForDomain(domain);
-		Cursor c = db.query(tableName, 
-				new String[]{ATTRIBUTES_COL_NAME}, 
-				null, null, null, null, ATTRIBUTES_COL_NAME + " ASC");
-		LinkedHashSet<String> names = new LinkedHashSet<String>();
-		int col = c.getColumnIndex(ATTRIBUTES_COL_NAME);
-		if(c.moveToFirst() && col >= 0){
-			while(!c.isAfterLast()){
-				String name = c.getString(col);
-				names.add(name);
-				c.moveToNext();
-			}
-		}
-		c.close();
-		return names;
+		return attributeCatalog.getAttributeNames(domain);
 	}
 
 	/**
@@ -2864,8 +3715,9 @@ public class PersonalNetwork{
 	public String getAttributeValueAt(long timePoint, String attributeName, Element element) {
 		String domain = element.getDomain();
 		String valueHistoryTableName = getAttributeValuesTableNameForDomain(domain);
-		String elementSelection =  element.getAttributeElementSelectionString();
-		String[] elementSelectionArgs = element.getAttributeElementSelectionArgs(attributeName);
+		Element storedElement = getStoredElement(element, attributeName);
+		String elementSelection =  storedElement.getAttributeElementSelectionString();
+		String[] elementSelectionArgs = storedElement.getAttributeElementSelectionArgs(attributeName, getAlterDictionary());
 		return getAttributeValueAt(timePoint, valueHistoryTableName, elementSelection, elementSelectionArgs);
 	}
 
@@ -2883,8 +3735,9 @@ public class PersonalNetwork{
 	 */
 	public String getAttributeDatumIDAt(long timePoint, String attributeName, Element element) {
 		String valueHistoryTableName = getAttributeValuesTableNameForDomain(element.getDomain());
-		String elementSelection =  element.getAttributeElementSelectionString();
-		String[] elementSelectionArgs = element.getAttributeElementSelectionArgs(attributeName);
+		Element storedElement = getStoredElement(element, attributeName);
+		String elementSelection =  storedElement.getAttributeElementSelectionString();
+		String[] elementSelectionArgs = storedElement.getAttributeElementSelectionArgs(attributeName, getAlterDictionary());
 		return getAttributeDatumIDAt(timePoint, valueHistoryTableName, elementSelection, elementSelectionArgs);
 	}
 
@@ -2901,8 +3754,9 @@ public class PersonalNetwork{
 	 */
 	public TimeVaryingAttributeValues getAttributeValues(String attributeName, Element element) {
 		String valueHistoryTableName = getAttributeValuesTableNameForDomain(element.getDomain());
-		String elementSelection =  element.getAttributeElementSelectionString();
-		String[] elementSelectionArgs = element.getAttributeElementSelectionArgs(attributeName);
+		Element storedElement = getStoredElement(element, attributeName);
+		String elementSelection =  storedElement.getAttributeElementSelectionString();
+		String[] elementSelectionArgs = storedElement.getAttributeElementSelectionArgs(attributeName, getAlterDictionary());
 		return getAttributeValues(valueHistoryTableName, elementSelection, elementSelectionArgs);
 	}
 
@@ -2921,8 +3775,9 @@ public class PersonalNetwork{
 			Element element,
 			int limit) {
 		String valueHistoryTableName = getAttributeValuesTableNameForDomain(element.getDomain());
-		String elementSelection =  element.getAttributeElementSelectionString();
-		String[] elementSelectionArgs = element.getAttributeElementSelectionArgs(attributeName);
+		Element storedElement = getStoredElement(element, attributeName);
+		String elementSelection =  storedElement.getAttributeElementSelectionString();
+		String[] elementSelectionArgs = storedElement.getAttributeElementSelectionArgs(attributeName, getAlterDictionary());
 		return getRecentAttributeValues(valueHistoryTableName, elementSelection, elementSelectionArgs, limit);
 	}
 
@@ -2940,8 +3795,334 @@ public class PersonalNetwork{
 	public LinkedHashMap<String, String> getValuesOfAllAttributesForElementAt(long timePoint, Element element) {
 		String tableName = getAttributeValuesTableNameForDomain(element.getDomain());
 		String elementSelection = element.getElementSelectionString();
-		String[] elementSelectionArgs = element.getElementSelectionArgs();
-		return getValuesOfAllAttributesAt(timePoint, tableName, elementSelection, elementSelectionArgs);
+		String[] elementSelectionArgs = element.getElementSelectionArgs(getAlterDictionary());
+		LinkedHashMap<String, String> values = getValuesOfAllAttributesAt(timePoint, tableName, 
+				elementSelection, elementSelectionArgs);
+		if(element.isDyadicElement()){
+			Element reverse = element.getReverseElement();
+			putValuesStoredForReverseDyad(element.getDomain(), values, getValuesOfAllAttributesAt(timePoint, 
+					tableName, reverse.getElementSelectionString(), reverse.getElementSelectionArgs(getAlterDictionary())));
+		}
+		return values;
+	}
+
+	/**
+	 * Returns for each of the given elements the map from names of attributes in the element's domain to 
+	 * their values for this element at the given point in time 
+	 * (as returned by getValuesOfAllAttributesForElementAt).
+	 * 
+	 * The values of all elements of one domain are read with a single query (selecting the values at 
+	 * the given point in time), independent of the number of elements.
+	 * 
+	 * The elements appear in the returned map in the order of the given collection; elements without 
+	 * any value set at the given point in time are mapped to empty maps.
+	 *   
+	 * @param timePoint
+	 * @param elements
+	 * @return map from elements to maps from attribute names to values
+	 */
+	public <E extends Element> LinkedHashMap<E, LinkedHashMap<String, String>> getValuesOfAllAttributesForElementsAt(
+			long timePoint, Collection<E> elements) {
+		LinkedHashMap<E, LinkedHashMap<String, String>> map = new LinkedHashMap<E, LinkedHashMap<String, String>>();
+		HashMap<String, E> domain2element = new HashMap<String, E>();
+		for(E element : elements){
+			map.put(element, new LinkedHashMap<String, String>());
+			if(!domain2element.containsKey(element.getDomain()))
+				domain2element.put(element.getDomain(), element);
+		}
+		AlterDictionary alters = getAlterDictionary();
+		for(E domainElement : domain2element.values()){
+			String tableName = getAttributeValuesTableNameForDomain(domainElement.getDomain());
+			String[] elementCols = domainElement.getElementColumnNames();
+			String[] projection = new String[elementCols.length + 2];
+			projection[0] = ATTRIBUTES_COL_NAME;
+			projection[1] = getDecodedValueColumn(tableName);
+			for(int i = 0; i < elementCols.length; ++i){
+				projection[2+i] = elementCols[i];
+			}
+			String selection = getOverlapSelection(tableName, 1);
+			String[] selectionArgs = getSelectionArgsWithInterval(new String[0], 
+					TimeInterval.getTimePoint(timePoint));
+			//same order as in getValuesOfAllAttributesAt
+			String orderBy = COL_TIME_START + " DESC";
+			Cursor c = db.query(tableName, projection, selection, selectionArgs, null, null, orderBy);
+			if(c.moveToFirst()){
+				int col_of_name = c.getColumnIndexOrThrow(ATTRIBUTES_COL_NAME);
+				int col_of_value = c.getColumnIndexOrThrow(ATTRIBUTES_COL_VALUE);
+				while(!c.isAfterLast()){
+					Element rowElement = domainElement.getInstanceFromCursor(c, alters);
+					String name = c.getString(col_of_name);
+					//values of elements that have not been asked for are skipped
+					LinkedHashMap<String, String> values = map.get(rowElement);
+					if(values != null)
+						values.put(name, c.getString(col_of_value));
+					//values of symmetric attributes are stored once for both dyads
+					if(isStoredOncePerDyad(domainElement.getDomain(), name)){
+						values = map.get(rowElement.getReverseElement());
+						if(values != null)
+							values.put(name, c.getString(col_of_value));
+					}
+					c.moveToNext();
+				}
+			}
+			c.close();
+		}
+		return map;
+	}
+
+	/**
+	 * Returns the state of the network at the given point in time: the alters, ties, alter-alter dyads, 
+	 * and the values of all attributes (of all domains) at that time.
+	 * 
+	 * The snapshot is built with a few queries per table (the values of each domain are read with a 
+	 * single query, see getValuesOfAllAttributesForElementsAt) and answers all further lookups without 
+	 * database access. It is immutable, does not reflect later changes of the network, and can be 
+	 * shared between threads.
+	 * 
+	 * @param timePoint
+	 * @return
+	 */
+	public NetworkSnapshot snapshotAt(long timePoint) {
+		TimeInterval interval = TimeInterval.getTimePoint(timePoint);
+		LinkedHashSet<String> alters = getAltersAt(interval);
+		LinkedHashSet<UnorderedDyad> ties = getUndirectedTiesAt(interval);
+		LinkedHashSet<UnorderedDyad> dyads = getUndirectedAlterAlterDyadsAt(interval);
+		ArrayList<Element> elements = new ArrayList<Element>();
+		elements.add(Ego.getInstance());
+		for(String alterName : alters){
+			elements.add(Alter.getInstance(alterName));
+			elements.add(EgoAlterDyad.getOutwardInstance(alterName));
+			elements.add(EgoAlterDyad.getInwardInstance(alterName));
+		}
+		for(UnorderedDyad dyad : dyads){
+			elements.add(AlterAlterDyad.getInstance(dyad.source(), dyad.target()));
+			elements.add(AlterAlterDyad.getInstance(dyad.target(), dyad.source()));
+		}
+		return new NetworkSnapshot(timePoint, alters.toArray(new String[alters.size()]), ties, dyads, 
+				getValuesOfAllAttributesForElementsAt(timePoint, elements));
+	}
+
+	/**
+	 * Returns the differences between the states of the network at the two given points in time: the alters, 
+	 * ties, and alter-alter dyads that are in the network at toTime but not at fromTime (added) or vice versa 
+	 * (removed) and the attribute values (of all domains) that appeared, disappeared, or changed.
+	 * 
+	 * For each history and values table the rows alive at one point in time but not at the other are selected 
+	 * by two queries (one per direction) comparing the rows overlapping the two points in time in SQL, so that 
+	 * unchanged elements are never read.
+	 * 
+	 * @param fromTime
+	 * @param toTime
+	 * @return
+	 */
+	public NetworkDiff diff(long fromTime, long toTime) {
+		flushPendingLifetimes();
+		NetworkDiff diff = new NetworkDiff(fromTime, toTime);
+		//selection args for the rows alive at the first but not at the second point in time and vice versa
+		String[] removedArgs = getSelectionArgsWithInterval(getSelectionArgsWithInterval(new String[0], 
+				TimeInterval.getTimePoint(fromTime)), TimeInterval.getTimePoint(toTime));
+		String[] addedArgs = getSelectionArgsWithInterval(getSelectionArgsWithInterval(new String[0], 
+				TimeInterval.getTimePoint(toTime)), TimeInterval.getTimePoint(fromTime));
+		String sql = getRowsOnlyAtFirstTimeSQL(ALTERS_HISTORY_TABLE_NAME, ALTERS_COL_ID);
+		Cursor c = db.rawQuery(sql, removedArgs);
+		readAlterNames(c, diff.getRemovedAlters());
+		c = db.rawQuery(sql, addedArgs);
+		readAlterNames(c, diff.getAddedAlters());
+		sql = getRowsOnlyAtFirstTimeSQL(TIES_HISTORY_TABLE_NAME, getUndirectedPairColumns());
+		c = db.rawQuery(sql, removedArgs);
+		readUndirectedPairs(c, diff.getRemovedTies());
+		c = db.rawQuery(sql, addedArgs);
+		readUndirectedPairs(c, diff.getAddedTies());
+		sql = getRowsOnlyAtFirstTimeSQL(ALTER_ALTER_DYADS_HISTORY_TABLE_NAME, getUndirectedPairColumns());
+		c = db.rawQuery(sql, removedArgs);
+		readUndirectedPairs(c, diff.getRemovedAlterAlterDyads());
+		c = db.rawQuery(sql, addedArgs);
+		readUndirectedPairs(c, diff.getAddedAlterAlterDyads());
+		String[] domains = {DOMAIN_EGO, DOMAIN_ALTER, DOMAIN_EGO_ALTER, DOMAIN_ALTER_ALTER};
+		for(String domain : domains){
+			String tableName = getAttributeValuesTableNameForDomain(domain);
+			Element domainElement = getDomainElement(domain);
+			StringBuilder columns = new StringBuilder(ATTRIBUTES_COL_NAME + ", " + getDecodedValueColumn(tableName));
+			for(String column : domainElement.getElementColumnNames())
+				columns.append(", ").append(column);
+			sql = getRowsOnlyAtFirstTimeSQL(tableName, columns.toString());
+			c = db.rawQuery(sql, removedArgs);
+			readValueChanges(c, domainElement, diff, true);
+			c = db.rawQuery(sql, addedArgs);
+			readValueChanges(c, domainElement, diff, false);
+		}
+		return diff;
+	}
+
+	/**
+	 * Streaming variant of diff: iterates over the lifetime intervals and attribute values that have been 
+	 * written since the given datum id (exclusive), ordered by datum id. 
+	 * 
+	 * Every write to the history and values tables inserts rows with new datum ids (rows are never updated 
+	 * in place), so consumers can remember the largest datum id they have seen (see NetworkChange.getDatumID 
+	 * and getCurrentDatumID) and update the affected elements incrementally. Values of symmetric dyad attributes 
+	 * are returned for both dyads. Intervals that have been removed without leaving any remaining part 
+	 * (e.g., by removeAlterAt) leave no rows and are not returned.
+	 * 
+	 * The returned iterator must be closed if it is not iterated to the end (see CursorIterator).
+	 * 
+	 * @param lastSeenDatumID datum id after which changes are returned; -1 returns the whole history
+	 * @return
+	 */
+	public CursorIterator<NetworkChange> changesSince(long lastSeenDatumID) {
+		flushPendingLifetimes();
+		Cursor c = db.rawQuery(getChangesSinceSQL(), new String[]{Long.toString(lastSeenDatumID)});
+		final AlterDictionary alters = getAlterDictionary();
+		return new CursorIterator<NetworkChange>(c){
+
+			//change of the reverse dyad that is returned next (if values are stored once for both dyads)
+			private NetworkChange reverseChange;
+
+			@Override
+			public boolean hasNext() {
+				return reverseChange != null || super.hasNext();
+			}
+
+			@Override
+			protected NetworkChange read(Cursor cursor) {
+				if(reverseChange != null){
+					NetworkChange change = reverseChange;
+					reverseChange = null;
+					return change;
+				}
+				String kind = cursor.getString(0);
+				String domain = cursor.getString(1);
+				long datumID = cursor.getLong(2);
+				TimeInterval interval = new TimeInterval(cursor.getLong(3), cursor.getLong(4));
+				String attributeName = cursor.getString(5);
+				String value = cursor.getString(cursor.getColumnIndexOrThrow(ATTRIBUTES_COL_VALUE));
+				Element element = getDomainElement(domain).getInstanceFromCursor(cursor, alters);
+				if(attributeName != null && isStoredOncePerDyad(domain, attributeName))
+					reverseChange = new NetworkChange(kind, datumID, element.getReverseElement(), interval, 
+							attributeName, value);
+				cursor.moveToNext();
+				return new NetworkChange(kind, datumID, element, interval, attributeName, value);
+			}
+		};
+	}
+
+	/*
+	 * Returns the query selecting the given columns of the rows of the given table that are alive at the 
+	 * time point given by the parameters ?1 and ?2 minus those alive at the time point given by ?3 and ?4.
+	 */
+	private String getRowsOnlyAtFirstTimeSQL(String tableName, String columns){
+		return "SELECT " + columns + " FROM " + tableName + " WHERE " + getOverlapSelection(tableName, 1) + 
+				" EXCEPT SELECT " + columns + " FROM " + tableName + " WHERE " + getOverlapSelection(tableName, 3);
+	}
+
+	/*
+	 * Adds the names of the alters in the first column of the cursor to the given set and closes the cursor.
+	 */
+	private void readAlterNames(Cursor c, LinkedHashSet<String> alterNames){
+		if(c.moveToFirst()){
+			while(!c.isAfterLast()){
+				alterNames.add(getAlterName(c, 0));
+				c.moveToNext();
+			}
+		}
+		c.close();
+	}
+
+	/*
+	 * Adds the pairs of alters in the first two columns of the cursor to the given set and closes the cursor.
+	 */
+	private void readUndirectedPairs(Cursor c, LinkedHashSet<UnorderedDyad> pairs){
+		if(c.moveToFirst()){
+			while(!c.isAfterLast()){
+				pairs.add(new UnorderedDyad(getAlterName(c, 0), getAlterName(c, 1)));
+				c.moveToNext();
+			}
+		}
+		c.close();
+	}
+
+	/*
+	 * Puts the values in the rows of the cursor as old (if atFromTime) or new values into the diff 
+	 * and closes the cursor.
+	 */
+	private void readValueChanges(Cursor c, Element domainElement, NetworkDiff diff, boolean atFromTime){
+		AlterDictionary alters = getAlterDictionary();
+		if(c.moveToFirst()){
+			int col_of_name = c.getColumnIndexOrThrow(ATTRIBUTES_COL_NAME);
+			int col_of_value = c.getColumnIndexOrThrow(ATTRIBUTES_COL_VALUE);
+			while(!c.isAfterLast()){
+				Element element = domainElement.getInstanceFromCursor(c, alters);
+				String name = c.getString(col_of_name);
+				diff.putValue(element, name, c.getString(col_of_value), atFromTime);
+				//values of symmetric attributes are stored once for both dyads
+				if(isStoredOncePerDyad(domainElement.getDomain(), name))
+					diff.putValue(element.getReverseElement(), name, c.getString(col_of_value), atFromTime);
+				c.moveToNext();
+			}
+		}
+		c.close();
+	}
+
+	/*
+	 * Returns an element of the given domain whose only use is to read elements of this domain from cursors. 
+	 * Lifetimes of ties and alter-alter dyads are read with the element of the alter-alter domain.
+	 */
+	private static Element getDomainElement(String domain){
+		if(DOMAIN_ALTER.equals(domain))
+			return Alter.getInstance("a");
+		if(DOMAIN_EGO_ALTER.equals(domain))
+			return EgoAlterDyad.getOutwardInstance("a");
+		if(DOMAIN_ALTER_ALTER.equals(domain))
+			return AlterAlterDyad.getInstance("s", "t");
+		return Ego.getInstance();
+	}
+
+	/*
+	 * Returns the query selecting the rows with a datum id larger than ?1 from all history and values tables, 
+	 * ordered by datum id, with the columns: kind of change, domain of the element, datum id, time start, 
+	 * time end, attribute name, and the element and value columns (NULL if the table has no such column).
+	 */
+	private String getChangesSinceSQL(){
+		String decodedValue;
+		StringBuilder sql = new StringBuilder();
+		sql.append(getChangeRowsSQL(NetworkChange.KIND_ALTER_LIFETIME, DOMAIN_ALTER, ALTERS_HISTORY_TABLE_NAME, 
+				"NULL", ALTERS_COL_ID, "NULL", "NULL", "NULL", "NULL"));
+		sql.append(" UNION ALL ").append(getChangeRowsSQL(NetworkChange.KIND_TIE_LIFETIME, DOMAIN_ALTER_ALTER, 
+				TIES_HISTORY_TABLE_NAME, "NULL", "NULL", DYADS_COL_SOURCE, DYADS_COL_TARGET, "NULL", "NULL"));
+		sql.append(" UNION ALL ").append(getChangeRowsSQL(NetworkChange.KIND_ALTER_ALTER_DYAD_LIFETIME, 
+				DOMAIN_ALTER_ALTER, ALTER_ALTER_DYADS_HISTORY_TABLE_NAME, 
+				"NULL", "NULL", DYADS_COL_SOURCE, DYADS_COL_TARGET, "NULL", "NULL"));
+		decodedValue = getDecodedValueSQL(EGO_ATTRIBS_VALUES_TABLE_NAME, EGO_ATTRIBS_VALUES_TABLE_NAME);
+		sql.append(" UNION ALL ").append(getChangeRowsSQL(NetworkChange.KIND_ATTRIBUTE_VALUE, DOMAIN_EGO, 
+				EGO_ATTRIBS_VALUES_TABLE_NAME, ATTRIBUTES_COL_NAME, "NULL", "NULL", "NULL", "NULL", decodedValue));
+		decodedValue = getDecodedValueSQL(ALTER_ATTRIBS_VALUES_TABLE_NAME, ALTER_ATTRIBS_VALUES_TABLE_NAME);
+		sql.append(" UNION ALL ").append(getChangeRowsSQL(NetworkChange.KIND_ATTRIBUTE_VALUE, DOMAIN_ALTER, 
+				ALTER_ATTRIBS_VALUES_TABLE_NAME, ATTRIBUTES_COL_NAME, ALTERS_COL_ID, "NULL", "NULL", "NULL", 
+				decodedValue));
+		decodedValue = getDecodedValueSQL(EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME, EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME);
+		sql.append(" UNION ALL ").append(getChangeRowsSQL(NetworkChange.KIND_ATTRIBUTE_VALUE, DOMAIN_EGO_ALTER, 
+				EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME, ATTRIBUTES_COL_NAME, ALTERS_COL_ID, "NULL", "NULL", 
+				ATTRIBUTES_COL_DIRECTION_TYPE, decodedValue));
+		decodedValue = getDecodedValueSQL(ALTER_ALTER_ATTRIBS_VALUES_TABLE_NAME, ALTER_ALTER_ATTRIBS_VALUES_TABLE_NAME);
+		sql.append(" UNION ALL ").append(getChangeRowsSQL(NetworkChange.KIND_ATTRIBUTE_VALUE, DOMAIN_ALTER_ALTER, 
+				ALTER_ALTER_ATTRIBS_VALUES_TABLE_NAME, ATTRIBUTES_COL_NAME, "NULL", DYADS_COL_SOURCE, DYADS_COL_TARGET, 
+				"NULL", decodedValue));
+		sql.append(" ORDER BY ").append(COL_DATUM_ID);
+		return sql.toString();
+	}
+
+	/*
+	 * Returns the part of getChangesSinceSQL selecting the rows of one table; the given expressions are 
+	 * selected as the attribute name, alter id, source, target, direction type, and value columns.
+	 */
+	private static String getChangeRowsSQL(String kind, String domain, String tableName, String name, 
+			String alterID, String source, String target, String direction, String value){
+		return "SELECT '" + kind + "', '" + domain + "', " + COL_DATUM_ID + ", " + 
+				COL_TIME_START + ", " + COL_TIME_END + ", " + 
+				name + " AS " + ATTRIBUTES_COL_NAME + ", " + alterID + " AS " + ALTERS_COL_ID + ", " + 
+				source + " AS " + DYADS_COL_SOURCE + ", " + target + " AS " + DYADS_COL_TARGET + ", " + 
+				direction + " AS " + ATTRIBUTES_COL_DIRECTION_TYPE + ", " + value + " AS " + ATTRIBUTES_COL_VALUE + 
+				" FROM " + tableName + " WHERE " + COL_DATUM_ID + " > ?1";
 	}
 
 	/**
@@ -2956,8 +4137,119 @@ public class PersonalNetwork{
 	public LinkedHashMap<String, TimeVaryingAttributeValues> getValuesOfAllAttributesForElement(Element element) {
 		String valueHistoryTableName = getAttributeValuesTableNameForDomain(element.getDomain());
 		String elementSelection =  element.getElementSelectionString();
-		String[] elementSelectionArgs = element.getElementSelectionArgs();
-		return getValuesOfAllAttributes(valueHistoryTableName, elementSelection, elementSelectionArgs);
+		String[] elementSelectionArgs = element.getElementSelectionArgs(getAlterDictionary());
+		LinkedHashMap<String, TimeVaryingAttributeValues> values = getValuesOfAllAttributes(valueHistoryTableName, 
+				elementSelection, elementSelectionArgs);
+		if(element.isDyadicElement()){
+			Element reverse = element.getReverseElement();
+			putValuesStoredForReverseDyad(element.getDomain(), values, getValuesOfAllAttributes(valueHistoryTableName, 
+					reverse.getElementSelectionString(), reverse.getElementSelectionArgs(getAlterDictionary())));
+		}
+		return values;
+	}
+
+	/*
+	 * Adds the values of symmetric attributes in reverseValues (the values of all attributes of the reverse 
+	 * of a dyad) to the values of the dyad, since these values are stored only for one of the two dyads.
+	 */
+	private <V> void putValuesStoredForReverseDyad(String domain, LinkedHashMap<String, V> values, 
+			LinkedHashMap<String, V> reverseValues){
+		for(Map.Entry<String, V> value : reverseValues.entrySet()){
+			if(isStoredOncePerDyad(domain, value.getKey()) && !values.containsKey(value.getKey()))
+				values.put(value.getKey(), value.getValue());
+		}
+	}
+
+	/**
+	 * Returns the number of elements in the given domain that have the given value of the given attribute
+	 * at some point in time in the given interval.
+	 * 
+	 * (For a time point, elements are counted as in getValuesOfAttributeForAllElementsAt but without 
+	 * reading their values.)
+	 * 
+	 * @param interval
+	 * @param domain
+	 * @param attributeName
+	 * @param value
+	 * @return
+	 */
+	public int getNumberOfElementsWithAttributeValueAt(TimeInterval interval, String domain, 
+			String attributeName, String value){
+		if(!hasAttribute(domain, attributeName))
+			return 0;
+		//values of choice attributes are compared by their codes
+		boolean isChoice = getAttributeValueType(domain, attributeName) == PersonalNetwork.ATTRIB_TYPE_FINITE_CHOICE;
+		long code = attributeCatalog.getChoiceCode(domain, attributeName, value);
+		if(isChoice && code < 0)
+			return 0;
+		String valueColumn = isChoice ? ATTRIBUTES_COL_CHOICE_CODE : ATTRIBUTES_COL_VALUE;
+		String[] elementColumns = getElementColumnsForDomain(domain);
+		StringBuilder columns = new StringBuilder(valueColumn);
+		for(int i = 0; i < elementColumns.length; ++i){
+			columns.append(", ").append(elementColumns[i]);
+		}
+		SQLiteStatement statement = statements.get(getCountDistinctElementsAtSQL(
+				getAttributeValuesTableNameForDomain(domain), columns.toString(), 
+				ATTRIBUTES_COL_NAME + " = ?3 AND " + valueColumn + " = ?4"));
+		statement.bindLong(1, interval.getStartTime());
+		statement.bindLong(2, interval.getEndTime());
+		statement.bindString(3, attributeName);
+		if(isChoice)
+			statement.bindLong(4, code);
+		else
+			statement.bindString(4, value);
+		int count = (int) statement.simpleQueryForLong();
+		//values of symmetric attributes are stored once for both dyads
+		return isStoredOncePerDyad(domain, attributeName) ? 2*count : count;
+	}
+
+	/**
+	 * Returns for each choice of the given choice attribute the number of elements in the given domain 
+	 * that have this value at some point in time in the given interval (counted as by 
+	 * getNumberOfElementsWithAttributeValueAt).
+	 * 
+	 * The elements are counted for all choices with a single query grouping the values by their codes.
+	 * 
+	 * The choices appear in the returned map in the order of getAttributeChoices (choices that no 
+	 * element has are mapped to zero). Returns null if there is no such attribute or if its type 
+	 * is not FINITE_CHOICE.
+	 * 
+	 * @param interval
+	 * @param domain
+	 * @param attributeName
+	 * @return map from choices to numbers of elements
+	 */
+	public LinkedHashMap<String, Integer> getNumberOfElementsPerChoiceAt(TimeInterval interval, 
+			String domain, String attributeName){
+		if(getAttributeValueType(domain, attributeName) != PersonalNetwork.ATTRIB_TYPE_FINITE_CHOICE)
+			return null;
+		LinkedHashMap<String, Integer> counts = new LinkedHashMap<String, Integer>();
+		for(String choice : attributeCatalog.getChoices(domain, attributeName)){
+			counts.put(choice, 0);
+		}
+		String tableName = getAttributeValuesTableNameForDomain(domain);
+		StringBuilder columns = new StringBuilder(ATTRIBUTES_COL_CHOICE_CODE);
+		for(String column : getElementColumnsForDomain(domain)){
+			columns.append(", ").append(column);
+		}
+		String sql = "SELECT " + ATTRIBUTES_COL_CHOICE_CODE + ", COUNT(*) FROM (" + 
+				"SELECT DISTINCT " + columns + " FROM " + tableName + 
+				" WHERE " + ATTRIBUTES_COL_NAME + " = ?1 AND " + ATTRIBUTES_COL_CHOICE_CODE + " IS NOT NULL" + 
+				" AND " + getOverlapSelection(tableName, 2) + ")" + 
+				" GROUP BY " + ATTRIBUTES_COL_CHOICE_CODE;
+		//values of symmetric attributes are stored once for both dyads
+		int dyadsPerRow = isStoredOncePerDyad(domain, attributeName) ? 2 : 1;
+		Cursor c = db.rawQuery(sql, getSelectionArgsWithInterval(new String[]{attributeName}, interval));
+		if(c.moveToFirst()){
+			while(!c.isAfterLast()){
+				String choice = attributeCatalog.getChoice(domain, c.getLong(0));
+				if(choice != null)
+					counts.put(choice, dyadsPerRow*c.getInt(1));
+				c.moveToNext();
+			}
+		}
+		c.close();
+		return counts;
 	}
 
 	/**
@@ -2972,39 +4264,37 @@ public class PersonalNetwork{
 	 * @param attributeName
 	 * @return map from elements to attribute values
 	 */
+	@SuppressWarnings("unchecked")
 	public <E extends Element> LinkedHashMap<E, String> getValuesOfAttributeForAllElementsAt(
 			long timePoint, E element, String attributeName) {
 		String domain = element.getDomain();
 		LinkedHashMap<E, String> map = new LinkedHashMap<E, String>();
 		if(!hasAttribute(domain, attributeName))
 			return map;
-		String whereClause = ATTRIBUTES_COL_NAME + " = ? AND " + 
-			COL_TIME_START + " <= ? AND " + COL_TIME_END + " >= ? ";
-		String[] whereArgs = {attributeName,Long.toString(timePoint),Long.toString(timePoint)};
 		String tableName = getAttributeValuesTableNameForDomain(domain);
+		String whereClause = ATTRIBUTES_COL_NAME + " = ? AND " + getOverlapSelection(tableName, 2);
+		String[] whereArgs = getSelectionArgsWithInterval(new String[]{attributeName}, 
+				TimeInterval.getTimePoint(timePoint));
 		String[] elementCols = element.getElementColumnNames();
-		String[] projection = new String[elementCols.length + 3];
-		projection[0] = ATTRIBUTES_COL_VALUE;
-		projection[1] = COL_TIME_START;
-		projection[2] = COL_TIME_END;
+		String[] projection = new String[elementCols.length + 1];
+		projection[0] = getDecodedValueColumn(tableName);
 		for(int i = 0; i < elementCols.length; ++i){
-			projection[3+i] = elementCols[i];
+			projection[1+i] = elementCols[i];
 		}
 		Cursor c = db.query(tableName, 
 				projection, 
 				whereClause, 
 				whereArgs, null, null, null);
 		int col_of_value = c.getColumnIndexOrThrow(ATTRIBUTES_COL_VALUE);
-		int col_of_start = c.getColumnIndexOrThrow(COL_TIME_START);
-		int col_of_end = c.getColumnIndexOrThrow(COL_TIME_END);
+		AlterDictionary alters = getAlterDictionary();
+		//values of symmetric attributes are stored once for both dyads
+		boolean bothDirections = isStoredOncePerDyad(domain, attributeName);
 		if(c.moveToFirst()){
 			while(!c.isAfterLast()){
-				long start = c.getLong(col_of_start);
-				long end = c.getLong(col_of_end);
-				if(contains(start, end, timePoint)){
-					map.put((E) element.getInstanceFromCursor(c),
-							c.getString(col_of_value));
-				}
+				E currentElement = (E) element.getInstanceFromCursor(c, alters);
+				map.put(currentElement, c.getString(col_of_value));
+				if(bothDirections)
+					map.put((E) currentElement.getReverseElement(), c.getString(col_of_value));
 				c.moveToNext();
 			}
 		}
@@ -3023,6 +4313,7 @@ public class PersonalNetwork{
 	 * @param attributeName
 	 * @return map from elements to time varying attribute values
 	 */
+	@SuppressWarnings("unchecked")
 	public <E extends Element> LinkedHashMap<E, TimeVaryingAttributeValues> getValuesOfAttributeForAllElements(
 			E element, String attributeName) {
 		String domain = element.getDomain();
@@ -3034,7 +4325,7 @@ public class PersonalNetwork{
 		String tableName = getAttributeValuesTableNameForDomain(domain);
 		String[] elementCols = element.getElementColumnNames();
 		String[] projection = new String[elementCols.length + 3];
-		projection[0] = ATTRIBUTES_COL_VALUE;
+		projection[0] = getDecodedValueColumn(tableName);
 		projection[1] = COL_TIME_START;
 		projection[2] = COL_TIME_END;
 		for(int i = 0; i < elementCols.length; ++i){
@@ -3047,41 +4338,259 @@ public class PersonalNetwork{
 		int col_of_value = c.getColumnIndexOrThrow(ATTRIBUTES_COL_VALUE);
 		int col_of_start = c.getColumnIndexOrThrow(COL_TIME_START);
 		int col_of_end = c.getColumnIndexOrThrow(COL_TIME_END);
+		AlterDictionary alters = getAlterDictionary();
+		//values of symmetric attributes are stored once for both dyads
+		boolean bothDirections = isStoredOncePerDyad(domain, attributeName);
+		if(c.moveToFirst()){
+			while(!c.isAfterLast()){
+				long start = c.getLong(col_of_start);
+				long end = c.getLong(col_of_end);
+				E currentElement = (E) element.getInstanceFromCursor(c, alters);
+				setValueOfElementAt(map, currentElement, new TimeInterval(start, end), c.getString(col_of_value));
+				if(bothDirections)
+					setValueOfElementAt(map, (E) currentElement.getReverseElement(), 
+							new TimeInterval(start, end), c.getString(col_of_value));
+				c.moveToNext();
+			}
+		}
+		c.close();
+		return map;
+	}
+
+	/*
+	 * Sets the value of the given element in the map from elements to their values (adding the element 
+	 * if necessary).
+	 */
+	private <E extends Element> void setValueOfElementAt(LinkedHashMap<E, TimeVaryingAttributeValues> map, 
+			E element, TimeInterval interval, String textValue){
+		TimeVaryingAttributeValues values = map.get(element);
+		if(values == null){
+			values = new TimeVaryingAttributeValues();
+			map.put(element, values);
+		}
+		values.setValueAt(interval, textValue);
+	}
+
+	/**
+	 * Streaming variant of getValuesOfAttributeForAllElements(element, attributeName): iterates over 
+	 * the elements in the given domain for which the attribute value is set at some point in time, 
+	 * together with their values of the given attribute over the whole lifetime. 
+	 * 
+	 * Only the values of one element are held in memory at a time; the rows are read ordered
+	 * by element.
+	 * The returned iterator must be closed if it is not iterated to the end (see CursorIterator).
+	 *  
+	 * @param element will only be used to infer the domain and the concrete type (otherwise gets ignored)
+	 * @param attributeName
+	 * @return iterator over pairs of elements and their time varying attribute values
+	 */
+	public <E extends Element> CursorIterator<Map.Entry<E, TimeVaryingAttributeValues>> 
+			iterateValuesOfAttributeForAllElements(final E element, String attributeName) {
+		String whereClause = ATTRIBUTES_COL_NAME + " = ?";
+		String[] whereArgs = {attributeName};
+		String tableName = getAttributeValuesTableNameForDomain(element.getDomain());
+		String[] elementCols = element.getElementColumnNames();
+		String[] projection = new String[elementCols.length + 3];
+		projection[0] = getDecodedValueColumn(tableName);
+		projection[1] = COL_TIME_START;
+		projection[2] = COL_TIME_END;
+		StringBuffer orderBy = new StringBuffer();
+		for(int i = 0; i < elementCols.length; ++i){
+			projection[3+i] = elementCols[i];
+			orderBy.append(elementCols[i]).append(", ");
+		}
+		orderBy.append(COL_TIME_START);
+		Cursor c = db.query(tableName, 
+				projection, 
+				whereClause, 
+				whereArgs, null, null, orderBy.toString());
+		final int col_of_value = c.getColumnIndexOrThrow(ATTRIBUTES_COL_VALUE);
+		final int col_of_start = c.getColumnIndexOrThrow(COL_TIME_START);
+		final int col_of_end = c.getColumnIndexOrThrow(COL_TIME_END);
+		final AlterDictionary alters = getAlterDictionary();
+		//values of symmetric attributes are stored once for both dyads
+		final boolean bothDirections = isStoredOncePerDyad(element.getDomain(), attributeName);
+		return new CursorIterator<Map.Entry<E, TimeVaryingAttributeValues>>(c){
+
+			//entry of the reverse dyad that is returned next (if values are stored once for both dyads)
+			private Map.Entry<E, TimeVaryingAttributeValues> reverseEntry;
+
+			@Override
+			public boolean hasNext() {
+				return reverseEntry != null || super.hasNext();
+			}
+
+			@SuppressWarnings("unchecked")
+			@Override
+			protected Map.Entry<E, TimeVaryingAttributeValues> read(Cursor cursor) {
+				if(reverseEntry != null){
+					Map.Entry<E, TimeVaryingAttributeValues> entry = reverseEntry;
+					reverseEntry = null;
+					return entry;
+				}
+				E currentElement = (E) element.getInstanceFromCursor(cursor, alters);
+				TimeVaryingAttributeValues values = new TimeVaryingAttributeValues();
+				TimeVaryingAttributeValues reverseValues = new TimeVaryingAttributeValues();
+				//read all (consecutive) rows of the current element
+				do {
+					TimeInterval interval = new TimeInterval(cursor.getLong(col_of_start), cursor.getLong(col_of_end));
+					values.setValueAt(interval, cursor.getString(col_of_value));
+					if(bothDirections)
+						reverseValues.setValueAt(interval, cursor.getString(col_of_value));
+					cursor.moveToNext();
+				} while(!cursor.isAfterLast() && 
+						currentElement.equals(element.getInstanceFromCursor(cursor, alters)));
+				if(bothDirections)
+					reverseEntry = new AbstractMap.SimpleImmutableEntry<E, TimeVaryingAttributeValues>(
+							(E) currentElement.getReverseElement(), reverseValues);
+				return new AbstractMap.SimpleImmutableEntry<E, TimeVaryingAttributeValues>(currentElement, values);
+			}
+		};
+	}
+
+	/**
+	 * Returns the set of unique values that are set for the given attribute at any point in the given interval.
+	 * 
+	 * Returns null if there is no such attribute.
+	 * 
+	 * @param domain
+	 * @param interval
+	 * @param attributeName
+	 * @return
+	 */
+	public LinkedHashSet<String> getUniqueValuesForAttributeAt(TimeInterval interval, 
+			String domain, String attributeName) {
+		if(getAttributeValueType(domain, attributeName) == PersonalNetwork.ATTRIB_TYPE_FINITE_CHOICE)
+			return getUniqueChoicesForAttributeAt(interval, domain, attributeName);
+		String valueHistoryTableName = getAttributeValuesTableNameForDomain(domain);
+		String elementSelection =  ATTRIBUTES_COL_NAME + " = ?";
+		String[] elementSelectionArgs = {attributeName};
+		return getUniqueValuesForAttributeAt(interval, valueHistoryTableName, elementSelection, elementSelectionArgs);
+	}
+
+	/*
+	 * Returns the set of values of the given choice attribute that are assigned to some element at some
+	 * point in time in the given interval. The values stored as codes are made unique by the database 
+	 * before they are decoded.
+	 */
+	private LinkedHashSet<String> getUniqueChoicesForAttributeAt(TimeInterval interval, 
+			String domain, String attributeName) {
+		String tableName = getAttributeValuesTableNameForDomain(domain);
+		String selection = ATTRIBUTES_COL_NAME + " = ?1 AND " + getOverlapSelection(tableName, 2);
+		String[] selectionArgs = getSelectionArgsWithInterval(new String[]{attributeName}, interval);
+		Cursor c = db.query(true, tableName, new String[]{ATTRIBUTES_COL_CHOICE_CODE, ATTRIBUTES_COL_VALUE}, 
+				selection, selectionArgs, null, null, null, null);
+		LinkedHashSet<String> values = new LinkedHashSet<String>();
 		if(c.moveToFirst()){
 			while(!c.isAfterLast()){
-				long start = c.getLong(col_of_start);
-				long end = c.getLong(col_of_end);
-				E currentElement = (E) element.getInstanceFromCursor(c);
-				TimeVaryingAttributeValues values = map.get(currentElement);
-				if(values == null){
-					values = new TimeVaryingAttributeValues();
-					map.put(currentElement, values);
-				}
-				values.setValueAt(new TimeInterval(start, end), 
-						c.getString(col_of_value));
+				//values that are not among the choices are stored as text
+				String value = c.isNull(0) ? c.getString(1) : attributeCatalog.getChoice(domain, c.getLong(0));
+				if(value != null)
+					values.add(value);
 				c.moveToNext();
 			}
 		}
 		c.close();
-		return map;
+		return values;
 	}
 
 	/**
-	 * Returns the set of unique values that are set for the given attribute at any point in the given interval.
+	 * Returns the number, minimum, maximum, sum, and mean of the values of the given number attribute 
+	 * that are set at any point in the given interval (or at the given point in time).
 	 * 
-	 * Returns null if there is no such attribute.
+	 * Each value set in an interval overlapping the given interval is counted once, so that for a point 
+	 * in time each element (e.g., alter or dyad) contributes at most one value. Values of symmetric dyad 
+	 * attributes are counted once per pair of dyads (for which they are stored once).
+	 * 
+	 * The values are aggregated by the database without reading them into memory.
+	 * 
+	 * Returns null if there is no such attribute or if its type is not NUMBER.
 	 * 
-	 * @param domain
 	 * @param interval
+	 * @param domain
 	 * @param attributeName
 	 * @return
 	 */
-	public LinkedHashSet<String> getUniqueValuesForAttributeAt(TimeInterval interval, 
+	public NumericAttributeSummary getNumericAttributeSummaryAt(TimeInterval interval, 
 			String domain, String attributeName) {
-		String valueHistoryTableName = getAttributeValuesTableNameForDomain(domain);
-		String elementSelection =  ATTRIBUTES_COL_NAME + " = ?";
-		String[] elementSelectionArgs = {attributeName};
-		return getUniqueValuesForAttributeAt(interval, valueHistoryTableName, elementSelection, elementSelectionArgs);
+		if(getAttributeValueType(domain, attributeName) != PersonalNetwork.ATTRIB_TYPE_NUMBER)
+			return null;
+		String tableName = getAttributeValuesTableNameForDomain(domain);
+		String sql = "SELECT COUNT(" + ATTRIBUTES_COL_NUMBER + "), MIN(" + ATTRIBUTES_COL_NUMBER + "), " +
+				"MAX(" + ATTRIBUTES_COL_NUMBER + "), TOTAL(" + ATTRIBUTES_COL_NUMBER + ")" + 
+				" FROM " + tableName + " WHERE " + getNumberValueSelection(tableName);
+		String[] selectionArgs = getSelectionArgsWithInterval(new String[]{attributeName}, interval);
+		Cursor c = db.rawQuery(sql, selectionArgs);
+		NumericAttributeSummary summary = new NumericAttributeSummary(0, 0, 0, 0);
+		if(c.moveToFirst() && c.getInt(0) > 0)
+			summary = new NumericAttributeSummary(c.getInt(0), c.getDouble(1), c.getDouble(2), c.getDouble(3));
+		c.close();
+		return summary;
+	}
+
+	/**
+	 * Returns the histogram of the values of the given number attribute that are set at any point 
+	 * in the given interval (counted as by getNumericAttributeSummaryAt) in the range from min to max.
+	 * 
+	 * The range is split into the given number of bins of equal width; the i-th entry of the returned 
+	 * array is the number of values in the i-th bin, i.e., in the interval 
+	 * [min + i*width, min + (i+1)*width). The last bin also includes max; values outside the range
+	 * are not counted. 
+	 * 
+	 * The bins are counted by the database without reading the values into memory.
+	 * 
+	 * Returns null if there is no such attribute, if its type is not NUMBER, if bins is smaller than one,
+	 * or if min is not smaller than max.
+	 * 
+	 * @param interval
+	 * @param domain
+	 * @param attributeName
+	 * @param min
+	 * @param max
+	 * @param bins
+	 * @return number of values per bin
+	 */
+	public int[] getNumericAttributeHistogramAt(TimeInterval interval, String domain, 
+			String attributeName, double min, double max, int bins) {
+		if(getAttributeValueType(domain, attributeName) != PersonalNetwork.ATTRIB_TYPE_NUMBER)
+			return null;
+		if(bins < 1 || !(min < max))
+			return null;
+		String tableName = getAttributeValuesTableNameForDomain(domain);
+		//parameters 1 to 3 are used by the selection
+		String bin = "MIN(CAST((" + ATTRIBUTES_COL_NUMBER + " - ?4) / ?6 AS INTEGER), ?7 - 1)";
+		String sql = "SELECT " + bin + " AS bin, COUNT(*) FROM " + tableName + 
+				" WHERE " + getNumberValueSelection(tableName) + 
+				" AND " + ATTRIBUTES_COL_NUMBER + " >= ?4 AND " + ATTRIBUTES_COL_NUMBER + " <= ?5" + 
+				" GROUP BY bin";
+		String[] selectionArgs = getSelectionArgsWithInterval(new String[]{attributeName}, interval);
+		String[] args = new String[selectionArgs.length + 4];
+		System.arraycopy(selectionArgs, 0, args, 0, selectionArgs.length);
+		args[selectionArgs.length] = Double.toString(min);
+		args[selectionArgs.length + 1] = Double.toString(max);
+		args[selectionArgs.length + 2] = Double.toString((max - min) / bins);
+		args[selectionArgs.length + 3] = Integer.toString(bins);
+		int[] histogram = new int[bins];
+		Cursor c = db.rawQuery(sql, args);
+		if(c.moveToFirst()){
+			while(!c.isAfterLast()){
+				histogram[c.getInt(0)] = c.getInt(1);
+				c.moveToNext();
+			}
+		}
+		c.close();
+		return histogram;
+	}
+
+	/*
+	 * Returns the selection of the rows of the given number attribute (parameter 1) whose REAL value 
+	 * is set in an interval overlapping the interval given by the parameters 2 and 3. 
+	 * 
+	 * Values of symmetric dyad attributes are stored only once for the two dyads of a pair.
+	 */
+	private String getNumberValueSelection(String tableName){
+		return ATTRIBUTES_COL_NAME + " = ?1 AND " + ATTRIBUTES_COL_NUMBER + " IS NOT NULL AND " + 
+				getOverlapSelection(tableName, 2);
 	}
 
 	/**
@@ -3101,14 +4610,15 @@ public class PersonalNetwork{
 			String tableName = getAttributeNamesTableNameForDomain(domain);
 			db.delete(tableName, selection, selectionArgs);
 			tableName = getAttributeValuesTableNameForDomain(domain);
-			//TODO: delete associated secondary attributes and their values!!!
-			db.delete(tableName, selection, selectionArgs);
+			//TODO: delete associated secondary attributes!!!
+			deleteRowsWithSecondaryAttributeValues(tableName, selection, selectionArgs);
 			tableName = getAttributeChoicesTableNameForDomain(domain);
 			db.delete(tableName, selection, selectionArgs);
 			db.setTransactionSuccessful();
 		} finally {
 			db.endTransaction();
 		}
+		attributeCatalog.removeAttribute(domain, attributeName);
 	}
 ///////////////////////////////////////////////////////////////////////////////////////////////
 // The code below gives separate implementations per domain for the methods getValuesOfAttributeForAllElements/At
@@ -3847,38 +5357,110 @@ public class PersonalNetwork{
 		return ret;
 	}
 
+	/*
+	 * Datum ids are handed out from blocks of consecutive ids. A block is reserved by 
+	 * storing its end under PROPERTIES_KEY_NEXT_DATUM_ID, so that ids that have been handed out
+	 * are never handed out again, even if the app is killed before the block is used up.
+	 */
+	private static final int DATUM_ID_BLOCK_SIZE = 1024;
+	//the next datum id to be handed out; -1 if the allocator has not been initialized yet
+	private long nextDatumID = -1;
+	//the first datum id that is not in the reserved block
+	private long datumIDBlockEnd = -1;
+	//the tables whose rows are identified by datum ids
+	private static final String[] DATUM_ID_TABLE_NAMES = {
+		ALTERS_HISTORY_TABLE_NAME, 
+		TIES_HISTORY_TABLE_NAME, 
+		ALTER_ALTER_DYADS_HISTORY_TABLE_NAME,
+		EGO_ATTRIBS_VALUES_TABLE_NAME,
+		ALTER_ATTRIBS_VALUES_TABLE_NAME,
+		EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME,
+		ALTER_ALTER_ATTRIBS_VALUES_TABLE_NAME
+	};
+
 	/**
 	 * Returns an event id that has never been returned before.
 	 * 
 	 * The first call in the lifetime of the database will return the string "0".
 	 * 
-	 * Each subsequent call increments the value of the last returned string (seen as a long integer)
-	 * by one and returns this.
+	 * Subsequent calls return increasing ids (seen as long integers). Ids are taken from blocks 
+	 * of DATUM_ID_BLOCK_SIZE ids; ids of a block that are not used before the app is closed are skipped.
 	 * 
 	 * @return
 	 */
 	private String getNextDatumIDAndIncrement() {
+		if(nextDatumID < 0)
+			initDatumIDAllocator();
+		if(nextDatumID >= datumIDBlockEnd)
+			reserveDatumIDBlock(DATUM_ID_BLOCK_SIZE);
+		String id = Long.toString(nextDatumID);
+		++nextDatumID;
+		return id;
+	}
+
+	/*
+	 * Hands out count consecutive datum ids (that have never been returned before) at once and 
+	 * returns the first of them.
+	 */
+	private long reserveDatumIDs(int count) {
+		if(nextDatumID < 0)
+			initDatumIDAllocator();
+		if(nextDatumID + count > datumIDBlockEnd)
+			reserveDatumIDBlock(Math.max(count, DATUM_ID_BLOCK_SIZE));
+		long firstID = nextDatumID;
+		nextDatumID += count;
+		return firstID;
+	}
+
+	/*
+	 * Sets the next datum id to the first id that is neither reserved nor used in the database.
+	 * 
+	 * Looking at the used ids in addition to the reserved ones makes sure that no id is reused 
+	 * even if the reservation of a block has been rolled back together with an enclosing 
+	 * transaction after ids from this block have been used and committed in later transactions.
+	 */
+	private void initDatumIDAllocator() {
+		long firstFreeID = 0;
 		String selection = PROPERTIES_COL_KEY + " = ?";
 		String[] selectionArgs = {PROPERTIES_KEY_NEXT_DATUM_ID};
 		Cursor c = db.query(PROPERTIES_TABLE_NAME, new String[]{PROPERTIES_COL_VALUE}, 
 				selection, selectionArgs, null, null, null);
-		if(!c.moveToFirst()){
-			ContentValues values = new ContentValues();
-			values.put(PROPERTIES_COL_KEY, PROPERTIES_KEY_NEXT_DATUM_ID);
-			values.put(PROPERTIES_COL_VALUE, "0");
-			db.insert(PROPERTIES_TABLE_NAME, null, values);
-			return getNextDatumIDAndIncrement(); // now there is a value
+		if(c.moveToFirst()){
+			firstFreeID = Long.parseLong(c.getString(c.getColumnIndexOrThrow(PROPERTIES_COL_VALUE)));
 		}
-		int col_of_value = c.getColumnIndexOrThrow(PROPERTIES_COL_VALUE);
-		String id = c.getString(col_of_value);
 		c.close();
-		//increment by one and update the database
-		String nextID = Long.toString(Long.parseLong(id)+1);
+		for(String tableName : DATUM_ID_TABLE_NAMES){
+			//served by the datum id index of the table
+			c = db.query(tableName, new String[]{"MAX(" + COL_DATUM_ID + ")"}, 
+					null, null, null, null, null);
+			if(c.moveToFirst() && !c.isNull(0)){
+				firstFreeID = Math.max(firstFreeID, c.getLong(0) + 1);
+			}
+			c.close();
+		}
+		nextDatumID = firstFreeID;
+		datumIDBlockEnd = firstFreeID;
+	}
+
+	/*
+	 * Reserves the block of the given number of ids starting at nextDatumID.
+	 */
+	private void reserveDatumIDBlock(long blockSize) {
+		long blockEnd = nextDatumID + blockSize;
 		ContentValues values = new ContentValues();
 		values.put(PROPERTIES_COL_KEY, PROPERTIES_KEY_NEXT_DATUM_ID);
-		values.put(PROPERTIES_COL_VALUE, nextID);
-		db.update(PROPERTIES_TABLE_NAME, values, selection, selectionArgs);
-		return id;
+		values.put(PROPERTIES_COL_VALUE, Long.toString(blockEnd));
+		String selection = PROPERTIES_COL_KEY + " = ?";
+		String[] selectionArgs = {PROPERTIES_KEY_NEXT_DATUM_ID};
+		db.beginTransaction();
+		try {
+			if(db.update(PROPERTIES_TABLE_NAME, values, selection, selectionArgs) == 0)
+				db.insert(PROPERTIES_TABLE_NAME, null, values);
+			db.setTransactionSuccessful();
+		} finally {
+			db.endTransaction();
+		}
+		datumIDBlockEnd = blockEnd;
 	}
 
 	/**
@@ -3889,18 +5471,9 @@ public class PersonalNetwork{
 	 * @return
 	 */
 	public String getCurrentDatumID() {
-		String selection = PROPERTIES_COL_KEY + " = ?";
-		String[] selectionArgs = {PROPERTIES_KEY_NEXT_DATUM_ID};
-		Cursor c = db.query(PROPERTIES_TABLE_NAME, new String[]{PROPERTIES_COL_VALUE}, 
-				selection, selectionArgs, null, null, null);
-		if(!c.moveToFirst()){
-			return "0";
-		}
-		int col_of_value = c.getColumnIndexOrThrow(PROPERTIES_COL_VALUE);
-		String id = c.getString(col_of_value);
-		c.close();
-		//increment by one and update the database
-		return Long.toString(Long.parseLong(id)-1);
+		if(nextDatumID < 0)
+			initDatumIDAllocator();
+		return Long.toString(nextDatumID - 1);
 	}
 
 	/**
@@ -4103,37 +5676,42 @@ public class PersonalNetwork{
 		//all other ego attributes
 		writeDataForElement(formatter, serializer, attrName2KeyId, Ego.getInstance());
 		serializer.endTag("", "node");//close the ego node
-		//write nodes representing alters
-		LinkedHashSet<String> alterNames = getAltersAt(TimeInterval.getMaxInterval());
-		HashMap<String,Integer> alterName2Id = new HashMap<String,Integer>();
-		LinkedHashMap<String, TimeVaryingAttributeValues> attrName2values; //TODO: to be removed
-		for(String alterName : alterNames){
-			alterName2Id.put(alterName,nodeId);
-			serializer.startTag("", "node");
-			serializer.attribute("", "id", ("v" + nodeId)); 
-			//write lifetime attributes of this node
-			Iterator<TimeInterval> lifetimeIt = getLifetimeOfAlter(alterName).getIterator();
-			StringBuffer startTimes = new StringBuffer();
-			StringBuffer endTimes = new StringBuffer();
-			while(lifetimeIt.hasNext()){
-				TimeInterval time = lifetimeIt.next();
-				startTimes.append(formatter.format(new Date(time.getStartTime())) + " ");
-				endTimes.append(formatter.format(new Date(time.getEndTime())) + " ");
+		//write nodes representing alters (read one by one from the database; only the mapping
+		//from alter names to node ids is kept in memory)
+		LinkedHashMap<String,Integer> alterName2Id = new LinkedHashMap<String,Integer>();
+		CursorIterator<String> alterIt = iterateAltersAt(TimeInterval.getMaxInterval());
+		try {
+			while(alterIt.hasNext()){
+				String alterName = alterIt.next();
+				alterName2Id.put(alterName,nodeId);
+				serializer.startTag("", "node");
+				serializer.attribute("", "id", ("v" + nodeId)); 
+				//write lifetime attributes of this node
+				Iterator<TimeInterval> lifetimeIt = getLifetimeOfAlter(alterName).getIterator();
+				StringBuffer startTimes = new StringBuffer();
+				StringBuffer endTimes = new StringBuffer();
+				while(lifetimeIt.hasNext()){
+					TimeInterval time = lifetimeIt.next();
+					startTimes.append(formatter.format(new Date(time.getStartTime())) + " ");
+					endTimes.append(formatter.format(new Date(time.getEndTime())) + " ");
+				}
+				serializer.attribute("", "time.intervals.start", startTimes.toString().trim());
+				serializer.attribute("", "time.intervals.end", endTimes.toString().trim());
+				//write the alter name in a data element (is time independent)
+				serializer.startTag("", "data");
+				serializer.attribute("", "key", alterNameKeyId);
+				serializer.text(alterName);
+				serializer.endTag("", "data");
+				//write all the other data elements
+				writeDataForElement(formatter, serializer, attrName2KeyId, Alter.getInstance(alterName));
+				serializer.endTag("", "node");
+				++nodeId;
 			}
-			serializer.attribute("", "time.intervals.start", startTimes.toString().trim());
-			serializer.attribute("", "time.intervals.end", endTimes.toString().trim());
-			//write the alter name in a data element (is time independent)
-			serializer.startTag("", "data");
-			serializer.attribute("", "key", alterNameKeyId);
-			serializer.text(alterName);
-			serializer.endTag("", "data");
-			//write all the other data elements
-			writeDataForElement(formatter, serializer, attrName2KeyId, Alter.getInstance(alterName));
-			serializer.endTag("", "node");
-			++nodeId;
+		} finally {
+			alterIt.close();
 		}
 		//write ego-alter ties (edge elements)
-		for(String alterName : alterNames){
+		for(String alterName : alterName2Id.keySet()){
 			serializer.startTag("", "edge");
 			serializer.attribute("", "source", egoNodeId);
 			serializer.attribute("", "target", "v" + alterName2Id.get(alterName));
@@ -4152,26 +5730,32 @@ public class PersonalNetwork{
 			serializer.endTag("", "edge");			
 		}
 		//write alter-alter ties (edge elements)
-		for(UnorderedDyad dyad : getUndirectedTiesAt(TimeInterval.getMaxInterval())){
-			serializer.startTag("", "edge");
-			serializer.attribute("", "source", "v" + alterName2Id.get(dyad.source()));
-			serializer.attribute("", "target", "v" + alterName2Id.get(dyad.target()));
-			//write lifetime attributes of this edge
-			Iterator<TimeInterval> lifetimeIt = 
-					getLifetimeOfTie(dyad.source(), dyad.target()).getIterator();
-			StringBuffer startTimes = new StringBuffer();
-			StringBuffer endTimes = new StringBuffer();
-			while(lifetimeIt.hasNext()){
-				TimeInterval time = lifetimeIt.next();
-				startTimes.append(formatter.format(new Date(time.getStartTime())) + " ");
-				endTimes.append(formatter.format(new Date(time.getEndTime())) + " ");
+		CursorIterator<UnorderedDyad> tieIt = iterateUndirectedTiesAt(TimeInterval.getMaxInterval());
+		try {
+			while(tieIt.hasNext()){
+				UnorderedDyad dyad = tieIt.next();
+				serializer.startTag("", "edge");
+				serializer.attribute("", "source", "v" + alterName2Id.get(dyad.source()));
+				serializer.attribute("", "target", "v" + alterName2Id.get(dyad.target()));
+				//write lifetime attributes of this edge
+				Iterator<TimeInterval> lifetimeIt = 
+						getLifetimeOfTie(dyad.source(), dyad.target()).getIterator();
+				StringBuffer startTimes = new StringBuffer();
+				StringBuffer endTimes = new StringBuffer();
+				while(lifetimeIt.hasNext()){
+					TimeInterval time = lifetimeIt.next();
+					startTimes.append(formatter.format(new Date(time.getStartTime())) + " ");
+					endTimes.append(formatter.format(new Date(time.getEndTime())) + " ");
+				}
+				serializer.attribute("", "time.intervals.start", startTimes.toString().trim());
+				serializer.attribute("", "time.intervals.end", endTimes.toString().trim());
+				serializer.endTag("", "edge");
 			}
-			serializer.attribute("", "time.intervals.start", startTimes.toString().trim());
-			serializer.attribute("", "time.intervals.end", endTimes.toString().trim());
-			serializer.endTag("", "edge");
+		} finally {
+			tieIt.close();
 		}
 		//write dyads with their attributes: ego-alter
-		for(String alterName : getAltersAt(TimeInterval.getMaxInterval())){
+		for(String alterName : alterName2Id.keySet()){
 			//OUT instances
 			serializer.startTag("", "dyad");
 			serializer.attribute("", "source", egoNodeId);
@@ -4190,15 +5774,21 @@ public class PersonalNetwork{
 			serializer.endTag("", "dyad");
 		}
 		//write dyads with their attributes: alter-alter
-		for(OrderedDyad dyad : getDirectedAlterAlterDyadsAt(TimeInterval.getMaxInterval())){
-			serializer.startTag("", "dyad");
-			serializer.attribute("", "source", "v" + alterName2Id.get(dyad.source()));
-			serializer.attribute("", "target", "v" + alterName2Id.get(dyad.target()));
-			serializer.attribute("", "directed", "true");
-			//write all data attached to this dyad
-			writeDataForElement(formatter, serializer, attrName2KeyId, 
-					AlterAlterDyad.getInstance(dyad.source(), dyad.target()));
-			serializer.endTag("", "dyad");
+		CursorIterator<OrderedDyad> dyadIt = iterateDirectedAlterAlterDyadsAt(TimeInterval.getMaxInterval());
+		try {
+			while(dyadIt.hasNext()){
+				OrderedDyad dyad = dyadIt.next();
+				serializer.startTag("", "dyad");
+				serializer.attribute("", "source", "v" + alterName2Id.get(dyad.source()));
+				serializer.attribute("", "target", "v" + alterName2Id.get(dyad.target()));
+				serializer.attribute("", "directed", "true");
+				//write all data attached to this dyad
+				writeDataForElement(formatter, serializer, attrName2KeyId, 
+						AlterAlterDyad.getInstance(dyad.source(), dyad.target()));
+				serializer.endTag("", "dyad");
+			}
+		} finally {
+			dyadIt.close();
 		}
 		//close graph and file
 		serializer.endTag("", "graph");
@@ -4534,12 +6124,13 @@ public class PersonalNetwork{
 	public void importHistoryFromGraphML(File file){
 		SAXParserFactory saxfactory = SAXParserFactory.newInstance();
 		SAXParser saxparser;
+		Batch batch = null;
 		try {
 			saxparser = saxfactory.newSAXParser();
 			DefaultHandler handler = new ImportGraphMLHandler();
-			db.beginTransaction();
+			batch = batch();
 			saxparser.parse(file, handler);
-			db.setTransactionSuccessful();
+			batch.commit();
 		} catch (ParserConfigurationException e) {
 			Log.e("Import GraphML", e.getMessage());
 			e.printStackTrace();
@@ -4550,7 +6141,8 @@ public class PersonalNetwork{
 			Log.e("Import GraphML", e.getMessage());
 			e.printStackTrace();
 		} finally {
-			db.endTransaction();
+			if(batch != null)
+				batch.end();
 		}
 
 	}
@@ -5041,12 +6633,584 @@ public class PersonalNetwork{
 			localDB.execSQL(ALTER_ALTER_ATTRIBS_NAMES_TABLE_CREATE_CMD);
 			localDB.execSQL(ALTER_ALTER_ATTRIBS_VALUES_TABLE_CREATE_CMD);
 			localDB.execSQL(ALTER_ALTER_ATTRIBS_CHOICES_TABLE_CREATE_CMD);
+			localDB.execSQL(JOURNAL_TABLE_CREATE_CMD);
+			localDB.execSQL(JOURNAL_CONSUMERS_TABLE_CREATE_CMD);
+			createIndexes(localDB);
+			createChoiceCodeIndexes(localDB);
+			createSearchIndex(localDB);
+			createTemporalIndex(localDB);
+		}
+
+		/*
+		 * Creates the indexes used to decode the codes of choices.
+		 */
+		private void createChoiceCodeIndexes(SQLiteDatabase localDB) {
+			String[] domains = {DOMAIN_EGO, DOMAIN_ALTER, DOMAIN_EGO_ALTER, DOMAIN_ALTER_ALTER};
+			for(String domain : domains){
+				String tableName = getAttributeChoicesTableNameForDomain(domain);
+				localDB.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS " + tableName + "_code_idx ON " + 
+						tableName + " (" + ATTRIBUTES_COL_CHOICE_CODE + ");");
+			}
 		}
 
-		@Override
-		public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-			// TODO Auto-generated method stub
+		private void createIndexes(SQLiteDatabase localDB) {
+			localDB.execSQL(ALTERS_HISTORY_ELEMENT_INDEX_CREATE_CMD);
+			localDB.execSQL(ALTERS_HISTORY_DATUM_ID_INDEX_CREATE_CMD);
+			localDB.execSQL(TIES_HISTORY_ELEMENT_INDEX_CREATE_CMD);
+			localDB.execSQL(TIES_HISTORY_TARGET_INDEX_CREATE_CMD);
+			localDB.execSQL(TIES_HISTORY_DATUM_ID_INDEX_CREATE_CMD);
+			localDB.execSQL(ALTER_ALTER_DYADS_HISTORY_ELEMENT_INDEX_CREATE_CMD);
+			localDB.execSQL(ALTER_ALTER_DYADS_HISTORY_TARGET_INDEX_CREATE_CMD);
+			localDB.execSQL(ALTER_ALTER_DYADS_HISTORY_DATUM_ID_INDEX_CREATE_CMD);
+			localDB.execSQL(EGO_ATTRIBS_VALUES_ELEMENT_INDEX_CREATE_CMD);
+			localDB.execSQL(EGO_ATTRIBS_VALUES_DATUM_ID_INDEX_CREATE_CMD);
+			localDB.execSQL(ALTER_ATTRIBS_VALUES_ELEMENT_INDEX_CREATE_CMD);
+			localDB.execSQL(ALTER_ATTRIBS_VALUES_DATUM_ID_INDEX_CREATE_CMD);
+			localDB.execSQL(EGO_ALTER_ATTRIBS_VALUES_ELEMENT_INDEX_CREATE_CMD);
+			localDB.execSQL(EGO_ALTER_ATTRIBS_VALUES_DATUM_ID_INDEX_CREATE_CMD);
+			localDB.execSQL(ALTER_ALTER_ATTRIBS_VALUES_ELEMENT_INDEX_CREATE_CMD);
+			localDB.execSQL(ALTER_ALTER_ATTRIBS_VALUES_DATUM_ID_INDEX_CREATE_CMD);
+			localDB.execSQL(SECONDARY_ATTRIBS_VALUES_DATUM_ID_INDEX_CREATE_CMD);
+		}
+
+		/*
+		 * Creates the full-text search index and the triggers that keep it up to date.
+		 */
+		private void createSearchIndex(SQLiteDatabase localDB) {
+			localDB.execSQL(SEARCH_INDEX_TABLE_CREATE_CMD);
+			//alter names
+			String alterDocID = SEARCH_INDEX_KINDS + "*OLD." + ALTERS_COL_ID + "+" + SEARCH_INDEX_KIND_ALTER_NAME;
+			localDB.execSQL("CREATE TRIGGER IF NOT EXISTS " + ALTERS_TABLE_NAME + "_search_insert " +
+					"AFTER INSERT ON " + ALTERS_TABLE_NAME + " BEGIN " + 
+					insertAlterNameDocumentSQL("NEW") + " END;");
+			localDB.execSQL("CREATE TRIGGER IF NOT EXISTS " + ALTERS_TABLE_NAME + "_search_delete " +
+					"AFTER DELETE ON " + ALTERS_TABLE_NAME + " BEGIN " + 
+					"DELETE FROM " + SEARCH_INDEX_TABLE_NAME + " WHERE docid = " + alterDocID + "; END;");
+			localDB.execSQL("CREATE TRIGGER IF NOT EXISTS " + ALTERS_TABLE_NAME + "_search_update " +
+					"AFTER UPDATE OF " + ALTERS_COL_NAME + " ON " + ALTERS_TABLE_NAME + " BEGIN " + 
+					"DELETE FROM " + SEARCH_INDEX_TABLE_NAME + " WHERE docid = " + alterDocID + "; " +
+					insertAlterNameDocumentSQL("NEW") + " END;");
+			//values of alter and ego-alter attributes with their secondary texts
+			createSearchIndexTriggersForValues(localDB, ALTER_ATTRIBS_VALUES_TABLE_NAME, 
+					SEARCH_INDEX_KIND_ALTER_VALUE);
+			createSearchIndexTriggersForValues(localDB, EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME, 
+					SEARCH_INDEX_KIND_EGO_ALTER_VALUE);
+			//secondary texts
+			String secondaryDocID = SEARCH_INDEX_KINDS + "*OLD.rowid+" + SEARCH_INDEX_KIND_SECONDARY_TEXT;
+			localDB.execSQL("CREATE TRIGGER IF NOT EXISTS " + SECONDARY_ATTRIBS_VALUES_TABLE_NAME + "_search_insert " +
+					"AFTER INSERT ON " + SECONDARY_ATTRIBS_VALUES_TABLE_NAME + " BEGIN " + 
+					insertSecondaryTextDocumentSQL("NEW") + " END;");
+			localDB.execSQL("CREATE TRIGGER IF NOT EXISTS " + SECONDARY_ATTRIBS_VALUES_TABLE_NAME + "_search_delete " +
+					"AFTER DELETE ON " + SECONDARY_ATTRIBS_VALUES_TABLE_NAME + " BEGIN " + 
+					"DELETE FROM " + SEARCH_INDEX_TABLE_NAME + " WHERE docid = " + secondaryDocID + "; END;");
+			localDB.execSQL("CREATE TRIGGER IF NOT EXISTS " + SECONDARY_ATTRIBS_VALUES_TABLE_NAME + "_search_update " +
+					"AFTER UPDATE ON " + SECONDARY_ATTRIBS_VALUES_TABLE_NAME + " BEGIN " + 
+					"DELETE FROM " + SEARCH_INDEX_TABLE_NAME + " WHERE docid = " + secondaryDocID + "; " +
+					insertSecondaryTextDocumentSQL("NEW") + " END;");
+		}
+
+		/*
+		 * Creates the triggers indexing the values in the given table (which must have a column holding
+		 * alter ids) and the secondary texts attached to these values.
+		 */
+		private void createSearchIndexTriggersForValues(SQLiteDatabase localDB, String valuesTableName, int kind){
+			String deleteOld = "DELETE FROM " + SEARCH_INDEX_TABLE_NAME + 
+					" WHERE docid = " + SEARCH_INDEX_KINDS + "*OLD.rowid+" + kind + "; " +
+					"DELETE FROM " + SEARCH_INDEX_TABLE_NAME + " WHERE docid IN (" +
+					"SELECT " + SEARCH_INDEX_KINDS + "*rowid+" + SEARCH_INDEX_KIND_SECONDARY_TEXT + 
+					" FROM " + SECONDARY_ATTRIBS_VALUES_TABLE_NAME + 
+					" WHERE " + COL_DATUM_ID + " = CAST(OLD." + COL_DATUM_ID + " AS TEXT));";
+			String insertNew = "INSERT INTO " + SEARCH_INDEX_TABLE_NAME + 
+					" (docid, " + ALTERS_COL_ID + ", " + SEARCH_INDEX_COL_TEXT + ") " + 
+					"VALUES (" + SEARCH_INDEX_KINDS + "*NEW.rowid+" + kind + ", NEW." + ALTERS_COL_ID + 
+					", " + getDecodedValueSQL(valuesTableName, "NEW") + "); " +
+					"INSERT INTO " + SEARCH_INDEX_TABLE_NAME + 
+					" (docid, " + ALTERS_COL_ID + ", " + SEARCH_INDEX_COL_TEXT + ") " + 
+					"SELECT " + SEARCH_INDEX_KINDS + "*rowid+" + SEARCH_INDEX_KIND_SECONDARY_TEXT + 
+					", NEW." + ALTERS_COL_ID + ", " + ATTRIBUTES_COL_VALUE + 
+					" FROM " + SECONDARY_ATTRIBS_VALUES_TABLE_NAME + 
+					" WHERE " + COL_DATUM_ID + " = CAST(NEW." + COL_DATUM_ID + " AS TEXT)" +
+					" AND " + SECONDARY_ATTRIBUTES_COL_NAME + " = " + 
+					DatabaseUtils.sqlEscapeString(getSecondaryAttributeNameText()) + ";";
+			localDB.execSQL("CREATE TRIGGER IF NOT EXISTS " + valuesTableName + "_search_insert " +
+					"AFTER INSERT ON " + valuesTableName + " BEGIN " + insertNew + " END;");
+			localDB.execSQL("CREATE TRIGGER IF NOT EXISTS " + valuesTableName + "_search_delete " +
+					"AFTER DELETE ON " + valuesTableName + " BEGIN " + deleteOld + " END;");
+			localDB.execSQL("CREATE TRIGGER IF NOT EXISTS " + valuesTableName + "_search_update " +
+					"AFTER UPDATE OF " + ALTERS_COL_ID + ", " + ATTRIBUTES_COL_VALUE + ", " + 
+					ATTRIBUTES_COL_CHOICE_CODE + ", " + COL_DATUM_ID + " ON " + valuesTableName + " BEGIN " + deleteOld + " " + insertNew + " END;");
+		}
+
+		/*
+		 * Returns the statement indexing the name of the alter in the given row of the alters table.
+		 */
+		private String insertAlterNameDocumentSQL(String row){
+			return "INSERT INTO " + SEARCH_INDEX_TABLE_NAME + 
+					" (docid, " + ALTERS_COL_ID + ", " + SEARCH_INDEX_COL_TEXT + ") " + 
+					"VALUES (" + SEARCH_INDEX_KINDS + "*" + row + "." + ALTERS_COL_ID + "+" + SEARCH_INDEX_KIND_ALTER_NAME + 
+					", " + row + "." + ALTERS_COL_ID + ", " + row + "." + ALTERS_COL_NAME + ");";
+		}
+
+		/*
+		 * Returns the statement indexing the given row of the secondary values table if it holds 
+		 * a secondary text attached to a value of an alter or ego-alter attribute.
+		 */
+		private String insertSecondaryTextDocumentSQL(String row){
+			String docID = SEARCH_INDEX_KINDS + "*" + row + ".rowid+" + SEARCH_INDEX_KIND_SECONDARY_TEXT;
+			String textCondition = row + "." + SECONDARY_ATTRIBUTES_COL_NAME + " = " + 
+					DatabaseUtils.sqlEscapeString(getSecondaryAttributeNameText());
+			return "INSERT INTO " + SEARCH_INDEX_TABLE_NAME + 
+					" (docid, " + ALTERS_COL_ID + ", " + SEARCH_INDEX_COL_TEXT + ") " + 
+					"SELECT " + docID + ", " + ALTERS_COL_ID + ", " + row + "." + ATTRIBUTES_COL_VALUE + 
+					" FROM " + ALTER_ATTRIBS_VALUES_TABLE_NAME + 
+					" WHERE " + COL_DATUM_ID + " = " + row + "." + COL_DATUM_ID + " AND " + textCondition +
+					" UNION ALL " +
+					"SELECT " + docID + ", " + ALTERS_COL_ID + ", " + row + "." + ATTRIBUTES_COL_VALUE + 
+					" FROM " + EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME + 
+					" WHERE " + COL_DATUM_ID + " = " + row + "." + COL_DATUM_ID + " AND " + textCondition + ";";
+		}
+
+		/*
+		 * Fills the search index with all documents for the current content of the database.
+		 */
+		private void rebuildSearchIndex(SQLiteDatabase localDB) {
+			localDB.execSQL("DELETE FROM " + SEARCH_INDEX_TABLE_NAME + ";");
+			String insert = "INSERT INTO " + SEARCH_INDEX_TABLE_NAME + 
+					" (docid, " + ALTERS_COL_ID + ", " + SEARCH_INDEX_COL_TEXT + ") ";
+			localDB.execSQL(insert + "SELECT " + SEARCH_INDEX_KINDS + "*" + ALTERS_COL_ID + "+" + SEARCH_INDEX_KIND_ALTER_NAME + 
+					", " + ALTERS_COL_ID + ", " + ALTERS_COL_NAME + " FROM " + ALTERS_TABLE_NAME + ";");
+			localDB.execSQL(insert + "SELECT " + SEARCH_INDEX_KINDS + "*rowid+" + SEARCH_INDEX_KIND_ALTER_VALUE + 
+					", " + ALTERS_COL_ID + ", " + 
+					getDecodedValueSQL(ALTER_ATTRIBS_VALUES_TABLE_NAME, ALTER_ATTRIBS_VALUES_TABLE_NAME) + 
+					" FROM " + ALTER_ATTRIBS_VALUES_TABLE_NAME + ";");
+			localDB.execSQL(insert + "SELECT " + SEARCH_INDEX_KINDS + "*rowid+" + SEARCH_INDEX_KIND_EGO_ALTER_VALUE + 
+					", " + ALTERS_COL_ID + ", " + 
+					getDecodedValueSQL(EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME, EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME) + 
+					" FROM " + EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME + ";");
+			String secondaryText = DatabaseUtils.sqlEscapeString(getSecondaryAttributeNameText());
+			String[] valuesTableNames = {ALTER_ATTRIBS_VALUES_TABLE_NAME, EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME};
+			for(String valuesTableName : valuesTableNames){
+				localDB.execSQL(insert + "SELECT " + SEARCH_INDEX_KINDS + "*s.rowid+" + SEARCH_INDEX_KIND_SECONDARY_TEXT + 
+						", v." + ALTERS_COL_ID + ", s." + ATTRIBUTES_COL_VALUE + 
+						" FROM " + SECONDARY_ATTRIBS_VALUES_TABLE_NAME + " s, " + valuesTableName + " v" +
+						" WHERE s." + COL_DATUM_ID + " = CAST(v." + COL_DATUM_ID + " AS TEXT)" +
+						" AND s." + SECONDARY_ATTRIBUTES_COL_NAME + " = " + secondaryText + ";");
+			}
+		}
+
+		/*
+		 * Creates and fills the temporal indexes and the triggers that keep them up to date.
+		 * Does nothing if SQLite has been built without the R*Tree module.
+		 */
+		private void createTemporalIndex(SQLiteDatabase localDB) {
+			for(String tableName : TEMPORAL_INDEX_TABLE_NAMES){
+				String indexName = tableName + TEMPORAL_INDEX_SUFFIX;
+				try {
+					localDB.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + indexName + " USING rtree (" +
+							TEMPORAL_INDEX_COL_ID + ", " + COL_TIME_START + ", " + COL_TIME_END + ");");
+				} catch (SQLiteException e) {
+					//no R*Tree module; the overlap queries work without the index
+					return;
+				}
+				String insertNew = "INSERT OR REPLACE INTO " + indexName + " SELECT NEW." + COL_DATUM_ID + 
+						", NEW." + COL_TIME_START + ", NEW." + COL_TIME_END + 
+						" WHERE NEW." + COL_DATUM_ID + " IS NOT NULL" + 
+						" AND NEW." + COL_TIME_START + " <= NEW." + COL_TIME_END + ";";
+				String deleteOld = "DELETE FROM " + indexName + 
+						" WHERE " + TEMPORAL_INDEX_COL_ID + " = OLD." + COL_DATUM_ID + ";";
+				localDB.execSQL("CREATE TRIGGER IF NOT EXISTS " + indexName + "_insert " +
+						"AFTER INSERT ON " + tableName + " BEGIN " + insertNew + " END;");
+				localDB.execSQL("CREATE TRIGGER IF NOT EXISTS " + indexName + "_delete " +
+						"AFTER DELETE ON " + tableName + " BEGIN " + deleteOld + " END;");
+				localDB.execSQL("CREATE TRIGGER IF NOT EXISTS " + indexName + "_update " +
+						"AFTER UPDATE OF " + COL_TIME_START + ", " + COL_TIME_END + ", " + COL_DATUM_ID + 
+						" ON " + tableName + " BEGIN " + deleteOld + " " + insertNew + " END;");
+				localDB.execSQL("INSERT OR REPLACE INTO " + indexName + " SELECT " + COL_DATUM_ID + ", " + 
+						COL_TIME_START + ", " + COL_TIME_END + " FROM " + tableName + 
+						" WHERE " + COL_DATUM_ID + " IS NOT NULL AND " + COL_TIME_START + " <= " + COL_TIME_END + ";");
+			}
+		}
+
+		/*
+		 * Drops the full-text search index and its triggers.
+		 */
+		private void dropSearchIndex(SQLiteDatabase localDB) {
+			String[] tableNames = {ALTERS_TABLE_NAME, ALTER_ATTRIBS_VALUES_TABLE_NAME, 
+					EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME, SECONDARY_ATTRIBS_VALUES_TABLE_NAME};
+			String[] events = {"insert", "delete", "update"};
+			for(String tableName : tableNames){
+				for(String event : events){
+					localDB.execSQL("DROP TRIGGER IF EXISTS " + tableName + "_search_" + event + ";");
+				}
+			}
+			localDB.execSQL("DROP TABLE IF EXISTS " + SEARCH_INDEX_TABLE_NAME + ";");
+		}
+
+		/*
+		 * Replaces the alter names in all tables referring to alters by alter ids (version 4).
+		 * 
+		 * The tables are renamed, created again, and filled from the renamed tables. An alter gets
+		 * the rowid of its row in the old alters table as its id; names that appear only in other tables 
+		 * are added to the alters table so that no rows are lost. Indexes are created at the end.
+		 */
+		private void migrateToAlterIDs(SQLiteDatabase localDB) {
+			String[] tableNames = {ALTERS_TABLE_NAME, ALTERS_HISTORY_TABLE_NAME, 
+					TIES_TABLE_NAME, TIES_HISTORY_TABLE_NAME, 
+					ALTER_ALTER_DYADS_TABLE_NAME, ALTER_ALTER_DYADS_HISTORY_TABLE_NAME, 
+					ALTER_ATTRIBS_VALUES_TABLE_NAME, EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME, 
+					ALTER_ALTER_ATTRIBS_VALUES_TABLE_NAME};
+			for(String tableName : tableNames){
+				localDB.execSQL("ALTER TABLE " + tableName + " RENAME TO " + tableName + "_old;");
+			}
+			localDB.execSQL(ALTERS_TABLE_CREATE_CMD);
+			localDB.execSQL(ALTERS_HISTORY_TABLE_CREATE_CMD);
+			localDB.execSQL(TIES_TABLE_CREATE_CMD);
+			localDB.execSQL(TIES_HISTORY_TABLE_CREATE_CMD);
+			localDB.execSQL(ALTER_ALTER_DYADS_TABLE_CREATE_CMD);
+			localDB.execSQL(ALTER_ALTER_DYADS_HISTORY_TABLE_CREATE_CMD);
+			localDB.execSQL(ALTER_ATTRIBS_VALUES_TABLE_CREATE_CMD);
+			localDB.execSQL(EGO_ALTER_ATTRIBS_VALUES_TABLE_CREATE_CMD);
+			localDB.execSQL(ALTER_ALTER_ATTRIBS_VALUES_TABLE_CREATE_CMD);
+			//alters
+			localDB.execSQL("INSERT INTO " + ALTERS_TABLE_NAME + " (" + ALTERS_COL_ID + ", " + ALTERS_COL_NAME + ") " +
+					"SELECT rowid, " + ALTERS_COL_NAME + " FROM " + ALTERS_TABLE_NAME + "_old " + 
+					"WHERE " + ALTERS_COL_NAME + " IS NOT NULL;");
+			String[][] alterColumns = {
+					{ALTERS_HISTORY_TABLE_NAME, ALTERS_COL_NAME},
+					{TIES_TABLE_NAME, DYADS_COL_SOURCE}, {TIES_TABLE_NAME, DYADS_COL_TARGET},
+					{ALTER_ALTER_DYADS_TABLE_NAME, DYADS_COL_SOURCE}, {ALTER_ALTER_DYADS_TABLE_NAME, DYADS_COL_TARGET},
+					{ALTER_ATTRIBS_VALUES_TABLE_NAME, ALTERS_COL_NAME},
+					{EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME, ALTERS_COL_NAME},
+					{ALTER_ALTER_ATTRIBS_VALUES_TABLE_NAME, DYADS_COL_SOURCE}, 
+					{ALTER_ALTER_ATTRIBS_VALUES_TABLE_NAME, DYADS_COL_TARGET}};
+			for(String[] alterColumn : alterColumns){
+				localDB.execSQL("INSERT OR IGNORE INTO " + ALTERS_TABLE_NAME + " (" + ALTERS_COL_NAME + ") " +
+						"SELECT DISTINCT " + alterColumn[1] + " FROM " + alterColumn[0] + "_old " +
+						"WHERE " + alterColumn[1] + " IS NOT NULL;");
+			}
+			//tables referring to one alter
+			String[] times = {COL_TIME_START, COL_TIME_END, COL_DATUM_ID};
+			copyWithAlterIDs(localDB, ALTERS_HISTORY_TABLE_NAME, 
+					new String[]{ALTERS_COL_NAME}, new String[]{ALTERS_COL_ID}, times);
+			copyWithAlterIDs(localDB, ALTER_ATTRIBS_VALUES_TABLE_NAME, 
+					new String[]{ALTERS_COL_NAME}, new String[]{ALTERS_COL_ID}, 
+					new String[]{ATTRIBUTES_COL_NAME, ATTRIBUTES_COL_VALUE, COL_TIME_START, COL_TIME_END, COL_DATUM_ID});
+			copyWithAlterIDs(localDB, EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME, 
+					new String[]{ALTERS_COL_NAME}, new String[]{ALTERS_COL_ID}, 
+					new String[]{ATTRIBUTES_COL_NAME, ATTRIBUTES_COL_DIRECTION_TYPE, ATTRIBUTES_COL_VALUE, 
+					COL_TIME_START, COL_TIME_END, COL_DATUM_ID});
+			//tables referring to two alters
+			String[] dyadColumns = {DYADS_COL_SOURCE, DYADS_COL_TARGET};
+			copyWithAlterIDs(localDB, TIES_TABLE_NAME, dyadColumns, dyadColumns, new String[0]);
+			copyWithAlterIDs(localDB, TIES_HISTORY_TABLE_NAME, dyadColumns, dyadColumns, times);
+			copyWithAlterIDs(localDB, ALTER_ALTER_DYADS_TABLE_NAME, dyadColumns, dyadColumns, new String[0]);
+			copyWithAlterIDs(localDB, ALTER_ALTER_DYADS_HISTORY_TABLE_NAME, dyadColumns, dyadColumns, times);
+			copyWithAlterIDs(localDB, ALTER_ALTER_ATTRIBS_VALUES_TABLE_NAME, dyadColumns, dyadColumns, 
+					new String[]{ATTRIBUTES_COL_NAME, ATTRIBUTES_COL_VALUE, COL_TIME_START, COL_TIME_END, COL_DATUM_ID});
+			for(String tableName : tableNames){
+				localDB.execSQL("DROP TABLE " + tableName + "_old;");
+			}
+			createIndexes(localDB);
+		}
+
+		/*
+		 * Copies the rows of the renamed table tableName_old into tableName, thereby replacing the alter names
+		 * in the columns oldAlterColumns by the alter ids in the columns newAlterColumns. The remaining 
+		 * columns are copied unchanged.
+		 */
+		private void copyWithAlterIDs(SQLiteDatabase localDB, String tableName, 
+				String[] oldAlterColumns, String[] newAlterColumns, String[] otherColumns) {
+			StringBuilder columns = new StringBuilder();
+			StringBuilder values = new StringBuilder();
+			StringBuilder joins = new StringBuilder();
+			for(int i = 0; i < newAlterColumns.length; ++i){
+				if(i > 0){
+					columns.append(", ");
+					values.append(", ");
+				}
+				columns.append(newAlterColumns[i]);
+				values.append("a").append(i).append(".").append(ALTERS_COL_ID);
+				joins.append(" JOIN ").append(ALTERS_TABLE_NAME).append(" a").append(i)
+				.append(" ON a").append(i).append(".").append(ALTERS_COL_NAME)
+				.append(" = o.").append(oldAlterColumns[i]);
+			}
+			for(String column : otherColumns){
+				columns.append(", ").append(column);
+				values.append(", o.").append(column);
+			}
+			localDB.execSQL("INSERT INTO " + tableName + " (" + columns + ") " +
+					"SELECT " + values + " FROM " + tableName + "_old o" + joins + ";");
+		}
+
+		/*
+		 * Moves the time stamps of history and value rows from the secondary attribute values into the 
+		 * columns COL_TIMESTAMP_START and COL_TIMESTAMP_END (version 5).
+		 * 
+		 * Afterwards deletes the declarations of the time stamp secondary attributes and all secondary 
+		 * attribute values whose datum id does not belong to any history or value row. 
+		 */
+		private void migrateToInlineTimestamps(SQLiteDatabase localDB) {
+			String[] tableNames = {ALTERS_HISTORY_TABLE_NAME, TIES_HISTORY_TABLE_NAME, 
+					ALTER_ALTER_DYADS_HISTORY_TABLE_NAME, EGO_ATTRIBS_VALUES_TABLE_NAME, 
+					ALTER_ATTRIBS_VALUES_TABLE_NAME, EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME, 
+					ALTER_ALTER_ATTRIBS_VALUES_TABLE_NAME};
+			String timeStampStartName = DatabaseUtils.sqlEscapeString(ATTRIBUTE_PREFIX_EGOSMART + 
+					SECONDARY_ATTRIBUTE_NAME_SUFFIX_TIMESTAMP_START);
+			String timeStampEndName = DatabaseUtils.sqlEscapeString(ATTRIBUTE_PREFIX_EGOSMART + 
+					SECONDARY_ATTRIBUTE_NAME_SUFFIX_TIMESTAMP_END);
+			StringBuilder datumIDs = new StringBuilder();
+			for(String tableName : tableNames){
+				//tables created when migrating from version 3 already have the columns
+				if(!hasColumn(localDB, tableName, COL_TIMESTAMP_START))
+					localDB.execSQL("ALTER TABLE " + tableName + " ADD COLUMN " + COL_TIMESTAMP_START + " INTEGER;");
+				if(!hasColumn(localDB, tableName, COL_TIMESTAMP_END))
+					localDB.execSQL("ALTER TABLE " + tableName + " ADD COLUMN " + COL_TIMESTAMP_END + " INTEGER;");
+				String selectTimeStamp = "(SELECT CAST(" + ATTRIBUTES_COL_VALUE + " AS INTEGER) FROM " + 
+						SECONDARY_ATTRIBS_VALUES_TABLE_NAME + " s WHERE s." + COL_DATUM_ID + 
+						" = CAST(" + tableName + "." + COL_DATUM_ID + " AS TEXT) AND s." + 
+						SECONDARY_ATTRIBUTES_COL_NAME + " = ";
+				localDB.execSQL("UPDATE " + tableName + " SET " + 
+						COL_TIMESTAMP_START + " = " + selectTimeStamp + timeStampStartName + "), " +
+						COL_TIMESTAMP_END + " = " + selectTimeStamp + timeStampEndName + ");");
+				if(datumIDs.length() > 0)
+					datumIDs.append(" UNION ");
+				datumIDs.append("SELECT CAST(").append(COL_DATUM_ID).append(" AS TEXT) FROM ").append(tableName)
+				.append(" WHERE ").append(COL_DATUM_ID).append(" IS NOT NULL");
+			}
+			String timeStampNames = "(" + timeStampStartName + ", " + timeStampEndName + ")";
+			localDB.execSQL("DELETE FROM " + SECONDARY_ATTRIBS_VALUES_TABLE_NAME + 
+					" WHERE " + SECONDARY_ATTRIBUTES_COL_NAME + " IN " + timeStampNames + ";");
+			localDB.execSQL("DELETE FROM " + SECONDARY_ATTRIBS_NAMES_TABLE_NAME + 
+					" WHERE " + SECONDARY_ATTRIBUTES_COL_NAME + " IN " + timeStampNames + ";");
+			localDB.execSQL("DELETE FROM " + SECONDARY_ATTRIBS_VALUES_TABLE_NAME + 
+					" WHERE " + COL_DATUM_ID + " NOT IN (" + datumIDs + ");");
+		}
+
+		/*
+		 * Declares the time columns of the history and value tables as INTEGER instead of NUMERIC 
+		 * (version 6). 
+		 * 
+		 * The tables are renamed, created again, and filled from the renamed tables (keeping the rowids). 
+		 * Indexes are created at the end.
+		 */
+		private void migrateToIntegerTimes(SQLiteDatabase localDB) {
+			String times = COL_TIME_START + ", " + COL_TIME_END + ", " + COL_DATUM_ID + ", " + 
+					COL_TIMESTAMP_START + ", " + COL_TIMESTAMP_END;
+			String dyad = DYADS_COL_SOURCE + ", " + DYADS_COL_TARGET + ", ";
+			String attribute = ATTRIBUTES_COL_NAME + ", " + ATTRIBUTES_COL_VALUE + ", ";
+			String[][] tables = {
+					{ALTERS_HISTORY_TABLE_NAME, ALTERS_HISTORY_TABLE_CREATE_CMD, ALTERS_COL_ID + ", " + times},
+					{TIES_HISTORY_TABLE_NAME, TIES_HISTORY_TABLE_CREATE_CMD, dyad + times},
+					{ALTER_ALTER_DYADS_HISTORY_TABLE_NAME, ALTER_ALTER_DYADS_HISTORY_TABLE_CREATE_CMD, dyad + times},
+					{EGO_ATTRIBS_VALUES_TABLE_NAME, EGO_ATTRIBS_VALUES_TABLE_CREATE_CMD, attribute + times},
+					{ALTER_ATTRIBS_VALUES_TABLE_NAME, ALTER_ATTRIBS_VALUES_TABLE_CREATE_CMD, 
+						attribute + ALTERS_COL_ID + ", " + times},
+					{EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME, EGO_ALTER_ATTRIBS_VALUES_TABLE_CREATE_CMD, 
+						attribute + ALTERS_COL_ID + ", " + ATTRIBUTES_COL_DIRECTION_TYPE + ", " + times},
+					{ALTER_ALTER_ATTRIBS_VALUES_TABLE_NAME, ALTER_ALTER_ATTRIBS_VALUES_TABLE_CREATE_CMD, 
+						attribute + dyad + times}};
+			for(String[] table : tables){
+				String tableName = table[0];
+				String columns = "rowid, " + table[2];
+				localDB.execSQL("ALTER TABLE " + tableName + " RENAME TO " + tableName + "_old;");
+				localDB.execSQL(table[1]);
+				localDB.execSQL("INSERT INTO " + tableName + " (" + columns + ") " +
+						"SELECT " + columns + " FROM " + tableName + "_old;");
+				localDB.execSQL("DROP TABLE " + tableName + "_old;");
+			}
+			createIndexes(localDB);
+		}
+
+		/*
+		 * Adds the column holding the values of number attributes as REAL to the values tables 
+		 * and fills it (version 8).
+		 */
+		private void migrateToNumberValues(SQLiteDatabase localDB) {
+			String[] domains = {DOMAIN_EGO, DOMAIN_ALTER, DOMAIN_EGO_ALTER, DOMAIN_ALTER_ALTER};
+			for(String domain : domains){
+				String tableName = getAttributeValuesTableNameForDomain(domain);
+				//tables created by earlier migrations already have the column
+				if(!hasColumn(localDB, tableName, ATTRIBUTES_COL_NUMBER))
+					localDB.execSQL("ALTER TABLE " + tableName + " ADD COLUMN " + ATTRIBUTES_COL_NUMBER + " REAL;");
+				fillNumberColumn(localDB, tableName, ATTRIBUTES_COL_NAME + " IN (SELECT " + ATTRIBUTES_COL_NAME + 
+						" FROM " + getAttributeNamesTableNameForDomain(domain) + 
+						" WHERE " + ATTRIBUTES_COL_VALUE_TYPE + " = " + ATTRIB_TYPE_NUMBER + ")", new String[0]);
+			}
+		}
+
+		/*
+		 * Gives the choices codes (their rowids) and replaces the values of choice attributes 
+		 * by the codes of the choices (version 9).
+		 */
+		private void migrateToChoiceCodes(SQLiteDatabase localDB) {
+			String[] domains = {DOMAIN_EGO, DOMAIN_ALTER, DOMAIN_EGO_ALTER, DOMAIN_ALTER_ALTER};
+			for(String domain : domains){
+				String choicesTableName = getAttributeChoicesTableNameForDomain(domain);
+				if(!hasColumn(localDB, choicesTableName, ATTRIBUTES_COL_CHOICE_CODE))
+					localDB.execSQL("ALTER TABLE " + choicesTableName + 
+							" ADD COLUMN " + ATTRIBUTES_COL_CHOICE_CODE + " INTEGER;");
+				localDB.execSQL("UPDATE " + choicesTableName + " SET " + ATTRIBUTES_COL_CHOICE_CODE + " = rowid;");
+				String valuesTableName = getAttributeValuesTableNameForDomain(domain);
+				//tables created by earlier migrations already have the column
+				if(!hasColumn(localDB, valuesTableName, ATTRIBUTES_COL_CHOICE_CODE))
+					localDB.execSQL("ALTER TABLE " + valuesTableName + 
+							" ADD COLUMN " + ATTRIBUTES_COL_CHOICE_CODE + " INTEGER;");
+				localDB.execSQL(getEncodeChoicesSQL(domain, ATTRIBUTES_COL_NAME + " IN (SELECT " + 
+						ATTRIBUTES_COL_NAME + " FROM " + getAttributeNamesTableNameForDomain(domain) + 
+						" WHERE " + ATTRIBUTES_COL_VALUE_TYPE + " = " + ATTRIB_TYPE_FINITE_CHOICE + ")"));
+			}
+			createChoiceCodeIndexes(localDB);
+		}
+
+		/*
+		 * Stores ties, alter-alter dyads, and the values of symmetric dyad attributes once per pair 
+		 * of dyads (version 10): ties and dyads with the smaller alter id as source, values of symmetric
+		 * ego-alter attributes in the direction OUT.
+		 */
+		private void migrateToCanonicalDyads(SQLiteDatabase localDB) {
+			String reverse = DYADS_COL_SOURCE + " > " + DYADS_COL_TARGET;
+			String swap = DYADS_COL_SOURCE + " = " + DYADS_COL_TARGET + ", " + DYADS_COL_TARGET + " = " + DYADS_COL_SOURCE;
+			String[][] tableNames = {{TIES_TABLE_NAME, TIES_HISTORY_TABLE_NAME}, 
+					{ALTER_ALTER_DYADS_TABLE_NAME, ALTER_ALTER_DYADS_HISTORY_TABLE_NAME}};
+			for(String[] pair : tableNames){
+				String pairsTableName = pair[0];
+				String historyTableName = pair[1];
+				localDB.execSQL("INSERT OR IGNORE INTO " + pairsTableName + 
+						" (" + DYADS_COL_SOURCE + ", " + DYADS_COL_TARGET + ")" + 
+						" SELECT " + DYADS_COL_TARGET + ", " + DYADS_COL_SOURCE + 
+						" FROM " + pairsTableName + " WHERE " + reverse + ";");
+				collapseMirroredRows(localDB, historyTableName, reverse, 
+						getMirrorCondition(historyTableName, new String[]{COL_TIME_START, COL_TIME_END}), swap);
+				localDB.execSQL("DELETE FROM " + pairsTableName + " WHERE " + reverse + ";");
+			}
+			String symmetricAttributes = ATTRIBUTES_COL_NAME + " IN (SELECT " + ATTRIBUTES_COL_NAME + 
+					" FROM %s WHERE " + ATTRIBUTES_COL_DIRECTION_TYPE + " = " + 
+					DatabaseUtils.sqlEscapeString(DYAD_DIRECTION_SYMMETRIC) + ")";
+			String[] valueColumns = {ATTRIBUTES_COL_NAME, COL_TIME_START, COL_TIME_END};
+			collapseMirroredRows(localDB, ALTER_ALTER_ATTRIBS_VALUES_TABLE_NAME, 
+					reverse + " AND " + String.format(symmetricAttributes, ALTER_ALTER_ATTRIBS_NAMES_TABLE_NAME), 
+					getMirrorCondition(ALTER_ALTER_ATTRIBS_VALUES_TABLE_NAME, valueColumns), swap);
+			String in = DatabaseUtils.sqlEscapeString(DYAD_DIRECTION_IN);
+			String out = DatabaseUtils.sqlEscapeString(DYAD_DIRECTION_OUT);
+			StringBuilder sameOutRow = new StringBuilder("m." + ATTRIBUTES_COL_DIRECTION_TYPE + " = " + out + 
+					" AND m." + ALTERS_COL_ID + " = " + EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME + "." + ALTERS_COL_ID);
+			for(String column : valueColumns){
+				sameOutRow.append(" AND m.").append(column).append(" = ")
+				.append(EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME).append(".").append(column);
+			}
+			collapseMirroredRows(localDB, EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME, 
+					ATTRIBUTES_COL_DIRECTION_TYPE + " = " + in + " AND " + 
+					String.format(symmetricAttributes, EGO_ALTER_ATTRIBS_NAMES_TABLE_NAME), 
+					sameOutRow.toString(), ATTRIBUTES_COL_DIRECTION_TYPE + " = " + out);
+			localDB.execSQL(TIES_HISTORY_TARGET_INDEX_CREATE_CMD);
+			localDB.execSQL(ALTER_ALTER_DYADS_HISTORY_TARGET_INDEX_CREATE_CMD);
+		}
+
+		/*
+		 * Deletes the rows of the given table satisfying the selection of the reverse rows for which the 
+		 * mirrored row (given by the condition on the rows m) exists, together with their secondary 
+		 * attribute values; the remaining reverse rows are turned into rows of the stored direction 
+		 * by the given assignments.
+		 */
+		private void collapseMirroredRows(SQLiteDatabase localDB, String tableName, String reverseSelection, 
+				String mirrorCondition, String assignments) {
+			String mirrored = reverseSelection + " AND EXISTS (SELECT 1 FROM " + tableName + " AS m" + 
+					" WHERE " + mirrorCondition + ")";
+			localDB.execSQL("DELETE FROM " + SECONDARY_ATTRIBS_VALUES_TABLE_NAME + 
+					" WHERE " + COL_DATUM_ID + " IN (" +
+					"SELECT CAST(" + COL_DATUM_ID + " AS TEXT) FROM " + tableName + " WHERE " + mirrored + ");");
+			localDB.execSQL("DELETE FROM " + tableName + " WHERE " + mirrored + ";");
+			localDB.execSQL("UPDATE " + tableName + " SET " + assignments + " WHERE " + reverseSelection + ";");
+		}
+
+		/*
+		 * Condition on the rows m of the given dyads table that are mirrored rows (with source and 
+		 * target exchanged and the same values in the given columns) of the rows of the table.
+		 */
+		private String getMirrorCondition(String tableName, String[] columns) {
+			StringBuilder condition = new StringBuilder("m." + DYADS_COL_SOURCE + " = " + tableName + "." + DYADS_COL_TARGET + 
+					" AND m." + DYADS_COL_TARGET + " = " + tableName + "." + DYADS_COL_SOURCE);
+			for(String column : columns){
+				condition.append(" AND m.").append(column).append(" = ").append(tableName).append(".").append(column);
+			}
+			return condition.toString();
+		}
 
+		/*
+		 * Returns true if the given table has a column with the given name.
+		 */
+		private boolean hasColumn(SQLiteDatabase localDB, String tableName, String columnName) {
+			Cursor c = localDB.rawQuery("PRAGMA table_info(" + tableName + ")", null);
+			boolean found = false;
+			int nameIndex = c.getColumnIndexOrThrow("name");
+			if(c.moveToFirst()){
+				while(!c.isAfterLast() && !found){
+					found = columnName.equals(c.getString(nameIndex));
+					c.moveToNext();
+				}
+			}
+			c.close();
+			return found;
+		}
+
+		/*
+		 * Applies the schema changes step by step, from oldVersion to newVersion. 
+		 * Each step migrates the database from version v to version v+1 without losing data.
+		 * SQLiteOpenHelper calls this method inside a transaction.
+		 * 
+		 * The search index is dropped before the first step and created and filled once after the last 
+		 * step: its triggers and its documents refer to the current schema (e.g., to the choice codes 
+		 * of version 9), which intermediate versions do not have yet.
+		 */
+		@Override
+		public void onUpgrade(SQLiteDatabase localDB, int oldVersion, int newVersion) {
+			dropSearchIndex(localDB);
+			for(int version = oldVersion; version < newVersion; ++version){
+				upgradeFromVersion(localDB, version);
+			}
+			createSearchIndex(localDB);
+			rebuildSearchIndex(localDB);
+		}
+
+		/*
+		 * Migrates the database from version to version+1.
+		 */
+		private void upgradeFromVersion(SQLiteDatabase localDB, int version) {
+			switch(version){
+			case 1:
+			case 2:
+				//the indexes (version 2) and the search index (version 3) refer to alter ids since
+				//version 4; the indexes are created when migrating from version 3, the search index 
+				//at the end of onUpgrade
+				break;
+			case 3:
+				migrateToAlterIDs(localDB);
+				break;
+			case 4:
+				migrateToInlineTimestamps(localDB);
+				break;
+			case 5:
+				migrateToIntegerTimes(localDB);
+				break;
+			case 6:
+				createTemporalIndex(localDB);
+				break;
+			case 7:
+				migrateToNumberValues(localDB);
+				break;
+			case 8:
+				migrateToChoiceCodes(localDB);
+				break;
+			case 9:
+				migrateToCanonicalDyads(localDB);
+				break;
+			case 10:
+				localDB.execSQL(JOURNAL_TABLE_CREATE_CMD);
+				localDB.execSQL(JOURNAL_CONSUMERS_TABLE_CREATE_CMD);
+				break;
+			default:
+				throw new IllegalStateException("no upgrade defined from database version " + version);
+			}
 		}
 	}
 	private void initBasicAttributes(){
@@ -5218,43 +7382,6 @@ public class PersonalNetwork{
 		//Special system secondary attributes (prefix egosmart:)
 		//TODO: change all this
 		//////////////////////////////////////////////////////////////////
-		//time stamps when the start/end times of the data entry have been set 
-		initSecondaryAttribute(PersonalNetwork.DOMAIN_ALTER, 
-				getAlterLifetimeAttributeName(), 
-				getSecondaryAttributeNameTimestampStart(), 
-				PersonalNetwork.ATTRIB_TYPE_TEXT,//TODO: is of type long 
-				"timestamp when the start time of the data entry has been set", //TODO: outsource 
-				db);			
-		initSecondaryAttribute(PersonalNetwork.DOMAIN_ALTER, 
-				getAlterLifetimeAttributeName(), 
-				getSecondaryAttributeNameTimestampEnd(), 
-				PersonalNetwork.ATTRIB_TYPE_TEXT,//TODO: is of type long 
-				"timestamp when the end time of the data entry has been set", //TODO: outsource 
-				db);			
-		initSecondaryAttribute(PersonalNetwork.DOMAIN_ALTER_ALTER, 
-				getTieLifetimeAttributeName(), 
-				getSecondaryAttributeNameTimestampStart(), 
-				PersonalNetwork.ATTRIB_TYPE_TEXT,//TODO: is of type long 
-				"timestamp when the start time of the data entry has been set", //TODO: outsource 
-				db);			
-		initSecondaryAttribute(PersonalNetwork.DOMAIN_ALTER_ALTER, 
-				getTieLifetimeAttributeName(), 
-				getSecondaryAttributeNameTimestampEnd(), 
-				PersonalNetwork.ATTRIB_TYPE_TEXT,//TODO: is of type long 
-				"timestamp when the end time of the data entry has been set", //TODO: outsource 
-				db);			
-		initSecondaryAttribute(PersonalNetwork.DOMAIN_ALTER_ALTER, 
-				getAlterAlterDyadLifetimeAttributeName(), 
-				getSecondaryAttributeNameTimestampStart(), 
-				PersonalNetwork.ATTRIB_TYPE_TEXT,//TODO: is of type long 
-				"timestamp when the start time of the data entry has been set", //TODO: outsource 
-				db);			
-		initSecondaryAttribute(PersonalNetwork.DOMAIN_ALTER_ALTER, 
-				getAlterAlterDyadLifetimeAttributeName(), 
-				getSecondaryAttributeNameTimestampEnd(), 
-				PersonalNetwork.ATTRIB_TYPE_TEXT,//TODO: is of type long 
-				"timestamp when the end time of the data entry has been set", //TODO: outsource 
-				db);			
 		// Memo text (ego)
 		initSecondaryAttributeText(PersonalNetwork.DOMAIN_EGO, 
 				getEgoMemosAttributeName(), db);
@@ -5364,37 +7491,6 @@ public class PersonalNetwork{
 		localDB.insert(SECONDARY_ATTRIBS_NAMES_TABLE_NAME, null, values);			
 	}
 
-	/**
-	 * Retrieves a property of the given attribute for the given domain.
-	 * 
-	 * The properties that can be retrieved this way are: valueType (the integer as a string), description,
-	 * directionType (if applies for the given domain), or dynamicType.
-	 * 
-	 * Does not check the arguments for sanity.
-	 *
-	 * @param domain
-	 * @param attributeName
-	 * @param propertyColumnName
-	 * @return
-	 */
-	private String getAttributeProperty(String domain, String attributeName, String propertyColumnName){
-		String selection = ATTRIBUTES_COL_NAME + " = ?";
-		String[] selectArgs = {attributeName};
-		String tableName = getAttributeNamesTableNameForDomain(domain);
-		Cursor c = db.query(tableName, 
-				new String[]{propertyColumnName}, 
-				selection, 
-				selectArgs, null, null, null);
-		int col_of_type = c.getColumnIndexOrThrow(propertyColumnName);
-		if(!c.moveToFirst()){
-			c.close();
-			return null;
-		}
-		String ret = c.getString(col_of_type);
-		c.close();
-		return ret;
-	}
-	
 	private boolean attributeDomainExists(String domain){
 		return PersonalNetwork.DOMAIN_EGO.equals(domain) || 
 				PersonalNetwork.DOMAIN_ALTER.equals(domain) || 
@@ -5478,6 +7574,26 @@ public class PersonalNetwork{
 		return tableName;
 	}
 	
+	/**
+	 * Returns the columns identifying the element in the table holding the attribute values 
+	 * for the given domain or null if the domain is unknown.
+	 * 
+	 * @param domain
+	 * @return
+	 */
+	private String[] getElementColumnsForDomain(String domain){
+		String[] columns = null;
+		if(PersonalNetwork.DOMAIN_EGO.equals(domain))
+			columns = new String[0];
+		if(PersonalNetwork.DOMAIN_ALTER.equals(domain))
+			columns = new String[]{ALTERS_COL_ID};
+		if(PersonalNetwork.DOMAIN_EGO_ALTER.equals(domain))
+			columns = new String[]{ALTERS_COL_ID, ATTRIBUTES_COL_DIRECTION_TYPE};
+		if(PersonalNetwork.DOMAIN_ALTER_ALTER.equals(domain))
+			columns = new String[]{DYADS_COL_SOURCE, DYADS_COL_TARGET};
+		return columns;
+	}
+	
 	/**
 	 * Returns the name of the table holding the attribute choices for the given domain or null
 	 * if the domain is unknown.
@@ -5503,20 +7619,15 @@ public class PersonalNetwork{
 	 */
 	private Lifetime getLifetime(String historyTableName, String elementSelection,
 			String[] elementSelectionArgs) {
+		flushPendingLifetimes();
 		Cursor cursor = db.query(historyTableName, 
 				new String[]{COL_TIME_START, COL_TIME_END}, 
-				elementSelection, elementSelectionArgs, null, null, null);
-		Lifetime lifetime = new Lifetime();
+				elementSelection, elementSelectionArgs, null, null, COL_TIME_START + " ASC");
 		if(cursor == null)
-			return lifetime;
+			return new Lifetime();
 		int start = cursor.getColumnIndexOrThrow(COL_TIME_START);
 		int end = cursor.getColumnIndexOrThrow(COL_TIME_END);
-		if(cursor.moveToFirst()){
-			while(!cursor.isAfterLast()){
-				lifetime.union(new TimeInterval(cursor.getLong(start), cursor.getLong(end)));
-				cursor.moveToNext();
-			}
-		}
+		Lifetime lifetime = Lifetime.fromSortedCursor(cursor, start, end);
 		cursor.close();
 		return lifetime;
 	}
@@ -5536,9 +7647,10 @@ public class PersonalNetwork{
 	private void cutOutOfLifetime(TimeInterval interval,
 			String historyTableName, String elementSelection,
 			String[] elementSelectionArgs, ContentValues values) {
+		flushPendingLifetimes();
 		long cutStartTime = interval.getStartTime();
 		long cutEndTime = interval.getEndTime();
-		String currentTimeStamp = Long.toString(System.currentTimeMillis()); //used as time stamps for newly created intervals
+		long currentTimeStamp = System.currentTimeMillis(); //used as time stamps for newly created intervals
 		//if interval is a time point, then remove it (if present) and don't do anything else
 		if(cutStartTime == cutEndTime){
 			String removeTimePointSelection = elementSelection + " AND " + COL_TIME_START +
@@ -5549,7 +7661,8 @@ public class PersonalNetwork{
 			}
 			removeTimePointSelectionArgs[elementSelectionArgs.length] = Long.toString(cutStartTime);
 			removeTimePointSelectionArgs[elementSelectionArgs.length+1] = Long.toString(cutEndTime);
-			db.delete(historyTableName, removeTimePointSelection, removeTimePointSelectionArgs);
+			deleteRowsWithSecondaryAttributeValues(historyTableName, 
+					removeTimePointSelection, removeTimePointSelectionArgs);
 			return;
 		}
 		//determine lifetime intervals potentially overlapping the given interval
@@ -5562,7 +7675,7 @@ public class PersonalNetwork{
 		selectionArgs[elementSelectionArgs.length] = Long.toString(cutEndTime);
 		selectionArgs[elementSelectionArgs.length+1] = Long.toString(cutStartTime);
 		Cursor cursor = db.query(historyTableName, 
-				new String[]{COL_TIME_START, COL_TIME_END, COL_DATUM_ID}, 
+				new String[]{COL_TIME_START, COL_TIME_END, COL_TIMESTAMP_START, COL_TIMESTAMP_END}, 
 				selection, selectionArgs, null, null, null);
 		if(cursor.moveToFirst()){			
 			while(!cursor.isAfterLast()){//iterate over all intervals that potentially overlap the cut interval
@@ -5570,39 +7683,29 @@ public class PersonalNetwork{
 				long endTime = cursor.getLong(cursor.getColumnIndexOrThrow(COL_TIME_END));
 				if(overlap(startTime, endTime, cutStartTime, cutEndTime)){
 					//it overlaps the cut interval
-					String oldIntervalDatumID = cursor.getString(cursor.getColumnIndexOrThrow(COL_DATUM_ID));
-					String oldTimeStampStart = getSecondaryAttributeValue(oldIntervalDatumID, 
-							getSecondaryAttributeNameTimestampStart());
-					String oldTimeStampEnd = getSecondaryAttributeValue(oldIntervalDatumID, 
-							getSecondaryAttributeNameTimestampEnd());
+					Long oldTimeStampStart = getTimeStamp(cursor, COL_TIMESTAMP_START);
+					Long oldTimeStampEnd = getTimeStamp(cursor, COL_TIMESTAMP_END);
 					//delete that interval
 					selection = elementSelection + " AND " + COL_TIME_START + " = ? AND " +
 							COL_TIME_END + " = ? ";
 					selectionArgs[elementSelectionArgs.length] = Long.toString(startTime);
 					selectionArgs[elementSelectionArgs.length+1] = Long.toString(endTime);
-					db.delete(historyTableName, selection, selectionArgs);
-					//TODO: delete associated secondary attributes!!!
+					deleteRowsWithSecondaryAttributeValues(historyTableName, selection, selectionArgs);
 					if(startTime < cutStartTime){//something remains on the left-hand side
 						values.put(COL_TIME_START, startTime);
 						values.put(COL_TIME_END, cutStartTime);
-						String newIntervalDatumID = getNextDatumIDAndIncrement();
-						values.put(COL_DATUM_ID, newIntervalDatumID);
+						values.put(COL_DATUM_ID, getNextDatumIDAndIncrement());
+						values.put(COL_TIMESTAMP_START, oldTimeStampStart);//that's the old setting
+						values.put(COL_TIMESTAMP_END, currentTimeStamp);//that's a new setting
 						db.insert(historyTableName, null, values);
-						setSecondaryAttributeValue(newIntervalDatumID, 
-								getSecondaryAttributeNameTimestampStart(), oldTimeStampStart);//that's the old setting
-						setSecondaryAttributeValue(newIntervalDatumID, 
-								getSecondaryAttributeNameTimestampEnd(), currentTimeStamp);//that's a new setting
 					}
 					if(cutEndTime < endTime){//something remains on the right-hand side
 						values.put(COL_TIME_START, cutEndTime);
 						values.put(COL_TIME_END, endTime);
-						String newIntervalDatumID = getNextDatumIDAndIncrement();
-						values.put(COL_DATUM_ID, newIntervalDatumID);
+						values.put(COL_DATUM_ID, getNextDatumIDAndIncrement());
+						values.put(COL_TIMESTAMP_START, currentTimeStamp);//that's a new setting
+						values.put(COL_TIMESTAMP_END, oldTimeStampEnd);//that's the old setting
 						db.insert(historyTableName, null, values);
-						setSecondaryAttributeValue(newIntervalDatumID, 
-								getSecondaryAttributeNameTimestampStart(), currentTimeStamp);//that's a new setting
-						setSecondaryAttributeValue(newIntervalDatumID, 
-								getSecondaryAttributeNameTimestampEnd(), oldTimeStampEnd);//that's the old setting
 					}
 				}
 				cursor.moveToNext();
@@ -5611,21 +7714,109 @@ public class PersonalNetwork{
 		cursor.close();
 	}
 
+	/*
+	 * Cuts the given interval out of the intervals of all rows of the given history or value table 
+	 * that are selected by the given element selection, which may select the rows of many elements. 
+	 * The element selection must use the numbered parameters ?1, ..., ?n for its n arguments. 
+	 * The element columns are all columns except the time columns, the datum id, and the time stamps; 
+	 * they are copied to the remaining parts of the clipped rows.
+	 * 
+	 * Has the same effect as cutOutOfLifetime (and as setting VALUE_NOT_ASSIGNED with the private 
+	 * setAttributeValueAt) for every selected element but executes a fixed number of statements:
+	 * the clipped rows are collected in the table CLIPPED_ROWS_TABLE_NAME, their remaining parts 
+	 * on the left- and right-hand side are inserted, and then the clipped rows are deleted together 
+	 * with the values of secondary attributes attached to them.
+	 * 
+	 * If interval is a time point then only rows whose interval is equal to this point are deleted.
+	 * 
+	 * Must be called within a transaction after CLIPPED_ROWS_TABLE_NAME has been created.
+	 */
+	private void cutOutOfRows(TimeInterval interval, String tableName, String elementSelection, 
+			String[] elementSelectionArgs, String elementColumns, long currentTimeStamp) {
+		long cutStartTime = interval.getStartTime();
+		long cutEndTime = interval.getEndTime();
+		int startParameter = elementSelectionArgs.length + 1;
+		String timeSelection;
+		if(cutStartTime == cutEndTime)
+			timeSelection = COL_TIME_START + " = ?" + startParameter + 
+					" AND " + COL_TIME_END + " = ?" + (startParameter + 1);
+		else
+			timeSelection = getOverlapSelection(startParameter);
+		SQLiteStatement statement = statements.get("INSERT INTO " + CLIPPED_ROWS_TABLE_NAME + 
+				" (" + CLIPPED_ROWS_COL_ROW_ID + ") SELECT rowid FROM " + tableName + 
+				" WHERE " + elementSelection + " AND " + timeSelection);
+		bindElementSelectionArgs(statement, elementSelectionArgs);
+		statement.bindLong(startParameter, cutStartTime);
+		statement.bindLong(startParameter + 1, cutEndTime);
+		//returns the number of inserted rows
+		int clippedRows = statement.executeUpdateDelete();
+		if(clippedRows == 0)
+			return;
+		//every clipped row leaves at most two parts, which get the datum ids firstDatumID + 2*(pos-1) 
+		//(left-hand side) and firstDatumID + 2*(pos-1) + 1 (right-hand side)
+		long firstDatumID = reserveDatumIDs(2 * clippedRows);
+		String clippedRowsJoin = " FROM " + tableName + ", " + CLIPPED_ROWS_TABLE_NAME + 
+				" WHERE " + tableName + ".rowid = " + CLIPPED_ROWS_COL_ROW_ID;
+		String datumID = "?3 + 2 * (" + CLIPPED_ROWS_COL_POS + " - 1)";
+		String insert = "INSERT INTO " + tableName + " (" + elementColumns + ", " + 
+				COL_TIME_START + ", " + COL_TIME_END + ", " + COL_DATUM_ID + ", " + 
+				COL_TIMESTAMP_START + ", " + COL_TIMESTAMP_END + ") SELECT " + elementColumns + ", ";
+		//something remains on the left-hand side: old time stamp at the start, new one at the end
+		statement = statements.get(insert + COL_TIME_START + ", ?1, " + datumID + ", " + 
+				COL_TIMESTAMP_START + ", ?2" + clippedRowsJoin + " AND " + COL_TIME_START + " < ?1");
+		statement.bindLong(1, cutStartTime);
+		statement.bindLong(2, currentTimeStamp);
+		statement.bindLong(3, firstDatumID);
+		statement.executeUpdateDelete();
+		//something remains on the right-hand side: new time stamp at the start, old one at the end
+		statement = statements.get(insert + "?1, " + COL_TIME_END + ", " + datumID + " + 1, ?2, " + 
+				COL_TIMESTAMP_END + clippedRowsJoin + " AND ?1 < " + COL_TIME_END);
+		statement.bindLong(1, cutEndTime);
+		statement.bindLong(2, currentTimeStamp);
+		statement.bindLong(3, firstDatumID);
+		statement.executeUpdateDelete();
+		deleteRowsWithSecondaryAttributeValues(tableName, "rowid IN (SELECT " + CLIPPED_ROWS_COL_ROW_ID + 
+				" FROM " + CLIPPED_ROWS_TABLE_NAME + ")", new String[0]);
+		statements.get("DELETE FROM " + CLIPPED_ROWS_TABLE_NAME).executeUpdateDelete();
+	}
+
 	/**
 	 * Sets the lifetime of the specified element (by the selection clause) in the given table
 	 * to the union of its previous lifetime with the given interval.
 	 * 
 	 * The content values must have set all columns that identify the element.
+	 * 
+	 * If a batch is open, the interval is only collected in memory and written when the batch is committed.
 	 *
 	 */
 	private void unionWithLifetime(TimeInterval interval,
 			String historyTableName, String elementSelection,
 			String[] elementSelectionArgs, ContentValues values) {
-		long newStartTime = interval.getStartTime();
-		long newEndTime = interval.getEndTime();
-		String timeStampStart = null;
-		String timeStampEnd = null;
-		String currentTimeStamp = Long.toString(System.currentTimeMillis());
+		if(activeBatch != null){
+			String key = getPendingLifetimeKey(historyTableName, elementSelectionArgs);
+			PendingLifetime pending = activeBatch.pendingLifetimes.get(key);
+			if(pending == null){
+				pending = new PendingLifetime(historyTableName, elementSelection, 
+						elementSelectionArgs, values);
+				activeBatch.pendingLifetimes.put(key, pending);
+			}
+			pending.lifetime.union(interval);
+			return;
+		}
+		writeUnionWithLifetime(interval.getStartTime(), interval.getEndTime(), 
+				historyTableName, elementSelection, elementSelectionArgs, values);
+	}
+
+	/*
+	 * Writes the union of the lifetime of the specified element with the interval [newStartTime, newEndTime]
+	 * to the database.
+	 */
+	private void writeUnionWithLifetime(long newStartTime, long newEndTime,
+			String historyTableName, String elementSelection,
+			String[] elementSelectionArgs, ContentValues values) {
+		Long timeStampStart = null;
+		Long timeStampEnd = null;
+		long currentTimeStamp = System.currentTimeMillis();
 		//determine overlapping intervals (if any)
 		String[] selectionArgs = new String[elementSelectionArgs.length+2];
 		String selection = elementSelection + " AND " + COL_TIME_START + " <= ? AND " +
@@ -5633,10 +7824,10 @@ public class PersonalNetwork{
 		for(int i = 0; i < elementSelectionArgs.length; ++i){
 			selectionArgs[i] = elementSelectionArgs[i];
 		}
-		selectionArgs[elementSelectionArgs.length] = Long.toString(interval.getEndTime());
-		selectionArgs[elementSelectionArgs.length+1] = Long.toString(interval.getStartTime());
+		selectionArgs[elementSelectionArgs.length] = Long.toString(newEndTime);
+		selectionArgs[elementSelectionArgs.length+1] = Long.toString(newStartTime);
 		Cursor cursor = db.query(historyTableName, 
-				new String[]{COL_TIME_START, COL_TIME_END, COL_DATUM_ID}, 
+				new String[]{COL_TIME_START, COL_TIME_END, COL_TIMESTAMP_START, COL_TIMESTAMP_END}, 
 				selection, selectionArgs, null, null, null);
 		if(cursor.moveToFirst()){
 			while(!cursor.isAfterLast()){
@@ -5644,18 +7835,14 @@ public class PersonalNetwork{
 				long endTime = cursor.getLong(cursor.getColumnIndexOrThrow(COL_TIME_END));
 				if(overlapOrAreContiguous(startTime, endTime, newStartTime, newEndTime)){
 					//it overlaps the new interval
-					String oldIntervalDatumID = cursor.getString(cursor.getColumnIndexOrThrow(COL_DATUM_ID));
-					String tmpTimeStampStart = getSecondaryAttributeValue(oldIntervalDatumID, 
-							getSecondaryAttributeNameTimestampStart());
-					String tmpTimeStampEnd = getSecondaryAttributeValue(oldIntervalDatumID, 
-							getSecondaryAttributeNameTimestampEnd());
+					Long tmpTimeStampStart = getTimeStamp(cursor, COL_TIMESTAMP_START);
+					Long tmpTimeStampEnd = getTimeStamp(cursor, COL_TIMESTAMP_END);
 					//delete the old interval
 					selection = elementSelection + " AND " + COL_TIME_START + " = ? AND " +
 							COL_TIME_END + " = ? ";
 					selectionArgs[elementSelectionArgs.length] = Long.toString(startTime);
 					selectionArgs[elementSelectionArgs.length+1] = Long.toString(endTime);
-					db.delete(historyTableName, selection, selectionArgs);
-					//TODO: delete associated secondary attributes!!!
+					deleteRowsWithSecondaryAttributeValues(historyTableName, selection, selectionArgs);
 					if(startTime < newStartTime){
 						newStartTime = startTime;
 						timeStampStart = tmpTimeStampStart;
@@ -5676,11 +7863,10 @@ public class PersonalNetwork{
 			timeStampEnd = currentTimeStamp;
 		values.put(COL_TIME_START, newStartTime);
 		values.put(COL_TIME_END, newEndTime);
-		String newDatumID = getNextDatumIDAndIncrement();
-		values.put(COL_DATUM_ID, newDatumID);
+		values.put(COL_DATUM_ID, getNextDatumIDAndIncrement());
+		values.put(COL_TIMESTAMP_START, timeStampStart);
+		values.put(COL_TIMESTAMP_END, timeStampEnd);
 		db.insert(historyTableName, null, values);
-		setSecondaryAttributeValue(newDatumID, getSecondaryAttributeNameTimestampStart(), timeStampStart);
-		setSecondaryAttributeValue(newDatumID, getSecondaryAttributeNameTimestampEnd(), timeStampEnd);
 	}
 
 	/**
@@ -5690,43 +7876,19 @@ public class PersonalNetwork{
 	 */
 	private boolean overlapsLifetime(TimeInterval interval,
 			String historyTableName, String elementSelection,
-			String[] elementSelectionArgs) {
-		String selection = elementSelection + " AND " + COL_TIME_START + " < ?";
-		String[] selectionArgs = new String[elementSelectionArgs.length+1];
-		for(int i = 0; i < elementSelectionArgs.length; ++i){
-			selectionArgs[i] = elementSelectionArgs[i];
-		}
-		selectionArgs[elementSelectionArgs.length] = Long.toString(interval.getEndTime());
-		String orderBy = COL_TIME_START + " DESC";
-		String limit = "1";
-		Cursor cursor = db.query(historyTableName, new String[]{COL_TIME_START, COL_TIME_END}, 
-				selection, selectionArgs, null, null, orderBy, limit);
-		if(cursor.moveToFirst()){
-			// there is an interval below
-			long startTime = cursor.getLong(cursor.getColumnIndexOrThrow(COL_TIME_START));
-			long endTime = cursor.getLong(cursor.getColumnIndexOrThrow(COL_TIME_END));
-			if(overlap(startTime, endTime, interval.getStartTime(), interval.getEndTime())){
-				cursor.close();
-				return true;
-			}
-		}
-		cursor.close();
-		//determine higher interval (if any)
-		selection = elementSelection + " AND " + COL_TIME_START + " > ?";
-		selectionArgs[elementSelectionArgs.length] = Long.toString(interval.getStartTime());
-		orderBy = COL_TIME_START + " ASC";
-		cursor = db.query(historyTableName, new String[]{COL_TIME_START, COL_TIME_END}, 
-				selection, selectionArgs, null, null, orderBy, limit);
-		if(cursor.moveToFirst()){
-			long startTime = cursor.getLong(cursor.getColumnIndexOrThrow(COL_TIME_START));
-			long endTime = cursor.getLong(cursor.getColumnIndexOrThrow(COL_TIME_END));
-			if(overlap(startTime, endTime, interval.getStartTime(), interval.getEndTime())){
-				cursor.close();
+			String[] elementSelectionArgs) {
+		if(activeBatch != null){
+			PendingLifetime pending = activeBatch.pendingLifetimes.get(
+					getPendingLifetimeKey(historyTableName, elementSelectionArgs));
+			if(pending != null && pending.lifetime.overlaps(interval))
 				return true;
-			}
 		}
-		cursor.close();
-		return false;
+		SQLiteStatement statement = statements.get(
+				getOverlapsLifetimeSQL(historyTableName, elementSelection, elementSelectionArgs.length));
+		bindElementSelectionArgs(statement, elementSelectionArgs);
+		statement.bindLong(elementSelectionArgs.length + 1, interval.getStartTime());
+		statement.bindLong(elementSelectionArgs.length + 2, interval.getEndTime());
+		return statement.simpleQueryForLong() > 0;
 	}
 
 	/**
@@ -5738,29 +7900,12 @@ public class PersonalNetwork{
 	private String getLifetimeDatumIDAt(long timePoint,
 			String historyTableName, String elementSelection,
 			String[] elementSelectionArgs) {
-		String selection = elementSelection + " AND " + COL_TIME_START + " <= ?";
-		String[] selectionArgs = new String[elementSelectionArgs.length+1];
-		for(int i = 0; i < elementSelectionArgs.length; ++i){
-			selectionArgs[i] = elementSelectionArgs[i];
-		}
-		selectionArgs[elementSelectionArgs.length] = Long.toString(timePoint);
-		String orderBy = COL_TIME_START + " DESC";
-		String limit = "1";
-		Cursor cursor = db.query(historyTableName, 
-				new String[]{COL_TIME_START, COL_TIME_END, COL_DATUM_ID}, 
-				selection, selectionArgs, null, null, orderBy, limit);
-		if(cursor.moveToFirst()){
-			// there is an interval below
-			long startTime = cursor.getLong(cursor.getColumnIndexOrThrow(COL_TIME_START));
-			long endTime = cursor.getLong(cursor.getColumnIndexOrThrow(COL_TIME_END));
-			if(contains(startTime, endTime, timePoint)){
-				String id = cursor.getString(cursor.getColumnIndexOrThrow(COL_DATUM_ID));
-				cursor.close();
-				return id;
-			}
-		}
-		cursor.close();
-		return null;
+		flushPendingLifetimes();
+		SQLiteStatement statement = statements.get(getColumnAtSQL(COL_DATUM_ID, 
+				historyTableName, elementSelection, elementSelectionArgs.length));
+		bindElementSelectionArgs(statement, elementSelectionArgs);
+		statement.bindLong(elementSelectionArgs.length + 1, timePoint);
+		return simpleQueryForStringOrNull(statement);
 	}
 
 	/**
@@ -5818,17 +7963,19 @@ public class PersonalNetwork{
 	 * 
 	 * The content values must have set all columns that identify the attribute/element pair so that
 	 * new rows can be inserted after the start and end times have been set appropriately.
+	 * 
+	 * The values are stored as required by the type of the given attribute (see putAttributeValue).
 	 *
 	 */
-	private void setAttributeValueAt(TimeInterval interval, String textValue,
-			String valueHistoryTableName, String elementSelection,
+	private void setAttributeValueAt(TimeInterval interval, String textValue, 
+			String domain, String attributeName, String valueHistoryTableName, String elementSelection,
 			String[] elementSelectionArgs, ContentValues dbContentValues) {
 		long newStartTime = interval.getStartTime();
 		long newEndTime = interval.getEndTime();
-		String currentTimeStamp = Long.toString(System.currentTimeMillis()); //used as time stamps for newly created interval times
-		String newTimeStampStart = currentTimeStamp;//might be set to an older timestamp if... 
+		long currentTimeStamp = System.currentTimeMillis(); //used as time stamps for newly created interval times
+		Long newTimeStampStart = currentTimeStamp;//might be set to an older timestamp if... 
 		//...the new value is equal to an old value of an overlaping interval										
-		String newTimeStampEnd = currentTimeStamp;//dito
+		Long newTimeStampEnd = currentTimeStamp;//dito
 		//determine overlapping intervals (if any)
 		String[] selectionArgs = new String[elementSelectionArgs.length+2];
 		String selection = elementSelection + " AND " + COL_TIME_START + " <= ? AND " +
@@ -5840,8 +7987,8 @@ public class PersonalNetwork{
 		selectionArgs[elementSelectionArgs.length+1] = Long.toString(newStartTime);
 		Cursor cursor = db.query(valueHistoryTableName, 
 				new String[]{COL_TIME_START, COL_TIME_END, 
-				COL_DATUM_ID,
-				ATTRIBUTES_COL_VALUE}, 
+				COL_TIMESTAMP_START, COL_TIMESTAMP_END,
+				getDecodedValueColumn(valueHistoryTableName)}, 
 				selection, selectionArgs, null, null, null);
 		if(cursor.moveToFirst()){			
 			while(!cursor.isAfterLast()){
@@ -5855,29 +8002,23 @@ public class PersonalNetwork{
 						return;
 					}
 					String oldValue = cursor.getString(cursor.getColumnIndexOrThrow(ATTRIBUTES_COL_VALUE));
-					String oldDatumID = cursor.getString(cursor.getColumnIndexOrThrow(COL_DATUM_ID));
-					String oldTimeStampStart = getSecondaryAttributeValue(oldDatumID, 
-							getSecondaryAttributeNameTimestampStart());
-					String oldTimeStampEnd = getSecondaryAttributeValue(oldDatumID, 
-							getSecondaryAttributeNameTimestampEnd());
+					Long oldTimeStampStart = getTimeStamp(cursor, COL_TIMESTAMP_START);
+					Long oldTimeStampEnd = getTimeStamp(cursor, COL_TIMESTAMP_END);
 					selection = elementSelection + " AND " + COL_TIME_START + " = ? AND " +
 							COL_TIME_END + " = ? ";
 					selectionArgs[elementSelectionArgs.length] = Long.toString(oldStartTime);
 					selectionArgs[elementSelectionArgs.length+1] = Long.toString(oldEndTime);
-					db.delete(valueHistoryTableName, selection, selectionArgs);//delete the old interval
-					//TODO: delete associated secondary attributes!!!
+					//delete the old interval
+					deleteRowsWithSecondaryAttributeValues(valueHistoryTableName, selection, selectionArgs);
 					if(oldStartTime < newStartTime){//something remains on the left-hand side
 						if(!oldValue.equals(textValue)){
 							dbContentValues.put(COL_TIME_START, oldStartTime);
 							dbContentValues.put(COL_TIME_END, newStartTime);
-							dbContentValues.put(ATTRIBUTES_COL_VALUE, oldValue);
-							String newDatumID = getNextDatumIDAndIncrement();
-							dbContentValues.put(COL_DATUM_ID, newDatumID);
+							putAttributeValue(dbContentValues, domain, attributeName, oldValue);
+							dbContentValues.put(COL_DATUM_ID, getNextDatumIDAndIncrement());
+							dbContentValues.put(COL_TIMESTAMP_START, oldTimeStampStart);//that's the old setting
+							dbContentValues.put(COL_TIMESTAMP_END, currentTimeStamp);//that's a new setting
 							db.insert(valueHistoryTableName, null, dbContentValues);
-							setSecondaryAttributeValue(newDatumID, 
-									getSecondaryAttributeNameTimestampStart(), oldTimeStampStart);//that's the old setting
-							setSecondaryAttributeValue(newDatumID, 
-									getSecondaryAttributeNameTimestampEnd(), currentTimeStamp);//that's a new setting
 						} else {//equal values ==> union the intervals (will be inserted later)
 							newStartTime = oldStartTime;
 							newTimeStampStart = oldTimeStampStart;
@@ -5887,16 +8028,11 @@ public class PersonalNetwork{
 						if(!oldValue.equals(textValue)){
 							dbContentValues.put(COL_TIME_START, newEndTime);
 							dbContentValues.put(COL_TIME_END, oldEndTime);
-							dbContentValues.put(ATTRIBUTES_COL_VALUE, oldValue);
-							String newDatumID = getNextDatumIDAndIncrement();
-							dbContentValues.put(COL_DATUM_ID, newDatumID);
+							putAttributeValue(dbContentValues, domain, attributeName, oldValue);
+							dbContentValues.put(COL_DATUM_ID, getNextDatumIDAndIncrement());
+							dbContentValues.put(COL_TIMESTAMP_START, currentTimeStamp);//that's a new setting
+							dbContentValues.put(COL_TIMESTAMP_END, oldTimeStampEnd);//that's the old setting
 							db.insert(valueHistoryTableName, null, dbContentValues);
-							setSecondaryAttributeValue(newDatumID, 
-									getSecondaryAttributeNameTimestampStart(), 
-									currentTimeStamp);//that's a new setting
-							setSecondaryAttributeValue(newDatumID, 
-									getSecondaryAttributeNameTimestampEnd(), 
-									oldTimeStampEnd);//that's the old setting
 						} else {//equal values ==> union the intervals (will be inserted later)
 							newEndTime = oldEndTime;
 							newTimeStampEnd = oldTimeStampEnd;
@@ -5911,19 +8047,595 @@ public class PersonalNetwork{
 		if(textValue != null && textValue.trim().length() > 0 && !textValue.equals(PersonalNetwork.VALUE_NOT_ASSIGNED)){
 			dbContentValues.put(COL_TIME_START, newStartTime);
 			dbContentValues.put(COL_TIME_END, newEndTime);
-			dbContentValues.put(ATTRIBUTES_COL_VALUE, textValue);
-			String newDatumID = getNextDatumIDAndIncrement();
-			dbContentValues.put(COL_DATUM_ID, newDatumID);
+			putAttributeValue(dbContentValues, domain, attributeName, textValue);
+			dbContentValues.put(COL_DATUM_ID, getNextDatumIDAndIncrement());
+			dbContentValues.put(COL_TIMESTAMP_START, newTimeStampStart);
+			dbContentValues.put(COL_TIMESTAMP_END, newTimeStampEnd);
 			db.insert(valueHistoryTableName, null, dbContentValues);
-			setSecondaryAttributeValue(newDatumID, 
-					getSecondaryAttributeNameTimestampStart(), 
-					newTimeStampStart);
-			setSecondaryAttributeValue(newDatumID, 
-					getSecondaryAttributeNameTimestampEnd(), 
-					newTimeStampEnd);
 		}
 	}
 
+	/*
+	 * Returns true if the values of the given attribute are stored only once for the two dyads 
+	 * of a pair, i.e., if it is a symmetric ego-alter or alter-alter attribute (see getStoredElement).
+	 */
+	private boolean isStoredOncePerDyad(String domain, String attributeName){
+		return (PersonalNetwork.DOMAIN_EGO_ALTER.equals(domain) || PersonalNetwork.DOMAIN_ALTER_ALTER.equals(domain)) && 
+				PersonalNetwork.DYAD_DIRECTION_SYMMETRIC.equals(getAttributeDirectionType(domain, attributeName));
+	}
+
+	/*
+	 * Returns the element for which the values of the given attribute of the given element are stored. 
+	 * The values of symmetric attributes are stored for the outward ego-alter dyad, respectively 
+	 * for the alter-alter dyad whose source has the smaller alter id; all other values are stored 
+	 * for the element itself.
+	 */
+	private Element getStoredElement(Element element, String attributeName){
+		if(!isStoredOncePerDyad(element.getDomain(), attributeName))
+			return element;
+		if(element instanceof EgoAlterDyad){
+			if(PersonalNetwork.DYAD_DIRECTION_IN.equals(((EgoAlterDyad) element).getDirection()))
+				return element.getReverseElement();
+			return element;
+		}
+		AlterAlterDyad dyad = (AlterAlterDyad) element;
+		if(getAlterID(dyad.getSourceName()) > getAlterID(dyad.getTargetName()))
+			return element.getReverseElement();
+		return element;
+	}
+
+	/*
+	 * Puts the value of the given attribute into the content values of a row of a values table. 
+	 * For attributes of type number the value is also put as REAL into the number column; for attributes 
+	 * of type choice the code of the choice is put instead of the value (if the value is a choice).
+	 */
+	private void putAttributeValue(ContentValues values, String domain, String attributeName, String textValue){
+		int valueType = getAttributeValueType(domain, attributeName);
+		Double number = null;
+		if(valueType == PersonalNetwork.ATTRIB_TYPE_NUMBER)
+			number = parseNumber(textValue);
+		Long code = null;
+		if(valueType == PersonalNetwork.ATTRIB_TYPE_FINITE_CHOICE){
+			long choiceCode = attributeCatalog.getChoiceCode(domain, attributeName, textValue);
+			if(choiceCode >= 0){
+				code = choiceCode;
+				textValue = null;
+			}
+		}
+		values.put(ATTRIBUTES_COL_VALUE, textValue);
+		values.put(ATTRIBUTES_COL_NUMBER, number);
+		values.put(ATTRIBUTES_COL_CHOICE_CODE, code);
+	}
+
+	/*
+	 * Returns the value parsed as a number or null if it is not a number (then the value of an attribute
+	 * of type number is only stored as text).
+	 */
+	private static Double parseNumber(String textValue){
+		if(textValue == null)
+			return null;
+		try{
+			return Double.valueOf(textValue.trim());
+		} catch(NumberFormatException e){
+			return null;
+		}
+	}
+
+	/*
+	 * Sets the number column of the rows of the given values table satisfying the selection to their 
+	 * values parsed by parseNumber (as putAttributeValue does); rows whose values are not numbers get NULL.
+	 * 
+	 * The values are parsed in Java since CAST(... AS REAL) turns any text into a number (e.g., 'abc' 
+	 * into 0.0 and '12abc' into 12.0).
+	 */
+	private static void fillNumberColumn(SQLiteDatabase localDB, String valuesTableName, 
+			String selection, String[] selectionArgs){
+		localDB.execSQL("UPDATE " + valuesTableName + " SET " + ATTRIBUTES_COL_NUMBER + " = NULL" + 
+				" WHERE " + selection, selectionArgs);
+		SQLiteStatement update = localDB.compileStatement("UPDATE " + valuesTableName + 
+				" SET " + ATTRIBUTES_COL_NUMBER + " = ? WHERE rowid = ?");
+		Cursor c = localDB.query(valuesTableName, new String[]{"rowid", ATTRIBUTES_COL_VALUE}, 
+				ATTRIBUTES_COL_VALUE + " IS NOT NULL AND " + selection, selectionArgs, null, null, null);
+		c.moveToFirst();
+		while(!c.isAfterLast()){
+			Double number = parseNumber(c.getString(1));
+			if(number != null){
+				update.bindDouble(1, number);
+				update.bindLong(2, c.getLong(0));
+				update.executeUpdateDelete();
+			}
+			c.moveToNext();
+		}
+		c.close();
+		update.close();
+	}
+
+	/*
+	 * Returns the SQL expression for the value of the given row (a table name, alias, NEW, or OLD) of 
+	 * the given values table. Values of choice attributes stored as codes are decoded by looking up
+	 * the code in the choices table.
+	 */
+	private String getDecodedValueSQL(String valuesTableName, String row){
+		String choicesTableName;
+		if(EGO_ATTRIBS_VALUES_TABLE_NAME.equals(valuesTableName))
+			choicesTableName = EGO_ATTRIBS_CHOICES_TABLE_NAME;
+		else if(ALTER_ATTRIBS_VALUES_TABLE_NAME.equals(valuesTableName))
+			choicesTableName = ALTER_ATTRIBS_CHOICES_TABLE_NAME;
+		else if(EGO_ALTER_ATTRIBS_VALUES_TABLE_NAME.equals(valuesTableName))
+			choicesTableName = EGO_ALTER_ATTRIBS_CHOICES_TABLE_NAME;
+		else
+			choicesTableName = ALTER_ALTER_ATTRIBS_CHOICES_TABLE_NAME;
+		return "COALESCE(" + row + "." + ATTRIBUTES_COL_VALUE + ", (SELECT " + ATTRIBUTES_COL_CHOICE + 
+				" FROM " + choicesTableName + " WHERE " + choicesTableName + "." + ATTRIBUTES_COL_CHOICE_CODE + 
+				" = " + row + "." + ATTRIBUTES_COL_CHOICE_CODE + "))";
+	}
+
+	/*
+	 * Returns the projection of the decoded values of the given values table as the column attribute_value.
+	 */
+	private String getDecodedValueColumn(String valuesTableName){
+		return getDecodedValueSQL(valuesTableName, valuesTableName) + " AS " + ATTRIBUTES_COL_VALUE;
+	}
+
+	/*
+	 * Returns the statement replacing the values (in the values table of the given domain) that are choices 
+	 * of their attribute by the codes of the choices; only rows satisfying the given condition are changed.
+	 */
+	private String getEncodeChoicesSQL(String domain, String condition){
+		String valuesTableName = getAttributeValuesTableNameForDomain(domain);
+		String choicesTableName = getAttributeChoicesTableNameForDomain(domain);
+		String choiceOfValue = " FROM " + choicesTableName + 
+				" WHERE " + choicesTableName + "." + ATTRIBUTES_COL_NAME + " = " + 
+				valuesTableName + "." + ATTRIBUTES_COL_NAME + 
+				" AND " + choicesTableName + "." + ATTRIBUTES_COL_CHOICE + " = " + 
+				valuesTableName + "." + ATTRIBUTES_COL_VALUE;
+		return "UPDATE " + valuesTableName + 
+				" SET " + ATTRIBUTES_COL_CHOICE_CODE + " = (SELECT " + ATTRIBUTES_COL_CHOICE_CODE + choiceOfValue + ")" + 
+				", " + ATTRIBUTES_COL_VALUE + " = NULL" + 
+				" WHERE " + ATTRIBUTES_COL_VALUE + " IS NOT NULL AND " + condition + 
+				" AND EXISTS (SELECT 1" + choiceOfValue + ")";
+	}
+
+	/*
+	 * Returns the time stamp in the given column of the cursor at its current position or null
+	 * if no time stamp is set (as for rows written before database version 5 without time stamps). 
+	 */
+	private static Long getTimeStamp(Cursor cursor, String columnName){
+		int columnIndex = cursor.getColumnIndexOrThrow(columnName);
+		if(cursor.isNull(columnIndex))
+			return null;
+		return cursor.getLong(columnIndex);
+	}
+
+	/*
+	 * Deletes the rows selected from the given history or value table together with the values of 
+	 * secondary attributes attached to them (via their datum ids).
+	 */
+	private void deleteRowsWithSecondaryAttributeValues(String tableName, String selection, String[] selectionArgs){
+		SQLiteStatement statement = statements.get("DELETE FROM " + SECONDARY_ATTRIBS_VALUES_TABLE_NAME + 
+				" WHERE " + COL_DATUM_ID + " IN (" +
+				"SELECT CAST(" + COL_DATUM_ID + " AS TEXT) FROM " + tableName + " WHERE " + selection + ")");
+		bindElementSelectionArgs(statement, selectionArgs);
+		statement.executeUpdateDelete();
+		statement = statements.get("DELETE FROM " + tableName + " WHERE " + selection);
+		bindElementSelectionArgs(statement, selectionArgs);
+		statement.executeUpdateDelete();
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	//COMPILED STATEMENTS
+	//////////////////////////////////////////////////////////////////////////
+
+	/*
+	 * The SQL of the statements depends only on the table, the element selection, and the number of 
+	 * its arguments, so that it can be compiled once and reused (see StatementRegistry). Parameters 
+	 * are numbered: the element selection arguments are bound to the parameters 1..n and the times
+	 * (as longs) to the parameters following them.
+	 */
+
+	/*
+	 * SQL returning the number (0 or 1) of ties from the source with id ?1 to the target with id ?2.
+	 */
+	private String getHasTieSQL(){
+		return "SELECT COUNT(*) FROM " + TIES_TABLE_NAME + " WHERE " + 
+				DYADS_COL_SOURCE + " = ?1 AND " + DYADS_COL_TARGET + " = ?2";
+	}
+
+	/*
+	 * SQL returning 1 if the lifetime of the selected element overlaps the interval [?(n+1), ?(n+2)]
+	 * and 0 otherwise. Like before, only the last interval starting before the end and the first interval 
+	 * starting after the start of the given interval are checked.
+	 */
+	private String getOverlapsLifetimeSQL(String historyTableName, String elementSelection, int numberOfArgs){
+		String selection = getNumberedSelection(elementSelection);
+		String start = "?" + (numberOfArgs + 1);
+		String end = "?" + (numberOfArgs + 2);
+		return "SELECT COUNT(*) FROM (" +
+				"SELECT * FROM (SELECT " + COL_TIME_START + ", " + COL_TIME_END + " FROM " + historyTableName + 
+				" WHERE " + selection + " AND " + COL_TIME_START + " < " + end + 
+				" ORDER BY " + COL_TIME_START + " DESC LIMIT 1) " +
+				"UNION ALL " +
+				"SELECT * FROM (SELECT " + COL_TIME_START + ", " + COL_TIME_END + " FROM " + historyTableName + 
+				" WHERE " + selection + " AND " + COL_TIME_START + " > " + start + 
+				" ORDER BY " + COL_TIME_START + " ASC LIMIT 1)" +
+				") WHERE " + getOverlapCondition(start, end);
+	}
+
+	/*
+	 * SQL returning the given column of the interval of the selected element that contains the 
+	 * time point ?(n+1); returns NULL if the interval starting last before (or at) that time point 
+	 * does not contain it and no row if there is no such interval.
+	 */
+	private String getColumnAtSQL(String column, String tableName, String elementSelection, int numberOfArgs){
+		String timePoint = "?" + (numberOfArgs + 1);
+		return "SELECT CASE WHEN " + getOverlapCondition(timePoint, timePoint) + 
+				" THEN " + column + " END FROM " + tableName + 
+				" WHERE " + getNumberedSelection(elementSelection) + " AND " + COL_TIME_START + " <= " + timePoint + 
+				" ORDER BY " + COL_TIME_START + " DESC LIMIT 1";
+	}
+
+	/*
+	 * Returns the number of distinct values of the given element columns in the rows of the given 
+	 * history table whose interval overlaps the given interval (without reading the rows).
+	 */
+	private int countDistinctElementsAt(String tableName, String elementColumns, TimeInterval interval){
+		SQLiteStatement statement = statements.get(getCountDistinctElementsAtSQL(tableName, elementColumns, null));
+		statement.bindLong(1, interval.getStartTime());
+		statement.bindLong(2, interval.getEndTime());
+		return (int) statement.simpleQueryForLong();
+	}
+
+	/*
+	 * SQL returning the number of distinct values of the given columns in the rows of the table whose 
+	 * interval overlaps the interval [?1, ?2] and that satisfy the given selection (if not null; its
+	 * parameters must be numbered from ?3 on). The overlapping rows are found with the indexes on the 
+	 * element columns and the times.
+	 */
+	private String getCountDistinctElementsAtSQL(String tableName, String columns, String selection){
+		String where = getOverlapSelection(1);
+		if(selection != null)
+			where = selection + " AND " + where;
+		return "SELECT COUNT(*) FROM (SELECT DISTINCT " + columns + " FROM " + tableName + 
+				" WHERE " + where + ")";
+	}
+
+	/*
+	 * Selection arguments (source, target) selecting the row that stores the ties or dyads between 
+	 * the given alters: pairs are stored once with the smaller alter id as source.
+	 */
+	private String[] getDyadSelectionArgs(String sourceName, String targetName){
+		long sourceID = getAlterID(sourceName);
+		long targetID = getAlterID(targetName);
+		return new String[]{Long.toString(Math.min(sourceID, targetID)), Long.toString(Math.max(sourceID, targetID))};
+	}
+
+	/*
+	 * Content values of the row that stores the ties or dyads between the given alters 
+	 * (see getDyadSelectionArgs).
+	 */
+	private ContentValues getDyadContentValues(String sourceName, String targetName){
+		long sourceID = getAlterID(sourceName);
+		long targetID = getAlterID(targetName);
+		ContentValues values = new ContentValues();
+		values.put(DYADS_COL_SOURCE, Math.min(sourceID, targetID));
+		values.put(DYADS_COL_TARGET, Math.max(sourceID, targetID));
+		return values;
+	}
+
+	/*
+	 * SQL selecting the ordered pairs in both directions (as columns source and target) from the rows 
+	 * of the given ties or dyads table satisfying the given selection (or all rows if it is null).
+	 */
+	private static String getDirectedPairsSQL(String tableName, String selection){
+		String where = selection == null ? "" : " WHERE " + selection;
+		return "SELECT " + DYADS_COL_SOURCE + ", " + DYADS_COL_TARGET + " FROM " + tableName + where + 
+				" UNION SELECT " + DYADS_COL_TARGET + ", " + DYADS_COL_SOURCE + " FROM " + tableName + where;
+	}
+
+	/*
+	 * SQL selecting the alters (as column target) that are paired with the alter with id ?1 in the rows 
+	 * of the given ties or dyads table satisfying the given further selection (if not null); 
+	 * the alter can be the source or the target of a row.
+	 */
+	private static String getNeighborsSQL(String tableName, String selection){
+		String where = "(" + DYADS_COL_SOURCE + " = ?1 OR " + DYADS_COL_TARGET + " = ?1)";
+		if(selection != null)
+			where += " AND " + selection;
+		return "SELECT DISTINCT CASE WHEN " + DYADS_COL_SOURCE + " = ?1 THEN " + DYADS_COL_TARGET + 
+				" ELSE " + DYADS_COL_SOURCE + " END AS " + DYADS_COL_TARGET + 
+				" FROM " + tableName + " WHERE " + where;
+	}
+
+	/*
+	 * Columns identifying undirected pairs of alters in a ties or dyads table (in which every pair is 
+	 * stored once with the smaller alter id as source).
+	 */
+	private static String getUndirectedPairColumns(){
+		return DYADS_COL_SOURCE + ", " + DYADS_COL_TARGET;
+	}
+
+	/*
+	 * Selection of the rows whose interval overlaps the interval [start, end], where start and end
+	 * are the selection arguments with the numbers startParameter and startParameter+1 (see 
+	 * getSelectionArgsWithInterval). The first two conditions let SQLite use the indexes on the times; 
+	 * the rows do not have to be checked again in Java.
+	 */
+	private static String getOverlapSelection(int startParameter){
+		String start = "?" + startParameter;
+		String end = "?" + (startParameter + 1);
+		return COL_TIME_START + " <= " + end + " AND " + COL_TIME_END + " >= " + start + 
+				" AND " + getOverlapCondition(start, end);
+	}
+
+	/*
+	 * Like getOverlapSelection(startParameter) but lets SQLite find the candidate rows of the given 
+	 * table with its temporal index (if any). Rows without datum id are not in the temporal index.
+	 */
+	private String getOverlapSelection(String tableName, int startParameter){
+		String selection = getOverlapSelection(startParameter);
+		if(!hasTemporalIndex)
+			return selection;
+		String start = "?" + startParameter;
+		String end = "?" + (startParameter + 1);
+		return "(" + COL_DATUM_ID + " IN (SELECT " + TEMPORAL_INDEX_COL_ID + 
+				" FROM " + tableName + TEMPORAL_INDEX_SUFFIX + 
+				" WHERE " + COL_TIME_START + " <= " + end + " AND " + COL_TIME_END + " >= " + start + ")" +
+				" OR " + COL_DATUM_ID + " IS NULL) AND " + selection;
+	}
+
+	/*
+	 * Returns the given selection arguments followed by the start and the end of the interval.
+	 */
+	private static String[] getSelectionArgsWithInterval(String[] selectionArgs, TimeInterval interval){
+		String[] args = new String[selectionArgs.length + 2];
+		for(int i = 0; i < selectionArgs.length; ++i){
+			args[i] = selectionArgs[i];
+		}
+		args[selectionArgs.length] = Long.toString(interval.getStartTime());
+		args[selectionArgs.length + 1] = Long.toString(interval.getEndTime());
+		return args;
+	}
+
+	/*
+	 * SQL condition that is true if the interval of the row overlaps the interval with the given 
+	 * start and end (parameters or values). 
+	 * 
+	 * Same behavior as overlap(time_start, time_end, start, end) and, for start == end, as 
+	 * contains(time_start, time_end, start).
+	 */
+	private static String getOverlapCondition(String start, String end){
+		return "(CASE WHEN " + COL_TIME_START + " = " + COL_TIME_END + " AND " + start + " = " + end + 
+				" THEN " + COL_TIME_START + " = " + start +
+				" WHEN " + COL_TIME_START + " = " + COL_TIME_END + 
+				" THEN " + COL_TIME_START + " < " + end + " AND " + start + " <= " + COL_TIME_END +
+				" WHEN " + start + " = " + end + 
+				" THEN " + COL_TIME_START + " <= " + end + " AND " + start + " < " + COL_TIME_END +
+				" ELSE " + COL_TIME_START + " < " + end + " AND " + start + " < " + COL_TIME_END + " END)";
+	}
+
+	/*
+	 * Replaces the parameters ? in the given selection by the numbered parameters ?1, ?2, ..., so 
+	 * that the selection can be used more than once in a statement.
+	 */
+	private static String getNumberedSelection(String selection){
+		StringBuilder numbered = new StringBuilder();
+		int parameter = 0;
+		for(int i = 0; i < selection.length(); ++i){
+			char c = selection.charAt(i);
+			numbered.append(c);
+			if(c == '?')
+				numbered.append(++parameter);
+		}
+		return numbered.toString();
+	}
+
+	/*
+	 * Binds the given selection arguments to the first parameters of the statement.
+	 */
+	private static void bindElementSelectionArgs(SQLiteStatement statement, String[] selectionArgs){
+		for(int i = 0; i < selectionArgs.length; ++i){
+			statement.bindString(i + 1, selectionArgs[i]);
+		}
+	}
+
+	/*
+	 * Returns the string in the first column of the first row returned by the statement or null if 
+	 * it does not return any row.
+	 */
+	private static String simpleQueryForStringOrNull(SQLiteStatement statement){
+		try {
+			return statement.simpleQueryForString();
+		} catch (SQLiteDoneException e) {
+			return null;
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	//MAINTENANCE (called by DatabaseMaintenance in a background thread)
+	//////////////////////////////////////////////////////////////////////////
+
+	//value of the pragma auto_vacuum for incremental auto-vacuum
+	private static final int AUTO_VACUUM_INCREMENTAL = 2;
+	//maximal number of pages of a database that is switched to incremental auto-vacuum in the background
+	private static final int MAX_PAGES_TO_SWITCH_AUTO_VACUUM = 256;
+
+	/*
+	 * Checks the (at most maxRows) values of secondary attributes with the smallest rowids greater than 
+	 * afterRowID and deletes those whose datum id does not belong to any row of a history or value table. 
+	 * 
+	 * Returns the largest checked rowid or -1 if no rows have been left to check.
+	 */
+	long deleteUnreachableSecondaryAttributeValues(long afterRowID, int maxRows, MaintenanceReport report){
+		long lastRowID = -1;
+		db.beginTransaction();
+		try{
+			Cursor c = db.rawQuery("SELECT MAX(rowid) FROM (SELECT rowid FROM " + SECONDARY_ATTRIBS_VALUES_TABLE_NAME + 
+					" WHERE rowid > ? ORDER BY rowid LIMIT " + maxRows + ")", 
+					new String[]{Long.toString(afterRowID)});
+			if(c.moveToFirst() && !c.isNull(0))
+				lastRowID = c.getLong(0);
+			c.close();
+			if(lastRowID >= 0){
+				//the datum ids of secondary values are converted to numbers so that the datum id indexes are used
+				StringBuilder selection = new StringBuilder("rowid > ? AND rowid <= ?");
+				for(String tableName : DATUM_ID_TABLE_NAMES){
+					selection.append(" AND NOT EXISTS (SELECT 1 FROM ").append(tableName).append(" t")
+					.append(" WHERE t.").append(COL_DATUM_ID).append(" = ")
+					.append(SECONDARY_ATTRIBS_VALUES_TABLE_NAME).append(".").append(COL_DATUM_ID).append(")");
+				}
+				report.addDeletedSecondaryAttributeValues(db.delete(SECONDARY_ATTRIBS_VALUES_TABLE_NAME, 
+						selection.toString(), new String[]{Long.toString(afterRowID), Long.toString(lastRowID)}));
+			}
+			db.setTransactionSuccessful();
+		} finally {
+			db.endTransaction();
+		}
+		return lastRowID;
+	}
+
+	/*
+	 * Checks the (at most maxRows) attribute values of the given domain with the smallest rowids greater than 
+	 * afterRowID and merges each of them with the following intervals of the same attribute and element 
+	 * that have the same value and are contiguous with it (i.e., start at its end time). The merged row keeps 
+	 * the datum id and the secondary attributes of the first row; rows having secondary attributes
+	 * are not merged into the row before them. Time points are never merged (Lifetime.union would
+	 * let an interval absorb a point at its end).
+	 * 
+	 * Returns the largest checked rowid or -1 if no rows have been left to check.
+	 */
+	long coalesceAttributeValues(String domain, long afterRowID, int maxRows, MaintenanceReport report){
+		String tableName = getAttributeValuesTableNameForDomain(domain);
+		String[] elementColumns = getElementColumnsForDomain(domain);
+		String[] columns = new String[elementColumns.length + 5];
+		columns[0] = "rowid";
+		columns[1] = ATTRIBUTES_COL_NAME;
+		columns[2] = getDecodedValueColumn(tableName);
+		columns[3] = COL_TIME_START;
+		columns[4] = COL_TIME_END;
+		System.arraycopy(elementColumns, 0, columns, 5, elementColumns.length);
+		//selects the contiguous intervals following a given one without secondary attributes 
+		StringBuilder nextSelection = new StringBuilder(ATTRIBUTES_COL_NAME + " = ?");
+		for(String column : elementColumns){
+			nextSelection.append(" AND ").append(column).append(" = ?");
+		}
+		nextSelection.append(" AND ").append(getDecodedValueSQL(tableName, tableName)).append(" = ?")
+		.append(" AND ").append(COL_TIME_START).append(" = ?")
+		.append(" AND ").append(COL_TIME_START).append(" < ").append(COL_TIME_END)
+		.append(" AND NOT EXISTS (SELECT 1 FROM ").append(SECONDARY_ATTRIBS_VALUES_TABLE_NAME).append(" s")
+		.append(" WHERE s.").append(COL_DATUM_ID).append(" = CAST(")
+		.append(tableName).append(".").append(COL_DATUM_ID).append(" AS TEXT))");
+		String[] nextSelectionArgs = new String[elementColumns.length + 3];
+		String[] nextColumns = {"rowid", COL_TIME_END, COL_TIMESTAMP_END};
+		HashSet<Long> deletedRowIDs = new HashSet<Long>();
+		long lastRowID = -1;
+		db.beginTransaction();
+		try{
+			Cursor c = db.query(tableName, columns, "rowid > ?", new String[]{Long.toString(afterRowID)}, 
+					null, null, "rowid ASC", Integer.toString(maxRows));
+			if(c.moveToFirst()){
+				while(!c.isAfterLast()){
+					long rowID = c.getLong(0);
+					lastRowID = rowID;
+					long endTime = c.getLong(4);
+					if(c.getLong(3) < endTime && !deletedRowIDs.contains(rowID)){
+						nextSelectionArgs[0] = c.getString(1);
+						for(int i = 0; i < elementColumns.length; ++i){
+							nextSelectionArgs[i + 1] = c.getString(i + 5);
+						}
+						nextSelectionArgs[elementColumns.length + 1] = c.getString(2);
+						long mergedEndTime = endTime;
+						Long mergedTimeStampEnd = null;
+						boolean merged = false;
+						boolean found = true;
+						while(found){
+							nextSelectionArgs[elementColumns.length + 2] = Long.toString(mergedEndTime);
+							Cursor next = db.query(tableName, nextColumns, nextSelection.toString(), nextSelectionArgs, 
+									null, null, null, "1");
+							found = next.moveToFirst();
+							if(found){
+								long nextRowID = next.getLong(0);
+								mergedEndTime = next.getLong(1);
+								mergedTimeStampEnd = getTimeStamp(next, COL_TIMESTAMP_END);
+								db.delete(tableName, "rowid = ?", new String[]{Long.toString(nextRowID)});
+								deletedRowIDs.add(nextRowID);
+								report.addCoalescedAttributeValues(1);
+								merged = true;
+							}
+							next.close();
+						}
+						if(merged){
+							ContentValues values = new ContentValues();
+							values.put(COL_TIME_END, mergedEndTime);
+							values.put(COL_TIMESTAMP_END, mergedTimeStampEnd);
+							db.update(tableName, values, "rowid = ?", new String[]{Long.toString(rowID)});
+						}
+					}
+					c.moveToNext();
+				}
+			}
+			c.close();
+			db.setTransactionSuccessful();
+		} finally {
+			db.endTransaction();
+		}
+		return lastRowID;
+	}
+
+	/*
+	 * Returns at most maxPages free pages of the database file to the file system and returns the number
+	 * of bytes by which the file has shrunk.
+	 * 
+	 * Pages can only be returned incrementally if the database uses incremental auto-vacuum. A database 
+	 * that does not is switched to it by the first call, which has to rebuild the whole file (VACUUM)
+	 * and the search index in one step; this is done only for files of at most 
+	 * MAX_PAGES_TO_SWITCH_AUTO_VACUUM pages, so that the database is not locked for long. Larger files 
+	 * are not compacted, which is recorded in the report.
+	 */
+	long vacuumIncrementally(int maxPages, MaintenanceReport report){
+		long pageSize = getPragmaValue("page_size");
+		if(getPragmaValue("auto_vacuum") != AUTO_VACUUM_INCREMENTAL){
+			long pageCount = getPragmaValue("page_count");
+			if(pageCount > MAX_PAGES_TO_SWITCH_AUTO_VACUUM){
+				report.setNotCompacted();
+				return 0;
+			}
+			db.execSQL("PRAGMA auto_vacuum = " + AUTO_VACUUM_INCREMENTAL + ";");
+			db.execSQL("VACUUM;");
+			//the file may grow by the pages that auto-vacuum needs for its bookkeeping
+			long reclaimedBytes = Math.max(0, pageCount - getPragmaValue("page_count")) * pageSize;
+			//VACUUM renumbers the rows of tables without INTEGER PRIMARY KEY, whose rowids are 
+			//part of the docids of the search index
+			db.beginTransaction();
+			try {
+				helper.rebuildSearchIndex(db);
+				db.setTransactionSuccessful();
+			} finally {
+				db.endTransaction();
+			}
+			return reclaimedBytes;
+		}
+		long freePages = getPragmaValue("freelist_count");
+		if(freePages == 0)
+			return 0;
+		//the pragma frees one page per step; reading the result runs it to completion
+		Cursor c = db.rawQuery("PRAGMA incremental_vacuum(" + maxPages + ");", null);
+		c.getCount();
+		c.close();
+		return (freePages - getPragmaValue("freelist_count")) * pageSize;
+	}
+
+	/*
+	 * Returns the value of the given pragma (which must be a number).
+	 */
+	private long getPragmaValue(String pragma){
+		Cursor c = db.rawQuery("PRAGMA " + pragma + ";", null);
+		long value = 0;
+		if(c.moveToFirst())
+			value = c.getLong(0);
+		c.close();
+		return value;
+	}
+
 	/**
 	 * Returns the value of all attributes for the element specified by the table name and 
 	 * selection string at the given time point.
@@ -5934,31 +8646,23 @@ public class PersonalNetwork{
 	 */
 	private LinkedHashMap<String, String> getValuesOfAllAttributesAt(long timePoint, String valueHistoryTableName, 
 			String elementSelection, String[] elementSelectionArgs){
-		String[] selectionArgs = new String[elementSelectionArgs.length+2];
+		String[] selectionArgs = getSelectionArgsWithInterval(elementSelectionArgs, 
+				TimeInterval.getTimePoint(timePoint));
 		String selection;
 		if(elementSelectionArgs.length > 0)
-			selection = elementSelection + " AND " + COL_TIME_START + " <= ? AND " + COL_TIME_END + " >= ?";
+			selection = elementSelection + " AND " + getOverlapSelection(elementSelectionArgs.length + 1);
 		else //happens for the element ego
-			selection = COL_TIME_START + " <= ? AND " + COL_TIME_END + " >= ?";
-		for(int i = 0; i < elementSelectionArgs.length; ++i){
-			selectionArgs[i] = elementSelectionArgs[i];
-		}
-		selectionArgs[elementSelectionArgs.length] = Long.toString(timePoint);
-		selectionArgs[elementSelectionArgs.length+1] = Long.toString(timePoint);
+			selection = getOverlapSelection(1);
 		String orderBy = COL_TIME_START + " DESC";
 		LinkedHashMap<String, String> map = new LinkedHashMap<String, String>();
 		Cursor c = db.query(valueHistoryTableName, 
-				new String[]{ATTRIBUTES_COL_NAME, COL_TIME_START, COL_TIME_END, ATTRIBUTES_COL_VALUE}, 
+				new String[]{ATTRIBUTES_COL_NAME, getDecodedValueColumn(valueHistoryTableName)}, 
 				selection, selectionArgs, null, null, orderBy);
 		if(c.moveToFirst()){			
 			while(!c.isAfterLast()){
-				long intervalStart = c.getLong(c.getColumnIndexOrThrow(COL_TIME_START));
-				long intervalEnd = c.getLong(c.getColumnIndexOrThrow(COL_TIME_END));
-				if(contains(intervalStart, intervalEnd, timePoint)){
-					String name = c.getString(c.getColumnIndexOrThrow(ATTRIBUTES_COL_NAME));
-					String value = c.getString(c.getColumnIndexOrThrow(ATTRIBUTES_COL_VALUE));
-					map.put(name, value);
-				}
+				String name = c.getString(c.getColumnIndexOrThrow(ATTRIBUTES_COL_NAME));
+				String value = c.getString(c.getColumnIndexOrThrow(ATTRIBUTES_COL_VALUE));
+				map.put(name, value);
 				c.moveToNext();
 			}
 		}
@@ -5973,28 +8677,15 @@ public class PersonalNetwork{
 	 */
 	private String getAttributeValueAt(long timePoint, String valueHistoryTableName, 
 			String elementSelection, String[] elementSelectionArgs){
-		String[] selectionArgs = new String[elementSelectionArgs.length+1];
-		String selection = elementSelection + " AND " + COL_TIME_START + " <= ?";
-		for(int i = 0; i < elementSelectionArgs.length; ++i){
-			selectionArgs[i] = elementSelectionArgs[i];
-		}
-		selectionArgs[elementSelectionArgs.length] = Long.toString(timePoint);
-		String orderBy = COL_TIME_START + " DESC";
-		String limit = "1";
-		Cursor cursor = db.query(valueHistoryTableName, 
-				new String[]{COL_TIME_START, COL_TIME_END, ATTRIBUTES_COL_VALUE}, 
-				selection, selectionArgs, null, null, orderBy, limit);
-		if(cursor.moveToFirst()){			
-			long intervalStart = cursor.getLong(cursor.getColumnIndexOrThrow(COL_TIME_START));
-			long intervalEnd = cursor.getLong(cursor.getColumnIndexOrThrow(COL_TIME_END));
-			if(contains(intervalStart, intervalEnd, timePoint)){
-				String ret = cursor.getString(cursor.getColumnIndexOrThrow(ATTRIBUTES_COL_VALUE));
-				cursor.close();
-				return ret;
-			}
-		}
-		cursor.close();
-		return PersonalNetwork.VALUE_NOT_ASSIGNED;
+		SQLiteStatement statement = statements.get(getColumnAtSQL(
+				getDecodedValueSQL(valueHistoryTableName, valueHistoryTableName), 
+				valueHistoryTableName, elementSelection, elementSelectionArgs.length));
+		bindElementSelectionArgs(statement, elementSelectionArgs);
+		statement.bindLong(elementSelectionArgs.length + 1, timePoint);
+		String ret = simpleQueryForStringOrNull(statement);
+		if(ret == null)
+			return PersonalNetwork.VALUE_NOT_ASSIGNED;
+		return ret;
 	}
 
 	/**
@@ -6004,28 +8695,14 @@ public class PersonalNetwork{
 	 */
 	private String getAttributeDatumIDAt(long timePoint, String valueHistoryTableName, 
 			String elementSelection, String[] elementSelectionArgs){
-		String[] selectionArgs = new String[elementSelectionArgs.length+1];
-		String selection = elementSelection + " AND " + COL_TIME_START + " <= ?";
-		for(int i = 0; i < elementSelectionArgs.length; ++i){
-			selectionArgs[i] = elementSelectionArgs[i];
-		}
-		selectionArgs[elementSelectionArgs.length] = Long.toString(timePoint);
-		String orderBy = COL_TIME_START + " DESC";
-		String limit = "1";
-		Cursor cursor = db.query(valueHistoryTableName, 
-				new String[]{COL_TIME_START, COL_TIME_END, COL_DATUM_ID}, 
-				selection, selectionArgs, null, null, orderBy, limit);
-		if(cursor.moveToFirst()){			
-			long intervalStart = cursor.getLong(cursor.getColumnIndexOrThrow(COL_TIME_START));
-			long intervalEnd = cursor.getLong(cursor.getColumnIndexOrThrow(COL_TIME_END));
-			if(contains(intervalStart, intervalEnd, timePoint)){
-				String ret = cursor.getString(cursor.getColumnIndexOrThrow(COL_DATUM_ID));
-				cursor.close();
-				return ret;
-			}
-		}
-		cursor.close();
-		return PersonalNetwork.VALUE_NOT_ASSIGNED;
+		SQLiteStatement statement = statements.get(getColumnAtSQL(COL_DATUM_ID, 
+				valueHistoryTableName, elementSelection, elementSelectionArgs.length));
+		bindElementSelectionArgs(statement, elementSelectionArgs);
+		statement.bindLong(elementSelectionArgs.length + 1, timePoint);
+		String ret = simpleQueryForStringOrNull(statement);
+		if(ret == null)
+			return PersonalNetwork.VALUE_NOT_ASSIGNED;
+		return ret;
 	}
 
 	/**
@@ -6038,7 +8715,7 @@ public class PersonalNetwork{
 			limit = 1;
 		String limitStr = Integer.toString(limit);
 		Cursor c = db.query(valueHistoryTableName, 
-				new String[]{COL_TIME_START, COL_TIME_END, ATTRIBUTES_COL_VALUE}, 
+				new String[]{COL_TIME_START, COL_TIME_END, getDecodedValueColumn(valueHistoryTableName)}, 
 				elementSelection, elementSelectionArgs, null, null, 
 				COL_TIME_START +" DESC", limitStr);
 		int start_idx = c.getColumnIndexOrThrow(COL_TIME_START);
@@ -6062,19 +8739,13 @@ public class PersonalNetwork{
 	private TimeVaryingAttributeValues getAttributeValues(String valueHistoryTableName, String elementSelection,
 			String[] elementSelectionArgs) {
 		Cursor c = db.query(valueHistoryTableName, 
-				new String[]{COL_TIME_START, COL_TIME_END, ATTRIBUTES_COL_VALUE}, 
-				elementSelection, elementSelectionArgs, null, null, null);
+				new String[]{COL_TIME_START, COL_TIME_END, getDecodedValueColumn(valueHistoryTableName)}, 
+				elementSelection, elementSelectionArgs, null, null, COL_TIME_START + " ASC");
 		int start_idx = c.getColumnIndexOrThrow(COL_TIME_START);
 		int end_idx = c.getColumnIndexOrThrow(COL_TIME_END);
 		int value_idx = c.getColumnIndexOrThrow(ATTRIBUTES_COL_VALUE);
-		TimeVaryingAttributeValues values = new TimeVaryingAttributeValues();
-		if(c.moveToFirst()){
-			while(!c.isAfterLast()){
-				values.setValueAt(new TimeInterval(c.getLong(start_idx), c.getLong(end_idx)),
-						c.getString(value_idx));
-				c.moveToNext();
-			}
-		}
+		TimeVaryingAttributeValues values = TimeVaryingAttributeValues.fromSortedCursor(c, 
+				start_idx, end_idx, value_idx);
 		c.close();
 		return values;
 	}
@@ -6088,8 +8759,9 @@ public class PersonalNetwork{
 			String elementSelection,
 			String[] elementSelectionArgs) {
 		Cursor c = db.query(valueHistoryTableName, 
-				new String[]{ATTRIBUTES_COL_NAME, COL_TIME_START, COL_TIME_END, ATTRIBUTES_COL_VALUE}, 
-				elementSelection, elementSelectionArgs, null, null, null);
+				new String[]{ATTRIBUTES_COL_NAME, COL_TIME_START, COL_TIME_END, 
+				getDecodedValueColumn(valueHistoryTableName)}, 
+				elementSelection, elementSelectionArgs, null, null, COL_TIME_START + " ASC");
 		int start_idx = c.getColumnIndexOrThrow(COL_TIME_START);
 		int end_idx = c.getColumnIndexOrThrow(COL_TIME_END);
 		int value_idx = c.getColumnIndexOrThrow(ATTRIBUTES_COL_VALUE);
@@ -6104,7 +8776,7 @@ public class PersonalNetwork{
 					values = new TimeVaryingAttributeValues();
 					map.put(attrName, values);
 				}
-				values.setValueAt(new TimeInterval(c.getLong(start_idx), c.getLong(end_idx)),
+				values.setValueAtSorted(c.getLong(start_idx), c.getLong(end_idx),
 						c.getString(value_idx));
 				c.moveToNext();
 			}
@@ -6120,29 +8792,16 @@ public class PersonalNetwork{
 	private LinkedHashSet<String> getUniqueValuesForAttributeAt(TimeInterval interval, 
 			String valueHistoryTableName, String elementSelection,
 			String[] elementSelectionArgs) {
-		long startTime = interval.getStartTime();
-		long endTime = interval.getEndTime();
 		//determine overlapping intervals (if any)
-		String[] selectionArgs = new String[elementSelectionArgs.length+2];
-		String selection = elementSelection + " AND " + COL_TIME_START + " <= ? AND " +
-				COL_TIME_END + " >= ? ";
-		for(int i = 0; i < elementSelectionArgs.length; ++i){
-			selectionArgs[i] = elementSelectionArgs[i];
-		}
-		selectionArgs[elementSelectionArgs.length] = Long.toString(endTime);
-		selectionArgs[elementSelectionArgs.length+1] = Long.toString(startTime);
+		String[] selectionArgs = getSelectionArgsWithInterval(elementSelectionArgs, interval);
+		String selection = elementSelection + " AND " + getOverlapSelection(elementSelectionArgs.length + 1);
 		Cursor cursor = db.query(valueHistoryTableName, 
-				new String[]{COL_TIME_START, COL_TIME_END, 
-				ATTRIBUTES_COL_VALUE}, 
+				new String[]{getDecodedValueColumn(valueHistoryTableName)}, 
 				selection, selectionArgs, null, null, null);
 		LinkedHashSet<String> values = new LinkedHashSet<String>();
 		if(cursor.moveToFirst()){			
 			while(!cursor.isAfterLast()){
-				long valueStartTime = cursor.getLong(cursor.getColumnIndexOrThrow(COL_TIME_START));
-				long valueEndTime = cursor.getLong(cursor.getColumnIndexOrThrow(COL_TIME_END));
-				if(overlap(valueStartTime, valueEndTime, startTime, endTime)){
-					values.add(cursor.getString(cursor.getColumnIndexOrThrow(ATTRIBUTES_COL_VALUE)));
-				}
+				values.add(cursor.getString(cursor.getColumnIndexOrThrow(ATTRIBUTES_COL_VALUE)));
 				cursor.moveToNext();
 			}
 		}
@@ -6151,40 +8810,48 @@ public class PersonalNetwork{
 	}
 
 	/**
-	 * Sets the allowed values of the given attribute (in the given choices table) equal to the union of
+	 * Sets the allowed values of the given attribute equal to the union of
 	 * the given choices (which will be trimmed) with the given current values.
+	 * 
+	 * Choices that remain keep their codes, so that the values stored as codes remain valid. 
 	 */
-	private void setAttributeChoices(String attributeName, String tableName,
+	private void setAttributeChoices(String domain, String attributeName,
 			LinkedHashSet<String> choices, LinkedHashSet<String> currentValues) {
+		LinkedHashSet<String> newChoices = new LinkedHashSet<String>();
+		for(String choice : choices){
+			if(choice != null && choice.trim().length() > 0)
+				newChoices.add(choice.trim());
+		}
+		newChoices.addAll(currentValues);
+		LinkedHashMap<String, Long> codes = new LinkedHashMap<String, Long>();
+		for(String choice : newChoices){
+			long code = attributeCatalog.getChoiceCode(domain, attributeName, choice);
+			if(code < 0)
+				code = attributeCatalog.getUnusedChoiceCode(domain);
+			codes.put(choice, code);
+		}
+		String tableName = getAttributeChoicesTableNameForDomain(domain);
 		db.beginTransaction();
 		try{
 			String selection = ATTRIBUTES_COL_NAME + " = ?";
 			String[] selectionArgs = {attributeName};
 			// remove all choices set so far for this attribute
 			db.delete(tableName, selection, selectionArgs);
-			for(String choice : choices){
-				if(choice == null)
-					choices.remove(choice);
-				else{
-					String choice_trimmed = choice.trim();
-					if(!choice.equals(choice_trimmed)){
-						choices.remove(choice);
-						if(choice_trimmed.length() > 0)
-							choices.add(choice_trimmed);
-					}
-				}
-			}
-			choices.addAll(currentValues);
-			for(String choice : choices){
+			for(Map.Entry<String, Long> choice : codes.entrySet()){
 				ContentValues values = new ContentValues();
 				values.put(ATTRIBUTES_COL_NAME, attributeName);
-				values.put(ATTRIBUTES_COL_CHOICE, choice);
+				values.put(ATTRIBUTES_COL_CHOICE, choice.getKey());
+				values.put(ATTRIBUTES_COL_CHOICE_CODE, choice.getValue());
 				db.insert(tableName, null, values);
 			}
 			db.setTransactionSuccessful();
 		} finally {
 			db.endTransaction();
 		}
+		attributeCatalog.removeChoices(domain, attributeName);
+		for(Map.Entry<String, Long> choice : codes.entrySet()){
+			attributeCatalog.putChoice(domain, attributeName, choice.getKey(), choice.getValue());
+		}
 	}
 
 	public boolean allValuesAreNumbers(Collection<String> values){
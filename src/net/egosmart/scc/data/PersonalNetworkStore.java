@@ -0,0 +1,136 @@
+/**
+ *
+ */
+package net.egosmart.scc.data;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+
+/**
+ * Storage of the history of a personal network: the lifetimes of alters, ties, and alter-alter dyads,
+ * the time-varying values of attributes, the secondary attribute values, and the properties.
+ *
+ * PersonalNetwork is the implementation storing the network in the SQLite database of the app;
+ * InMemoryPersonalNetworkStore holds the network in interval arrays in memory and can be written
+ * to and read from a stream.
+ *
+ * All intervals are half-open [start, end) as in TimeInterval. Adding a tie, a dyad, or a value 
+ * increases the lifetime of the alters (and dyads) involved, and removing an alter in an interval 
+ * removes its incident ties, dyads, and associated attribute values in that interval. PersonalNetwork 
+ * is the reference implementation; InMemoryPersonalNetworkStore is experimental and differs from it
+ * in some details (see there).
+ *
+ * @author juergen
+ *
+ */
+public interface PersonalNetworkStore {
+
+	/**
+	 * Adds the alter (if necessary) and increases its lifetime to include interval.
+	 */
+	public void addToLifetimeOfAlter(TimeInterval interval, String alterName);
+
+	/**
+	 * Cuts the given interval from the lifetime of the alter and from the lifetimes of all incident
+	 * ties and dyads and the values of all associated attributes.
+	 */
+	public void removeAlterAt(TimeInterval interval, String alterName);
+
+	/**
+	 * Returns null if alterName is unknown, its lifetime otherwise.
+	 */
+	public Lifetime getLifetimeOfAlter(String alterName);
+
+	/**
+	 * Returns true if the alter is in the network at some point in the given interval.
+	 */
+	public boolean hasAlterAt(TimeInterval interval, String alterName);
+
+	/**
+	 * Returns the set of all alters that are in the network at some point in the given interval.
+	 */
+	public LinkedHashSet<String> getAltersAt(TimeInterval interval);
+
+	/**
+	 * Increases the lifetime of the (undirected) tie to include interval; does nothing if
+	 * sourceName equals targetName.
+	 */
+	public void addToLifetimeOfTie(TimeInterval interval, String sourceName, String targetName);
+
+	public void removeTieAt(TimeInterval interval, String sourceName, String targetName);
+
+	/**
+	 * Returns the lifetime of the tie (which is empty if there has never been such a tie).
+	 */
+	public Lifetime getLifetimeOfTie(String sourceName, String targetName);
+
+	public boolean areAdjacentAt(TimeInterval interval, String sourceName, String targetName);
+
+	/**
+	 * Returns the alters that are adjacent to the given alter at some point in the given interval.
+	 */
+	public LinkedHashSet<String> getNeighborsAt(TimeInterval interval, String alterName);
+
+	public LinkedHashSet<UnorderedDyad> getUndirectedTiesAt(TimeInterval interval);
+
+	public void addToLifetimeOfAlterAlterDyad(TimeInterval interval, String sourceName, String targetName);
+
+	/**
+	 * Cuts the interval from the lifetime of the dyad and from the values of its associated attributes.
+	 */
+	public void removeAlterAlterDyadAt(TimeInterval interval, String sourceName, String targetName);
+
+	/**
+	 * Returns the lifetime of the dyad (which is empty if there has never been such a dyad).
+	 */
+	public Lifetime getLifetimeOfAlterAlterDyad(String sourceName, String targetName);
+
+	public boolean isAlterAlterDyadAt(TimeInterval interval, String sourceName, String targetName);
+
+	/**
+	 * Sets the value of the attribute for the element in the given interval. If textValue is null, has length
+	 * zero, or is equal to VALUE_NOT_ASSIGNED then the value in the interval is removed.
+	 */
+	public void setAttributeValueAt(TimeInterval interval, String attributeName, Element element,
+			String textValue);
+
+	/**
+	 * Returns the value of the attribute for the element at the given time point or VALUE_NOT_ASSIGNED.
+	 */
+	public String getAttributeValueAt(long timePoint, String attributeName, Element element);
+
+	public TimeVaryingAttributeValues getAttributeValues(String attributeName, Element element);
+
+	/**
+	 * Returns a map from the elements in the domain of element to their values of the attribute at the
+	 * given time point (only elements having a value at that time point are included).
+	 */
+	public <E extends Element> LinkedHashMap<E, String> getValuesOfAttributeForAllElementsAt(
+			long timePoint, E element, String attributeName);
+
+	/**
+	 * Sets the secondary attribute value for the datum id; removes it if value is null, has length zero,
+	 * or is equal to VALUE_NOT_ASSIGNED.
+	 */
+	public void setSecondaryAttributeValue(String datumID, String secondaryAttributeName, String value);
+
+	/**
+	 * Returns VALUE_NOT_ASSIGNED if the secondary attribute is not set for the datum id.
+	 */
+	public String getSecondaryAttributeValue(String datumID, String secondaryAttributeName);
+
+	/**
+	 * Returns the secondary attribute values set for the datum id ordered by name.
+	 */
+	public LinkedHashMap<String, String> getSecondaryAttributeValues(String datumID);
+
+	/**
+	 * Returns the value of the property or null if it is not set.
+	 */
+	public String getProperty(String key);
+
+	/**
+	 * Sets the value of the property; removes the property if value is null.
+	 */
+	public void setProperty(String key, String value);
+}
@@ -0,0 +1,77 @@
+/**
+ *
+ */
+package net.egosmart.scc.data;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * In-memory copy of the properties table of the PersonalNetwork (write-behind).
+ *
+ * Reads are answered from memory. Writes change the copy and remember the key as changed;
+ * PersonalNetwork writes the changed keys to the database only when it flushes the cache
+ * (see PersonalNetwork.flushProperties), so that a property that is set many times in between
+ * (such as the time of the last change) is written only once.
+ *
+ * @author juergen
+ *
+ */
+class PropertiesCache {
+
+	private HashMap<String, String> values;
+	//keys whose values have been set or removed since the last flush
+	private LinkedHashSet<String> changedKeys;
+
+	PropertiesCache(){
+		values = new HashMap<String, String>();
+		changedKeys = new LinkedHashSet<String>();
+	}
+
+	/**
+	 * Sets the value of the key as read from the database (the key is not marked as changed).
+	 */
+	void load(String key, String value){
+		values.put(key, value);
+	}
+
+	/**
+	 * Returns the value of the key or null if the key has no value.
+	 */
+	String get(String key){
+		return values.get(key);
+	}
+
+	void put(String key, String value){
+		if(value == null){
+			remove(key);
+			return;
+		}
+		String oldValue = values.put(key, value);
+		if(!value.equals(oldValue))
+			changedKeys.add(key);
+	}
+
+	void remove(String key){
+		if(values.containsKey(key)){
+			values.remove(key);
+			changedKeys.add(key);
+		}
+	}
+
+	boolean hasChanges(){
+		return !changedKeys.isEmpty();
+	}
+
+	/**
+	 * Returns the keys that have been set or removed since the last call to clearChanges.
+	 */
+	Set<String> getChangedKeys(){
+		return changedKeys;
+	}
+
+	void clearChanges(){
+		changedKeys.clear();
+	}
+}
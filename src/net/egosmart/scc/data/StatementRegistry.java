@@ -0,0 +1,49 @@
+/**
+ *
+ */
+package net.egosmart.scc.data;
+
+import java.util.HashMap;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+/**
+ * Compiled statements of the PersonalNetwork, indexed by their SQL.
+ *
+ * A statement is compiled when it is requested for the first time and reused afterwards, so that
+ * SQLite does not have to parse and plan the frequently executed queries again on every call.
+ * The number of statements is bounded since their SQL depends only on the table and the element
+ * selection but not on the selection arguments (which are bound to the statement).
+ *
+ * Compiled statements must not be shared between threads; the registry is used only by the
+ * methods called from the main thread (but not by DatabaseMaintenance).
+ *
+ * @author juergen
+ *
+ */
+class StatementRegistry {
+
+	private SQLiteDatabase db;
+	private HashMap<String, SQLiteStatement> statements;
+
+	StatementRegistry(SQLiteDatabase db){
+		this.db = db;
+		statements = new HashMap<String, SQLiteStatement>();
+	}
+
+	/**
+	 * Returns the compiled statement for the given SQL (compiling it if necessary) with all
+	 * bindings cleared.
+	 */
+	SQLiteStatement get(String sql){
+		SQLiteStatement statement = statements.get(sql);
+		if(statement == null){
+			statement = db.compileStatement(sql);
+			statements.put(sql, statement);
+		} else {
+			statement.clearBindings();
+		}
+		return statement;
+	}
+}
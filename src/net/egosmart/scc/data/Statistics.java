@@ -2,8 +2,6 @@ package net.egosmart.scc.data;
 
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
 
 import net.egosmart.scc.R;
 import net.egosmart.scc.SCCMainActivity;
@@ -112,19 +110,24 @@ public class Statistics {
 	}
 	
 	public void calculateGenderPercentageAt(long timePoint) {
-		float altersMasculine = 0;
-		float altersFeminine = 0;
 		String genderAttribute = activity.getString(R.string.alter_attribute_gender_name);
-		//Get gender value for every alter.
-		LinkedHashMap <Alter, String> genderValues = network.getValuesOfAttributeForAllElementsAt(
-				timePoint, Alter.getInstance("element"), genderAttribute);
-		Iterator<String> it = genderValues.values().iterator();
-		while(it.hasNext()) {
-			String gender = it.next();
-			if(gender.equals(activity.getString(R.string.alter_attribute_gender_male)))
-				altersMasculine++;
-			if(gender.equals(activity.getString(R.string.alter_attribute_gender_female)))
-				altersFeminine++;			
+		String male = activity.getString(R.string.alter_attribute_gender_male);
+		String female = activity.getString(R.string.alter_attribute_gender_female);
+		//Count the alters with either gender (for all choices at once).
+		TimeInterval interval = TimeInterval.getTimePoint(timePoint);
+		float altersMasculine;
+		float altersFeminine;
+		HashMap<String, Integer> counts = network.getNumberOfElementsPerChoiceAt(interval, 
+				PersonalNetwork.DOMAIN_ALTER, genderAttribute);
+		if(counts != null) {
+			altersMasculine = counts.containsKey(male) ? counts.get(male) : 0;
+			altersFeminine = counts.containsKey(female) ? counts.get(female) : 0;
+		} else {
+			//the gender attribute has been changed to a type other than choice
+			altersMasculine = network.getNumberOfElementsWithAttributeValueAt(interval, 
+					PersonalNetwork.DOMAIN_ALTER, genderAttribute, male);
+			altersFeminine = network.getNumberOfElementsWithAttributeValueAt(interval, 
+					PersonalNetwork.DOMAIN_ALTER, genderAttribute, female);
 		}
 		//Just checking is not 0/0 (NaN).
 		if(altersMasculine > 0 || altersFeminine > 0 ) {
@@ -136,7 +139,7 @@ public class Statistics {
 	public void calculateGraphDensityAt(long timePoint) {
 		TimeInterval interval = new TimeInterval(timePoint, timePoint);
 		float numberOfEdges = network.getNumberOfUndirectedTiesAt(interval);
-		float numberOfVertices = network.getAltersAt(interval).size();
+		float numberOfVertices = network.getNumberOfAltersAt(interval);
 		if(numberOfVertices > 0)
 			graphDensity = (2*numberOfEdges)/(numberOfVertices*(numberOfVertices-1));
 	}
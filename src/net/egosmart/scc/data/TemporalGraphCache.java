@@ -0,0 +1,154 @@
+/**
+ *
+ */
+package net.egosmart.scc.data;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * In-memory copy of the alters, the ties, and their lifetimes as stored in the
+ * history tables of the PersonalNetwork.
+ *
+ * The cache is filled once from the database and then answers the point-in-time
+ * queries for alters, neighbors, and ties without any database access.
+ * It is never updated incrementally; PersonalNetwork drops it whenever the
+ * network changes (see PersonalNetwork.setLastChange) and builds a new one
+ * on the next read.
+ *
+ * @author juergen
+ *
+ */
+class TemporalGraphCache {
+
+	//maps every alter name to its lifetime (which might be empty)
+	private LinkedHashMap<String, Lifetime> alterLifetimes;
+	//maps source names to target names to the lifetime of the tie (source, target)
+	private LinkedHashMap<String, LinkedHashMap<String, Lifetime>> adjacency;
+
+	TemporalGraphCache(){
+		alterLifetimes = new LinkedHashMap<String, Lifetime>();
+		adjacency = new LinkedHashMap<String, LinkedHashMap<String, Lifetime>>();
+	}
+
+	/**
+	 * Adds an alter with an (initially) empty lifetime.
+	 */
+	void addAlter(String alterName){
+		if(!alterLifetimes.containsKey(alterName))
+			alterLifetimes.put(alterName, new Lifetime());
+	}
+
+	/**
+	 * Adds the given interval to the lifetime of the alter. Is fastest if intervals are added 
+	 * in the order of their start times.
+	 */
+	void addAlterInterval(String alterName, long startTime, long endTime){
+		addAlter(alterName);
+		alterLifetimes.get(alterName).unionSorted(startTime, endTime);
+	}
+
+	/**
+	 * Adds the given interval to the lifetime of the directed tie (source, target). Is fastest if intervals
+	 * are added in the order of their start times.
+	 */
+	void addTieInterval(String sourceName, String targetName, long startTime, long endTime){
+		LinkedHashMap<String, Lifetime> targets = adjacency.get(sourceName);
+		if(targets == null){
+			targets = new LinkedHashMap<String, Lifetime>();
+			adjacency.put(sourceName, targets);
+		}
+		Lifetime lifetime = targets.get(targetName);
+		if(lifetime == null){
+			lifetime = new Lifetime();
+			targets.put(targetName, lifetime);
+		}
+		lifetime.unionSorted(startTime, endTime);
+	}
+
+	boolean hasAlter(String alterName){
+		return alterLifetimes.containsKey(alterName);
+	}
+
+	/**
+	 * Returns a copy of the lifetime of the alter or null if the alter is unknown.
+	 */
+	Lifetime getLifetimeOfAlter(String alterName){
+		Lifetime lifetime = alterLifetimes.get(alterName);
+		if(lifetime == null)
+			return null;
+		Lifetime copy = new Lifetime();
+		copy.union(lifetime);
+		return copy;
+	}
+
+	LinkedHashSet<String> getAltersAt(TimeInterval interval){
+		LinkedHashSet<String> alters = new LinkedHashSet<String>();
+		for(Map.Entry<String, Lifetime> entry : alterLifetimes.entrySet()){
+			if(entry.getValue().overlaps(interval))
+				alters.add(entry.getKey());
+		}
+		return alters;
+	}
+
+	int getNumberOfAltersAt(TimeInterval interval){
+		int n = 0;
+		for(Lifetime lifetime : alterLifetimes.values()){
+			if(lifetime.overlaps(interval))
+				++n;
+		}
+		return n;
+	}
+
+	LinkedHashSet<String> getNeighborsAt(TimeInterval interval, String alterName){
+		LinkedHashSet<String> neighbors = new LinkedHashSet<String>();
+		LinkedHashMap<String, Lifetime> targets = adjacency.get(alterName);
+		if(targets == null)
+			return neighbors;
+		for(Map.Entry<String, Lifetime> entry : targets.entrySet()){
+			if(entry.getValue().overlaps(interval))
+				neighbors.add(entry.getKey());
+		}
+		return neighbors;
+	}
+
+	LinkedHashSet<UnorderedDyad> getUndirectedTiesAt(TimeInterval interval){
+		LinkedHashSet<UnorderedDyad> dyads = new LinkedHashSet<UnorderedDyad>();
+		for(Map.Entry<String, LinkedHashMap<String, Lifetime>> sourceEntry : adjacency.entrySet()){
+			String sourceName = sourceEntry.getKey();
+			for(Map.Entry<String, Lifetime> targetEntry : sourceEntry.getValue().entrySet()){
+				if(targetEntry.getValue().overlaps(interval))
+					dyads.add(new UnorderedDyad(sourceName, targetEntry.getKey()));
+			}
+		}
+		return dyads;
+	}
+
+	/**
+	 * Returns the number of elements of getUndirectedTiesAt(interval) without creating them.
+	 */
+	int getNumberOfUndirectedTiesAt(TimeInterval interval){
+		int n = 0;
+		for(Map.Entry<String, LinkedHashMap<String, Lifetime>> sourceEntry : adjacency.entrySet()){
+			String sourceName = sourceEntry.getKey();
+			for(Map.Entry<String, Lifetime> targetEntry : sourceEntry.getValue().entrySet()){
+				if(!targetEntry.getValue().overlaps(interval))
+					continue;
+				String targetName = targetEntry.getKey();
+				//count the pair only once if it is a tie in both directions
+				if(sourceName.compareTo(targetName) <= 0 || !overlaps(targetName, sourceName, interval))
+					++n;
+			}
+		}
+		return n;
+	}
+
+	private boolean overlaps(String sourceName, String targetName, TimeInterval interval){
+		LinkedHashMap<String, Lifetime> targets = adjacency.get(sourceName);
+		if(targets == null)
+			return false;
+		Lifetime lifetime = targets.get(targetName);
+		return lifetime != null && lifetime.overlaps(interval);
+	}
+}
@@ -1,25 +1,61 @@
 /**
- * 
+ *
  */
 package net.egosmart.scc.data;
 
-import java.util.NavigableMap;
-import java.util.TreeMap;
+import android.database.Cursor;
 
 
 /**
- * 
+ *
  * Represents the values of one attribute (for one element of its domain) over its lifetime.
- * 
+ *
+ * The non-overlapping intervals that have values assigned are held in arrays sorted by start time
+ * (see Lifetime), so that the value at a given time point is found in O(log n) without allocating objects.
+ *
  * @author juergen
  *
  */
 public class TimeVaryingAttributeValues {
 
-	private TreeMap<TimeInterval, String> valueMap;
+	private static final int INITIAL_CAPACITY = 4;
+
+	private long[] starts;
+	private long[] ends;
+	private String[] values;
+	private int size;
 
 	public TimeVaryingAttributeValues(){
-		valueMap = new TreeMap<TimeInterval, String>();
+		starts = new long[INITIAL_CAPACITY];
+		ends = new long[INITIAL_CAPACITY];
+		values = new String[INITIAL_CAPACITY];
+		size = 0;
+	}
+
+	/**
+	 * Creates the attribute values given by the rows of the cursor. The cursor is read
+	 * from the first to the last row but not closed.
+	 *
+	 * Rows are processed as by setValueAt; if they are sorted by start time and non-overlapping
+	 * then the values are built in linear time.
+	 *
+	 * @param cursor
+	 * @param startColumnIndex column holding the interval start times
+	 * @param endColumnIndex column holding the interval end times
+	 * @param valueColumnIndex column holding the values
+	 * @return
+	 */
+	protected static TimeVaryingAttributeValues fromSortedCursor(Cursor cursor,
+			int startColumnIndex, int endColumnIndex, int valueColumnIndex){
+		TimeVaryingAttributeValues values = new TimeVaryingAttributeValues();
+		if(cursor.moveToFirst()){
+			while(!cursor.isAfterLast()){
+				values.setValueAtSorted(cursor.getLong(startColumnIndex), cursor.getLong(endColumnIndex),
+						cursor.getString(valueColumnIndex));
+				cursor.moveToNext();
+			}
+		}
+		return values;
 	}
 
 	/**
@@ -27,69 +63,77 @@ public class TimeVaryingAttributeValues {
 	 * @return
 	 */
 	public Lifetime getSupport(){
-		return new Lifetime(valueMap.navigableKeySet());
+		return new Lifetime(starts, ends, size);
 	}
 
 	/**
-	 * 
+	 *
 	 * @param timePoint
 	 * @return true if the support of these attribute values contains the given time point
 	 */
 	public boolean hasValueSetAt(long timePoint){
-		TimeInterval point = TimeInterval.getTimePoint(timePoint);
-		TimeInterval floor = valueMap.floorKey(point);
-		if(floor != null && floor.contains(timePoint))
-			return true;
-		TimeInterval ceil = valueMap.ceilingKey(point);
-		if(ceil != null && ceil.contains(timePoint))
-			return true;
-		return false;
-	}
-	
+		return IntervalArrays.indexOf(starts, ends, size, timePoint) >= 0;
+	}
+
 	/**
 	 * Sets the given value for the given time interval to textValue.trim()
-	 * 
+	 *
 	 * Overwrites any previous values within interval (keeps all values outside of interval).
-	 * 
+	 *
 	 * If textValue is null or has length zero or is equal to PersonalNetwork.VALUE_NOT_ASSIGNED
 	 * then previous values within the interval are removed but no new value is set.
-	 * 
-	 * Does nothing if interval is a time point that is included in a previously set interval 
+	 *
+	 * Does nothing if interval is a time point that is included in a previously set interval
 	 * which is not a point. Also see the behavior of Lifetime.cutOut for this case.
-	 * 
+	 *
 	 * @param interval
 	 * @param textValue
 	 */
 	public void setValueAt(TimeInterval interval, String textValue){
-		TimeInterval floor = valueMap.floorKey(interval);
-		if(floor != null && floor.overlaps(interval)){
-			if(interval.isTimePoint() && !floor.isTimePoint())
-				return; //otherwise this would lead to a left-open interval
-			String floorsValue = valueMap.get(floor);
-			valueMap.remove(floor);
-			if(floor.getStartTime() < interval.getStartTime()){
-				valueMap.put(new TimeInterval(floor.getStartTime(), interval.getStartTime()), floorsValue);
-			}
-			if(interval.getEndTime() < floor.getEndTime()){
-				valueMap.put(new TimeInterval(interval.getEndTime(), floor.getEndTime()), floorsValue);
-			}
-		}
-		NavigableMap<TimeInterval,String> overlaping = valueMap.
-				subMap(TimeInterval.getTimePoint(interval.getStartTime()), true, 
-						TimeInterval.getTimePoint(interval.getEndTime()), true);
-		for(TimeInterval oldInterval : overlaping.navigableKeySet()){
-			if(oldInterval.overlaps(interval)){
-				if(interval.isTimePoint() && !oldInterval.isTimePoint())
-					return; //otherwise this would lead to a left-open interval
-				String ceilsValue = overlaping.get(oldInterval);
-				valueMap.remove(oldInterval);
-				if(interval.getEndTime() < oldInterval.getEndTime()){
-					valueMap.put(new TimeInterval(interval.getEndTime(), oldInterval.getEndTime()), ceilsValue);
-				}
-			}
+		setValueAt(interval.getStartTime(), interval.getEndTime(), textValue);
+	}
+
+	private void setValueAt(long startTime, long endTime, String textValue){
+		int first = IntervalArrays.firstOverlapping(starts, ends, size, startTime, endTime);
+		int last = IntervalArrays.endOfOverlapping(starts, ends, size, first, startTime, endTime);
+		if(first < last && startTime == endTime && starts[first] != ends[first])
+			return; //otherwise this would lead to a left-open interval
+		if(first == last)//nothing to overwrite; insert after all intervals starting before startTime
+			first = last = IntervalArrays.lastStartAtOrBefore(starts, size, startTime) + 1;
+		//the remaining pieces of overwritten intervals
+		boolean keepLeft = first < last && starts[first] < startTime;
+		boolean keepRight = first < last && endTime < ends[last - 1];
+		long leftStart = keepLeft ? starts[first] : 0;
+		String leftValue = keepLeft ? values[first] : null;
+		long rightEnd = keepRight ? ends[last - 1] : 0;
+		String rightValue = keepRight ? values[last - 1] : null;
+		boolean setNewValue = textValue != null && textValue.trim().length() > 0
+				&& !textValue.equals(PersonalNetwork.VALUE_NOT_ASSIGNED);
+		//remove the overwritten intervals
+		remove(first, last);
+		int index = first;
+		if(keepLeft)
+			insert(index++, leftStart, startTime, leftValue);
+		if(setNewValue)
+			insert(index++, startTime, endTime, textValue.trim());
+		if(keepRight)
+			insert(index, endTime, rightEnd, rightValue);
+	}
+
+	/**
+	 * Same as setValueAt but runs in constant (amortized) time if no interval with a value
+	 * overlaps or starts after the given interval. 
+	 */
+	void setValueAtSorted(long startTime, long endTime, String textValue){
+		if(endTime < startTime)
+			throw new IllegalArgumentException("endTime must be greater than or equal to startTime");
+		if(size == 0 || (starts[size - 1] < startTime && ends[size - 1] <= startTime)){
+			if(textValue != null && textValue.trim().length() > 0
+					&& !textValue.equals(PersonalNetwork.VALUE_NOT_ASSIGNED))
+				insert(size, startTime, endTime, textValue.trim());
+			return;
 		}
-		if(textValue != null && textValue.trim().length() > 0 && !textValue.equals(PersonalNetwork.VALUE_NOT_ASSIGNED))
-			valueMap.put(interval, textValue.trim());
+		setValueAt(startTime, endTime, textValue);
 	}
 
 	/**
@@ -99,27 +143,22 @@ public class TimeVaryingAttributeValues {
 	 * @return
 	 */
 	public String getValueAt(long timePoint){
-		TimeInterval floor = valueMap.floorKey(new TimeInterval(timePoint, timePoint));
-		if(floor != null && floor.contains(timePoint))
-			return valueMap.get(floor);
-		TimeInterval ceil = valueMap.ceilingKey(new TimeInterval(timePoint, timePoint));
-		if(ceil != null && ceil.contains(timePoint))
-			return valueMap.get(ceil);
+		int i = IntervalArrays.indexOf(starts, ends, size, timePoint);
+		if(i >= 0)
+			return values[i];
 		return PersonalNetwork.VALUE_NOT_ASSIGNED;
 	}
-	
+
 	public String getNewestValue(){
-		TimeInterval time = valueMap.lastKey();
-		if(time == null)
+		if(size == 0)
 			return PersonalNetwork.VALUE_NOT_ASSIGNED;
-		return valueMap.get(time);
+		return values[size - 1];
 	}
 
 	public String getOldestValue(){
-		TimeInterval time = valueMap.firstKey();
-		if(time == null)
+		if(size == 0)
 			return PersonalNetwork.VALUE_NOT_ASSIGNED;
-		return valueMap.get(time);
+		return values[0];
 	}
 
 	/**
@@ -127,7 +166,54 @@ public class TimeVaryingAttributeValues {
 	 * @return true if and only if the support is empty that is no values is assigned for any time point.
 	 */
 	public boolean isEmpty(){
-		return valueMap.isEmpty();
+		return size == 0;
 	}
-	
+
+	/**
+	 * Returns the number of intervals with a value.
+	 */
+	int size(){
+		return size;
+	}
+
+	/**
+	 * Returns the start time of the interval with the given index (intervals are sorted by start time).
+	 */
+	long getStartTime(int index){
+		return starts[index];
+	}
+
+	long getEndTime(int index){
+		return ends[index];
+	}
+
+	String getValue(int index){
+		return values[index];
+	}
+
+	/*
+	 * Removes the intervals with indexes from first (inclusive) to last (exclusive).
+	 */
+	private void remove(int first, int last){
+		System.arraycopy(starts, last, starts, first, size - last);
+		System.arraycopy(ends, last, ends, first, size - last);
+		System.arraycopy(values, last, values, first, size - last);
+		for(int i = size - (last - first); i < size; ++i)
+			values[i] = null;
+		size = size - (last - first);
+	}
+
+	private void insert(int index, long startTime, long endTime, String value){
+		starts = IntervalArrays.ensureCapacity(starts, size, size + 1);
+		ends = IntervalArrays.ensureCapacity(ends, size, size + 1);
+		values = IntervalArrays.ensureCapacity(values, size, size + 1);
+		System.arraycopy(starts, index, starts, index + 1, size - index);
+		System.arraycopy(ends, index, ends, index + 1, size - index);
+		System.arraycopy(values, index, values, index + 1, size - index);
+		starts[index] = startTime;
+		ends[index] = endTime;
+		values[index] = value;
+		++size;
+	}
+
 }
@@ -6,6 +6,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 
 import net.egosmart.scc.SCCMainActivity;
 import net.egosmart.scc.data.Alter;
@@ -328,11 +329,16 @@ public class AlterDetailViewFragment extends Fragment {
 		LinearLayout neighborsList = new LinearLayout(activity);
 		neighborsList.setOrientation(LinearLayout.VERTICAL);
 		if(neighborsSet != null){
+			ArrayList<AlterAlterDyad> dyads = new ArrayList<AlterAlterDyad>();
+			for(String neighbor : neighborsSet){
+				dyads.add(AlterAlterDyad.getInstance(selectedAlter, neighbor));
+			}
+			LinkedHashMap<AlterAlterDyad, LinkedHashMap<String, String>> dyad2attrValues = network.
+					getValuesOfAllAttributesForElementsAt(System.currentTimeMillis(), dyads);
 			for(final String neighbor : neighborsSet){
 				//TODO: change this: for asymmetric attributes this returns only the value for one direction
-				HashMap<String, String> attrName2Value = network.
-						getValuesOfAllAttributesForElementAt(System.currentTimeMillis(),
-								AlterAlterDyad.getInstance(selectedAlter, neighbor));
+				HashMap<String, String> attrName2Value = 
+						dyad2attrValues.get(AlterAlterDyad.getInstance(selectedAlter, neighbor));
 				StringBuffer valueStr = new StringBuffer("| ");
 				for(String attrName : attrName2Value.keySet()){
 					String value = attrName2Value.get(attrName);
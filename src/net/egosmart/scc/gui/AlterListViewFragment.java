@@ -2,6 +2,7 @@ package net.egosmart.scc.gui;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 
 import net.egosmart.scc.SCCMainActivity;
 import net.egosmart.scc.data.Alter;
@@ -45,10 +46,15 @@ public class AlterListViewFragment extends Fragment {
 		PersonalNetwork network = PersonalNetwork.getInstance(activity);
 		String[] alterNames = network.getAltersAt(TimeInterval.getCurrentTimePoint()).
 				toArray(new String[]{});
+		ArrayList<Alter> alters = new ArrayList<Alter>();
+		for(int i = 0; i < alterNames.length; ++i){
+			alters.add(Alter.getInstance(alterNames[i]));
+		}
+		LinkedHashMap<Alter, LinkedHashMap<String, String>> alter2attrValues = 
+				network.getValuesOfAllAttributesForElementsAt(System.currentTimeMillis(), alters);
 		ArrayList<Pair<String, String>> nameAttrPairs = new ArrayList<Pair<String,String>>();
 		for(int i = 0; i < alterNames.length; ++i){
-			HashMap<String, String> attrValues = network.getValuesOfAllAttributesForElementAt(
-					System.currentTimeMillis(), Alter.getInstance(alterNames[i]));
+			HashMap<String, String> attrValues = alter2attrValues.get(alters.get(i));
 			StringBuffer valueStr = new StringBuffer("| ");
 			for(String attrName : attrValues.keySet()){
 				String value = attrValues.get(attrName);
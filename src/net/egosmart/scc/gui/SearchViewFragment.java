@@ -2,6 +2,7 @@ package net.egosmart.scc.gui;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 
 import net.egosmart.scc.SCCMainActivity;
@@ -50,11 +51,15 @@ public class SearchViewFragment extends Fragment {
 		if(alters != null){
 			PersonalNetwork network = PersonalNetwork.getInstance(activity);
 			String[] alterNames = alters.toArray(new String[]{});
+			ArrayList<Alter> alterElements = new ArrayList<Alter>();
+			for(int i = 0; i < alterNames.length; ++i){
+				alterElements.add(Alter.getInstance(alterNames[i]));
+			}
+			LinkedHashMap<Alter, LinkedHashMap<String, String>> alter2attrValues = 
+					network.getValuesOfAllAttributesForElementsAt(System.currentTimeMillis(), alterElements);
 			ArrayList<Pair<String, String>> nameAttrPairs = new ArrayList<Pair<String,String>>();
 			for(int i = 0; i < alterNames.length; ++i){
-				HashMap<String, String> attrValues = network.getValuesOfAllAttributesForElementAt(
-						System.currentTimeMillis(),
-						Alter.getInstance(alterNames[i]));
+				HashMap<String, String> attrValues = alter2attrValues.get(alterElements.get(i));
 				StringBuffer valueStr = new StringBuffer("| ");
 				for(String attrName : attrValues.keySet()){
 					String value = attrValues.get(attrName);
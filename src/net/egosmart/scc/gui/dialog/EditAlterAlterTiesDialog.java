@@ -6,6 +6,7 @@ package net.egosmart.scc.gui.dialog;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 
 import net.egosmart.scc.SCCMainActivity;
 import net.egosmart.scc.data.Alter;
@@ -61,10 +62,24 @@ public class EditAlterAlterTiesDialog extends DialogFragment {
 		HashSet<String> neighbors = network.getNeighborsAt(TimeInterval.getCurrentTimePoint(), selectedAlter);
 		final ListView neighborList = (ListView) contentView.findViewById(R.id.edit_alter_alter_ties_neighbor_list);
 		final ListView nonNeighborList = (ListView) contentView.findViewById(R.id.edit_alter_alter_ties_non_neighbor_list);
+		HashSet<String> nonNeighbors = network.getAltersAt(TimeInterval.getCurrentTimePoint());
+		nonNeighbors.removeAll(neighbors);
+		nonNeighbors.remove(selectedAlter);
+		if(selectedAlter == null)
+			nonNeighbors = new HashSet<String>();
+		//attribute values of all (neighbors and non-neighbors) alters in the lists
+		ArrayList<Alter> listedAlters = new ArrayList<Alter>();
+		for(String alterName : neighbors){
+			listedAlters.add(Alter.getInstance(alterName));
+		}
+		for(String alterName : nonNeighbors){
+			listedAlters.add(Alter.getInstance(alterName));
+		}
+		LinkedHashMap<Alter, LinkedHashMap<String, String>> alter2attrValues = 
+				network.getValuesOfAllAttributesForElementsAt(System.currentTimeMillis(), listedAlters);
 		final ArrayList<Pair<String, String>> neigborValuePairs = new ArrayList<Pair<String,String>>();
 		for(String neigh : neighbors){
-			HashMap<String, String> attrValues = network.getValuesOfAllAttributesForElementAt(
-					System.currentTimeMillis(), Alter.getInstance(neigh));
+			HashMap<String, String> attrValues = alter2attrValues.get(Alter.getInstance(neigh));
 			StringBuffer valueStr = new StringBuffer("| ");
 			for(String attrName : attrValues.keySet()){
 				String value = attrValues.get(attrName);
@@ -78,16 +93,9 @@ public class EditAlterAlterTiesDialog extends DialogFragment {
 		}
 		final NeighborListBaseAdapter neighborAdapter = new NeighborListBaseAdapter(activity, neigborValuePairs);
 		neighborList.setAdapter(neighborAdapter);
-		HashSet<String> nonNeighbors = network.getAltersAt(TimeInterval.getCurrentTimePoint());
-		nonNeighbors.
-				removeAll(network.getNeighborsAt(TimeInterval.getCurrentTimePoint(), selectedAlter));
-		nonNeighbors.remove(selectedAlter);
-		if(selectedAlter == null)
-			nonNeighbors = new HashSet<String>();
 		final ArrayList<Pair<String, String>> nonNeigborValuePairs = new ArrayList<Pair<String,String>>();
 		for(String nonNeigh : nonNeighbors){
-			HashMap<String, String> attrValues = network.getValuesOfAllAttributesForElementAt(
-					System.currentTimeMillis(), Alter.getInstance(nonNeigh));
+			HashMap<String, String> attrValues = alter2attrValues.get(Alter.getInstance(nonNeigh));
 			StringBuffer valueStr = new StringBuffer("| ");
 			for(String attrName : attrValues.keySet()){
 				String value = attrValues.get(attrName);
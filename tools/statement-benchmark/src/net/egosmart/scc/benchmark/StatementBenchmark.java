@@ -0,0 +1,104 @@
+/**
+ *
+ */
+package net.egosmart.scc.benchmark;
+
+import java.util.HashMap;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteStatement;
+
+/**
+ * Micro-benchmark comparing the latency of queries that are compiled on every call (as done by
+ * SQLiteDatabase.query and rawQuery) with the latency of the same queries executed as compiled
+ * statements (as done by the StatementRegistry of the personal network).
+ *
+ * Is run by StatementBenchmarkTest.
+ *
+ * @author juergen
+ *
+ */
+public class StatementBenchmark {
+
+	private SQLiteDatabase db;
+	private HashMap<String, SQLiteStatement> statements;
+	private int calls;
+	private StringBuilder report;
+
+	public StatementBenchmark(SQLiteDatabase db, int calls){
+		this.db = db;
+		this.calls = Math.max(1, calls);
+		statements = new HashMap<String, SQLiteStatement>();
+		report = new StringBuilder();
+	}
+
+	/**
+	 * Executes the query (returning one value) with the given arguments first uncompiled and then
+	 * compiled and adds the mean latencies per call to the report.
+	 */
+	public void run(String name, String sql, String[] args){
+		//warm up (and compile the statement) before measuring
+		executeUncompiled(sql, args);
+		executeCompiled(sql, args);
+		long start = System.nanoTime();
+		for(int i = 0; i < calls; ++i){
+			executeUncompiled(sql, args);
+		}
+		long uncompiled = System.nanoTime() - start;
+		start = System.nanoTime();
+		for(int i = 0; i < calls; ++i){
+			executeCompiled(sql, args);
+		}
+		long compiled = System.nanoTime() - start;
+		report.append(name).append(": ")
+		.append(getMicrosecondsPerCall(uncompiled)).append(" us per call uncompiled, ")
+		.append(getMicrosecondsPerCall(compiled)).append(" us per call compiled (")
+		.append(calls).append(" calls)\n");
+	}
+
+	/**
+	 * Returns one line for every query that has been run.
+	 */
+	public String getReport(){
+		return report.toString();
+	}
+
+	/**
+	 * Releases the compiled statements.
+	 */
+	public void close(){
+		for(SQLiteStatement statement : statements.values()){
+			statement.close();
+		}
+		statements.clear();
+	}
+
+	private void executeUncompiled(String sql, String[] args){
+		Cursor c = db.rawQuery(sql, args);
+		if(c.moveToFirst())
+			c.getString(0);
+		c.close();
+	}
+
+	private void executeCompiled(String sql, String[] args){
+		SQLiteStatement statement = statements.get(sql);
+		if(statement == null){
+			statement = db.compileStatement(sql);
+			statements.put(sql, statement);
+		}
+		for(int i = 0; i < args.length; ++i){
+			statement.bindString(i + 1, args[i]);
+		}
+		try {
+			statement.simpleQueryForString();
+		} catch (SQLiteDoneException e) {
+			//the query returns no row
+		}
+	}
+
+	private double getMicrosecondsPerCall(long nanoseconds){
+		return Math.round(nanoseconds / (double) calls / 100.0) / 10.0;
+	}
+}
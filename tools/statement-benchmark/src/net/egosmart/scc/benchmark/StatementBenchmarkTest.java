@@ -0,0 +1,114 @@
+/**
+ *
+ */
+package net.egosmart.scc.benchmark;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.LinkedHashSet;
+
+import net.egosmart.scc.SCCMainActivity;
+import net.egosmart.scc.data.PersonalNetwork;
+import net.egosmart.scc.data.TimeInterval;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.ActivityInstrumentationTestCase2;
+import android.util.Log;
+
+/**
+ * Runs the StatementBenchmark for the frequently executed queries of the personal network of the
+ * installed app and writes the latencies to the log (tag StatementBenchmark).
+ *
+ * The queries are taken from the (private) SQL builders of PersonalNetwork, so that the benchmark
+ * measures exactly the statements that the app compiles. They are evaluated for an arbitrary current
+ * alter (and the tie from that alter to itself).
+ *
+ * @author juergen
+ *
+ */
+public class StatementBenchmarkTest extends
+		ActivityInstrumentationTestCase2<SCCMainActivity> {
+
+	private static final String LOG_TAG = "StatementBenchmark";
+	private static final int CALLS_PER_QUERY = 1000;
+
+	private PersonalNetwork network;
+
+	public StatementBenchmarkTest(){
+		super(SCCMainActivity.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		network = PersonalNetwork.getInstance(getActivity());
+	}
+
+	public void testCompiledStatements() throws Exception {
+		String alterName = network.getAnyCurrentAlter();
+		if(alterName == null){
+			Log.w(LOG_TAG, "the personal network has no current alter; nothing to measure");
+			return;
+		}
+		String alterID = (String) invoke("getAlterIDArg", new Class<?>[]{String.class}, alterName);
+		String timePoint = Long.toString(TimeInterval.getCurrentTimePoint().getStartTime());
+		String alterSelection = getConstant("ALTERS_COL_ID") + " = ?";
+		String attributeSelection = getConstant("ATTRIBUTES_COL_NAME") + " = ? AND " +
+				getConstant("ALTERS_COL_ID") + " = ?";
+		String historyTableName = getConstant("ALTERS_HISTORY_TABLE_NAME");
+		Class<?>[] columnAtTypes = {String.class, String.class, String.class, int.class};
+		StatementBenchmark benchmark = new StatementBenchmark(getDatabase(), CALLS_PER_QUERY);
+		try {
+			benchmark.run("hasTie", (String) invoke("getHasTieSQL", new Class<?>[0]),
+					new String[]{alterID, alterID});
+			benchmark.run("overlapsLifetime", (String) invoke("getOverlapsLifetimeSQL",
+					new Class<?>[]{String.class, String.class, int.class}, historyTableName, alterSelection, 1),
+					new String[]{alterID, timePoint, timePoint});
+			benchmark.run("getLifetimeDatumIDAt", (String) invoke("getColumnAtSQL", columnAtTypes,
+					getConstant("COL_DATUM_ID"), historyTableName, alterSelection, 1),
+					new String[]{alterID, timePoint});
+			LinkedHashSet<String> attributeNames = network.getAttributeNames(PersonalNetwork.DOMAIN_ALTER);
+			if(!attributeNames.isEmpty()){
+				String attributeName = attributeNames.iterator().next();
+				String tableName = (String) invoke("getAttributeValuesTableNameForDomain",
+						new Class<?>[]{String.class}, PersonalNetwork.DOMAIN_ALTER);
+				String valueSQL = (String) invoke("getDecodedValueSQL",
+						new Class<?>[]{String.class, String.class}, tableName, tableName);
+				benchmark.run("getAttributeValueAt", (String) invoke("getColumnAtSQL", columnAtTypes,
+						valueSQL, tableName, attributeSelection, 2),
+						new String[]{attributeName, alterID, timePoint});
+			}
+		} finally {
+			benchmark.close();
+		}
+		for(String line : benchmark.getReport().split("\n")){
+			Log.i(LOG_TAG, line);
+		}
+	}
+
+	/*
+	 * Returns the database of the personal network.
+	 */
+	private SQLiteDatabase getDatabase() throws Exception {
+		Field field = PersonalNetwork.class.getDeclaredField("db");
+		field.setAccessible(true);
+		return (SQLiteDatabase) field.get(network);
+	}
+
+	/*
+	 * Returns the value of a (non-public) string constant of PersonalNetwork.
+	 */
+	private String getConstant(String name) throws Exception {
+		Field field = PersonalNetwork.class.getDeclaredField(name);
+		field.setAccessible(true);
+		return (String) field.get(null);
+	}
+
+	/*
+	 * Invokes a (non-public) method of the personal network.
+	 */
+	private Object invoke(String methodName, Class<?>[] parameterTypes, Object... args) throws Exception {
+		Method method = PersonalNetwork.class.getDeclaredMethod(methodName, parameterTypes);
+		method.setAccessible(true);
+		return method.invoke(network, args);
+	}
+}